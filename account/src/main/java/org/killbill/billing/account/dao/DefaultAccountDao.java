@@ -49,7 +49,9 @@ import org.killbill.billing.util.cache.Cachable.CacheType;
 import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.definition.SearchConfig;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.dao.SearchTokens;
 import org.killbill.billing.util.dao.TableName;
 import org.killbill.billing.util.entity.DefaultPagination;
 import org.killbill.billing.util.entity.Pagination;
@@ -78,6 +80,7 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
     private final KillbillFeatures killbillFeatures;
     private final InternalCallContextFactory internalCallContextFactory;
     private final AuditDao auditDao;
+    private final SearchConfig searchConfig;
 
     @Inject
     public DefaultAccountDao(final IDBI dbi,
@@ -88,13 +91,15 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
                              final CacheControllerDispatcher cacheControllerDispatcher,
                              final InternalCallContextFactory internalCallContextFactory,
                              final NonEntityDao nonEntityDao,
-                             final AuditDao auditDao) {
-        super(nonEntityDao, cacheControllerDispatcher, new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory), AccountSqlDao.class);
+                             final AuditDao auditDao,
+                             final SearchConfig searchConfig) {
+        super(nonEntityDao, cacheControllerDispatcher, new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, searchConfig), AccountSqlDao.class);
         this.accountImmutableCacheController = cacheControllerDispatcher.getCacheController(CacheType.ACCOUNT_IMMUTABLE);
         this.eventBus = eventBus;
         this.internalCallContextFactory = internalCallContextFactory;
         this.killbillFeatures = killbillFeatures;
         this.auditDao = auditDao;
+        this.searchConfig = searchConfig;
     }
 
     @Override
@@ -167,18 +172,20 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
                                                           accountModelDao == null ? Collections.emptyIterator() : List.of(accountModelDao).iterator());
         }
 
-        // Otherwise, we pretty much need to do a full table scan (leading % in the like clause).
+        // Otherwise, we pretty much need to do a full table scan (leading % in the like clause), unless the search token index can be used.
         // Note: forcing MySQL to search indexes (like luckySearch above) doesn't always seem to help on large tables, especially with large offsets
+        final String likeSearchKey = String.format("%%%s%%", searchKey);
+        final String tokenSearchKey = SearchTokens.toTokenSearchKey(searchConfig, searchKey);
         return paginationHelper.getPagination(AccountSqlDao.class,
                                               new PaginationIteratorBuilder<AccountModelDao, Account, AccountSqlDao>() {
                                                   @Override
                                                   public Long getCount(final AccountSqlDao accountSqlDao, final InternalTenantContext context) {
-                                                      return accountSqlDao.getSearchCount(searchKey, String.format("%%%s%%", searchKey), context);
+                                                      return tokenSearchKey == null ? accountSqlDao.getSearchCount(searchKey, likeSearchKey, context) : accountSqlDao.getIndexedSearchCount(searchKey, likeSearchKey, tokenSearchKey, context);
                                                   }
 
                                                   @Override
                                                   public Iterator<AccountModelDao> build(final AccountSqlDao accountSqlDao, final Long offset, final Long limit, final Ordering ordering, final InternalTenantContext context) {
-                                                      return accountSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, ordering.toString(), context);
+                                                      return tokenSearchKey == null ? accountSqlDao.search(searchKey, likeSearchKey, offset, limit, ordering.toString(), context) : accountSqlDao.indexedSearch(searchKey, likeSearchKey, tokenSearchKey, offset, limit, ordering.toString(), context);
                                                   }
                                               },
                                               offset,
@@ -198,7 +205,7 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
 
     @Override
     public void update(final AccountModelDao specifiedAccount, final boolean treatNullValueAsReset, final InternalCallContext context) throws AccountApiException {
-        transactionalSqlDao.execute(false, AccountApiException.class, entitySqlDaoWrapperFactory -> {
+        final Long accountRecordId = transactionalSqlDao.execute(false, AccountApiException.class, entitySqlDaoWrapperFactory -> {
             final AccountSqlDao transactional = entitySqlDaoWrapperFactory.become(AccountSqlDao.class);
 
             final UUID accountId = specifiedAccount.getId();
@@ -238,8 +245,10 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
                 log.warn("Failed to post account change event for accountId='{}'", accountId, e);
             }
 
-            return null;
+            return currentAccount.getRecordId();
         });
+        // The time zone can be set after the account creation: invalidate the account-immutable cache only after the transaction has been committed
+        accountImmutableCacheController.remove(accountRecordId);
     }
 
     @Override
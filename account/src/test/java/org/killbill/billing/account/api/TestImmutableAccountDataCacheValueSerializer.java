@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.account.api;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.killbill.billing.account.AccountTestSuiteNoDB;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.util.cache.CacheValueSerializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestImmutableAccountDataCacheValueSerializer extends AccountTestSuiteNoDB {
+
+    private final CacheValueSerializer serializer = new CacheValueSerializer(TestImmutableAccountDataCacheValueSerializer.class.getClassLoader(), 1024);
+
+    @Test(groups = "fast")
+    public void testRoundTrip() throws Exception {
+        final DateTimeZone timeZone = DateTimeZone.forID("America/Los_Angeles");
+        final DateTime referenceTime = new DateTime(2023, 3, 12, 10, 30, 15, 123, timeZone);
+        final DefaultImmutableAccountData accountData = new DefaultImmutableAccountData(UUID.randomUUID(),
+                                                                                        "\u00e9xternal-key",
+                                                                                        Currency.EUR,
+                                                                                        timeZone,
+                                                                                        DateTimeZone.forOffsetHours(-8),
+                                                                                        referenceTime);
+        final DefaultImmutableAccountData copy = checkRoundTrip(accountData);
+        Assert.assertEquals(copy.getId(), accountData.getId());
+        Assert.assertEquals(copy.getExternalKey(), accountData.getExternalKey());
+        Assert.assertEquals(copy.getCurrency(), Currency.EUR);
+        Assert.assertEquals(copy.getTimeZone(), timeZone);
+        Assert.assertEquals(copy.getFixedOffsetTimeZone(), DateTimeZone.forOffsetHours(-8));
+        Assert.assertEquals(copy.getReferenceTime().compareTo(referenceTime), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testRoundTripWithoutCurrency() throws Exception {
+        final DefaultImmutableAccountData accountData = new DefaultImmutableAccountData(UUID.randomUUID(),
+                                                                                        "external-key",
+                                                                                        null,
+                                                                                        DateTimeZone.UTC,
+                                                                                        DateTimeZone.UTC,
+                                                                                        clock.getUTCNow());
+        final DefaultImmutableAccountData copy = checkRoundTrip(accountData);
+        Assert.assertNull(copy.getCurrency());
+    }
+
+    private DefaultImmutableAccountData checkRoundTrip(final DefaultImmutableAccountData accountData) throws Exception {
+        final Object copy = serializer.deserialize(serializer.serialize(accountData));
+        Assert.assertNotSame(copy, accountData);
+        Assert.assertEquals(copy.getClass(), DefaultImmutableAccountData.class);
+        Assert.assertEquals(copy, accountData);
+        return (DefaultImmutableAccountData) copy;
+    }
+}
@@ -33,6 +33,7 @@ import org.killbill.billing.account.api.AccountEmail;
 import org.killbill.billing.account.api.DefaultAccount;
 import org.killbill.billing.account.api.DefaultAccountEmail;
 import org.killbill.billing.account.api.DefaultMutableAccountData;
+import org.killbill.billing.account.api.ImmutableAccountData;
 import org.killbill.billing.account.api.MutableAccountData;
 import org.killbill.billing.mock.MockAccountBuilder;
 import org.killbill.billing.util.api.AuditLevel;
@@ -43,6 +44,8 @@ import org.killbill.billing.util.audit.AuditLog;
 import org.killbill.billing.util.audit.AuditLogWithHistory;
 import org.killbill.billing.util.audit.ChangeType;
 import org.killbill.billing.util.audit.DefaultAccountAuditLogs;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
 import org.killbill.commons.utils.collect.Iterables;
 import org.killbill.billing.util.customfield.dao.CustomFieldModelDao;
 import org.killbill.billing.util.dao.TableName;
@@ -273,6 +276,23 @@ public class TestAccountDao extends AccountTestSuiteWithEmbeddedDB {
         Assert.assertEquals(history3.getLocale(), retrievedAccount2.getLocale());
     }
 
+    @Test(groups = "slow", description = "Test Account DAO: update invalidates the account-immutable cache")
+    public void testUpdateInvalidatesImmutableAccountCache() throws Exception {
+        final AccountModelDao account = createTestAccount();
+        accountDao.create(account, internalCallContext);
+        refreshCallContext(account.getId());
+
+        final CacheController<Long, ImmutableAccountData> accountImmutableCacheController = controllerDispatcher.getCacheController(CacheType.ACCOUNT_IMMUTABLE);
+        Assert.assertTrue(accountImmutableCacheController.isKeyInCache(internalCallContext.getAccountRecordId()));
+
+        final AccountData accountData = new MockAccountBuilder(new DefaultAccount(account)).locale("FR-CA")
+                                                                                           .build();
+        accountDao.update(new AccountModelDao(account.getId(), accountData), true, internalCallContext);
+
+        // The time zone can be set after the account creation, the next lookup needs to go to the database
+        Assert.assertFalse(accountImmutableCacheController.isKeyInCache(internalCallContext.getAccountRecordId()));
+    }
+
     @Test(groups = "slow", description = "Test Account DAO: payment method update")
     public void testUpdatePaymentMethod() throws Exception {
         final AccountModelDao account = createTestAccount();
@@ -30,4 +30,7 @@ public interface ResourceBundleFactory {
     }
 
     public ResourceBundle createBundle(Locale locale, String bundlePath, ResourceBundleType type, InternalTenantContext tenantContext);
+
+    // Invoked when the tenant translations for that type have changed
+    public void invalidateBundles(ResourceBundleType type, InternalTenantContext tenantContext);
 }
@@ -28,4 +28,7 @@ import org.killbill.billing.usage.api.RawUsageRecord;
 public interface InternalUserApi {
 
     public List<RawUsageRecord> getRawUsageForAccount(DateTime stateDate, DateTime endDate, DryRunInfo dryRunInfo, final Iterable<PluginProperty> pluginProperties, InternalTenantContext tenantContext);
+
+    // Same as getRawUsageForAccount, but the usage is read lazily, subscription by subscription, instead of being loaded in memory
+    public RawUsageReader getRawUsageReaderForAccount(DateTime stateDate, DateTime endDate, DryRunInfo dryRunInfo, final Iterable<PluginProperty> pluginProperties, InternalTenantContext tenantContext);
 }
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.usage;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.usage.api.RawUsageRecord;
+
+// Per-subscription access to the raw usage of an account (see InternalUserApi#getRawUsageReaderForAccount)
+public interface RawUsageReader {
+
+    // Raw usage of that subscription between startDate and endDate (inclusive, within the range of the account reader), ordered by
+    // record date and unit type. Each iteration may stream the records from the database: the underlying resources are released
+    // once the iterator is exhausted or closed (see java.io.Closeable)
+    public Iterable<RawUsageRecord> getRawUsageForSubscription(UUID subscriptionId, DateTime startDate, DateTime endDate);
+}
@@ -1353,6 +1353,36 @@ public class TestIntegrationBase extends BeatrixTestSuiteWithEmbeddedDB implemen
             return defaultInvoiceConfig.getMaxGlobalLockRetries();
         }
 
+        @Override
+        public boolean isParentInvoiceBatchConsolidationEnabled() {
+            return defaultInvoiceConfig.isParentInvoiceBatchConsolidationEnabled();
+        }
+
+        @Override
+        public int getParentInvoiceConsolidationMaxBatchSize() {
+            return defaultInvoiceConfig.getParentInvoiceConsolidationMaxBatchSize();
+        }
+
+        @Override
+        public int getItemGenerationParallelism() {
+            return defaultInvoiceConfig.getItemGenerationParallelism();
+        }
+
+        @Override
+        public int getItemGenerationMinSubscriptionsForParallelism() {
+            return defaultInvoiceConfig.getItemGenerationMinSubscriptionsForParallelism();
+        }
+
+        @Override
+        public boolean isIncrementalGenerationEnabled() {
+            return defaultInvoiceConfig.isIncrementalGenerationEnabled();
+        }
+
+        @Override
+        public int getIncrementalGenerationFullReconciliationRuns() {
+            return defaultInvoiceConfig.getIncrementalGenerationFullReconciliationRuns();
+        }
+
         @Override
         public List<String> getInvoicePluginNames() {
             return defaultInvoiceConfig.getInvoicePluginNames();
@@ -1363,6 +1393,26 @@ public class TestIntegrationBase extends BeatrixTestSuiteWithEmbeddedDB implemen
             return defaultInvoiceConfig.getInvoicePluginNames();
         }
 
+        @Override
+        public List<String> getOrderIndependentInvoicePluginNames() {
+            return defaultInvoiceConfig.getOrderIndependentInvoicePluginNames();
+        }
+
+        @Override
+        public List<String> getOrderIndependentInvoicePluginNames(final InternalTenantContext tenantContext) {
+            return defaultInvoiceConfig.getOrderIndependentInvoicePluginNames();
+        }
+
+        @Override
+        public int getInvoicePluginParallelism() {
+            return defaultInvoiceConfig.getInvoicePluginParallelism();
+        }
+
+        @Override
+        public TimeSpan getInvoicePluginParallelTimeout() {
+            return defaultInvoiceConfig.getInvoicePluginParallelTimeout();
+        }
+
         @Override
         public boolean isEmailNotificationsEnabled() {
             return defaultInvoiceConfig.isEmailNotificationsEnabled();
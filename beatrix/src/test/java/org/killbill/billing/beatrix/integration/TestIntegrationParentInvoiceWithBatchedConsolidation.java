@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.beatrix.integration;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.account.api.Account;
+import org.killbill.billing.api.TestApiListener.NextEvent;
+import org.killbill.billing.catalog.api.BillingPeriod;
+import org.killbill.billing.catalog.api.ProductCategory;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.api.InvoiceItemType;
+import org.killbill.billing.invoice.api.InvoiceStatus;
+import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+// Same scenarios as TestIntegrationParentInvoice, with child invoices folded into the parent draft invoice in batches
+public class TestIntegrationParentInvoiceWithBatchedConsolidation extends TestIntegrationParentInvoice {
+
+    @Override
+    protected KillbillConfigSource getConfigSource(final Map<String, String> extraProperties) {
+        final Map<String, String> allExtraProperties = new HashMap<String, String>(extraProperties);
+        allExtraProperties.put("org.killbill.invoice.parent.consolidation.batched", "true");
+        allExtraProperties.put("org.killbill.invoice.parent.consolidation.maxBatchSize", "2");
+        return super.getConfigSource(allExtraProperties);
+    }
+
+    @Test(groups = "slow")
+    public void testParentInvoiceGenerationWithMoreChildrenThanBatchSize() throws Exception {
+
+        final int billingDay = 14;
+        final DateTime initialCreationDate = new DateTime(2015, 5, 15, 0, 0, 0, 0, testTimeZone);
+        // set clock to the initial start date
+        clock.setTime(initialCreationDate);
+
+        final Account parentAccount = createAccountWithNonOsgiPaymentMethod(getAccountData(billingDay));
+        final Account child1Account = createAccountWithNonOsgiPaymentMethod(getChildAccountData(billingDay, parentAccount.getId(), true));
+        final Account child2Account = createAccountWithNonOsgiPaymentMethod(getChildAccountData(billingDay, parentAccount.getId(), true));
+        final Account child3Account = createAccountWithNonOsgiPaymentMethod(getChildAccountData(billingDay, parentAccount.getId(), true));
+
+        createBaseEntitlementAndCheckForCompletion(child1Account.getId(), "bundleKey1", "Shotgun", ProductCategory.BASE, BillingPeriod.MONTHLY, NextEvent.CREATE, NextEvent.BLOCK, NextEvent.INVOICE);
+        createBaseEntitlementAndCheckForCompletion(child2Account.getId(), "bundleKey2", "Pistol", ProductCategory.BASE, BillingPeriod.MONTHLY, NextEvent.CREATE, NextEvent.BLOCK, NextEvent.INVOICE);
+        createBaseEntitlementAndCheckForCompletion(child3Account.getId(), "bundleKey3", "Pistol", ProductCategory.BASE, BillingPeriod.MONTHLY, NextEvent.CREATE, NextEvent.BLOCK, NextEvent.INVOICE);
+
+        // One parent invoice over TRIAL period, with one summary item per child
+        List<Invoice> parentInvoices = invoiceUserApi.getInvoicesByAccount(parentAccount.getId(), false, false, true, callContext);
+        assertEquals(parentInvoices.size(), 1);
+        assertEquals(parentInvoices.get(0).getNumberOfItems(), 3);
+        assertEquals(parentInvoices.get(0).getStatus(), InvoiceStatus.DRAFT);
+
+        // Moving a day the NotificationQ calls the commitInvoice. No payment is expected
+        busHandler.pushExpectedEvents(NextEvent.INVOICE);
+        clock.addDays(1);
+        assertListenerStatus();
+
+        // All children are invoiced on the same day
+        busHandler.pushExpectedEvents(NextEvent.PHASE, NextEvent.PHASE, NextEvent.PHASE,
+                                      NextEvent.INVOICE, NextEvent.INVOICE, NextEvent.INVOICE);
+        clock.addDays(29);
+        assertListenerStatus();
+
+        parentInvoices = invoiceUserApi.getInvoicesByAccount(parentAccount.getId(), false, false, true, callContext);
+        assertEquals(parentInvoices.size(), 2);
+
+        Invoice parentInvoice = parentInvoices.get(1);
+        assertEquals(parentInvoice.getNumberOfItems(), 3);
+        assertEquals(parentInvoice.getStatus(), InvoiceStatus.DRAFT);
+        assertTrue(parentInvoice.isParentInvoice());
+        for (final InvoiceItem invoiceItem : parentInvoice.getInvoiceItems()) {
+            assertEquals(invoiceItem.getInvoiceItemType(), InvoiceItemType.PARENT_SUMMARY);
+        }
+
+        // Moving a day the NotificationQ calls the commitInvoice. Payment is expected.
+        busHandler.pushExpectedEvents(NextEvent.INVOICE, NextEvent.PAYMENT, NextEvent.INVOICE_PAYMENT);
+        clock.addDays(1);
+        assertListenerStatus();
+
+        parentInvoice = invoiceUserApi.getInvoice(parentInvoice.getId(), callContext);
+        assertEquals(parentInvoice.getStatus(), InvoiceStatus.COMMITTED);
+        assertEquals(parentInvoice.getBalance().compareTo(BigDecimal.ZERO), 0);
+        assertEquals(parentInvoice.getChargedAmount().compareTo(new BigDecimal("309.85")), 0);
+
+        // One summary item per child, matching its own invoice
+        final Map<UUID, BigDecimal> amountPerChild = new HashMap<UUID, BigDecimal>();
+        for (final InvoiceItem childInvoiceItem : invoiceUserApi.getInvoiceItemsByParentInvoice(parentInvoice.getId(), callContext)) {
+            assertEquals(amountPerChild.put(childInvoiceItem.getAccountId(), childInvoiceItem.getAmount()), null);
+        }
+        assertEquals(amountPerChild.size(), 3);
+        assertEquals(amountPerChild.get(child1Account.getId()).compareTo(new BigDecimal("249.95")), 0);
+        assertEquals(amountPerChild.get(child2Account.getId()).compareTo(new BigDecimal("29.95")), 0);
+        assertEquals(amountPerChild.get(child3Account.getId()).compareTo(new BigDecimal("29.95")), 0);
+
+        for (final Account childAccount : List.of(child1Account, child2Account, child3Account)) {
+            final List<Invoice> childInvoices = invoiceUserApi.getInvoicesByAccount(childAccount.getId(), false, false, true, callContext);
+            assertEquals(childInvoices.size(), 2);
+            assertEquals(childInvoices.get(1).getBalance().compareTo(BigDecimal.ZERO), 0);
+        }
+    }
+}
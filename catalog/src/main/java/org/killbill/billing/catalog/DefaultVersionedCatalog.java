@@ -27,10 +27,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
+import javax.annotation.Nullable;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -132,6 +134,20 @@ public class DefaultVersionedCatalog extends ValidatingConfig<DefaultVersionedCa
 
     @Override
     public ValidationErrors validate(final DefaultVersionedCatalog catalog, final ValidationErrors errors) {
+        return validateStaticCatalogs(null, errors);
+    }
+
+    //
+    // Same as #validate, when the catalog was valid before addedVersions were added (incremental reload): the existing
+    // versions aren't re-validated, only the added ones and their consistency with all the other versions are.
+    //
+    public ValidationErrors validateAddedVersions(final Collection<? extends StaticCatalog> addedVersions, final ValidationErrors errors) {
+        final Set<StaticCatalog> versionsToValidate = Collections.newSetFromMap(new IdentityHashMap<StaticCatalog, Boolean>());
+        versionsToValidate.addAll(addedVersions);
+        return validateStaticCatalogs(versionsToValidate, errors);
+    }
+
+    private ValidationErrors validateStaticCatalogs(@Nullable final Set<StaticCatalog> versionsToValidate, final ValidationErrors errors) {
         final Set<Date> effectiveDates = new TreeSet<Date>();
 
         for (final StaticCatalog c : versions) {
@@ -145,21 +161,28 @@ public class DefaultVersionedCatalog extends ValidatingConfig<DefaultVersionedCa
                 errors.add(new ValidationError(String.format("Catalog name '%s' is not consistent across versions ", c.getCatalogName()),
                                                DefaultVersionedCatalog.class, ""));
             }
-            ((StandaloneCatalog) c).validate((StandaloneCatalog) c, errors);
+            if (versionsToValidate == null || versionsToValidate.contains(c)) {
+                ((StandaloneCatalog) c).validate((StandaloneCatalog) c, errors);
+            }
         }
 
-        validateUniformPlanShapeAcrossVersions(errors);
+        validateUniformPlanShapeAcrossVersions(versionsToValidate, errors);
 
         return errors;
     }
 
-    private void validateUniformPlanShapeAcrossVersions(final ValidationErrors errors) {
+    private void validateUniformPlanShapeAcrossVersions(@Nullable final Set<StaticCatalog> versionsToValidate, final ValidationErrors errors) {
         for (int i = 0; i < versions.size(); i++) {
             final StaticCatalog c = versions.get(i);
+            final boolean shouldValidateC = versionsToValidate == null || versionsToValidate.contains(c);
             for (final Plan plan : ((StandaloneCatalog) c).getPlans()) {
 
                 for (int j = i + 1; j < versions.size(); j++) {
                     final StaticCatalog next = versions.get(j);
+                    if (!shouldValidateC && !versionsToValidate.contains(next)) {
+                        // Both versions were already validated against each other
+                        continue;
+                    }
                     final Plan targetPlan = ((StandaloneCatalog) next).getPlansMap().findByName(plan.getName());
                     if (targetPlan != null) {
                         validatePlanShape(plan, targetPlan, errors);
@@ -17,8 +17,17 @@
 
 package org.killbill.billing.catalog.caching;
 
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -55,6 +64,8 @@ public class DefaultCatalogCache implements CatalogCache {
 
     private final Logger logger = LoggerFactory.getLogger(DefaultCatalogCache.class);
 
+    private static final int MAX_LOADED_TENANT_CATALOGS = 1000;
+
     private final CacheController<Long, DefaultVersionedCatalog> cacheController;
     private final VersionedCatalogLoader loader;
     private final CacheLoaderArgument cacheLoaderArgumentWithTemplateFiltering;
@@ -63,6 +74,13 @@ public class DefaultCatalogCache implements CatalogCache {
     private final VersionedCatalogMapper versionedCatalogMapper;
     private final PriceOverride priceOverride;
     private final InternalCallContextFactory internalCallContextFactory;
+    // Per tenant, what the last catalog was loaded from, to support incremental reloads (see LoadedTenantCatalog)
+    private final Map<Long, LoadedTenantCatalog> loadedTenantCatalogs = Collections.synchronizedMap(new LinkedHashMap<Long, LoadedTenantCatalog>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Long, LoadedTenantCatalog> eldest) {
+            return size() > MAX_LOADED_TENANT_CATALOGS;
+        }
+    });
     private VersionedCatalog defaultCatalog;
 
     @Inject
@@ -138,6 +156,11 @@ public class DefaultCatalogCache implements CatalogCache {
     @Override
     public void clearCatalog(final InternalTenantContext tenantContext) {
         if (!InternalCallContextFactory.INTERNAL_TENANT_RECORD_ID.equals(tenantContext.getTenantRecordId())) {
+            // Keep the invalidated catalog around until the next reload, which can then be incremental
+            final LoadedTenantCatalog loadedTenantCatalog = loadedTenantCatalogs.get(tenantContext.getTenantRecordId());
+            if (loadedTenantCatalog != null) {
+                loadedTenantCatalog.pinUntilReload();
+            }
             cacheController.remove(tenantContext.getTenantRecordId());
         }
     }
@@ -191,11 +214,15 @@ public class DefaultCatalogCache implements CatalogCache {
 
     private void initializeCatalog(final VersionedCatalog tenantCatalog) {
         for (final StaticCatalog cur : tenantCatalog.getVersions()) {
-            if (cur instanceof StandaloneCatalogWithPriceOverride) {
-                ((StandaloneCatalogWithPriceOverride) cur).initialize((StandaloneCatalog) cur, priceOverride, internalCallContextFactory);
-            } else {
-                ((StandaloneCatalog) cur).initialize((StandaloneCatalog) cur);
-            }
+            initializeVersion(cur);
+        }
+    }
+
+    private void initializeVersion(final StaticCatalog cur) {
+        if (cur instanceof StandaloneCatalogWithPriceOverride) {
+            ((StandaloneCatalogWithPriceOverride) cur).initialize((StandaloneCatalog) cur, priceOverride, internalCallContextFactory);
+        } else {
+            ((StandaloneCatalog) cur).initialize((StandaloneCatalog) cur);
         }
     }
 
@@ -208,11 +235,7 @@ public class DefaultCatalogCache implements CatalogCache {
         final LoaderCallback loaderCallback = new LoaderCallback() {
             @Override
             public VersionedCatalog loadCatalog(final List<String> catalogXMLs, final Long tenantRecordId) throws CatalogApiException {
-                final VersionedCatalog versionedCatalog = loader.load(catalogXMLs, filterTemplateCatalog, tenantRecordId);
-                if (versionedCatalog != null) {
-                    initializeCatalog(versionedCatalog);
-                }
-                return versionedCatalog;
+                return DefaultCatalogCache.this.loadCatalog(catalogXMLs, filterTemplateCatalog, tenantRecordId);
             }
         };
         final Object[] args = new Object[1];
@@ -222,6 +245,98 @@ public class DefaultCatalogCache implements CatalogCache {
         return new CacheLoaderArgument(irrelevant, args, notUsed);
     }
 
+    //
+    // Uploading a new catalog version only appends a catalog XML for the tenant: in that case, we re-use the versions we parsed the last time
+    // and only parse and validate the new XML(s). We fall back to a full reload when a catalog XML was deleted or modified, or when the
+    // incremental validation fails.
+    //
+    @VisibleForTesting
+    VersionedCatalog loadCatalog(final List<String> catalogXMLs, final boolean filterTemplateCatalog, final Long tenantRecordId) throws CatalogApiException {
+        final List<ByteBuffer> catalogXMLDigests = computeDigests(catalogXMLs);
+
+        final LoadedTenantCatalog previouslyLoaded = loadedTenantCatalogs.remove(tenantRecordId);
+        final DefaultVersionedCatalog previousCatalog = previouslyLoaded != null ? previouslyLoaded.getCatalog() : null;
+        if (previousCatalog != null && previouslyLoaded.isPrefixOf(catalogXMLDigests, filterTemplateCatalog)) {
+            final int nbExistingXMLs = previouslyLoaded.catalogXMLDigests.size();
+            if (nbExistingXMLs == catalogXMLs.size()) {
+                loadedTenantCatalogs.put(tenantRecordId, new LoadedTenantCatalog(filterTemplateCatalog, catalogXMLDigests, previousCatalog));
+                return previousCatalog;
+            }
+
+            try {
+                final DefaultVersionedCatalog versionedCatalog = loader.loadAddedVersions(previousCatalog, catalogXMLs.subList(nbExistingXMLs, catalogXMLs.size()), filterTemplateCatalog, tenantRecordId);
+                final Set<StaticCatalog> existingVersions = Collections.newSetFromMap(new IdentityHashMap<StaticCatalog, Boolean>());
+                existingVersions.addAll(previousCatalog.getVersions());
+                for (final StaticCatalog cur : versionedCatalog.getVersions()) {
+                    if (!existingVersions.contains(cur)) {
+                        initializeVersion(cur);
+                    }
+                }
+                logger.info("Loaded {} new catalog version(s) for tenantRecordId='{}'", catalogXMLs.size() - nbExistingXMLs, tenantRecordId);
+                loadedTenantCatalogs.put(tenantRecordId, new LoadedTenantCatalog(filterTemplateCatalog, catalogXMLDigests, versionedCatalog));
+                return versionedCatalog;
+            } catch (final CatalogApiException e) {
+                logger.warn("Failed to incrementally load catalog for tenantRecordId='{}', reloading all versions", tenantRecordId);
+            }
+        }
+
+        final VersionedCatalog versionedCatalog = loader.load(catalogXMLs, filterTemplateCatalog, tenantRecordId);
+        if (versionedCatalog != null) {
+            initializeCatalog(versionedCatalog);
+            if (versionedCatalog instanceof DefaultVersionedCatalog) {
+                loadedTenantCatalogs.put(tenantRecordId, new LoadedTenantCatalog(filterTemplateCatalog, catalogXMLDigests, (DefaultVersionedCatalog) versionedCatalog));
+            }
+        }
+        return versionedCatalog;
+    }
+
+    private static List<ByteBuffer> computeDigests(final List<String> catalogXMLs) {
+        final List<ByteBuffer> result = new ArrayList<ByteBuffer>(catalogXMLs.size());
+        for (final String catalogXML : catalogXMLs) {
+            try {
+                result.add(ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(catalogXML.getBytes(StandardCharsets.UTF_8))));
+            } catch (final NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return result;
+    }
+
+    //
+    // Catalog XMLs (digests) a tenant catalog was last loaded from. The catalog itself is only weakly referenced, so that it doesn't outlive
+    // the cache entry: it is only strongly referenced between the cache invalidation (see clearCatalog) and the next reload.
+    //
+    private static final class LoadedTenantCatalog {
+
+        private final boolean filterTemplateCatalog;
+        private final List<ByteBuffer> catalogXMLDigests;
+        private final WeakReference<DefaultVersionedCatalog> catalogRef;
+        private volatile DefaultVersionedCatalog pinnedCatalog;
+
+        private LoadedTenantCatalog(final boolean filterTemplateCatalog, final List<ByteBuffer> catalogXMLDigests, final DefaultVersionedCatalog catalog) {
+            this.filterTemplateCatalog = filterTemplateCatalog;
+            this.catalogXMLDigests = catalogXMLDigests;
+            this.catalogRef = new WeakReference<DefaultVersionedCatalog>(catalog);
+        }
+
+        // Null if the catalog was garbage collected (e.g. evicted from the cache)
+        private DefaultVersionedCatalog getCatalog() {
+            final DefaultVersionedCatalog catalog = pinnedCatalog;
+            return catalog != null ? catalog : catalogRef.get();
+        }
+
+        private void pinUntilReload() {
+            pinnedCatalog = catalogRef.get();
+        }
+
+        // True if the tenant catalog XMLs are the ones we loaded, plus possibly new ones
+        private boolean isPrefixOf(final List<ByteBuffer> otherCatalogXMLDigests, final boolean otherFilterTemplateCatalog) {
+            return filterTemplateCatalog == otherFilterTemplateCatalog &&
+                   catalogXMLDigests.size() <= otherCatalogXMLDigests.size() &&
+                   catalogXMLDigests.equals(otherCatalogXMLDigests.subList(0, catalogXMLDigests.size()));
+        }
+    }
+
     @VisibleForTesting
     void setDefaultCatalog() {
         try {
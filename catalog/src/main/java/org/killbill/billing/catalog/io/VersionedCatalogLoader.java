@@ -42,6 +42,7 @@ import org.killbill.billing.catalog.DefaultVersionedCatalog;
 import org.killbill.billing.catalog.StandaloneCatalog;
 import org.killbill.billing.catalog.StandaloneCatalogWithPriceOverride;
 import org.killbill.billing.catalog.api.CatalogApiException;
+import org.killbill.billing.catalog.api.StaticCatalog;
 import org.killbill.billing.catalog.api.VersionedCatalog;
 import org.killbill.billing.catalog.override.PriceOverride;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
@@ -50,6 +51,7 @@ import org.killbill.commons.concurrent.Executors;
 import org.killbill.commons.utils.io.Resources;
 import org.killbill.xmlloader.UriAccessor;
 import org.killbill.xmlloader.ValidationError;
+import org.killbill.xmlloader.ValidationErrors;
 import org.killbill.xmlloader.ValidationException;
 import org.killbill.xmlloader.XMLLoader;
 import org.slf4j.Logger;
@@ -123,24 +125,9 @@ public class VersionedCatalogLoader implements CatalogLoader, Closeable {
 
     public VersionedCatalog load(final Collection<String> catalogXMLs, final boolean filterTemplateCatalog, final Long tenantRecordId) throws CatalogApiException {
         try {
-            final Collection<Future<StandaloneCatalog>> catalogs = new ArrayList<>(catalogXMLs.size());
-            for (final String cur : catalogXMLs) {
-                catalogs.add(executorService.submit(() -> {
-                    final InputStream curCatalogStream = new ByteArrayInputStream(cur.getBytes(StandardCharsets.UTF_8));
-                    final StandaloneCatalog catalog = XMLLoader.getObjectFromStream(curCatalogStream, StandaloneCatalog.class);
-                    if (!filterTemplateCatalog || !catalog.isTemplateCatalog()) {
-                        return new StandaloneCatalogWithPriceOverride(catalog, priceOverride, tenantRecordId, internalCallContextFactory);
-                    }
-                    return null;
-                }));
-            }
-
             final DefaultVersionedCatalog result = new DefaultVersionedCatalog();
-            for (final Future<StandaloneCatalog> standaloneCatalogFuture : catalogs) {
-                final StandaloneCatalog catalog = standaloneCatalogFuture.get();
-                if (catalog != null) {
-                    result.add(catalog);
-                }
+            for (final StandaloneCatalog catalog : parseCatalogs(catalogXMLs, filterTemplateCatalog, tenantRecordId)) {
+                result.add(catalog);
             }
 
             XMLLoader.initializeAndValidate(result);
@@ -160,6 +147,65 @@ public class VersionedCatalogLoader implements CatalogLoader, Closeable {
         }
     }
 
+    //
+    // Incremental version of #load, when new catalog versions were uploaded: the versions of the existing (valid) catalog are re-used as-is,
+    // only the added XMLs are parsed and validated against them. The existing catalog isn't modified.
+    //
+    public DefaultVersionedCatalog loadAddedVersions(final DefaultVersionedCatalog existingCatalog, final Collection<String> addedCatalogXMLs, final boolean filterTemplateCatalog, final Long tenantRecordId) throws CatalogApiException {
+        try {
+            final List<StandaloneCatalog> addedVersions = parseCatalogs(addedCatalogXMLs, filterTemplateCatalog, tenantRecordId);
+
+            final DefaultVersionedCatalog result = new DefaultVersionedCatalog();
+            for (final StaticCatalog cur : existingCatalog.getVersions()) {
+                result.add((StandaloneCatalog) cur);
+            }
+            for (final StandaloneCatalog cur : addedVersions) {
+                result.add(cur);
+            }
+
+            result.initialize(result);
+            final ValidationErrors errors = result.validateAddedVersions(addedVersions, new ValidationErrors());
+            if (!errors.isEmpty()) {
+                logger.warn("Failed to load added catalog versions for tenantRecordId='{}'", tenantRecordId);
+                for (final ValidationError ve : errors) {
+                    logger.warn(ve.toString());
+                }
+                throw new CatalogApiException(ErrorCode.CAT_INVALID_FOR_TENANT, tenantRecordId);
+            }
+            return result;
+        } catch (final InterruptedException e) {
+            logger.warn("Failed to load added catalog versions for tenantRecordId='{}'", tenantRecordId, e);
+            throw new CatalogApiException(e, ErrorCode.CAT_INVALID_FOR_TENANT, tenantRecordId);
+        } catch (final ExecutionException e) {
+            logger.warn("Failed to load added catalog versions for tenantRecordId='{}'", tenantRecordId, e);
+            throw new CatalogApiException(e, ErrorCode.CAT_INVALID_FOR_TENANT, tenantRecordId);
+        }
+    }
+
+    // Parse (and validate) each XML in parallel, the resulting list is ordered as catalogXMLs (template catalogs being optionally skipped)
+    private List<StandaloneCatalog> parseCatalogs(final Collection<String> catalogXMLs, final boolean filterTemplateCatalog, final Long tenantRecordId) throws InterruptedException, ExecutionException {
+        final Collection<Future<StandaloneCatalog>> catalogs = new ArrayList<>(catalogXMLs.size());
+        for (final String cur : catalogXMLs) {
+            catalogs.add(executorService.submit(() -> {
+                final InputStream curCatalogStream = new ByteArrayInputStream(cur.getBytes(StandardCharsets.UTF_8));
+                final StandaloneCatalog catalog = XMLLoader.getObjectFromStream(curCatalogStream, StandaloneCatalog.class);
+                if (!filterTemplateCatalog || !catalog.isTemplateCatalog()) {
+                    return new StandaloneCatalogWithPriceOverride(catalog, priceOverride, tenantRecordId, internalCallContextFactory);
+                }
+                return null;
+            }));
+        }
+
+        final List<StandaloneCatalog> result = new ArrayList<>(catalogXMLs.size());
+        for (final Future<StandaloneCatalog> standaloneCatalogFuture : catalogs) {
+            final StandaloneCatalog catalog = standaloneCatalogFuture.get();
+            if (catalog != null) {
+                result.add(catalog);
+            }
+        }
+        return result;
+    }
+
     protected List<URI> findXmlReferences(final String directoryContents, final URL url) throws URISyntaxException {
         if (url.getProtocol().equals(PROTOCOL_FOR_FILE)) {
             return findXmlFileReferences(directoryContents, url);
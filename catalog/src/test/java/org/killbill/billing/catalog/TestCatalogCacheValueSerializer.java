@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.catalog;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.catalog.api.Plan;
+import org.killbill.billing.catalog.api.PlanPhasePriceOverride;
+import org.killbill.billing.catalog.api.PlanPhasePriceOverridesWithCallContext;
+import org.killbill.billing.catalog.api.PlanSpecifier;
+import org.killbill.billing.catalog.api.StaticCatalog;
+import org.killbill.billing.util.cache.CacheValueSerializer;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+// Catalog values are Externalizable: they are cached by class name, without going through Java serialization
+public class TestCatalogCacheValueSerializer extends CatalogTestSuiteWithEmbeddedDB {
+
+    private final CacheValueSerializer serializer = new CacheValueSerializer(TestCatalogCacheValueSerializer.class.getClassLoader(), 1024);
+
+    @Test(groups = "slow")
+    public void testStandaloneCatalog() throws Exception {
+        final StandaloneCatalog catalog = getCatalog("SpyCarAdvanced.xml");
+
+        final StandaloneCatalog copy = roundTrip(catalog);
+        Assert.assertEquals(copy, catalog);
+
+        // Same post-processing as DefaultCatalogCache
+        copy.initialize(copy);
+        checkPlan(copy.findPlan("standard-monthly"), catalog.findPlan("standard-monthly"));
+    }
+
+    @Test(groups = "slow")
+    public void testVersionedCatalog() throws Exception {
+        final StandaloneCatalog catalog = getCatalog("SpyCarAdvanced.xml");
+        final StandaloneCatalogWithPriceOverride catalogWithPriceOverride = new StandaloneCatalogWithPriceOverride(catalog,
+                                                                                                                  priceOverride,
+                                                                                                                  internalCallContext.getTenantRecordId(),
+                                                                                                                  internalCallContextFactory);
+        final DefaultVersionedCatalog versionedCatalog = new DefaultVersionedCatalog();
+        versionedCatalog.add(catalogWithPriceOverride);
+
+        final DefaultVersionedCatalog copy = roundTrip(versionedCatalog);
+        Assert.assertEquals(copy, versionedCatalog);
+        Assert.assertEquals(copy.getCatalogName(), versionedCatalog.getCatalogName());
+        Assert.assertEquals(copy.getVersions().size(), 1);
+
+        final StandaloneCatalogWithPriceOverride versionCopy = (StandaloneCatalogWithPriceOverride) copy.getVersions().get(0);
+        Assert.assertEquals(versionCopy.getTenantRecordId(), internalCallContext.getTenantRecordId());
+        Assert.assertEquals(versionCopy.getEffectiveDate(), catalog.getEffectiveDate());
+
+        // Same post-processing as DefaultCatalogCache
+        versionCopy.initialize(versionCopy, priceOverride, internalCallContextFactory);
+        checkPlan(versionCopy.findPlan("standard-monthly"), catalog.findPlan("standard-monthly"));
+    }
+
+    @Test(groups = "slow")
+    public void testOverriddenPlan() throws Exception {
+        final StandaloneCatalog catalog = getCatalog("SpyCarAdvanced.xml");
+        final StaticCatalog catalogWithPriceOverride = new StandaloneCatalogWithPriceOverride(catalog,
+                                                                                              priceOverride,
+                                                                                              internalCallContext.getTenantRecordId(),
+                                                                                              internalCallContextFactory);
+
+        final PlanPhasePriceOverridesWithCallContext overrides = Mockito.mock(PlanPhasePriceOverridesWithCallContext.class);
+        Mockito.when(overrides.getCallContext()).thenReturn(callContext);
+        final PlanPhasePriceOverride override = new DefaultPlanPhasePriceOverride("standard-monthly-evergreen", Currency.USD, null, BigDecimal.ONE, Collections.emptyList());
+        Mockito.when(overrides.getOverrides()).thenReturn(List.of(override));
+        final DefaultPlan plan = (DefaultPlan) catalogWithPriceOverride.createOrFindPlan(new PlanSpecifier("standard-monthly"), overrides);
+        Assert.assertTrue(priceOverridePattern.isOverriddenPlan(plan.getName()));
+
+        final DefaultPlan copy = roundTrip(plan);
+        Assert.assertEquals(copy, plan);
+
+        // Same post-processing as DefaultOverriddenPlanCache
+        copy.initialize(catalog);
+        checkPlan(copy, plan);
+        Assert.assertEquals(copy.getPriceList().getName(), plan.getPriceList().getName());
+        Assert.assertEquals(copy.getFinalPhase().getRecurring().getRecurringPrice().getPrice(Currency.USD).compareTo(BigDecimal.ONE), 0);
+    }
+
+    private void checkPlan(final Plan copy, final Plan plan) throws Exception {
+        Assert.assertEquals(copy.getName(), plan.getName());
+        Assert.assertEquals(copy.getProduct().getName(), plan.getProduct().getName());
+        Assert.assertEquals(copy.getAllPhases().length, plan.getAllPhases().length);
+        Assert.assertEquals(copy.getFinalPhase().getName(), plan.getFinalPhase().getName());
+        Assert.assertEquals(copy.getFinalPhase().getRecurring().getRecurringPrice().getPrice(Currency.USD).compareTo(plan.getFinalPhase().getRecurring().getRecurringPrice().getPrice(Currency.USD)), 0);
+        Assert.assertNotNull(copy.getCatalog());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T roundTrip(final T value) throws Exception {
+        final byte[] bytes = serializer.serialize(value);
+        final Object copy = serializer.deserialize(bytes);
+        Assert.assertNotSame(copy, value);
+        Assert.assertEquals(copy.getClass(), value.getClass());
+        return (T) copy;
+    }
+}
@@ -28,6 +28,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.joda.time.DateTime;
+import org.killbill.billing.ErrorCode;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.CatalogTestSuiteNoDB;
@@ -183,4 +185,47 @@ public class TestDefaultCatalogCache extends CatalogTestSuiteNoDB {
         // Verify the lookup with the other tenant
         Assert.assertEquals(catalogCache.getCatalog(true, true, false, otherMultiTenantContext), otherResult);
     }
+
+    @Test(groups = "fast")
+    public void testIncrementalTenantCatalogLoad() throws Exception {
+        final DefaultCatalogCache defaultCatalogCache = (DefaultCatalogCache) catalogCache;
+        final Long tenantRecordId = 33445566L;
+
+        final String v1 = readCatalogXML("org/killbill/billing/catalog/versionedCatalog/WeaponsHireSmall-1.xml");
+        final String v2 = readCatalogXML("org/killbill/billing/catalog/versionedCatalog/WeaponsHireSmall-2.xml");
+        final String v3 = readCatalogXML("org/killbill/billing/catalog/versionedCatalog/WeaponsHireSmall-3.xml");
+
+        final VersionedCatalog initial = defaultCatalogCache.loadCatalog(List.of(v1, v2), true, tenantRecordId);
+        Assert.assertEquals(initial.getVersions().size(), 2);
+
+        // New version uploaded: existing versions are re-used
+        final VersionedCatalog withNewVersion = defaultCatalogCache.loadCatalog(List.of(v1, v2, v3), true, tenantRecordId);
+        Assert.assertEquals(withNewVersion.getVersions().size(), 3);
+        Assert.assertSame(withNewVersion.getVersions().get(0), initial.getVersions().get(0));
+        Assert.assertSame(withNewVersion.getVersions().get(1), initial.getVersions().get(1));
+        Assert.assertEquals(withNewVersion.getCurrentVersion().getEffectiveDate(), new DateTime("2011-03-03T00:00:00+00:00").toDate());
+        // Same result as a full load
+        Assert.assertEquals(withNewVersion, loader.load(List.of(v1, v2, v3), true, tenantRecordId));
+
+        // Nothing changed
+        Assert.assertSame(defaultCatalogCache.loadCatalog(List.of(v1, v2, v3), true, tenantRecordId), withNewVersion);
+
+        // Version deleted: full reload
+        final VersionedCatalog withDeletedVersion = defaultCatalogCache.loadCatalog(List.of(v1, v3), true, tenantRecordId);
+        Assert.assertEquals(withDeletedVersion.getVersions().size(), 2);
+        Assert.assertNotSame(withDeletedVersion.getVersions().get(0), initial.getVersions().get(0));
+
+        // Invalid new version (duplicate effective date): rejected, as with a full load
+        try {
+            defaultCatalogCache.loadCatalog(List.of(v1, v3, v3), true, tenantRecordId);
+            Assert.fail();
+        } catch (final CatalogApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.CAT_INVALID_FOR_TENANT.getCode());
+        }
+    }
+
+    private String readCatalogXML(final String resourceName) throws URISyntaxException, IOException {
+        final InputStream inputCatalog = UriAccessor.accessUri(new URI(Resources.getResource(resourceName).toExternalForm()));
+        return CharStreams.toString(new InputStreamReader(inputCatalog, StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.junction.BillingEvent;
+import org.killbill.billing.junction.BillingEventSet;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.commons.utils.annotation.VisibleForTesting;
+
+//
+// Decides whether an invoice run can be restricted to the (dirty) subscriptions which triggered it: subscription transitions,
+// subscription or bundle blocking states and next billing dates (which carry the subscriptions to invoice) only impact
+// these subscriptions, while all other triggers (API calls, account level changes, rescheduled runs, ...) are full runs.
+//
+// A full run is also performed for the first run of an account (within this node) and after
+// InvoiceConfig#getIncrementalGenerationFullReconciliationRuns incremental runs, to reconcile all subscriptions and detect drift.
+//
+public class IncrementalInvoiceGeneration {
+
+    // Bounds the memory used by the counters: forgetting an account only means its next run will be a full one
+    @VisibleForTesting
+    static final int MAX_TRACKED_ACCOUNTS = 100000;
+
+    private final InvoiceConfig invoiceConfig;
+    // Number of incremental runs since the last full run, per account record id
+    private final ConcurrentMap<Long, Integer> incrementalRunsPerAccount = new ConcurrentHashMap<Long, Integer>();
+
+    public IncrementalInvoiceGeneration(final InvoiceConfig invoiceConfig) {
+        this.invoiceConfig = invoiceConfig;
+    }
+
+    //
+    // Returns the subscriptions to invoice, or null if all subscriptions should be considered.
+    //
+    // The dirty ids are subscription or bundle ids: all subscriptions of the bundles of the dirty subscriptions are considered
+    // (e.g. a change of the base subscription can impact its add-ons).
+    //
+    // Expected to be called under the account lock.
+    //
+    @Nullable
+    public Set<UUID> getSubscriptionIdsInScope(@Nullable final Set<UUID> dirtyIds, final BillingEventSet billingEvents, final InternalTenantContext context) {
+        if (!invoiceConfig.isIncrementalGenerationEnabled()) {
+            return null;
+        }
+
+        if (dirtyIds == null ||
+            dirtyIds.isEmpty() ||
+            // The proposed items of these subscriptions depend on the other subscriptions (see FixedAndRecurringInvoiceItemGenerator)
+            !billingEvents.getSubscriptionIdsWithAutoInvoiceOff().isEmpty() ||
+            // The draft invoice being reused contains items of all subscriptions
+            billingEvents.isAccountAutoInvoiceReuseDraft() ||
+            isFullReconciliationRequired(context.getAccountRecordId())) {
+            onFullRun(context.getAccountRecordId());
+            return null;
+        }
+
+        final Set<UUID> dirtyBundleIds = new HashSet<UUID>();
+        for (final BillingEvent billingEvent : billingEvents) {
+            if (dirtyIds.contains(billingEvent.getSubscriptionId()) || dirtyIds.contains(billingEvent.getBundleId())) {
+                dirtyBundleIds.add(billingEvent.getBundleId());
+            }
+        }
+
+        final Set<UUID> subscriptionIdsInScope = new HashSet<UUID>(dirtyIds);
+        for (final BillingEvent billingEvent : billingEvents) {
+            if (dirtyBundleIds.contains(billingEvent.getBundleId())) {
+                subscriptionIdsInScope.add(billingEvent.getSubscriptionId());
+            }
+        }
+
+        incrementalRunsPerAccount.merge(context.getAccountRecordId(), 1, Integer::sum);
+        return subscriptionIdsInScope;
+    }
+
+    private boolean isFullReconciliationRequired(final Long accountRecordId) {
+        final Integer incrementalRuns = incrementalRunsPerAccount.get(accountRecordId);
+        return incrementalRuns == null || incrementalRuns >= invoiceConfig.getIncrementalGenerationFullReconciliationRuns();
+    }
+
+    private void onFullRun(final Long accountRecordId) {
+        if (incrementalRunsPerAccount.size() >= MAX_TRACKED_ACCOUNTS) {
+            incrementalRunsPerAccount.clear();
+        }
+        incrementalRunsPerAccount.put(accountRecordId, 0);
+    }
+}
@@ -156,7 +156,9 @@ public class InvoiceDispatcher {
     private final NotificationQueueService notificationQueueService;
     private final InvoiceConfig invoiceConfig;
     private final ParkedAccountsManager parkedAccountsManager;
+    private final ParentInvoiceConsolidationQueue<ChildInvoice> parentInvoiceConsolidationQueue;
     private final InvoiceOptimizer invoiceOptimizer;
+    private final IncrementalInvoiceGeneration incrementalInvoiceGeneration;
 
     @Inject
     public InvoiceDispatcher(final InvoiceGenerator generator,
@@ -187,6 +189,8 @@ public class InvoiceDispatcher {
         this.notificationQueueService = notificationQueueService;
         this.invoiceConfig = invoiceConfig;
         this.parkedAccountsManager = parkedAccountsManager;
+        this.parentInvoiceConsolidationQueue = new ParentInvoiceConsolidationQueue<ChildInvoice>();
+        this.incrementalInvoiceGeneration = new IncrementalInvoiceGeneration(invoiceConfig);
     }
 
     public void processAccountBCDChange(final UUID accountId, final InternalCallContext internalCallContext) {
@@ -256,15 +260,20 @@ public class InvoiceDispatcher {
     public void processSubscriptionForInvoiceGeneration(final EffectiveSubscriptionInternalEvent transition,
                                                         final InternalCallContext context) throws InvoiceApiException {
         final LocalDate targetDate = context.toLocalDate(transition.getEffectiveTransitionTime());
-        processSubscriptionForInvoiceGeneration(targetDate, false, context);
+        processSubscriptionForInvoiceGeneration(targetDate, false, Set.of(transition.getSubscriptionId()), context);
     }
 
     public void processSubscriptionForInvoiceGeneration(final LocalDate targetDate, final boolean isRescheduled, final InternalCallContext context) throws InvoiceApiException {
-        processSubscriptionInternal(targetDate, false, isRescheduled, context);
+        processSubscriptionForInvoiceGeneration(targetDate, isRescheduled, null, context);
+    }
+
+    // dirtyIds: subscription or bundle ids which triggered the run, null if unknown (see IncrementalInvoiceGeneration)
+    public void processSubscriptionForInvoiceGeneration(final LocalDate targetDate, final boolean isRescheduled, @Nullable final Set<UUID> dirtyIds, final InternalCallContext context) throws InvoiceApiException {
+        processSubscriptionInternal(targetDate, false, isRescheduled, dirtyIds, context);
     }
 
     public void processSubscriptionForInvoiceNotification(final LocalDate targetDate, final InternalCallContext context) throws InvoiceApiException {
-        final List<Invoice> dryRunInvoices = processSubscriptionInternal(targetDate, true, false, context);
+        final List<Invoice> dryRunInvoices = processSubscriptionInternal(targetDate, true, false, null, context);
         for (final Invoice dryRunInvoice : dryRunInvoices) {
 
             // TODO_1658 Confirm we should we send a bus event per invoice in the group
@@ -281,24 +290,33 @@ public class InvoiceDispatcher {
         }
     }
 
-    private List<Invoice> processSubscriptionInternal(final LocalDate targetDate, final boolean dryRunForNotification, final boolean isRescheduled, final InternalCallContext context) throws InvoiceApiException {
+    private List<Invoice> processSubscriptionInternal(final LocalDate targetDate, final boolean dryRunForNotification, final boolean isRescheduled, @Nullable final Set<UUID> dirtyIds, final InternalCallContext context) throws InvoiceApiException {
         final CallContext callContext = internalCallContextFactory.createCallContext(context);
         final UUID accountId = callContext.getAccountId();
         final DryRunArguments dryRunArguments = dryRunForNotification ? TARGET_DATE_DRY_RUN_ARGUMENTS : null;
-        return processAccountFromNotificationOrBusEvent(accountId, targetDate, dryRunArguments, isRescheduled, context);
+        return processAccountFromNotificationOrBusEvent(accountId, targetDate, dryRunArguments, isRescheduled, dirtyIds, context);
+    }
+
+    public List<Invoice> processAccountFromNotificationOrBusEvent(final UUID accountId,
+                                                            @Nullable final LocalDate targetDate,
+                                                            @Nullable final DryRunArguments dryRunArguments,
+                                                            final boolean isRescheduled,
+                                                            final InternalCallContext context) throws InvoiceApiException {
+        return processAccountFromNotificationOrBusEvent(accountId, targetDate, dryRunArguments, isRescheduled, null, context);
     }
 
     public List<Invoice> processAccountFromNotificationOrBusEvent(final UUID accountId,
                                                             @Nullable final LocalDate targetDate,
                                                             @Nullable final DryRunArguments dryRunArguments,
                                                             final boolean isRescheduled,
+                                                            @Nullable final Set<UUID> dirtyIds,
                                                             final InternalCallContext context) throws InvoiceApiException {
         if (!invoiceConfig.isInvoicingSystemEnabled(context)) {
             log.warn("Invoicing system is off, parking accountId='{}'", accountId);
             parkAccount(accountId, context);
             return Collections.emptyList();
         }
-        return processAccount(false, accountId, targetDate, dryRunArguments, isRescheduled, true, Collections.emptyList(), context);
+        return processAccount(false, accountId, targetDate, dryRunArguments, isRescheduled, true, dirtyIds, Collections.emptyList(), context);
     }
 
 
@@ -310,6 +328,18 @@ public class InvoiceDispatcher {
                                         final boolean allowSplitting,
                                         final Iterable<PluginProperty> properties,
                                         final InternalCallContext context) throws InvoiceApiException {
+        return processAccount(isApiCall, accountId, targetDate, dryRunArguments, isRescheduled, allowSplitting, null, properties, context);
+    }
+
+    private List<Invoice> processAccount(final boolean isApiCall,
+                                         final UUID accountId,
+                                         @Nullable final LocalDate targetDate,
+                                         @Nullable final DryRunArguments dryRunArguments,
+                                         final boolean isRescheduled,
+                                         final boolean allowSplitting,
+                                         @Nullable final Set<UUID> dirtyIds,
+                                         final Iterable<PluginProperty> properties,
+                                         final InternalCallContext context) throws InvoiceApiException {
         boolean parkedAccount = false;
         try {
             parkedAccount = parkedAccountsManager.isParked(context);
@@ -326,7 +356,7 @@ public class InvoiceDispatcher {
             // Grab lock unless we do a dry-run
             final boolean isDryRun = dryRunArguments != null;
             lock = !isDryRun ? locker.lockWithNumberOfTries(LockerType.ACCNT_INV_PAY.toString(), accountId.toString(), invoiceConfig.getMaxGlobalLockRetries()) : null;
-            return processAccountInternal(isApiCall, parkedAccount, accountId, targetDate, dryRunArguments, isRescheduled, allowSplitting, properties, context);
+            return processAccountInternal(isApiCall, parkedAccount, accountId, targetDate, dryRunArguments, isRescheduled, allowSplitting, dirtyIds, properties, context);
         } catch (final LockFailedException e) {
             if (isApiCall) {
                 throw new InvoiceApiException(e, ErrorCode.UNEXPECTED_ERROR, "Failed to generate invoice: failed to acquire lock");
@@ -375,6 +405,7 @@ public class InvoiceDispatcher {
                                                  @Nullable final DryRunArguments dryRunArguments,
                                                  final boolean isRescheduled,
                                                  final boolean allowSplitting,
+                                                 @Nullable final Set<UUID> dirtyIds,
                                                  final Iterable<PluginProperty> properties,
                                                  final InternalCallContext context) throws InvoiceApiException {
         final boolean isDryRun = dryRunArguments != null;
@@ -392,6 +423,7 @@ public class InvoiceDispatcher {
         final DryRunInfo dryRunInfo = isDryRun ? new DryRunInfo(dryRunArguments.getDryRunType(), dryRunInfoDate) : null;
 
         final Map<InvoiceTiming, Long> invoiceTimings = new HashMap<>();
+        final boolean recordPluginTimings = invoicePluginDispatcher.startRecordingPluginTimings();
         try {
 
             long startNano = System.nanoTime();
@@ -408,7 +440,9 @@ public class InvoiceDispatcher {
 
             final List<Invoice> result;
             if (!isDryRun) {
-                final InvoicesWithFutureNotifications invoicesWithFutureNotifications = processAccountWithLockAndInputTargetDate(accountId, inputTargetDate, billingEvents, accountInvoices, isRescheduled, allowSplitting, invoiceTimings, properties, context);
+                // Parked accounts (and rescheduled runs) always go through a full run
+                final Set<UUID> subscriptionIdsInScope = parkedAccount || isRescheduled ? null : incrementalInvoiceGeneration.getSubscriptionIdsInScope(dirtyIds, billingEvents, context);
+                final InvoicesWithFutureNotifications invoicesWithFutureNotifications = processAccountWithLockAndInputTargetDate(accountId, inputTargetDate, billingEvents, accountInvoices, subscriptionIdsInScope, isRescheduled, allowSplitting, invoiceTimings, properties, context);
                 result = invoicesWithFutureNotifications != null ? invoicesWithFutureNotifications.getInvoices() : Collections.emptyList();
                 if (parkedAccount) {
                     try {
@@ -456,7 +490,7 @@ public class InvoiceDispatcher {
                 }
             }
 
-            printInvoiceTiming(invoiceTimings);
+            printInvoiceTiming(invoiceTimings, invoicePluginDispatcher.getRecordedPluginTimings());
             return result;
         } catch (final CatalogApiException e) {
             log.warn("Failed to retrieve BillingEvents for accountId='{}', dryRunArguments='{}'", accountId, dryRunArguments, e);
@@ -479,10 +513,14 @@ public class InvoiceDispatcher {
             throw e;
         } catch (final NoSuchNotificationQueue e) {
             throw new InvoiceApiException(ErrorCode.UNEXPECTED_ERROR, "Failed to retrieve future notifications from notificationQ");
+        } finally {
+            if (recordPluginTimings) {
+                invoicePluginDispatcher.stopRecordingPluginTimings();
+            }
         }
     }
 
-    private void printInvoiceTiming(final Map<InvoiceTiming, Long> invoiceTimings) {
+    private void printInvoiceTiming(final Map<InvoiceTiming, Long> invoiceTimings, final Map<String, Long> pluginTimings) {
         boolean first = true;
         final StringBuilder tmp = new StringBuilder("Invoice timings: ");
         for (final InvoiceTiming key : InvoiceTiming.values()) {
@@ -496,6 +534,14 @@ public class InvoiceDispatcher {
             tmp.append(" mSec");
             first = false;
         }
+        // Breakdown of the PLUGINS_* timings per plugin
+        for (final Entry<String, Long> entry : pluginTimings.entrySet()) {
+            tmp.append(", PLUGIN[");
+            tmp.append(entry.getKey());
+            tmp.append("]=");
+            tmp.append(entry.getValue() / NANO_TO_MILLI_SEC);
+            tmp.append(" mSec");
+        }
         log.info(tmp.toString());
     }
 
@@ -645,6 +691,7 @@ public class InvoiceDispatcher {
                                                                                      final LocalDate originalTargetDate,
                                                                                      final BillingEventSet billingEvents,
                                                                                      final AccountInvoices accountInvoices,
+                                                                                     @Nullable final Set<UUID> subscriptionIdsInScope,
                                                                                      final boolean isRescheduled,
                                                                                      final boolean allowSplitting,
                                                                                      final Map<InvoiceTiming, Long> invoiceTimings,
@@ -679,7 +726,7 @@ public class InvoiceDispatcher {
 
 
         startNano = System.nanoTime();
-        final InvoiceWithMetadata invoiceWithMetadata = generateKillBillInvoice(account, originalTargetDate, billingEvents, accountInvoices, null, inputProperties, internalCallContext);
+        final InvoiceWithMetadata invoiceWithMetadata = generateKillBillInvoice(account, originalTargetDate, billingEvents, accountInvoices, subscriptionIdsInScope, null, inputProperties, internalCallContext);
         invoiceTimings.put(InvoiceTiming.INVOICE_GENERATION, System.nanoTime() - startNano);
 
         final DefaultInvoice invoice = invoiceWithMetadata.getInvoice();
@@ -855,7 +902,7 @@ public class InvoiceDispatcher {
         }
 
         startNano = System.nanoTime();
-        final InvoiceWithMetadata invoiceWithMetadata = generateKillBillInvoice(account, originalTargetDate, billingEvents, accountInvoices, dryRunInfo, pluginProperties, internalCallContext);
+        final InvoiceWithMetadata invoiceWithMetadata = generateKillBillInvoice(account, originalTargetDate, billingEvents, accountInvoices, null, dryRunInfo, pluginProperties, internalCallContext);
         invoiceTimings.put(InvoiceTiming.INVOICE_GENERATION, System.nanoTime() - startNano);
 
 
@@ -913,7 +960,7 @@ public class InvoiceDispatcher {
 
     }
 
-    private InvoiceWithMetadata generateKillBillInvoice(final ImmutableAccountData account, final LocalDate targetDate, final BillingEventSet billingEvents, final AccountInvoices accountInvoices, @Nullable final DryRunInfo dryRunInfo, final Iterable<PluginProperty> inputProperties, final InternalCallContext context) throws InvoiceApiException {
+    private InvoiceWithMetadata generateKillBillInvoice(final ImmutableAccountData account, final LocalDate targetDate, final BillingEventSet billingEvents, final AccountInvoices accountInvoices, @Nullable final Set<UUID> subscriptionIdsInScope, @Nullable final DryRunInfo dryRunInfo, final Iterable<PluginProperty> inputProperties, final InternalCallContext context) throws InvoiceApiException {
         final UUID targetInvoiceId;
 
         final boolean reuseDraftIfExist = isPropertyReuseDraftSet(inputProperties);
@@ -930,7 +977,7 @@ public class InvoiceDispatcher {
             targetInvoiceId = null;
         }
 
-        return generator.generateInvoice(account, billingEvents, accountInvoices, targetInvoiceId, targetDate, account.getCurrency(), dryRunInfo, inputProperties, context);
+        return generator.generateInvoice(account, billingEvents, accountInvoices, subscriptionIdsInScope, targetInvoiceId, targetDate, account.getCurrency(), dryRunInfo, inputProperties, context);
     }
 
     private FutureAccountNotifications createNextFutureNotificationDate(final DateTime rescheduleDate, final BillingEventSet billingEvents, final InternalCallContext context) {
@@ -1302,11 +1349,21 @@ public class InvoiceDispatcher {
     }
 
     public void processParentInvoiceForInvoiceGeneration(final Account childAccount, final UUID childInvoiceId, final InternalCallContext context) throws InvoiceApiException {
+        final ChildInvoice childInvoice = new ChildInvoice(childAccount, childInvoiceId, context);
+        if (invoiceConfig.isParentInvoiceBatchConsolidationEnabled()) {
+            parentInvoiceConsolidationQueue.submitAndWait(childAccount.getParentAccountId(),
+                                                          childInvoice,
+                                                          invoiceConfig.getParentInvoiceConsolidationMaxBatchSize(),
+                                                          this::processParentInvoiceForInvoiceGenerationBatch);
+            return;
+        }
+
         GlobalLock lock = null;
         try {
             lock = locker.lockWithNumberOfTries(LockerType.ACCNT_INV_PAY.toString(), childAccount.getParentAccountId().toString(), invoiceConfig.getMaxGlobalLockRetries());
 
-            processParentInvoiceForInvoiceGenerationWithLock(childAccount, childInvoiceId, context);
+            final ParentDraftInvoice parentDraftInvoice = new ParentDraftInvoice(childAccount.getParentAccountId(), context);
+            parentDraftInvoice.addChildInvoice(childInvoice);
         } catch (final LockFailedException e) {
             log.warn("Failed to process parent invoice for parentAccountId='{}'", childAccount.getParentAccountId().toString(), e);
             throw new QueueRetryException(e, TimeSpanConverter.toListPeriod(invoiceConfig.getRescheduleIntervalOnLock(context)));
@@ -1317,55 +1374,141 @@ public class InvoiceDispatcher {
         }
     }
 
-    private void processParentInvoiceForInvoiceGenerationWithLock(final Account childAccount, final UUID childInvoiceId, final InternalCallContext context) throws InvoiceApiException {
-        log.info("Processing parent invoice for parentAccountId='{}', childInvoiceId='{}'", childAccount.getParentAccountId(), childInvoiceId);
-        final InvoiceModelDao childInvoiceModelDao = invoiceDao.getById(childInvoiceId, context);
-        final Invoice childInvoice = new DefaultInvoice(childInvoiceModelDao);
+    // Consolidation mode: fold a batch of child invoices, in order, using a single lock and a single load of the parent DRAFT invoice
+    private void processParentInvoiceForInvoiceGenerationBatch(final UUID parentAccountId, final List<ParentInvoiceConsolidationQueue.Request<ChildInvoice>> batch) {
+        final InternalCallContext firstContext = batch.get(0).getPayload().context;
 
-        final Long parentAccountRecordId = internalCallContextFactory.getRecordIdFromObject(childAccount.getParentAccountId(), ObjectType.ACCOUNT, buildTenantContext(context));
-        final InternalCallContext parentContext = internalCallContextFactory.createInternalCallContext(parentAccountRecordId, context);
+        GlobalLock lock = null;
+        try {
+            lock = locker.lockWithNumberOfTries(LockerType.ACCNT_INV_PAY.toString(), parentAccountId.toString(), invoiceConfig.getMaxGlobalLockRetries());
+
+            log.info("Processing parent invoice for parentAccountId='{}', nbChildInvoices='{}'", parentAccountId, batch.size());
+            final ParentDraftInvoice parentDraftInvoice = new ParentDraftInvoice(parentAccountId, firstContext);
+            for (final ParentInvoiceConsolidationQueue.Request<ChildInvoice> request : batch) {
+                try {
+                    parentDraftInvoice.addChildInvoice(request.getPayload());
+                } catch (final InvoiceApiException | RuntimeException e) {
+                    // Each child invoice is folded in its own transaction(s): only that event will be retried
+                    request.fail(e);
+                }
+            }
+        } catch (final InvoiceApiException e) {
+            for (final ParentInvoiceConsolidationQueue.Request<ChildInvoice> request : batch) {
+                request.fail(e);
+            }
+        } catch (final LockFailedException e) {
+            log.warn("Failed to process parent invoice for parentAccountId='{}'", parentAccountId, e);
+            final QueueRetryException retryException = new QueueRetryException(e, TimeSpanConverter.toListPeriod(invoiceConfig.getRescheduleIntervalOnLock(firstContext)));
+            for (final ParentInvoiceConsolidationQueue.Request<ChildInvoice> request : batch) {
+                request.fail(retryException);
+            }
+        } finally {
+            if (lock != null) {
+                lock.release();
+            }
+        }
+    }
+
+    private static final class ChildInvoice {
+
+        private final Account childAccount;
+        private final UUID childInvoiceId;
+        private final InternalCallContext context;
+
+        private ChildInvoice(final Account childAccount, final UUID childInvoiceId, final InternalCallContext context) {
+            this.childAccount = childAccount;
+            this.childInvoiceId = childInvoiceId;
+            this.context = context;
+        }
+    }
+
+    //
+    // Parent DRAFT invoice, loaded once (with the PARENT_SUMMARY items indexed by child account) and kept in sync as child invoices are added.
+    // Must be used while holding the parent ACCNT_INV_PAY lock.
+    //
+    private final class ParentDraftInvoice {
+
+        private final UUID parentAccountId;
+        private final Long parentAccountRecordId;
+        private final Map<UUID, InvoiceItemModelDao> itemsByChildAccountId = new HashMap<UUID, InvoiceItemModelDao>();
+
+        private InvoiceModelDao draftParentInvoice;
+
+        private ParentDraftInvoice(final UUID parentAccountId, final InternalCallContext context) throws InvoiceApiException {
+            this.parentAccountId = parentAccountId;
+            this.parentAccountRecordId = internalCallContextFactory.getRecordIdFromObject(parentAccountId, ObjectType.ACCOUNT, buildTenantContext(context));
+
+            final InternalCallContext parentContext = internalCallContextFactory.createInternalCallContext(parentAccountRecordId, context);
+            this.draftParentInvoice = invoiceDao.getParentDraftInvoice(parentAccountId, parentContext);
+            if (draftParentInvoice != null) {
+                for (final InvoiceItemModelDao item : draftParentInvoice.getInvoiceItems()) {
+                    if (item.getChildAccountId() != null) {
+                        itemsByChildAccountId.putIfAbsent(item.getChildAccountId(), item);
+                    }
+                }
+            }
+        }
+
+        private void addChildInvoice(final ChildInvoice child) throws InvoiceApiException {
+            final Account childAccount = child.childAccount;
+            final UUID childInvoiceId = child.childInvoiceId;
+            final InternalCallContext context = child.context;
+
+            log.info("Processing parent invoice for parentAccountId='{}', childInvoiceId='{}'", parentAccountId, childInvoiceId);
+            final InvoiceModelDao childInvoiceModelDao = invoiceDao.getById(childInvoiceId, context);
+            final Invoice childInvoice = new DefaultInvoice(childInvoiceModelDao);
 
-        final BigDecimal childInvoiceAmount = InvoiceCalculatorUtils.computeChildInvoiceAmount(childInvoice.getCurrency(), childInvoice.getInvoiceItems());
-        InvoiceModelDao draftParentInvoice = invoiceDao.getParentDraftInvoice(childAccount.getParentAccountId(), parentContext);
+            final InternalCallContext parentContext = internalCallContextFactory.createInternalCallContext(parentAccountRecordId, context);
 
-        final String description = childAccount.getExternalKey().concat(" summary");
-        if (draftParentInvoice != null) {
-            for (final InvoiceItemModelDao item : draftParentInvoice.getInvoiceItems()) {
-                if ((item.getChildAccountId() != null) && item.getChildAccountId().equals(childInvoice.getAccountId())) {
+            final BigDecimal childInvoiceAmount = InvoiceCalculatorUtils.computeChildInvoiceAmount(childInvoice.getCurrency(), childInvoice.getInvoiceItems());
+
+            final String description = childAccount.getExternalKey().concat(" summary");
+            if (draftParentInvoice != null) {
+                final InvoiceItemModelDao item = itemsByChildAccountId.get(childInvoice.getAccountId());
+                if (item != null) {
                     // update child item amount for existing parent invoice item
                     final BigDecimal newChildInvoiceAmount = childInvoiceAmount.add(item.getAmount());
                     log.info("Updating existing itemId='{}', oldAmount='{}', newAmount='{}' on existing DRAFT invoiceId='{}'", item.getId(), item.getAmount(), newChildInvoiceAmount, draftParentInvoice.getId());
                     invoiceDao.updateInvoiceItemAmount(item.getId(), newChildInvoiceAmount, parentContext);
+                    item.setAmount(newChildInvoiceAmount);
                     return;
                 }
-            }
 
-            // new item when the parent invoices does not have this child item yet
-            final ParentInvoiceItem newParentInvoiceItem = new ParentInvoiceItem(UUID.randomUUID(), context.getCreatedDate(), draftParentInvoice.getId(), childAccount.getParentAccountId(), childAccount.getId(), childInvoiceAmount, childAccount.getCurrency(), description);
-            final InvoiceItemModelDao parentInvoiceItem = new InvoiceItemModelDao(newParentInvoiceItem);
-            draftParentInvoice.addInvoiceItem(parentInvoiceItem);
+                // new item when the parent invoices does not have this child item yet
+                final ParentInvoiceItem newParentInvoiceItem = new ParentInvoiceItem(UUID.randomUUID(), context.getCreatedDate(), draftParentInvoice.getId(), childAccount.getParentAccountId(), childAccount.getId(), childInvoiceAmount, childAccount.getCurrency(), description);
+                final InvoiceItemModelDao parentInvoiceItem = new InvoiceItemModelDao(newParentInvoiceItem);
 
-            final List<InvoiceModelDao> invoices = new ArrayList<InvoiceModelDao>();
-            invoices.add(draftParentInvoice);
-            log.info("Adding new itemId='{}', amount='{}' on existing DRAFT invoiceId='{}'", parentInvoiceItem.getId(), childInvoiceAmount, draftParentInvoice.getId());
-            invoiceDao.createInvoices(invoices, null, Collections.emptySet(), null, null,false, parentContext);
-        } else {
-            if (shouldIgnoreChildInvoice(childInvoice, childInvoiceAmount)) {
-                return;
-            }
+                // Only pass the new item: existing items would otherwise be looked-up one by one
+                final InvoiceModelDao existingDraftParentInvoice = new InvoiceModelDao(draftParentInvoice.getId(), draftParentInvoice.getCreatedDate(), draftParentInvoice.getAccountId(),
+                                                                                       draftParentInvoice.getInvoiceNumber(), draftParentInvoice.getInvoiceDate(), draftParentInvoice.getTargetDate(),
+                                                                                       draftParentInvoice.getCurrency(), draftParentInvoice.isMigrated(), draftParentInvoice.getStatus(), draftParentInvoice.isParentInvoice());
+                existingDraftParentInvoice.addInvoiceItem(parentInvoiceItem);
+
+                log.info("Adding new itemId='{}', amount='{}' on existing DRAFT invoiceId='{}'", parentInvoiceItem.getId(), childInvoiceAmount, draftParentInvoice.getId());
+                invoiceDao.createInvoices(List.of(existingDraftParentInvoice), null, Collections.emptySet(), null, null, false, parentContext);
+                draftParentInvoice.addInvoiceItem(parentInvoiceItem);
+                itemsByChildAccountId.put(childAccount.getId(), parentInvoiceItem);
+            } else {
+                if (shouldIgnoreChildInvoice(childInvoice, childInvoiceAmount)) {
+                    return;
+                }
 
-            final LocalDate invoiceDate = context.toLocalDate(context.getCreatedDate());
-            draftParentInvoice = new InvoiceModelDao(childAccount.getParentAccountId(), invoiceDate, childAccount.getCurrency(), InvoiceStatus.DRAFT, true);
-            final InvoiceItem parentInvoiceItem = new ParentInvoiceItem(UUID.randomUUID(), context.getCreatedDate(), draftParentInvoice.getId(), childAccount.getParentAccountId(), childAccount.getId(), childInvoiceAmount, childAccount.getCurrency(), description);
-            draftParentInvoice.addInvoiceItem(new InvoiceItemModelDao(parentInvoiceItem));
+                final LocalDate invoiceDate = context.toLocalDate(context.getCreatedDate());
+                final InvoiceModelDao newDraftParentInvoice = new InvoiceModelDao(childAccount.getParentAccountId(), invoiceDate, childAccount.getCurrency(), InvoiceStatus.DRAFT, true);
+                final InvoiceItem parentInvoiceItem = new ParentInvoiceItem(UUID.randomUUID(), context.getCreatedDate(), newDraftParentInvoice.getId(), childAccount.getParentAccountId(), childAccount.getId(), childInvoiceAmount, childAccount.getCurrency(), description);
+                final InvoiceItemModelDao parentInvoiceItemModelDao = new InvoiceItemModelDao(parentInvoiceItem);
+                newDraftParentInvoice.addInvoiceItem(parentInvoiceItemModelDao);
 
-            log.info("Adding new itemId='{}', amount='{}' on new DRAFT invoiceId='{}'", parentInvoiceItem.getId(), childInvoiceAmount, draftParentInvoice.getId());
-            invoiceDao.createInvoices(List.of(draftParentInvoice), null, Collections.emptySet(), null, null, false, parentContext);
-        }
+                log.info("Adding new itemId='{}', amount='{}' on new DRAFT invoiceId='{}'", parentInvoiceItem.getId(), childInvoiceAmount, newDraftParentInvoice.getId());
+                invoiceDao.createInvoices(List.of(newDraftParentInvoice), null, Collections.emptySet(), null, null, false, parentContext);
+                draftParentInvoice = newDraftParentInvoice;
+                itemsByChildAccountId.put(childAccount.getId(), parentInvoiceItemModelDao);
+            }
 
-        // save parent child invoice relation
-        final InvoiceParentChildModelDao invoiceRelation = new InvoiceParentChildModelDao(draftParentInvoice.getId(), childInvoiceId, childAccount.getId());
-        invoiceDao.createParentChildInvoiceRelation(invoiceRelation, parentContext);
+            // save parent child invoice relation
+            final InvoiceParentChildModelDao invoiceRelation = new InvoiceParentChildModelDao(draftParentInvoice.getId(), childInvoiceId, childAccount.getId());
+            invoiceDao.createParentChildInvoiceRelation(invoiceRelation, parentContext);
+        }
     }
 
     private boolean shouldIgnoreChildInvoice(final Invoice childInvoice, final BigDecimal childInvoiceAmount) {
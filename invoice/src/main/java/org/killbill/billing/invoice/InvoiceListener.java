@@ -20,8 +20,10 @@
 package org.killbill.billing.invoice;
 
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 import org.joda.time.DateTime;
@@ -30,6 +32,7 @@ import org.killbill.billing.account.api.Account;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountInternalApi;
 import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.entitlement.api.BlockingStateType;
 import org.killbill.billing.events.AccountChangeInternalEvent;
 import org.killbill.billing.events.BlockingTransitionInternalEvent;
 import org.killbill.billing.events.BusInternalEvent;
@@ -51,6 +54,7 @@ import org.killbill.billing.util.optimizer.BusDispatcherOptimizer;
 import org.killbill.clock.Clock;
 import org.killbill.commons.eventbus.AllowConcurrentEvents;
 import org.killbill.commons.eventbus.Subscribe;
+import org.killbill.commons.utils.collect.Iterables;
 import org.killbill.notificationq.api.NotificationQueueService;
 import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
 import org.killbill.queue.retry.RetryableService;
@@ -119,7 +123,9 @@ public class InvoiceListener extends RetryableService implements InvoiceListener
                                                  try {
                                                      final InternalCallContext context = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), event.getSearchKey1(), "SubscriptionBaseTransition", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
                                                      final UUID accountId = accountApi.getByRecordId(event.getSearchKey1(), context);
-                                                     dispatcher.processAccountFromNotificationOrBusEvent(accountId, null, null, false, context);
+                                                     // Account level blocking states impact all subscriptions
+                                                     final Set<UUID> dirtyIds = event.getBlockingType() != BlockingStateType.ACCOUNT ? Set.of(event.getBlockableId()) : null;
+                                                     dispatcher.processAccountFromNotificationOrBusEvent(accountId, null, null, false, dirtyIds, context);
                                                  } catch (final InvoiceApiException e) {
                                                      log.warn("Unable to process event {}", event, e);
                                                  } catch (final AccountApiException e) {
@@ -256,10 +262,11 @@ public class InvoiceListener extends RetryableService implements InvoiceListener
         handleEvent(event);
     }
 
-    public void handleNextBillingDateEvent(final DateTime eventDateTime, final boolean isRescheduled, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+    public void handleNextBillingDateEvent(final DateTime eventDateTime, final boolean isRescheduled, @Nullable final Iterable<UUID> subscriptionIds, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
         final InternalCallContext context = internalCallContextFactory.createInternalCallContext(tenantRecordId, accountRecordId, "Next Billing Date", CallOrigin.INTERNAL, UserType.SYSTEM, userToken);
         try {
-            dispatcher.processSubscriptionForInvoiceGeneration(context.toLocalDate(eventDateTime), isRescheduled, context);
+            final Set<UUID> dirtyIds = subscriptionIds != null ? Iterables.toUnmodifiableSet(subscriptionIds) : null;
+            dispatcher.processSubscriptionForInvoiceGeneration(context.toLocalDate(eventDateTime), isRescheduled, dirtyIds, context);
         } catch (final InvoiceApiException e) {
             log.warn("Unable to process next billing date event, eventDateTime='{}'", eventDateTime, e);
         }
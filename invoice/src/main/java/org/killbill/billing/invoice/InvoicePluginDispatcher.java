@@ -23,14 +23,25 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -63,14 +74,22 @@ import org.killbill.billing.invoice.plugin.api.InvoicePluginApi;
 import org.killbill.billing.invoice.plugin.api.OnFailureInvoiceResult;
 import org.killbill.billing.invoice.plugin.api.OnSuccessInvoiceResult;
 import org.killbill.billing.invoice.plugin.api.PriorInvoiceResult;
+import org.killbill.billing.invoice.provider.DefaultInvoiceProviderPluginRegistry;
 import org.killbill.billing.osgi.api.OSGIServiceRegistration;
 import org.killbill.billing.payment.api.PluginProperty;
 import org.killbill.billing.util.UUIDs;
 import org.killbill.commons.utils.annotation.VisibleForTesting;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.killbill.billing.util.config.tenant.CacheConfig;
+import org.killbill.commons.concurrent.Executors;
+import org.killbill.commons.metrics.api.Gauge;
+import org.killbill.commons.metrics.api.MetricRegistry;
+import org.killbill.commons.request.Request;
+import org.killbill.commons.request.RequestData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 public class InvoicePluginDispatcher {
 
@@ -81,14 +100,56 @@ public class InvoicePluginDispatcher {
                                                                                          InvoiceItemType.CREDIT_ADJ,
                                                                                          InvoiceItemType.TAX);
 
+    private static final String PLUGIN_METRICS_PREFIX = "invoice.plugin.";
+
+    private static final long TIMEOUT_EXECUTOR_SEC = 3L;
+
     private final OSGIServiceRegistration<InvoicePluginApi> pluginRegistry;
     private final InvoiceConfig invoiceConfig;
+    private final MetricRegistry metricRegistry;
+    // Null when the parallel invocation is disabled
+    private final ExecutorService executor;
+    // Resolved plugin names per tenantRecordId, invalidated when the per-tenant configuration or the registered plugins change
+    // (only when the registry notifies us about registration changes, otherwise the plugins are resolved on each call)
+    private final Map<Long, ResolvedInvoicePlugins> resolvedInvoicePlugins = new ConcurrentHashMap<Long, ResolvedInvoicePlugins>();
+    private final AtomicLong resolvedInvoicePluginsVersion = new AtomicLong();
+    private final boolean isResolvedInvoicePluginsCacheEnabled;
+    private final Map<String, InvoicePluginStats> invoicePluginStats = new ConcurrentHashMap<String, InvoicePluginStats>();
+    // Latency per plugin of the invoice run in progress on the current thread (see startRecordingPluginTimings)
+    private final ThreadLocal<Map<String, Long>> currentPluginTimings = new ThreadLocal<Map<String, Long>>();
 
     @Inject
     public InvoicePluginDispatcher(final OSGIServiceRegistration<InvoicePluginApi> pluginRegistry,
-                                   final InvoiceConfig invoiceConfig) {
+                                   final InvoiceConfig invoiceConfig,
+                                   final CacheConfig cacheConfig,
+                                   final MetricRegistry metricRegistry) {
         this.pluginRegistry = pluginRegistry;
         this.invoiceConfig = invoiceConfig;
+        this.metricRegistry = metricRegistry;
+        this.executor = invoiceConfig.getInvoicePluginParallelism() > 0 ?
+                        Executors.newFixedThreadPool(invoiceConfig.getInvoicePluginParallelism(), InvoicePluginDispatcher.class.getName()) :
+                        null;
+
+        cacheConfig.addPerTenantConfigInvalidationListener(tenantRecordId -> invalidateResolvedInvoicePlugins());
+        if (pluginRegistry instanceof DefaultInvoiceProviderPluginRegistry) {
+            ((DefaultInvoiceProviderPluginRegistry) pluginRegistry).addRegistrationListener(this::invalidateResolvedInvoicePlugins);
+            this.isResolvedInvoicePluginsCacheEnabled = true;
+        } else {
+            this.isResolvedInvoicePluginsCacheEnabled = false;
+        }
+    }
+
+    // Invoked when the invoice service is stopped
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+        }
+    }
+
+    private void invalidateResolvedInvoicePlugins() {
+        resolvedInvoicePluginsVersion.incrementAndGet();
+        resolvedInvoicePlugins.clear();
     }
 
     public static final class PriorCallResult {
@@ -120,35 +181,40 @@ public class InvoicePluginDispatcher {
         log.debug("Invoking invoice plugins priorCall: targetDate='{}', isDryRun='{}', isRescheduled='{}'", targetDate, isDryRun, isRescheduled);
 
         Iterable<PluginProperty> inputPluginProperties = pluginProperties;
-        final Map<String, InvoicePluginApi> invoicePlugins = getInvoicePlugins(internalTenantContext);
-        if (invoicePlugins.isEmpty()) {
+        final List<Map<String, InvoicePluginApi>> invoicePluginStages = getInvoicePluginStages(internalTenantContext);
+        if (invoicePluginStages.isEmpty()) {
             return new PriorCallResult(null, inputPluginProperties);
         }
 
         DateTime earliestRescheduleDate = null;
         final InvoiceContext invoiceContext = new DefaultInvoiceContext(targetDate, null, existingInvoices, isDryRun, isRescheduled, callContext);
-        for (final Entry<String, InvoicePluginApi> entry : invoicePlugins.entrySet()) {
-            final String invoicePluginName = entry.getKey();
-            final PriorInvoiceResult priorInvoiceResult = entry.getValue().priorCall(invoiceContext, inputPluginProperties);
-            log.debug("Invoice plugin {} returned priorInvoiceResult='{}'", invoicePluginName, priorInvoiceResult);
-            if (priorInvoiceResult == null) {
-                // Naughty plugin...
-                continue;
-            }
+        for (final Map<String, InvoicePluginApi> invoicePlugins : invoicePluginStages) {
+            final Iterable<PluginProperty> stagePluginProperties = inputPluginProperties;
+            final List<PriorInvoiceResult> priorInvoiceResults = invokePlugins(invoicePlugins, invoicePlugin -> invoicePlugin.priorCall(invoiceContext, stagePluginProperties));
+
+            final Iterator<String> invoicePluginNames = invoicePlugins.keySet().iterator();
+            for (final PriorInvoiceResult priorInvoiceResult : priorInvoiceResults) {
+                final String invoicePluginName = invoicePluginNames.next();
+                log.debug("Invoice plugin {} returned priorInvoiceResult='{}'", invoicePluginName, priorInvoiceResult);
+                if (priorInvoiceResult == null) {
+                    // Naughty plugin...
+                    continue;
+                }
 
-            if (priorInvoiceResult.getRescheduleDate() != null &&
-                (earliestRescheduleDate == null || earliestRescheduleDate.compareTo(priorInvoiceResult.getRescheduleDate()) > 0)) {
-                earliestRescheduleDate = priorInvoiceResult.getRescheduleDate();
-                log.info("Invoice plugin {} rescheduled invoice generation to {} for targetDate {}", invoicePluginName, earliestRescheduleDate, targetDate);
-            }
+                if (priorInvoiceResult.getRescheduleDate() != null &&
+                    (earliestRescheduleDate == null || earliestRescheduleDate.compareTo(priorInvoiceResult.getRescheduleDate()) > 0)) {
+                    earliestRescheduleDate = priorInvoiceResult.getRescheduleDate();
+                    log.info("Invoice plugin {} rescheduled invoice generation to {} for targetDate {}", invoicePluginName, earliestRescheduleDate, targetDate);
+                }
 
-            if (priorInvoiceResult.isAborted()) {
-                log.info("Invoice plugin {} aborted invoice generation for targetDate {}", invoicePluginName, targetDate);
-                throw new InvoiceApiException(ErrorCode.INVOICE_PLUGIN_API_ABORTED, invoicePluginName);
-            }
+                if (priorInvoiceResult.isAborted()) {
+                    log.info("Invoice plugin {} aborted invoice generation for targetDate {}", invoicePluginName, targetDate);
+                    throw new InvoiceApiException(ErrorCode.INVOICE_PLUGIN_API_ABORTED, invoicePluginName);
+                }
 
-            if (priorInvoiceResult.getAdjustedPluginProperties() != null) {
-                inputPluginProperties = priorInvoiceResult.getAdjustedPluginProperties();
+                if (priorInvoiceResult.getAdjustedPluginProperties() != null) {
+                    inputPluginProperties = priorInvoiceResult.getAdjustedPluginProperties();
+                }
             }
         }
 
@@ -188,7 +254,7 @@ public class InvoicePluginDispatcher {
                                   final CallContext callContext,
                                   final Iterable<PluginProperty> pluginProperties,
                                   final InternalTenantContext internalTenantContext) {
-        final Collection<InvoicePluginApi> invoicePlugins = getInvoicePlugins(internalTenantContext).values();
+        final Map<String, InvoicePluginApi> invoicePlugins = getInvoicePlugins(internalTenantContext);
         if (invoicePlugins.isEmpty()) {
             return;
         }
@@ -197,15 +263,17 @@ public class InvoicePluginDispatcher {
         final Invoice clonedInvoice = originalInvoice == null ? null : (Invoice) originalInvoice.clone();
         final InvoiceContext invoiceContext = new DefaultInvoiceContext(targetDate, clonedInvoice, existingInvoices, isDryRun, isRescheduled, callContext);
 
+        // Always sequential: completion calls are typically used to notify external systems in the configured order
         Iterable<PluginProperty> inputPluginProperties = pluginProperties;
-        for (final InvoicePluginApi invoicePlugin : invoicePlugins) {
+        for (final Entry<String, InvoicePluginApi> entry : invoicePlugins.entrySet()) {
+            final Iterable<PluginProperty> curPluginProperties = inputPluginProperties;
             if (isSuccess) {
-                final OnSuccessInvoiceResult res1 = invoicePlugin.onSuccessCall(invoiceContext, inputPluginProperties);
+                final OnSuccessInvoiceResult res1 = invokePlugin(entry.getKey(), entry.getValue(), invoicePlugin -> invoicePlugin.onSuccessCall(invoiceContext, curPluginProperties), currentPluginTimings.get());
                 if (res1 != null && res1.getAdjustedPluginProperties() != null) {
                     inputPluginProperties = res1.getAdjustedPluginProperties();
                 }
             } else {
-                final OnFailureInvoiceResult res2 = invoicePlugin.onFailureCall(invoiceContext, inputPluginProperties);
+                final OnFailureInvoiceResult res2 = invokePlugin(entry.getKey(), entry.getValue(), invoicePlugin -> invoicePlugin.onFailureCall(invoiceContext, curPluginProperties), currentPluginTimings.get());
                 if (res2 != null && res2.getAdjustedPluginProperties() != null) {
                     inputPluginProperties = res2.getAdjustedPluginProperties();
                 }
@@ -239,60 +307,68 @@ public class InvoicePluginDispatcher {
                          					  final LocalDate targetDate,
                          					  final List<Invoice> existingInvoices,
                          					  final boolean isRescheduled,                                              
-                                              final InternalTenantContext tenantContext) {
+                                              final InternalTenantContext tenantContext) throws InvoiceApiException {
         log.debug("Invoking invoice plugins for splitInvoices operation: isDryRun='{}', originalInvoice='{}'", isDryRun, originalInvoice);
 
         Iterable<PluginProperty> inputPluginProperties = pluginProperties;
-        final Collection<InvoicePluginApi> invoicePlugins = getInvoicePlugins(tenantContext).values();
-        final Invoice clonedInvoice = (Invoice) originalInvoice.clone();
-        for (final InvoicePluginApi invoicePlugin : invoicePlugins) {
-            final InvoiceContext invoiceContext = new DefaultInvoiceContext(targetDate, clonedInvoice, existingInvoices, isDryRun, isRescheduled, callContext);
-            final InvoiceGroupingResult grpResult = invoicePlugin.getInvoiceGrouping(clonedInvoice, isDryRun, inputPluginProperties, invoiceContext);
-            if (grpResult != null) {
-
-                if (grpResult.getAdjustedPluginProperties() != null) {
-                    inputPluginProperties = grpResult.getAdjustedPluginProperties();
-                }
+        for (final Map<String, InvoicePluginApi> invoicePlugins : getInvoicePluginStages(tenantContext)) {
+            final Iterable<PluginProperty> stagePluginProperties = inputPluginProperties;
+            final List<InvoiceGroupingResult> grpResults = invokePlugins(invoicePlugins, invoicePlugin -> {
+                final Invoice clonedInvoice = (Invoice) originalInvoice.clone();
+                final InvoiceContext invoiceContext = new DefaultInvoiceContext(targetDate, clonedInvoice, existingInvoices, isDryRun, isRescheduled, callContext);
+                return invoicePlugin.getInvoiceGrouping(clonedInvoice, isDryRun, stagePluginProperties, invoiceContext);
+            });
+
+            // The first plugin (in the configured order) returning groups wins
+            for (final InvoiceGroupingResult grpResult : grpResults) {
+                if (grpResult != null) {
+
+                    if (grpResult.getAdjustedPluginProperties() != null) {
+                        inputPluginProperties = grpResult.getAdjustedPluginProperties();
+                    }
 
-                if (grpResult.getInvoiceGroups() != null && grpResult.getInvoiceGroups().size() > 0) {
-
-                    final List<DefaultInvoice> result = new ArrayList<>();
-                    final Map<UUID, InvoiceItem> itemMap = originalInvoice.getInvoiceItems()
-                                                                          .stream()
-                                                                          .map(new Function<InvoiceItem, SimpleEntry<UUID, InvoiceItem>>() {
-                                                                              @Override
-                                                                              public SimpleEntry<UUID, InvoiceItem> apply(final InvoiceItem invoiceItem) {
-                                                                                  return new SimpleEntry<>(invoiceItem.getId(), invoiceItem);
-                                                                              }
-                                                                          }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-
-                    final List<InvoiceGroup> groups = grpResult.getInvoiceGroups();
-                    for (final InvoiceGroup grp : groups) {
-                        final DefaultInvoice grpInvoice = new DefaultInvoice(UUIDs.randomUUID(),
-                                                                             originalInvoice.getAccountId(),
-                                                                             null,
-                                                                             originalInvoice.getInvoiceDate(),
-                                                                             originalInvoice.getTargetDate(),
-                                                                             originalInvoice.getCurrency(),
-                                                                             originalInvoice.isMigrationInvoice(),
-                                                                             originalInvoice.getStatus());
-                        for (final UUID itemId : grp.getInvoiceItemIds()) {
-                            final InvoiceItem item = itemMap.get(itemId);
-                            final DefaultInvoiceItem.Builder tmp = new Builder().source(item);
-                            tmp.withInvoiceId(grpInvoice.getId());
-                            grpInvoice.addInvoiceItem(tmp.build());
-                        }
-                        result.add(grpInvoice);
+                    if (grpResult.getInvoiceGroups() != null && grpResult.getInvoiceGroups().size() > 0) {
+                        return new SplitInvoiceResult(toGroupInvoices(originalInvoice, grpResult.getInvoiceGroups()), inputPluginProperties);
                     }
-                    return new SplitInvoiceResult(result, inputPluginProperties);
-                }
 
+                }
             }
 
         }
         return new SplitInvoiceResult(Collections.singletonList(originalInvoice), inputPluginProperties);
     }
 
+    private List<DefaultInvoice> toGroupInvoices(final DefaultInvoice originalInvoice, final List<InvoiceGroup> groups) {
+        final List<DefaultInvoice> result = new ArrayList<>();
+        final Map<UUID, InvoiceItem> itemMap = originalInvoice.getInvoiceItems()
+                                                              .stream()
+                                                              .map(new Function<InvoiceItem, SimpleEntry<UUID, InvoiceItem>>() {
+                                                                  @Override
+                                                                  public SimpleEntry<UUID, InvoiceItem> apply(final InvoiceItem invoiceItem) {
+                                                                      return new SimpleEntry<>(invoiceItem.getId(), invoiceItem);
+                                                                  }
+                                                              }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        for (final InvoiceGroup grp : groups) {
+            final DefaultInvoice grpInvoice = new DefaultInvoice(UUIDs.randomUUID(),
+                                                                 originalInvoice.getAccountId(),
+                                                                 null,
+                                                                 originalInvoice.getInvoiceDate(),
+                                                                 originalInvoice.getTargetDate(),
+                                                                 originalInvoice.getCurrency(),
+                                                                 originalInvoice.isMigrationInvoice(),
+                                                                 originalInvoice.getStatus());
+            for (final UUID itemId : grp.getInvoiceItemIds()) {
+                final InvoiceItem item = itemMap.get(itemId);
+                final DefaultInvoiceItem.Builder tmp = new Builder().source(item);
+                tmp.withInvoiceId(grpInvoice.getId());
+                grpInvoice.addInvoiceItem(tmp.build());
+            }
+            result.add(grpInvoice);
+        }
+        return result;
+    }
+
     public static final class AdditionalInvoiceItemsResult {
 
         private final boolean invoiceUpdated;
@@ -322,8 +398,8 @@ public class InvoicePluginDispatcher {
                                                                						final InternalTenantContext tenantContext) throws InvoiceApiException {
         log.debug("Invoking invoice plugins getAdditionalInvoiceItems: isDryRun='{}', originalInvoice='{}'", isDryRun, originalInvoice);
 
-        final Collection<InvoicePluginApi> invoicePlugins = getInvoicePlugins(tenantContext).values();
-        if (invoicePlugins.isEmpty()) {
+        final List<Map<String, InvoicePluginApi>> invoicePluginStages = getInvoicePluginStages(tenantContext);
+        if (invoicePluginStages.isEmpty()) {
             return new AdditionalInvoiceItemsResult(false, pluginProperties);
         }
 
@@ -335,28 +411,36 @@ public class InvoicePluginDispatcher {
 
         Iterable<PluginProperty> inputPluginProperties = pluginProperties;
         boolean invoiceUpdated = false;
-        for (final InvoicePluginApi invoicePlugin : invoicePlugins) {
-            // We clone the original invoice so plugins don't remove/add items
-            final Invoice clonedInvoice = (Invoice) originalInvoice.clone();
-            final InvoiceContext invoiceContext = new DefaultInvoiceContext(targetDate, clonedInvoice, existingInvoices, isDryRun, isRescheduled, callContext);
-            final AdditionalItemsResult res = invoicePlugin.getAdditionalInvoiceItems(clonedInvoice, isDryRun, inputPluginProperties, invoiceContext);
-
-            if (res != null) {
-                if (res.getAdditionalItems() != null &&
-                    !res.getAdditionalItems().isEmpty()) {
-                    final Collection<InvoiceItem> additionalInvoiceItems = new LinkedList<InvoiceItem>();
-                    for (final InvoiceItem additionalInvoiceItem : res.getAdditionalItems()) {
-                        final InvoiceItem sanitizedInvoiceItem = validateAndSanitizeInvoiceItemFromPlugin(originalInvoice.getId(),
-                                                                                                          invoiceItemsByItemId,
-                                                                                                          additionalInvoiceItem,
-                                                                                                          invoicePlugin);
-                        additionalInvoiceItems.add(sanitizedInvoiceItem);
+        for (final Map<String, InvoicePluginApi> invoicePlugins : invoicePluginStages) {
+            // Plugins of the same stage all see the invoice as updated by the previous stages
+            final Iterable<PluginProperty> stagePluginProperties = inputPluginProperties;
+            final List<AdditionalItemsResult> results = invokePlugins(invoicePlugins, invoicePlugin -> {
+                // We clone the original invoice so plugins don't remove/add items
+                final Invoice clonedInvoice = (Invoice) originalInvoice.clone();
+                final InvoiceContext invoiceContext = new DefaultInvoiceContext(targetDate, clonedInvoice, existingInvoices, isDryRun, isRescheduled, callContext);
+                return invoicePlugin.getAdditionalInvoiceItems(clonedInvoice, isDryRun, stagePluginProperties, invoiceContext);
+            });
+
+            final Iterator<InvoicePluginApi> stageInvoicePlugins = invoicePlugins.values().iterator();
+            for (final AdditionalItemsResult res : results) {
+                final InvoicePluginApi invoicePlugin = stageInvoicePlugins.next();
+                if (res != null) {
+                    if (res.getAdditionalItems() != null &&
+                        !res.getAdditionalItems().isEmpty()) {
+                        final Collection<InvoiceItem> additionalInvoiceItems = new LinkedList<InvoiceItem>();
+                        for (final InvoiceItem additionalInvoiceItem : res.getAdditionalItems()) {
+                            final InvoiceItem sanitizedInvoiceItem = validateAndSanitizeInvoiceItemFromPlugin(originalInvoice.getId(),
+                                                                                                              invoiceItemsByItemId,
+                                                                                                              additionalInvoiceItem,
+                                                                                                              invoicePlugin);
+                            additionalInvoiceItems.add(sanitizedInvoiceItem);
+                        }
+                        invoiceUpdated = updateOriginalInvoiceWithPluginInvoiceItems(originalInvoice, additionalInvoiceItems) || invoiceUpdated;
                     }
-                    invoiceUpdated = updateOriginalInvoiceWithPluginInvoiceItems(originalInvoice, additionalInvoiceItems) || invoiceUpdated;
-                }
 
-                if (res.getAdjustedPluginProperties() != null) {
-                    inputPluginProperties = res.getAdjustedPluginProperties();
+                    if (res.getAdjustedPluginProperties() != null) {
+                        inputPluginProperties = res.getAdjustedPluginProperties();
+                    }
                 }
             }
         }
@@ -455,6 +539,153 @@ public class InvoicePluginDispatcher {
         return existingValue;
     }
 
+    // Start tracking the latency of each plugin for the invoice run on the current thread: returns false if already tracked (nested run)
+    public boolean startRecordingPluginTimings() {
+        if (currentPluginTimings.get() != null) {
+            return false;
+        }
+        currentPluginTimings.set(Collections.synchronizedMap(new LinkedHashMap<String, Long>()));
+        return true;
+    }
+
+    // Latency (in nanoseconds) per plugin, in invocation order, for the invoice run on the current thread
+    public Map<String, Long> getRecordedPluginTimings() {
+        final Map<String, Long> pluginTimings = currentPluginTimings.get();
+        if (pluginTimings == null) {
+            return Collections.emptyMap();
+        }
+        synchronized (pluginTimings) {
+            return new LinkedHashMap<String, Long>(pluginTimings);
+        }
+    }
+
+    public void stopRecordingPluginTimings() {
+        currentPluginTimings.remove();
+    }
+
+    //
+    // Plugins of the same stage are invoked in parallel (on the caller thread if there is only one) with the same input and their
+    // results are returned in the configured order. When the parallel invocation is disabled, each stage contains a single plugin.
+    //
+    private <T> List<T> invokePlugins(final Map<String, InvoicePluginApi> invoicePlugins, final Function<InvoicePluginApi, T> pluginCall) throws InvoiceApiException {
+        final Map<String, Long> pluginTimings = currentPluginTimings.get();
+        final List<T> results = new ArrayList<T>(invoicePlugins.size());
+        if (executor == null || invoicePlugins.size() == 1) {
+            for (final Entry<String, InvoicePluginApi> entry : invoicePlugins.entrySet()) {
+                results.add(invokePlugin(entry.getKey(), entry.getValue(), pluginCall, pluginTimings));
+            }
+            return results;
+        }
+
+        final List<Future<T>> futures = new ArrayList<Future<T>>(invoicePlugins.size());
+        for (final Entry<String, InvoicePluginApi> entry : invoicePlugins.entrySet()) {
+            futures.add(executor.submit(withRequestData(() -> invokePlugin(entry.getKey(), entry.getValue(), pluginCall, pluginTimings))));
+        }
+
+        final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(invoiceConfig.getInvoicePluginParallelTimeout().getMillis());
+        try {
+            for (final Future<T> future : futures) {
+                results.add(future.get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS));
+            }
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (final TimeoutException e) {
+            throw new InvoiceApiException(e, ErrorCode.UNEXPECTED_ERROR, "Timed out while invoking invoice plugins " + invoicePlugins.keySet());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvoiceApiException(e, ErrorCode.UNEXPECTED_ERROR, "Interrupted while invoking invoice plugins");
+        } finally {
+            // No-op for the completed ones
+            for (final Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    // The plugins invoked on the pool threads see the request id of the caller (used for instance by the locker to detect re-entrant calls) and its MDC
+    private static <T> Callable<T> withRequestData(final Callable<T> task) {
+        final RequestData requestData = Request.getPerThreadRequestData();
+        final Random random = UUIDs.getRandom();
+        final Map<String, String> mdcContextMap = MDC.getCopyOfContextMap();
+        return () -> {
+            try {
+                Request.setPerThreadRequestData(requestData);
+                UUIDs.setRandom(random);
+                if (mdcContextMap != null) {
+                    MDC.setContextMap(mdcContextMap);
+                }
+                return task.call();
+            } finally {
+                Request.resetPerThreadRequestData();
+                UUIDs.setRandom(null);
+                MDC.clear();
+            }
+        };
+    }
+
+    private <T> T invokePlugin(final String invoicePluginName, final InvoicePluginApi invoicePlugin, final Function<InvoicePluginApi, T> pluginCall, @Nullable final Map<String, Long> pluginTimings) {
+        final long startNano = System.nanoTime();
+        try {
+            return pluginCall.apply(invoicePlugin);
+        } finally {
+            final long latencyNanos = System.nanoTime() - startNano;
+            invoicePluginStats.computeIfAbsent(invoicePluginName, this::createInvoicePluginStats).record(latencyNanos);
+            if (pluginTimings != null) {
+                pluginTimings.merge(invoicePluginName, latencyNanos, Long::sum);
+            }
+        }
+    }
+
+    private InvoicePluginStats createInvoicePluginStats(final String invoicePluginName) {
+        final InvoicePluginStats stats = new InvoicePluginStats();
+
+        final String prefix = PLUGIN_METRICS_PREFIX + invoicePluginName + ".";
+        metricRegistry.gauge(prefix + "calls", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return stats.nbCalls.get();
+            }
+        });
+        metricRegistry.gauge(prefix + "latency-total-ms", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return TimeUnit.NANOSECONDS.toMillis(stats.totalLatencyNanos.get());
+            }
+        });
+        metricRegistry.gauge(prefix + "latency-max-ms", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return TimeUnit.NANOSECONDS.toMillis(stats.maxLatencyNanos.get());
+            }
+        });
+
+        return stats;
+    }
+
+    // Plugin instances are looked up on each call, so that a restarted plugin is picked up right away
+    private List<Map<String, InvoicePluginApi>> getInvoicePluginStages(final InternalTenantContext tenantContext) {
+        final List<List<String>> stages = getResolvedInvoicePlugins(tenantContext).stages;
+        final List<Map<String, InvoicePluginApi>> result = new ArrayList<Map<String, InvoicePluginApi>>(stages.size());
+        for (final List<String> stage : stages) {
+            // Keys ordering matters!
+            final Map<String, InvoicePluginApi> invoicePlugins = new LinkedHashMap<String, InvoicePluginApi>();
+            for (final String name : stage) {
+                final InvoicePluginApi serviceForName = pluginRegistry.getServiceForName(name);
+                if (serviceForName != null) {
+                    invoicePlugins.put(name, serviceForName);
+                }
+            }
+            if (!invoicePlugins.isEmpty()) {
+                result.add(invoicePlugins);
+            }
+        }
+        return result;
+    }
+
     @VisibleForTesting
     Map<String, InvoicePluginApi> getInvoicePlugins(final InternalTenantContext tenantContext) {
         final Collection<String> resultingPluginList = getResultingPluginNameList(tenantContext);
@@ -470,19 +701,89 @@ public class InvoicePluginDispatcher {
 
     @VisibleForTesting
     final Collection<String> getResultingPluginNameList(final InternalTenantContext tenantContext) {
-        final List<String> configuredPlugins = invoiceConfig.getInvoicePluginNames(tenantContext);
-        final Set<String> registeredPlugins = pluginRegistry.getAllServices();
-        // No configuration, we return undeterministic list of registered plugins
-        if (configuredPlugins == null || configuredPlugins.isEmpty()) {
-            return registeredPlugins;
-        } else {
-            final List<String> result = new ArrayList<>(configuredPlugins.size());
-            for (final String name : configuredPlugins) {
-                if (pluginRegistry.getServiceForName(name) != null) {
-                    result.add(name);
+        return getResolvedInvoicePlugins(tenantContext).pluginNames;
+    }
+
+    @VisibleForTesting
+    List<List<String>> getResultingPluginNameStages(final InternalTenantContext tenantContext) {
+        return getResolvedInvoicePlugins(tenantContext).stages;
+    }
+
+    private ResolvedInvoicePlugins getResolvedInvoicePlugins(final InternalTenantContext tenantContext) {
+        final Long tenantRecordId = isResolvedInvoicePluginsCacheEnabled ? tenantContext.getTenantRecordId() : null;
+        // Captured before reading the configuration: an entry resolved concurrently with an invalidation is discarded on the next call
+        final long version = resolvedInvoicePluginsVersion.get();
+        final ResolvedInvoicePlugins cachedResolvedPlugins = tenantRecordId != null ? resolvedInvoicePlugins.get(tenantRecordId) : null;
+        if (cachedResolvedPlugins != null && cachedResolvedPlugins.version == version) {
+            return cachedResolvedPlugins;
+        }
+
+        final List<String> configuredPlugins = Objects.requireNonNullElse(invoiceConfig.getInvoicePluginNames(tenantContext), Collections.<String>emptyList());
+        final List<String> orderIndependentPlugins = Objects.requireNonNullElse(invoiceConfig.getOrderIndependentInvoicePluginNames(tenantContext), Collections.<String>emptyList());
+        final Set<String> registeredPlugins = new HashSet<String>(pluginRegistry.getAllServices());
+
+        final ResolvedInvoicePlugins resolvedPlugins = new ResolvedInvoicePlugins(version, configuredPlugins, orderIndependentPlugins, registeredPlugins, executor != null);
+        if (tenantRecordId != null) {
+            resolvedInvoicePlugins.put(tenantRecordId, resolvedPlugins);
+        }
+        return resolvedPlugins;
+    }
+
+    private static final class ResolvedInvoicePlugins {
+
+        private final long version;
+        private final List<String> pluginNames;
+        private final List<List<String>> stages;
+
+        private ResolvedInvoicePlugins(final long version,
+                                       final List<String> configuredPlugins,
+                                       final List<String> orderIndependentPlugins,
+                                       final Set<String> registeredPlugins,
+                                       final boolean isParallelInvocationEnabled) {
+            this.version = version;
+
+            // No configuration, we return undeterministic list of registered plugins
+            if (configuredPlugins.isEmpty()) {
+                this.pluginNames = Collections.unmodifiableList(new ArrayList<String>(registeredPlugins));
+            } else {
+                final List<String> result = new ArrayList<>(configuredPlugins.size());
+                for (final String name : configuredPlugins) {
+                    if (registeredPlugins.contains(name)) {
+                        result.add(name);
+                    }
                 }
+                this.pluginNames = Collections.unmodifiableList(result);
             }
-            return result;
+
+            // Consecutive order independent plugins are grouped in the same stage
+            final List<List<String>> result = new ArrayList<List<String>>();
+            List<String> parallelStage = null;
+            for (final String name : pluginNames) {
+                if (isParallelInvocationEnabled && orderIndependentPlugins.contains(name)) {
+                    if (parallelStage == null) {
+                        parallelStage = new ArrayList<String>();
+                        result.add(parallelStage);
+                    }
+                    parallelStage.add(name);
+                } else {
+                    parallelStage = null;
+                    result.add(Collections.singletonList(name));
+                }
+            }
+            this.stages = Collections.unmodifiableList(result);
+        }
+    }
+
+    private static final class InvoicePluginStats {
+
+        private final AtomicLong nbCalls = new AtomicLong();
+        private final AtomicLong totalLatencyNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+        private void record(final long latencyNanos) {
+            nbCalls.incrementAndGet();
+            totalLatencyNanos.addAndGet(latencyNanos);
+            maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
         }
     }
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.killbill.billing.invoice.api.InvoiceApiException;
+
+//
+// Per parent account queue of child invoices to fold into the parent DRAFT invoice.
+//
+// Submitters wait for their own request to be processed, so that the bus event is only acknowledged once the parent invoice
+// has been updated (and failures are reported to the right caller). Whichever submitter finds no active consumer for that parent
+// becomes the consumer: it drains the queue in batches, including the requests submitted meanwhile by the other threads,
+// which are simply waiting for their result.
+//
+// Note that this only reduces contention within a node: the batch handler is still expected to grab the global lock.
+//
+public class ParentInvoiceConsolidationQueue<T> {
+
+    private static final long POLL_INTERVAL_MS = 50;
+
+    public interface BatchHandler<T> {
+
+        // Requests which are neither completed nor failed by the handler are marked as completed
+        void process(UUID parentAccountId, List<Request<T>> batch);
+    }
+
+    public static final class Request<T> {
+
+        private final T payload;
+        private final CompletableFuture<Void> result = new CompletableFuture<Void>();
+
+        private Request(final T payload) {
+            this.payload = payload;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public void fail(final Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        private void complete() {
+            result.complete(null);
+        }
+    }
+
+    private static final class ParentQueue<T> {
+
+        private final Queue<Request<T>> pending = new ConcurrentLinkedQueue<Request<T>>();
+        private final AtomicBoolean consuming = new AtomicBoolean(false);
+    }
+
+    private final ConcurrentMap<UUID, ParentQueue<T>> queues = new ConcurrentHashMap<UUID, ParentQueue<T>>();
+
+    public void submitAndWait(final UUID parentAccountId, final T payload, final int maxBatchSize, final BatchHandler<T> handler) throws InvoiceApiException {
+        final Request<T> request = new Request<T>(payload);
+        final ParentQueue<T> parentQueue = queues.computeIfAbsent(parentAccountId, key -> new ParentQueue<T>());
+        parentQueue.pending.add(request);
+
+        boolean interrupted = false;
+        while (!request.result.isDone()) {
+            if (parentQueue.consuming.compareAndSet(false, true)) {
+                try {
+                    drain(parentAccountId, parentQueue, Math.max(1, maxBatchSize), handler);
+                } finally {
+                    parentQueue.consuming.set(false);
+                }
+            } else {
+                try {
+                    request.result.get(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                } catch (final TimeoutException | ExecutionException ignored) {
+                    // Either the consumer is still busy, or our request has been processed (see below)
+                } catch (final InterruptedException e) {
+                    // The request is queued and will be processed regardless: we cannot give up on it (the event would be retried)
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (parentQueue.pending.isEmpty()) {
+            // Worst case, a concurrent submitter still holds that instance and will consume its own request
+            queues.remove(parentAccountId, parentQueue);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            request.result.get();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof InvoiceApiException) {
+                throw (InvoiceApiException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            } else {
+                throw new RuntimeException(e.getCause());
+            }
+        } catch (final InterruptedException e) {
+            // Cannot happen, the future is done
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain(final UUID parentAccountId, final ParentQueue<T> parentQueue, final int maxBatchSize, final BatchHandler<T> handler) {
+        while (true) {
+            final List<Request<T>> batch = new ArrayList<Request<T>>();
+            Request<T> next;
+            while (batch.size() < maxBatchSize && (next = parentQueue.pending.poll()) != null) {
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                handler.process(parentAccountId, batch);
+            } catch (final RuntimeException | Error e) {
+                for (final Request<T> request : batch) {
+                    request.fail(e);
+                }
+            }
+            for (final Request<T> request : batch) {
+                request.complete();
+            }
+        }
+    }
+}
@@ -19,8 +19,15 @@
 package org.killbill.billing.invoice.api;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
+import org.killbill.billing.invoice.InvoicePluginDispatcher;
+import org.killbill.billing.invoice.generator.FixedAndRecurringInvoiceItemGenerator;
+import org.killbill.billing.invoice.glue.DefaultInvoiceModule;
 import org.killbill.billing.invoice.notification.ParentInvoiceCommitmentNotifier;
+import org.killbill.billing.tenant.api.TenantInternalApi;
+import org.killbill.billing.tenant.api.TenantInternalApi.CacheInvalidationCallback;
+import org.killbill.billing.tenant.api.TenantKV.TenantKey;
 import org.killbill.billing.util.optimizer.BusOptimizer;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.billing.invoice.InvoiceListener;
@@ -38,15 +45,27 @@ public class DefaultInvoiceService implements InvoiceService {
     private final InvoiceTagHandler tagHandler;
     private final BusOptimizer eventBus;
     private final ParentInvoiceCommitmentNotifier parentInvoiceNotifier;
+    private final TenantInternalApi tenantInternalApi;
+    private final CacheInvalidationCallback templateCacheInvalidationCallback;
+    private final FixedAndRecurringInvoiceItemGenerator recurringInvoiceItemGenerator;
+    private final InvoicePluginDispatcher invoicePluginDispatcher;
 
     @Inject
     public DefaultInvoiceService(final InvoiceListener invoiceListener, final InvoiceTagHandler tagHandler, final BusOptimizer eventBus,
-                                 final NextBillingDateNotifier dateNotifier, final ParentInvoiceCommitmentNotifier parentInvoiceNotifier) {
+                                 final NextBillingDateNotifier dateNotifier, final ParentInvoiceCommitmentNotifier parentInvoiceNotifier,
+                                 final TenantInternalApi tenantInternalApi,
+                                 @Named(DefaultInvoiceModule.INVOICE_TEMPLATE_INVALIDATION_CALLBACK) final CacheInvalidationCallback templateCacheInvalidationCallback,
+                                 final FixedAndRecurringInvoiceItemGenerator recurringInvoiceItemGenerator,
+                                 final InvoicePluginDispatcher invoicePluginDispatcher) {
         this.invoiceListener = invoiceListener;
         this.tagHandler = tagHandler;
         this.eventBus = eventBus;
         this.dateNotifier = dateNotifier;
         this.parentInvoiceNotifier = parentInvoiceNotifier;
+        this.tenantInternalApi = tenantInternalApi;
+        this.templateCacheInvalidationCallback = templateCacheInvalidationCallback;
+        this.recurringInvoiceItemGenerator = recurringInvoiceItemGenerator;
+        this.invoicePluginDispatcher = invoicePluginDispatcher;
     }
 
     @Override
@@ -69,6 +88,11 @@ public class DefaultInvoiceService implements InvoiceService {
         }
         dateNotifier.initialize();
         parentInvoiceNotifier.initialize();
+
+        tenantInternalApi.initializeCacheInvalidationCallback(TenantKey.INVOICE_TEMPLATE, templateCacheInvalidationCallback);
+        tenantInternalApi.initializeCacheInvalidationCallback(TenantKey.INVOICE_MP_TEMPLATE, templateCacheInvalidationCallback);
+        tenantInternalApi.initializeCacheInvalidationCallback(TenantKey.INVOICE_TRANSLATION_, templateCacheInvalidationCallback);
+        tenantInternalApi.initializeCacheInvalidationCallback(TenantKey.CATALOG_TRANSLATION_, templateCacheInvalidationCallback);
     }
 
     @LifecycleHandlerType(LifecycleLevel.START_SERVICE)
@@ -87,5 +111,16 @@ public class DefaultInvoiceService implements InvoiceService {
         }
         dateNotifier.stop();
         parentInvoiceNotifier.stop();
+
+        try {
+            recurringInvoiceItemGenerator.stop();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            invoicePluginDispatcher.stop();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -179,11 +179,65 @@ public class MultiTenantInvoiceConfig extends MultiTenantLockAwareConfigBase imp
         return getInvoicePluginNames();
     }
 
+    @Override
+    public List<String> getOrderIndependentInvoicePluginNames() {
+        return staticConfig.getOrderIndependentInvoicePluginNames();
+    }
+
+    @Override
+    public List<String> getOrderIndependentInvoicePluginNames(final InternalTenantContext tenantContext) {
+        final String result = getStringTenantConfig("getOrderIndependentInvoicePluginNames", tenantContext);
+        if (result != null) {
+            return convertToListString(result, "getOrderIndependentInvoicePluginNames");
+        }
+        return getOrderIndependentInvoicePluginNames();
+    }
+
+    @Override
+    public int getInvoicePluginParallelism() {
+        return staticConfig.getInvoicePluginParallelism();
+    }
+
+    @Override
+    public TimeSpan getInvoicePluginParallelTimeout() {
+        return staticConfig.getInvoicePluginParallelTimeout();
+    }
+
     @Override
     public boolean isInvoicingSystemEnabled() {
         return staticConfig.isInvoicingSystemEnabled();
     }
 
+    @Override
+    public boolean isParentInvoiceBatchConsolidationEnabled() {
+        return staticConfig.isParentInvoiceBatchConsolidationEnabled();
+    }
+
+    @Override
+    public int getParentInvoiceConsolidationMaxBatchSize() {
+        return staticConfig.getParentInvoiceConsolidationMaxBatchSize();
+    }
+
+    @Override
+    public int getItemGenerationParallelism() {
+        return staticConfig.getItemGenerationParallelism();
+    }
+
+    @Override
+    public int getItemGenerationMinSubscriptionsForParallelism() {
+        return staticConfig.getItemGenerationMinSubscriptionsForParallelism();
+    }
+
+    @Override
+    public boolean isIncrementalGenerationEnabled() {
+        return staticConfig.isIncrementalGenerationEnabled();
+    }
+
+    @Override
+    public int getIncrementalGenerationFullReconciliationRuns() {
+        return staticConfig.getIncrementalGenerationFullReconciliationRuns();
+    }
+
     @Override
     public String getParentAutoCommitUtcTime() {
         return staticConfig.getParentAutoCommitUtcTime();
@@ -21,6 +21,7 @@ package org.killbill.billing.invoice.generator;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -72,17 +73,20 @@ public class DefaultInvoiceGenerator implements InvoiceGenerator {
      */
     @Override
     public InvoiceWithMetadata generateInvoice(final ImmutableAccountData account,
-                                               @Nullable final BillingEventSet events,
+                                               @Nullable final BillingEventSet allEvents,
                                                final AccountInvoices existingInvoices,
+                                               @Nullable final Set<UUID> subscriptionIdsInScope,
                                                @Nullable final UUID targetInvoiceId,
                                                final LocalDate targetDate,
                                                final Currency targetCurrency,
                                                @Nullable final DryRunInfo dryRunInfo,
                                                final Iterable<PluginProperty> inputProperties,
                                                final InternalCallContext context) throws InvoiceApiException {
-        if (events == null) {
+        if (allEvents == null) {
             return new InvoiceWithMetadata(null, Collections.emptySet(), Collections.emptyMap(), false, context);
         }
+        // Incremental generation: the items of the other subscriptions are neither proposed nor compared against the existing ones
+        final BillingEventSet events = subscriptionIdsInScope != null ? new SubscriptionScopedBillingEventSet(allEvents, subscriptionIdsInScope) : allEvents;
 
         validateTargetDate(targetDate, context);
         final LocalDate adjustedTargetDate = adjustTargetDate(existingInvoices.getInvoices(), targetDate);
@@ -95,7 +99,7 @@ public class DefaultInvoiceGenerator implements InvoiceGenerator {
 
         final Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDates = new HashMap<>();
 
-        final InvoiceGeneratorResult fixedAndRecurringItems = recurringInvoiceItemGenerator.generateItems(account, invoice.getId(), events, existingInvoices, adjustedTargetDate, targetCurrency, perSubscriptionFutureNotificationDates, dryRunInfo, inputProperties, context);
+        final InvoiceGeneratorResult fixedAndRecurringItems = recurringInvoiceItemGenerator.generateItems(account, invoice.getId(), events, existingInvoices, subscriptionIdsInScope, adjustedTargetDate, targetCurrency, perSubscriptionFutureNotificationDates, dryRunInfo, inputProperties, context);
         invoice.addInvoiceItems(fixedAndRecurringItems.getItems());
 
         final InvoiceGeneratorResult usageItemsWithTrackingIds = usageInvoiceItemGenerator.generateItems(account, invoice.getId(), events, existingInvoices, adjustedTargetDate, targetCurrency, perSubscriptionFutureNotificationDates, dryRunInfo, inputProperties, context);
@@ -28,6 +28,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -66,6 +70,7 @@ import org.killbill.commons.utils.collect.MultiValueMap;
 import org.killbill.billing.util.config.definition.InvoiceConfig;
 import org.killbill.billing.util.currency.KillBillMoney;
 import org.killbill.clock.Clock;
+import org.killbill.commons.concurrent.Executors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,24 +83,49 @@ public class FixedAndRecurringInvoiceItemGenerator extends InvoiceItemGenerator
 
     private static final Logger log = LoggerFactory.getLogger(FixedAndRecurringInvoiceItemGenerator.class);
 
+    private static final long TIMEOUT_EXECUTOR_SEC = 3L;
+
     private final InvoiceConfig config;
+    // Null when the partitioned generation is disabled
+    private final ExecutorService executor;
 
     @Inject
     public FixedAndRecurringInvoiceItemGenerator(final InvoiceConfig config, final Clock clock) {
         this.config = config;
+        this.executor = config.getItemGenerationParallelism() > 0 ?
+                        Executors.newFixedThreadPool(config.getItemGenerationParallelism(), FixedAndRecurringInvoiceItemGenerator.class.getName()) :
+                        null;
+    }
+
+    // Invoked when the invoice service is stopped
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(TIMEOUT_EXECUTOR_SEC, TimeUnit.SECONDS);
+        }
     }
 
+    @Override
     public InvoiceGeneratorResult generateItems(final ImmutableAccountData account, final UUID invoiceId, final BillingEventSet eventSet,
                                                 final AccountInvoices existingInvoices, final LocalDate targetDate,
                                                 final Currency targetCurrency, final Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDate,
                                                 final DryRunInfo dryRunInfo,
                                                 final Iterable<PluginProperty> pluginProperties, final InternalCallContext internalCallContext) throws InvoiceApiException {
+        return generateItems(account, invoiceId, eventSet, existingInvoices, null, targetDate, targetCurrency, perSubscriptionFutureNotificationDate, dryRunInfo, pluginProperties, internalCallContext);
+    }
+
+    // eventSet is expected to only contain the events of the subscriptionIdsInScope, if specified
+    public InvoiceGeneratorResult generateItems(final ImmutableAccountData account, final UUID invoiceId, final BillingEventSet eventSet,
+                                                final AccountInvoices existingInvoices, @Nullable final Set<UUID> subscriptionIdsInScope, final LocalDate targetDate,
+                                                final Currency targetCurrency, final Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDate,
+                                                final DryRunInfo dryRunInfo,
+                                                final Iterable<PluginProperty> pluginProperties, final InternalCallContext internalCallContext) throws InvoiceApiException {
         final MultiValueMap<UUID, LocalDate> createdItemsPerDayPerSubscription = new MultiValueHashMap<>();
 
 
         final InvoicePruner invoicePruner = new InvoicePruner(existingInvoices);
         final Set<UUID> toBeIgnored = invoicePruner.getFullyRepairedItemsClosure();
-        final AccountItemTree accountItemTree = new AccountItemTree(account.getId(), invoiceId);
+        final AccountItemTree accountItemTree = new AccountItemTree(account.getId(), invoiceId, subscriptionIdsInScope);
         for (final Invoice invoice : existingInvoices.getInvoices()) {
             for (final InvoiceItem item : invoice.getInvoiceItems()) {
                 if (toBeIgnored.contains(item.getId())) {
@@ -114,20 +144,30 @@ public class FixedAndRecurringInvoiceItemGenerator extends InvoiceItemGenerator
 
         // Generate list of proposed invoice items based on billing events from junction-- proposed items are ALL items since beginning of time
         final List<InvoiceItem> proposedItems = new ArrayList<>();
-        processRecurringBillingEvents(invoiceId, account.getId(), eventSet, targetDate, targetCurrency, proposedItems, perSubscriptionFutureNotificationDate, internalCallContext);
-        processFixedBillingEvents(invoiceId, account.getId(), eventSet, targetDate, targetCurrency, proposedItems, internalCallContext);
+        final List<List<BillingEvent>> eventsPerSubscription = executor != null ? partitionBySubscription(eventSet) : null;
+        final boolean isPartitioned = eventsPerSubscription != null && eventsPerSubscription.size() >= config.getItemGenerationMinSubscriptionsForParallelism();
+        if (isPartitioned) {
+            processBillingEventsPerSubscription(invoiceId, account.getId(), eventsPerSubscription, eventSet.getSubscriptionIdsWithAutoInvoiceOff(), targetDate, targetCurrency, proposedItems, perSubscriptionFutureNotificationDate, internalCallContext);
+        } else {
+            processRecurringBillingEvents(invoiceId, account.getId(), eventSet, targetDate, targetCurrency, proposedItems, perSubscriptionFutureNotificationDate, internalCallContext);
+            processFixedBillingEvents(invoiceId, account.getId(), eventSet, targetDate, targetCurrency, proposedItems, internalCallContext);
+        }
 
 
         existingInvoices.filterProposedItems(proposedItems, eventSet, internalCallContext);
 
         try {
-            accountItemTree.mergeWithProposedItems(proposedItems);
+            if (isPartitioned) {
+                accountItemTree.mergeWithProposedItems(proposedItems, executor);
+            } else {
+                accountItemTree.mergeWithProposedItems(proposedItems);
+            }
         } catch (final IllegalStateException e) {
             // Proposed items have already been logged
             throw new InvoiceApiException(e, ErrorCode.UNEXPECTED_ERROR, String.format("ILLEGAL INVOICING STATE accountItemTree=%s", accountItemTree.toString()));
         }
 
-        final List<InvoiceItem> resultingItems = accountItemTree.getResultingItemList();
+        final List<InvoiceItem> resultingItems = isPartitioned ? accountItemTree.getResultingItemList(executor) : accountItemTree.getResultingItemList();
         safetyBounds(resultingItems, createdItemsPerDayPerSubscription, internalCallContext);
 
         return new InvoiceGeneratorResult(resultingItems, Collections.emptySet());
@@ -144,23 +184,33 @@ public class FixedAndRecurringInvoiceItemGenerator extends InvoiceItemGenerator
         // Pretty-print the generated invoice items from the junction events
         final InvoiceItemGeneratorLogger invoiceItemGeneratorLogger = new InvoiceItemGeneratorLogger(invoiceId, accountId, "recurring", log);
 
+        processRecurringBillingEvents(invoiceId, accountId, events, events.getSubscriptionIdsWithAutoInvoiceOff(), true, targetDate, currency, proposedItems, invoiceItemGeneratorLogger, perSubscriptionFutureNotificationDate, internalCallContext);
+
+        invoiceItemGeneratorLogger.logItems();
+    }
+
+    private void processRecurringBillingEvents(final UUID invoiceId, final UUID accountId, final Iterable<BillingEvent> events, final List<UUID> subscriptionIdsWithAutoInvoiceOff,
+                                               final boolean isLastEventIncluded, final LocalDate targetDate, final Currency currency, final List<InvoiceItem> proposedItems,
+                                               final InvoiceItemGeneratorLogger invoiceItemGeneratorLogger,
+                                               final Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDate,
+                                               final InternalCallContext internalCallContext) throws InvoiceApiException {
         final Iterator<BillingEvent> eventIt = events.iterator();
         BillingEvent nextEvent = eventIt.next();
         while (eventIt.hasNext()) {
             final BillingEvent thisEvent = nextEvent;
             nextEvent = eventIt.next();
-            if (!events.getSubscriptionIdsWithAutoInvoiceOff().
+            if (!subscriptionIdsWithAutoInvoiceOff.
                     contains(thisEvent.getSubscriptionId())) { // don't consider events for subscriptions that have auto_invoice_off
                 final BillingEvent adjustedNextEvent = (thisEvent.getSubscriptionId() == nextEvent.getSubscriptionId()) ? nextEvent : null;
                 final List<InvoiceItem> newProposedItems = processRecurringEvent(invoiceId, accountId, thisEvent, adjustedNextEvent, targetDate, currency, invoiceItemGeneratorLogger, perSubscriptionFutureNotificationDate, internalCallContext);
                 proposedItems.addAll(newProposedItems);
             }
         }
-        final List<InvoiceItem> newProposedItems = processRecurringEvent(invoiceId, accountId, nextEvent, null, targetDate, currency, invoiceItemGeneratorLogger, perSubscriptionFutureNotificationDate, internalCallContext);
-
-        proposedItems.addAll(newProposedItems);
-
-        invoiceItemGeneratorLogger.logItems();
+        // The last event of the account is always considered (isLastEventIncluded is only false for the other partitions, see processBillingEventsPerSubscription)
+        if (isLastEventIncluded || !subscriptionIdsWithAutoInvoiceOff.contains(nextEvent.getSubscriptionId())) {
+            final List<InvoiceItem> newProposedItems = processRecurringEvent(invoiceId, accountId, nextEvent, null, targetDate, currency, invoiceItemGeneratorLogger, perSubscriptionFutureNotificationDate, internalCallContext);
+            proposedItems.addAll(newProposedItems);
+        }
     }
 
     @VisibleForTesting
@@ -170,11 +220,19 @@ public class FixedAndRecurringInvoiceItemGenerator extends InvoiceItemGenerator
             return;
         }
 
-        InvoiceItem prevItem = null;
-
         // Pretty-print the generated invoice items from the junction events
         final InvoiceItemGeneratorLogger invoiceItemGeneratorLogger = new InvoiceItemGeneratorLogger(invoiceId, accountId, "fixed", log);
 
+        processFixedBillingEvents(invoiceId, accountId, events, targetDate, currency, proposedItems, invoiceItemGeneratorLogger, internalCallContext);
+
+        invoiceItemGeneratorLogger.logItems();
+    }
+
+    private void processFixedBillingEvents(final UUID invoiceId, final UUID accountId, final Iterable<BillingEvent> events, final LocalDate targetDate,
+                                           final Currency currency, final List<InvoiceItem> proposedItems, final InvoiceItemGeneratorLogger invoiceItemGeneratorLogger,
+                                           final InternalCallContext internalCallContext) throws InvoiceApiException {
+        InvoiceItem prevItem = null;
+
         final Iterator<BillingEvent> eventIt = events.iterator();
         while (eventIt.hasNext()) {
             final BillingEvent thisEvent = eventIt.next();
@@ -192,8 +250,82 @@ public class FixedAndRecurringInvoiceItemGenerator extends InvoiceItemGenerator
         if (prevItem != null) {
             proposedItems.add(prevItem);
         }
+    }
 
-        invoiceItemGeneratorLogger.logItems();
+    //
+    // Partitioned generation: the billing events being ordered by subscription, the recurring and fixed items of each subscription
+    // only depend on the events of that subscription and can be generated in parallel. The proposed items (and future notification dates)
+    // are then gathered in the same order as the sequential generation: all recurring items first, followed by all fixed items.
+    //
+    private void processBillingEventsPerSubscription(final UUID invoiceId, final UUID accountId, final List<List<BillingEvent>> eventsPerSubscription,
+                                                     final List<UUID> subscriptionIdsWithAutoInvoiceOff, final LocalDate targetDate, final Currency currency,
+                                                     final List<InvoiceItem> proposedItems, final Map<UUID, SubscriptionFutureNotificationDates> perSubscriptionFutureNotificationDate,
+                                                     final InternalCallContext internalCallContext) throws InvoiceApiException {
+        final List<Future<SubscriptionProposedItems>> futures = new ArrayList<>(eventsPerSubscription.size());
+        for (int i = 0; i < eventsPerSubscription.size(); i++) {
+            final List<BillingEvent> subscriptionEvents = eventsPerSubscription.get(i);
+            final boolean isLastEventIncluded = i == eventsPerSubscription.size() - 1;
+            futures.add(executor.submit(() -> {
+                final SubscriptionProposedItems result = new SubscriptionProposedItems();
+
+                final InvoiceItemGeneratorLogger recurringLogger = new InvoiceItemGeneratorLogger(invoiceId, accountId, "recurring", log);
+                processRecurringBillingEvents(invoiceId, accountId, subscriptionEvents, subscriptionIdsWithAutoInvoiceOff, isLastEventIncluded, targetDate, currency,
+                                              result.recurringItems, recurringLogger, result.futureNotificationDates, internalCallContext);
+                recurringLogger.logItems();
+
+                final InvoiceItemGeneratorLogger fixedLogger = new InvoiceItemGeneratorLogger(invoiceId, accountId, "fixed", log);
+                processFixedBillingEvents(invoiceId, accountId, subscriptionEvents, targetDate, currency, result.fixedItems, fixedLogger, internalCallContext);
+                fixedLogger.logItems();
+
+                return result;
+            }));
+        }
+
+        final List<SubscriptionProposedItems> results = new ArrayList<>(futures.size());
+        for (final Future<SubscriptionProposedItems> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof InvoiceApiException) {
+                    throw (InvoiceApiException) e.getCause();
+                } else if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InvoiceApiException(e, ErrorCode.UNEXPECTED_ERROR, "Interrupted while generating invoice items");
+            }
+        }
+
+        for (final SubscriptionProposedItems result : results) {
+            proposedItems.addAll(result.recurringItems);
+            perSubscriptionFutureNotificationDate.putAll(result.futureNotificationDates);
+        }
+        for (final SubscriptionProposedItems result : results) {
+            proposedItems.addAll(result.fixedItems);
+        }
+    }
+
+    // Contiguous events per subscription, in the BillingEventSet order
+    private static List<List<BillingEvent>> partitionBySubscription(final BillingEventSet eventSet) {
+        final List<List<BillingEvent>> result = new ArrayList<>();
+        List<BillingEvent> current = null;
+        for (final BillingEvent event : eventSet) {
+            if (current == null || !current.get(0).getSubscriptionId().equals(event.getSubscriptionId())) {
+                current = new ArrayList<>();
+                result.add(current);
+            }
+            current.add(event);
+        }
+        return result;
+    }
+
+    private static final class SubscriptionProposedItems {
+
+        private final List<InvoiceItem> recurringItems = new ArrayList<>();
+        private final List<InvoiceItem> fixedItems = new ArrayList<>();
+        private final Map<UUID, SubscriptionFutureNotificationDates> futureNotificationDates = new HashMap<>();
     }
 
     @VisibleForTesting
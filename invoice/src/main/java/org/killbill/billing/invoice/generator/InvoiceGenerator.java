@@ -16,6 +16,7 @@
 
 package org.killbill.billing.invoice.generator;
 
+import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -31,6 +32,13 @@ import org.killbill.billing.junction.BillingEventSet;
 import org.killbill.billing.payment.api.PluginProperty;
 
 public interface InvoiceGenerator {
-    InvoiceWithMetadata generateInvoice(ImmutableAccountData account, @Nullable BillingEventSet events, AccountInvoices existingInvoices,
+
+    default InvoiceWithMetadata generateInvoice(final ImmutableAccountData account, @Nullable final BillingEventSet events, final AccountInvoices existingInvoices,
+                                                final UUID targetInvoiceId, final LocalDate targetDate, final Currency targetCurrency, @Nullable final DryRunInfo dryRunInfo, final Iterable<PluginProperty> pluginProperties, final InternalCallContext context) throws InvoiceApiException {
+        return generateInvoice(account, events, existingInvoices, null, targetInvoiceId, targetDate, targetCurrency, dryRunInfo, pluginProperties, context);
+    }
+
+    // When subscriptionIdsInScope is specified, only the items of these subscriptions are generated (incremental generation)
+    InvoiceWithMetadata generateInvoice(ImmutableAccountData account, @Nullable BillingEventSet events, AccountInvoices existingInvoices, @Nullable Set<UUID> subscriptionIdsInScope,
                                         UUID targetInvoiceId, LocalDate targetDate, Currency targetCurrency, @Nullable DryRunInfo dryRunInfo, Iterable<PluginProperty> pluginProperties, InternalCallContext context) throws InvoiceApiException;
 }
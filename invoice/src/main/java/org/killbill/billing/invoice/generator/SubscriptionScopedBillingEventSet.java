@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.generator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.killbill.billing.catalog.api.Usage;
+import org.killbill.billing.junction.BillingEvent;
+import org.killbill.billing.junction.BillingEventSet;
+
+//
+// Billing events of a subset of the account subscriptions (same ordering), account level flags are the ones of the full set.
+//
+class SubscriptionScopedBillingEventSet extends TreeSet<BillingEvent> implements BillingEventSet {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean isAccountAutoInvoiceOff;
+    private final boolean isAccountAutoInvoiceDraft;
+    private final boolean isAccountAutoInvoiceReuseDraft;
+    private final List<UUID> subscriptionIdsWithAutoInvoiceOff;
+    private final Map<String, Usage> usages;
+
+    SubscriptionScopedBillingEventSet(final BillingEventSet allEvents, final Set<UUID> subscriptionIdsInScope) {
+        super(allEvents.comparator());
+        for (final BillingEvent event : allEvents) {
+            if (subscriptionIdsInScope.contains(event.getSubscriptionId())) {
+                add(event);
+            }
+        }
+        this.isAccountAutoInvoiceOff = allEvents.isAccountAutoInvoiceOff();
+        this.isAccountAutoInvoiceDraft = allEvents.isAccountAutoInvoiceDraft();
+        this.isAccountAutoInvoiceReuseDraft = allEvents.isAccountAutoInvoiceReuseDraft();
+        this.subscriptionIdsWithAutoInvoiceOff = allEvents.getSubscriptionIdsWithAutoInvoiceOff();
+        this.usages = allEvents.getUsages();
+    }
+
+    @Override
+    public boolean isAccountAutoInvoiceOff() {
+        return isAccountAutoInvoiceOff;
+    }
+
+    @Override
+    public boolean isAccountAutoInvoiceDraft() {
+        return isAccountAutoInvoiceDraft;
+    }
+
+    @Override
+    public boolean isAccountAutoInvoiceReuseDraft() {
+        return isAccountAutoInvoiceReuseDraft;
+    }
+
+    @Override
+    public List<UUID> getSubscriptionIdsWithAutoInvoiceOff() {
+        return subscriptionIdsWithAutoInvoiceOff;
+    }
+
+    @Override
+    public Map<String, Usage> getUsages() {
+        return usages;
+    }
+}
@@ -21,6 +21,7 @@ package org.killbill.billing.invoice.glue;
 import org.killbill.billing.glue.InvoiceModule;
 import org.killbill.billing.invoice.InvoiceDispatcher;
 import org.killbill.billing.invoice.InvoiceListener;
+import org.killbill.billing.invoice.InvoicePluginDispatcher;
 import org.killbill.billing.invoice.InvoiceTagHandler;
 import org.killbill.billing.invoice.ParkedAccountsManager;
 import org.killbill.billing.invoice.api.DefaultInvoiceService;
@@ -50,10 +51,13 @@ import org.killbill.billing.invoice.optimizer.InvoiceOptimizer;
 import org.killbill.billing.invoice.optimizer.InvoiceOptimizerExp;
 import org.killbill.billing.invoice.optimizer.InvoiceOptimizerNoop;
 import org.killbill.billing.invoice.plugin.api.InvoicePluginApi;
+import org.killbill.billing.invoice.template.HtmlInvoiceGenerator;
+import org.killbill.billing.invoice.template.InvoiceTemplateCacheInvalidationCallback;
 import org.killbill.billing.invoice.template.bundles.DefaultResourceBundleFactory;
 import org.killbill.billing.invoice.usage.RawUsageOptimizer;
 import org.killbill.billing.osgi.api.OSGIServiceRegistration;
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.tenant.api.TenantInternalApi.CacheInvalidationCallback;
 import org.killbill.billing.util.config.definition.InvoiceConfig;
 import org.killbill.billing.util.glue.KillBillModule;
 import org.killbill.billing.util.template.translation.TranslatorConfig;
@@ -64,6 +68,7 @@ import com.google.inject.name.Names;
 
 public class DefaultInvoiceModule extends KillBillModule implements InvoiceModule {
 
+    public static final String INVOICE_TEMPLATE_INVALIDATION_CALLBACK = "InvoiceTemplateInvalidationCallback";
 
     public DefaultInvoiceModule(final KillbillConfigSource configSource) {
         super(configSource);
@@ -101,6 +106,9 @@ public class DefaultInvoiceModule extends KillBillModule implements InvoiceModul
 
     protected void installResourceBundleFactory() {
         bind(ResourceBundleFactory.class).to(DefaultResourceBundleFactory.class).asEagerSingleton();
+        // Shared with the invalidation callback, as it caches the tenant templates
+        bind(HtmlInvoiceGenerator.class).asEagerSingleton();
+        bind(CacheInvalidationCallback.class).annotatedWith(Names.named(INVOICE_TEMPLATE_INVALIDATION_CALLBACK)).to(InvoiceTemplateCacheInvalidationCallback.class).asEagerSingleton();
     }
 
 
@@ -132,6 +140,7 @@ public class DefaultInvoiceModule extends KillBillModule implements InvoiceModul
 
     protected void installInvoicePluginApi() {
         bind(new TypeLiteral<OSGIServiceRegistration<InvoicePluginApi>>() {}).toProvider(DefaultInvoiceProviderPluginRegistryProvider.class).asEagerSingleton();
+        bind(InvoicePluginDispatcher.class).asEagerSingleton();
     }
 
     protected void installInvoiceOptimizer() {
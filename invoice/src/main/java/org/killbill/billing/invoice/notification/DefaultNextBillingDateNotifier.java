@@ -77,7 +77,7 @@ public class DefaultNextBillingDateNotifier extends RetryableService implements
                     processEventForInvoiceNotification(targetDate, userToken, accountRecordId, tenantRecordId);
                 } else {
                     final boolean isRescheduled = Boolean.TRUE.equals(key.isRescheduled()); // Handle null value (old versions < 0.19.7)
-                    processEventForInvoiceGeneration(targetDate, isRescheduled, userToken, accountRecordId, tenantRecordId);
+                    processEventForInvoiceGeneration(targetDate, isRescheduled, key.getUuidKeys(), userToken, accountRecordId, tenantRecordId);
                 }
             }
         };
@@ -108,8 +108,8 @@ public class DefaultNextBillingDateNotifier extends RetryableService implements
         super.stop();
     }
 
-    private void processEventForInvoiceGeneration(final DateTime eventDateTime, final boolean isRescheduled, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
-        listener.handleNextBillingDateEvent(eventDateTime, isRescheduled, userToken, accountRecordId, tenantRecordId);
+    private void processEventForInvoiceGeneration(final DateTime eventDateTime, final boolean isRescheduled, final Iterable<UUID> subscriptionIds, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+        listener.handleNextBillingDateEvent(eventDateTime, isRescheduled, subscriptionIds, userToken, accountRecordId, tenantRecordId);
     }
 
     private void processEventForInvoiceNotification(final DateTime eventDateTime, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
@@ -16,9 +16,11 @@
 
 package org.killbill.billing.invoice.provider;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.inject.Inject;
 
@@ -33,6 +35,7 @@ public class DefaultInvoiceProviderPluginRegistry implements OSGIServiceRegistra
     private final static Logger log = LoggerFactory.getLogger(DefaultInvoiceProviderPluginRegistry.class);
 
     private final Map<String, InvoicePluginApi> pluginsByName = new ConcurrentHashMap<String, InvoicePluginApi>();
+    private final List<Runnable> registrationListeners = new CopyOnWriteArrayList<Runnable>();
 
     @Inject
     public DefaultInvoiceProviderPluginRegistry() {
@@ -43,12 +46,14 @@ public class DefaultInvoiceProviderPluginRegistry implements OSGIServiceRegistra
     public void registerService(final OSGIServiceDescriptor desc, final InvoicePluginApi service) {
         log.info("Registering service='{}'", desc.getRegistrationName());
         pluginsByName.put(desc.getRegistrationName(), service);
+        notifyRegistrationListeners();
     }
 
     @Override
     public void unregisterService(final String serviceName) {
         log.info("Unregistering service='{}'", serviceName);
         pluginsByName.remove(serviceName);
+        notifyRegistrationListeners();
     }
 
     @Override
@@ -68,4 +73,16 @@ public class DefaultInvoiceProviderPluginRegistry implements OSGIServiceRegistra
     @Override
     public Class<InvoicePluginApi> getServiceType() {
         return InvoicePluginApi.class;
-    }}
+    }
+
+    // Invoked after each registration or unregistration
+    public void addRegistrationListener(final Runnable listener) {
+        registrationListeners.add(listener);
+    }
+
+    private void notifyRegistrationListeners() {
+        for (final Runnable listener : registrationListeners) {
+            listener.run();
+        }
+    }
+}
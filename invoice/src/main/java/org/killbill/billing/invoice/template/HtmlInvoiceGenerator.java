@@ -19,10 +19,17 @@ package org.killbill.billing.invoice.template;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -47,6 +54,8 @@ import org.killbill.xmlloader.UriAccessor;
 
 public class HtmlInvoiceGenerator {
 
+    private static final int MAX_TEMPLATES = 1000;
+
     private final InvoiceFormatterFactory factory;
     private final TranslatorConfig config;
     private final CurrencyConversionApi currencyConversionApi;
@@ -54,6 +63,18 @@ public class HtmlInvoiceGenerator {
     private final TenantInternalApi tenantApi;
     private final ResourceBundleFactory bundleFactory;
 
+    // Template text per tenant, locale and manualPay flag (invalidated when the tenant templates are updated), least recently used entries are evicted first
+    private final Map<TemplateKey, String> templates = Collections.synchronizedMap(new LinkedHashMap<TemplateKey, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<TemplateKey, String> eldest) {
+            return size() > MAX_TEMPLATES;
+        }
+    });
+    // Incremented on each invalidation, to avoid re-populating the cache with a template loaded before the invalidation
+    private final AtomicLong invalidations = new AtomicLong();
+    // Default templates, by name
+    private final Map<String, String> defaultTemplates = new ConcurrentHashMap<String, String>();
+
     @Inject
     public HtmlInvoiceGenerator(final InvoiceFormatterFactory factory,
                                 final TemplateEngine templateEngine,
@@ -75,30 +96,54 @@ public class HtmlInvoiceGenerator {
             return null;
         }
 
-        final String accountLocale = Strings.emptyToNull(account.getLocale());
-        final Locale locale = accountLocale == null ? Locale.getDefault() : LocaleUtils.toLocale(accountLocale);
-
-        final HtmlInvoice invoiceData = new HtmlInvoice();
-        final Map<String, Object> data = new HashMap<String, Object>();
+        return new Renderer(account, manualPay, context).render(invoice);
+    }
 
-        final ResourceBundle invoiceBundle = accountLocale != null ?
-                                             bundleFactory.createBundle(LocaleUtils.toLocale(accountLocale), config.getInvoiceTemplateBundlePath(), ResourceBundleType.INVOICE_TRANSLATION, context) : null;
-        final ResourceBundle defaultInvoiceBundle = bundleFactory.createBundle(Locale.getDefault(), config.getInvoiceTemplateBundlePath(), ResourceBundleType.INVOICE_TRANSLATION, context);
-        final DefaultInvoiceTranslator invoiceTranslator = new DefaultInvoiceTranslator(invoiceBundle, defaultInvoiceBundle);
+    // Render several invoices for the same account (e.g. monthly statements): the template and bundles are resolved only once.
+    // The result is in the same order as the invoices, with null entries for null or empty invoices.
+    public List<HtmlInvoice> generateInvoices(final Account account, final Iterable<Invoice> invoices, final boolean manualPay, final InternalTenantContext context) throws IOException {
+        final List<HtmlInvoice> result = new LinkedList<HtmlInvoice>();
+
+        Renderer renderer = null;
+        for (final Invoice invoice : invoices) {
+            if (invoice == null || invoice.getNumberOfItems() == 0) {
+                result.add(null);
+                continue;
+            }
+
+            if (renderer == null) {
+                renderer = new Renderer(account, manualPay, context);
+            }
+            result.add(renderer.render(invoice));
+        }
+        return result;
+    }
 
-        data.put("text", invoiceTranslator);
-        data.put("account", account);
+    public void invalidateTemplates(final boolean manualPay, final InternalTenantContext context) {
+        synchronized (templates) {
+            invalidations.incrementAndGet();
+            templates.keySet().removeIf(templateKey -> templateKey.manualPay == manualPay && Objects.equals(templateKey.tenantRecordId, context.getTenantRecordId()));
+        }
+    }
 
-        final InvoiceFormatter formattedInvoice = factory.createInvoiceFormatter(config, invoice, locale, currencyConversionApi, bundleFactory, context);
-        data.put("invoice", formattedInvoice);
+    private String getTemplateText(final Locale locale, final boolean manualPay, final InternalTenantContext context) throws IOException {
+        final TemplateKey templateKey = new TemplateKey(context.getTenantRecordId(), locale, manualPay);
+        final String cachedTemplateText = templates.get(templateKey);
+        if (cachedTemplateText != null) {
+            return cachedTemplateText;
+        }
 
-        invoiceData.setSubject(invoiceTranslator.getInvoiceEmailSubject());
-        final String templateText = getTemplateText(locale, manualPay, context);
-        invoiceData.setBody(templateEngine.executeTemplateText(templateText, data));
-        return invoiceData;
+        final long invalidationsBeforeLoad = invalidations.get();
+        final String templateText = loadTemplateText(locale, manualPay, context);
+        synchronized (templates) {
+            if (invalidations.get() == invalidationsBeforeLoad) {
+                templates.put(templateKey, templateText);
+            }
+        }
+        return templateText;
     }
 
-    private String getTemplateText(final Locale locale, final boolean manualPay, final InternalTenantContext context) throws IOException {
+    private String loadTemplateText(final Locale locale, final boolean manualPay, final InternalTenantContext context) throws IOException {
 
         if (InternalCallContextFactory.INTERNAL_TENANT_RECORD_ID.equals(context.getTenantRecordId())) {
             return getDefaultTemplate(manualPay ? config.getManualPayTemplateName() : config.getTemplateName());
@@ -112,11 +157,90 @@ public class HtmlInvoiceGenerator {
     }
 
     private String getDefaultTemplate(final String templateName) throws IOException {
+        final String cachedTemplate = defaultTemplates.get(templateName);
+        if (cachedTemplate != null) {
+            return cachedTemplate;
+        }
+
         try {
             final InputStream templateStream = UriAccessor.accessUri(templateName);
-            return IOUtils.toString(templateStream);
+            final String template = IOUtils.toString(templateStream);
+            defaultTemplates.put(templateName, template);
+            return template;
         } catch (final URISyntaxException e) {
             throw new IOException(e);
         }
     }
+
+    // Template and translations for a given account
+    private final class Renderer {
+
+        private final Account account;
+        private final Locale locale;
+        private final DefaultInvoiceTranslator invoiceTranslator;
+        private final String templateText;
+        private final InternalTenantContext context;
+
+        private Renderer(final Account account, final boolean manualPay, final InternalTenantContext context) throws IOException {
+            this.account = account;
+            this.context = context;
+
+            final String accountLocale = Strings.emptyToNull(account.getLocale());
+            this.locale = accountLocale == null ? Locale.getDefault() : LocaleUtils.toLocale(accountLocale);
+
+            final ResourceBundle invoiceBundle = accountLocale != null ?
+                                                 bundleFactory.createBundle(LocaleUtils.toLocale(accountLocale), config.getInvoiceTemplateBundlePath(), ResourceBundleType.INVOICE_TRANSLATION, context) : null;
+            final ResourceBundle defaultInvoiceBundle = bundleFactory.createBundle(Locale.getDefault(), config.getInvoiceTemplateBundlePath(), ResourceBundleType.INVOICE_TRANSLATION, context);
+            this.invoiceTranslator = new DefaultInvoiceTranslator(invoiceBundle, defaultInvoiceBundle);
+
+            this.templateText = getTemplateText(locale, manualPay, context);
+        }
+
+        private HtmlInvoice render(final Invoice invoice) {
+            final HtmlInvoice invoiceData = new HtmlInvoice();
+            final Map<String, Object> data = new HashMap<String, Object>();
+
+            data.put("text", invoiceTranslator);
+            data.put("account", account);
+
+            final InvoiceFormatter formattedInvoice = factory.createInvoiceFormatter(config, invoice, locale, currencyConversionApi, bundleFactory, context);
+            data.put("invoice", formattedInvoice);
+
+            invoiceData.setSubject(invoiceTranslator.getInvoiceEmailSubject());
+            invoiceData.setBody(templateEngine.executeTemplateText(templateText, data));
+            return invoiceData;
+        }
+    }
+
+    private static final class TemplateKey {
+
+        private final Long tenantRecordId;
+        private final Locale locale;
+        private final boolean manualPay;
+
+        private TemplateKey(final Long tenantRecordId, final Locale locale, final boolean manualPay) {
+            this.tenantRecordId = tenantRecordId;
+            this.locale = locale;
+            this.manualPay = manualPay;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final TemplateKey that = (TemplateKey) o;
+            return manualPay == that.manualPay &&
+                   Objects.equals(tenantRecordId, that.tenantRecordId) &&
+                   Objects.equals(locale, that.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenantRecordId, locale, manualPay);
+        }
+    }
 }
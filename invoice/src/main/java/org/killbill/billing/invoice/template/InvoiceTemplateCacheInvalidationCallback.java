@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.template;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.formatters.ResourceBundleFactory;
+import org.killbill.billing.invoice.api.formatters.ResourceBundleFactory.ResourceBundleType;
+import org.killbill.billing.tenant.api.TenantInternalApi.CacheInvalidationCallback;
+import org.killbill.billing.tenant.api.TenantKV.TenantKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class InvoiceTemplateCacheInvalidationCallback implements CacheInvalidationCallback {
+
+    private final Logger log = LoggerFactory.getLogger(InvoiceTemplateCacheInvalidationCallback.class);
+
+    private final HtmlInvoiceGenerator htmlInvoiceGenerator;
+    private final ResourceBundleFactory bundleFactory;
+
+    @Inject
+    public InvoiceTemplateCacheInvalidationCallback(final HtmlInvoiceGenerator htmlInvoiceGenerator, final ResourceBundleFactory bundleFactory) {
+        this.htmlInvoiceGenerator = htmlInvoiceGenerator;
+        this.bundleFactory = bundleFactory;
+    }
+
+    @Override
+    public void invalidateCache(final TenantKey key, final Object cookie, final InternalTenantContext tenantContext) {
+        log.info("Invalidate invoice template cache for key='{}', tenantRecordId='{}'", key, tenantContext.getTenantRecordId());
+        switch (key) {
+            case INVOICE_TEMPLATE:
+                htmlInvoiceGenerator.invalidateTemplates(false, tenantContext);
+                break;
+            case INVOICE_MP_TEMPLATE:
+                htmlInvoiceGenerator.invalidateTemplates(true, tenantContext);
+                break;
+            case INVOICE_TRANSLATION_:
+                bundleFactory.invalidateBundles(ResourceBundleType.INVOICE_TRANSLATION, tenantContext);
+                break;
+            case CATALOG_TRANSLATION_:
+                bundleFactory.invalidateBundles(ResourceBundleType.CATALOG_TRANSLATION, tenantContext);
+                break;
+            default:
+                break;
+        }
+    }
+}
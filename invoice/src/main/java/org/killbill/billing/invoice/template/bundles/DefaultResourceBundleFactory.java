@@ -22,10 +22,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.MissingResourceException;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.PropertyResourceBundle;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 
@@ -41,8 +47,20 @@ public class DefaultResourceBundleFactory implements ResourceBundleFactory {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultResourceBundleFactory.class);
 
+    private static final int MAX_BUNDLES = 1000;
+
     private final TenantInternalApi tenantApi;
 
+    // Parsed bundles per tenant, locale and type (invalidated when the tenant translations are updated), least recently used entries are evicted first
+    private final Map<BundleKey, Optional<ResourceBundle>> bundles = Collections.synchronizedMap(new LinkedHashMap<BundleKey, Optional<ResourceBundle>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<BundleKey, Optional<ResourceBundle>> eldest) {
+            return size() > MAX_BUNDLES;
+        }
+    });
+    // Incremented on each invalidation, to avoid re-populating the cache with a bundle loaded before the invalidation
+    private final AtomicLong invalidations = new AtomicLong();
+
     @Inject
     public DefaultResourceBundleFactory(final TenantInternalApi tenantApi) {
         this.tenantApi = tenantApi;
@@ -50,6 +68,32 @@ public class DefaultResourceBundleFactory implements ResourceBundleFactory {
 
     @Override
     public ResourceBundle createBundle(final Locale locale, final String bundlePath, final ResourceBundleType type, final InternalTenantContext tenantContext) {
+        final BundleKey bundleKey = new BundleKey(tenantContext.getTenantRecordId(), locale, bundlePath, type);
+        final Optional<ResourceBundle> cachedBundle = bundles.get(bundleKey);
+        if (cachedBundle != null) {
+            return cachedBundle.orElse(null);
+        }
+
+        // Loaded outside of the lock, as loading the bundle can be slow (tenant KV lookup, classpath or file access)
+        final long invalidationsBeforeLoad = invalidations.get();
+        final ResourceBundle bundle = loadBundle(locale, bundlePath, type, tenantContext);
+        synchronized (bundles) {
+            if (invalidations.get() == invalidationsBeforeLoad) {
+                bundles.put(bundleKey, Optional.ofNullable(bundle));
+            }
+        }
+        return bundle;
+    }
+
+    @Override
+    public void invalidateBundles(final ResourceBundleType type, final InternalTenantContext tenantContext) {
+        synchronized (bundles) {
+            invalidations.incrementAndGet();
+            bundles.keySet().removeIf(bundleKey -> bundleKey.type == type && Objects.equals(bundleKey.tenantRecordId, tenantContext.getTenantRecordId()));
+        }
+    }
+
+    private ResourceBundle loadBundle(final Locale locale, final String bundlePath, final ResourceBundleType type, final InternalTenantContext tenantContext) {
         if (InternalCallContextFactory.INTERNAL_TENANT_RECORD_ID.equals(tenantContext.getTenantRecordId())) {
             return getGlobalBundle(locale, bundlePath);
         }
@@ -116,4 +160,39 @@ public class DefaultResourceBundleFactory implements ResourceBundleFactory {
             return null;
         }
     }
+
+    private static final class BundleKey {
+
+        private final Long tenantRecordId;
+        private final Locale locale;
+        private final String bundlePath;
+        private final ResourceBundleType type;
+
+        private BundleKey(final Long tenantRecordId, final Locale locale, final String bundlePath, final ResourceBundleType type) {
+            this.tenantRecordId = tenantRecordId;
+            this.locale = locale;
+            this.bundlePath = bundlePath;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final BundleKey bundleKey = (BundleKey) o;
+            return Objects.equals(tenantRecordId, bundleKey.tenantRecordId) &&
+                   Objects.equals(locale, bundleKey.locale) &&
+                   Objects.equals(bundlePath, bundleKey.bundlePath) &&
+                   type == bundleKey.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenantRecordId, locale, bundlePath, type);
+        }
+    }
 }
@@ -20,12 +20,20 @@
 package org.killbill.billing.invoice.tree;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
 
 import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.api.InvoiceItemType;
@@ -39,7 +47,8 @@ import org.killbill.commons.utils.collect.Iterables;
  * associated to a given subscription. That also means that invoice item adjustment which cross subscriptions
  * can't be correctly handled when they compete with other forms of adjustments.
  * <p/>
- * <p>The class is not thread safe, there is no such use case today, and there is a lifecyle to respect:
+ * <p>The class is not thread safe (the per subscription work can however be executed in parallel, see
+ * {@link #mergeWithProposedItems(List, ExecutorService)}), and there is a lifecyle to respect:
  * <ul>
  * <li>Add existing invoice items
  * <li>Build the tree,
@@ -54,12 +63,23 @@ public class AccountItemTree {
     private final Map<UUID, SubscriptionItemTree> subscriptionItemTree;
     private final List<InvoiceItem> allExistingItems;
     private final List<InvoiceItem> pendingItemAdj;
+    // Null when all subscriptions are considered
+    private final Set<UUID> subscriptionIdsInScope;
 
     private boolean isBuilt;
 
     public AccountItemTree(final UUID accountId, final UUID targetInvoiceId) {
+        this(accountId, targetInvoiceId, null);
+    }
+
+    /**
+     * @param subscriptionIdsInScope if specified, existing items of other subscriptions are ignored (items which aren't
+     *                               associated to any subscription are always kept)
+     */
+    public AccountItemTree(final UUID accountId, final UUID targetInvoiceId, @Nullable final Set<UUID> subscriptionIdsInScope) {
         this.accountId = accountId;
         this.targetInvoiceId = targetInvoiceId;
+        this.subscriptionIdsInScope = subscriptionIdsInScope;
         this.subscriptionItemTree = new HashMap<UUID, SubscriptionItemTree>();
         this.isBuilt = false;
         this.allExistingItems = new LinkedList<InvoiceItem>();
@@ -70,7 +90,7 @@ public class AccountItemTree {
      * build the subscription trees after they have been populated with existing items on disk
      */
     public void build() {
-        Preconditions.checkState(!isBuilt);
+        Preconditions.checkState(!isBuilt, "Tree already built");
 
         if (!pendingItemAdj.isEmpty()) {
             for (final InvoiceItem item : pendingItemAdj) {
@@ -118,6 +138,10 @@ public class AccountItemTree {
             return;
         }
 
+        if (subscriptionId != null && subscriptionIdsInScope != null && !subscriptionIdsInScope.contains(subscriptionId)) {
+            return;
+        }
+
         if (!subscriptionItemTree.containsKey(subscriptionId)) {
             subscriptionItemTree.put(subscriptionId, new SubscriptionItemTree(subscriptionId, targetInvoiceId));
         }
@@ -152,6 +176,52 @@ public class AccountItemTree {
         }
     }
 
+    /**
+     * Same as {@link #mergeWithProposedItems(List)}, with the (independent) per subscription work executed on the specified executor.
+     * <p/>
+     * The resulting trees are identical to the ones of the sequential merge: existing trees are built and flattened first, new trees are
+     * created in the order of the proposed items and each tree merges its proposed items in order.
+     *
+     * @param proposedItems list of proposed item that should be merged with current existing view
+     * @param executor      executor to use for the per subscription work
+     */
+    public void mergeWithProposedItems(final List<InvoiceItem> proposedItems, final ExecutorService executor) {
+        Preconditions.checkState(!isBuilt, "Tree already built");
+
+        if (!pendingItemAdj.isEmpty()) {
+            for (final InvoiceItem item : pendingItemAdj) {
+                addExistingItem(item, true);
+            }
+            pendingItemAdj.clear();
+        }
+        executePerSubscription(subscriptionItemTree.values(), executor, tree -> {
+            tree.build();
+            tree.flatten(true);
+            return null;
+        });
+        isBuilt = true;
+
+        final Map<UUID, List<InvoiceItem>> proposedItemsPerSubscription = new HashMap<UUID, List<InvoiceItem>>();
+        for (final InvoiceItem item : proposedItems) {
+            final UUID subscriptionId = getSubscriptionId(item, null);
+            if (!subscriptionItemTree.containsKey(subscriptionId)) {
+                subscriptionItemTree.put(subscriptionId, new SubscriptionItemTree(subscriptionId, targetInvoiceId));
+            }
+            proposedItemsPerSubscription.computeIfAbsent(subscriptionId, k -> new LinkedList<InvoiceItem>()).add(item);
+        }
+
+        executePerSubscription(subscriptionItemTree.entrySet(), executor, entry -> {
+            final List<InvoiceItem> subscriptionProposedItems = proposedItemsPerSubscription.get(entry.getKey());
+            if (subscriptionProposedItems != null) {
+                for (final InvoiceItem item : subscriptionProposedItems) {
+                    entry.getValue().mergeProposedItem(item);
+                }
+            }
+            entry.getValue().buildForMerge();
+            return null;
+        });
+    }
+
     /**
      * @return the resulting list of items that should be written to disk
      */
@@ -166,6 +236,46 @@ public class AccountItemTree {
         return result;
     }
 
+    /**
+     * Same as {@link #getResultingItemList()}, with the per subscription views computed on the specified executor.
+     *
+     * @return the resulting list of items that should be written to disk, in the same order as {@link #getResultingItemList()}
+     */
+    public List<InvoiceItem> getResultingItemList(final ExecutorService executor) {
+        final List<InvoiceItem> result = new ArrayList<InvoiceItem>();
+        for (final List<InvoiceItem> simplifiedView : executePerSubscription(subscriptionItemTree.values(), executor, SubscriptionItemTree::getView)) {
+            result.addAll(simplifiedView);
+        }
+        return result;
+    }
+
+    // Results are returned in the iteration order of the input, the first failure (in that order) is re-thrown
+    private static <T, R> List<R> executePerSubscription(final Collection<T> inputs, final ExecutorService executor, final Function<T, R> task) {
+        final List<Future<R>> futures = new ArrayList<Future<R>>(inputs.size());
+        for (final T input : inputs) {
+            futures.add(executor.submit(() -> task.apply(input)));
+        }
+
+        final List<R> results = new ArrayList<R>(inputs.size());
+        RuntimeException failure = null;
+        for (final Future<R> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (final ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
     public UUID getAccountId() {
         return accountId;
     }
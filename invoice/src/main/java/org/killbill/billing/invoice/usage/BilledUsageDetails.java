@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.usage;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.usage.details.UsageConsumableInArrearAggregate;
+import org.killbill.billing.invoice.usage.details.UsageConsumableInArrearTierUnitAggregate;
+import org.killbill.commons.utils.Preconditions;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+//
+// Typed itemDetails of the existing (billed) usage items, shared across all usage intervals (and unit types) of an invoice run:
+// the JSON is parsed at most once per item instead of once per interval and unit type.
+//
+// Parsed details are shared and must be treated as read-only (see ContiguousIntervalConsumableUsageInArrear#getBilledDetailsForUnitType).
+// The stored format (and therefore the API output) is unchanged.
+//
+public class BilledUsageDetails {
+
+    private static final ObjectReader TIER_UNIT_DETAIL_READER = ContiguousIntervalUsageInArrear.objectMapper.readerFor(UsageConsumableInArrearTierUnitAggregate.class);
+    private static final ObjectReader AGGREGATE_READER = ContiguousIntervalUsageInArrear.objectMapper.readerFor(UsageConsumableInArrearAggregate.class);
+
+    // Concurrent as intervals of different subscriptions may be computed in parallel
+    private final Map<UUID, UsageConsumableInArrearTierUnitAggregate> tierUnitDetails = new ConcurrentHashMap<UUID, UsageConsumableInArrearTierUnitAggregate>();
+    private final Map<UUID, UsageConsumableInArrearAggregate> aggregates = new ConcurrentHashMap<UUID, UsageConsumableInArrearAggregate>();
+
+    // UsageDetailMode.DETAIL: one tier unit per item
+    @Nullable
+    public UsageConsumableInArrearTierUnitAggregate getTierUnitDetail(final InvoiceItem billedItem) {
+        return get(billedItem, tierUnitDetails, TIER_UNIT_DETAIL_READER);
+    }
+
+    // UsageDetailMode.AGGREGATE: all tier units of the period
+    @Nullable
+    public UsageConsumableInArrearAggregate getAggregate(final InvoiceItem billedItem) {
+        return get(billedItem, aggregates, AGGREGATE_READER);
+    }
+
+    private static <T> T get(final InvoiceItem billedItem, final Map<UUID, T> cache, final ObjectReader reader) {
+        if (billedItem.getItemDetails() == null) {
+            return null;
+        }
+        if (billedItem.getId() == null) {
+            return parse(billedItem.getItemDetails(), reader);
+        }
+
+        T result = cache.get(billedItem.getId());
+        if (result == null) {
+            result = parse(billedItem.getItemDetails(), reader);
+            cache.put(billedItem.getId(), result);
+        }
+        return result;
+    }
+
+    private static <T> T parse(final String itemDetails, final ObjectReader reader) {
+        try {
+            return reader.readValue(itemDetails);
+        } catch (final IOException e) {
+            Preconditions.checkState(false, e.getMessage());
+            return null;
+        }
+    }
+}
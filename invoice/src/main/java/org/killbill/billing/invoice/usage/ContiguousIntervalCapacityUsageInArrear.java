@@ -39,6 +39,7 @@ import org.killbill.billing.invoice.model.UsageInvoiceItem;
 import org.killbill.billing.invoice.usage.details.UsageCapacityInArrearAggregate;
 import org.killbill.billing.invoice.usage.details.UsageInArrearAggregate;
 import org.killbill.billing.invoice.usage.details.UsageInArrearTierUnitDetail;
+import org.killbill.billing.usage.RawUsageReader;
 import org.killbill.billing.usage.api.RawUsageRecord;
 import org.killbill.billing.usage.api.RolledUpUnit;
 import org.killbill.commons.utils.Joiner;
@@ -56,7 +57,7 @@ public class ContiguousIntervalCapacityUsageInArrear extends ContiguousIntervalU
     public ContiguousIntervalCapacityUsageInArrear(final Usage usage,
                                                    final UUID accountId,
                                                    final UUID invoiceId,
-                                                   final List<RawUsageRecord> rawSubscriptionUsage,
+                                                   final Iterable<RawUsageRecord> rawSubscriptionUsage,
                                                    final Set<TrackingRecordId> existingTrackingId,
                                                    final LocalDate targetDate,
                                                    final DateTime rawUsageStartDate,
@@ -64,7 +65,21 @@ public class ContiguousIntervalCapacityUsageInArrear extends ContiguousIntervalU
                                                    final InvoiceConfig invoiceConfig,
                                                    final boolean isDryRun,
                                                    final InternalTenantContext internalTenantContext) {
-        super(usage, accountId, invoiceId, rawSubscriptionUsage, existingTrackingId, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, isDryRun, internalTenantContext);
+        this(usage, accountId, invoiceId, toRawUsageReader(rawSubscriptionUsage), existingTrackingId, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, isDryRun, internalTenantContext);
+    }
+
+    public ContiguousIntervalCapacityUsageInArrear(final Usage usage,
+                                                   final UUID accountId,
+                                                   final UUID invoiceId,
+                                                   final RawUsageReader rawUsageReader,
+                                                   final Set<TrackingRecordId> existingTrackingId,
+                                                   final LocalDate targetDate,
+                                                   final DateTime rawUsageStartDate,
+                                                   final UsageDetailMode usageDetailMode,
+                                                   final InvoiceConfig invoiceConfig,
+                                                   final boolean isDryRun,
+                                                   final InternalTenantContext internalTenantContext) {
+        super(usage, accountId, invoiceId, rawUsageReader, existingTrackingId, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, isDryRun, internalTenantContext);
     }
 
     @Override
@@ -151,7 +166,6 @@ public class ContiguousIntervalCapacityUsageInArrear extends ContiguousIntervalU
         final StringBuilder sb = new StringBuilder("ContiguousIntervalCapacityUsageInArrear{");
         sb.append("transitionTimes=").append(transitionTimes);
         sb.append(", billingEvents=").append(billingEvents);
-        sb.append(", rawSubscriptionUsage=").append(rawSubscriptionUsage);
         sb.append(", rawUsageStartDate=").append(rawUsageStartDate);
         sb.append('}');
         return sb.toString();
@@ -46,6 +46,7 @@ import org.killbill.billing.invoice.model.UsageInvoiceItem;
 import org.killbill.billing.invoice.usage.details.UsageConsumableInArrearAggregate;
 import org.killbill.billing.invoice.usage.details.UsageConsumableInArrearTierUnitAggregate;
 import org.killbill.billing.invoice.usage.details.UsageInArrearAggregate;
+import org.killbill.billing.usage.RawUsageReader;
 import org.killbill.billing.usage.api.RawUsageRecord;
 import org.killbill.billing.usage.api.RolledUpUnit;
 import org.killbill.commons.utils.Preconditions;
@@ -66,7 +67,7 @@ public class ContiguousIntervalConsumableUsageInArrear extends ContiguousInterva
     public ContiguousIntervalConsumableUsageInArrear(final Usage usage,
                                                      final UUID accountId,
                                                      final UUID invoiceId,
-                                                     final List<RawUsageRecord> rawSubscriptionUsage,
+                                                     final Iterable<RawUsageRecord> rawSubscriptionUsage,
                                                      final Set<TrackingRecordId> existingTrackingId,
                                                      final LocalDate targetDate,
                                                      final DateTime rawUsageStartDate,
@@ -74,7 +75,37 @@ public class ContiguousIntervalConsumableUsageInArrear extends ContiguousInterva
                                                      final InvoiceConfig invoiceConfig,
                                                      final boolean isDryRun,
                                                      final InternalTenantContext internalTenantContext) {
-        super(usage, accountId, invoiceId, rawSubscriptionUsage, existingTrackingId, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, isDryRun, internalTenantContext);
+        this(usage, accountId, invoiceId, rawSubscriptionUsage, existingTrackingId, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, isDryRun, new BilledUsageDetails(), internalTenantContext);
+    }
+
+    public ContiguousIntervalConsumableUsageInArrear(final Usage usage,
+                                                     final UUID accountId,
+                                                     final UUID invoiceId,
+                                                     final Iterable<RawUsageRecord> rawSubscriptionUsage,
+                                                     final Set<TrackingRecordId> existingTrackingId,
+                                                     final LocalDate targetDate,
+                                                     final DateTime rawUsageStartDate,
+                                                     final UsageDetailMode usageDetailMode,
+                                                     final InvoiceConfig invoiceConfig,
+                                                     final boolean isDryRun,
+                                                     final BilledUsageDetails billedUsageDetails,
+                                                     final InternalTenantContext internalTenantContext) {
+        this(usage, accountId, invoiceId, toRawUsageReader(rawSubscriptionUsage), existingTrackingId, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, isDryRun, billedUsageDetails, internalTenantContext);
+    }
+
+    public ContiguousIntervalConsumableUsageInArrear(final Usage usage,
+                                                     final UUID accountId,
+                                                     final UUID invoiceId,
+                                                     final RawUsageReader rawUsageReader,
+                                                     final Set<TrackingRecordId> existingTrackingId,
+                                                     final LocalDate targetDate,
+                                                     final DateTime rawUsageStartDate,
+                                                     final UsageDetailMode usageDetailMode,
+                                                     final InvoiceConfig invoiceConfig,
+                                                     final boolean isDryRun,
+                                                     final BilledUsageDetails billedUsageDetails,
+                                                     final InternalTenantContext internalTenantContext) {
+        super(usage, accountId, invoiceId, rawUsageReader, existingTrackingId, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, isDryRun, billedUsageDetails, internalTenantContext);
     }
 
     @Override
@@ -153,7 +184,7 @@ public class ContiguousIntervalConsumableUsageInArrear extends ContiguousInterva
 
             if (usageDetailMode == UsageDetailMode.DETAIL) {
 
-                final UsageConsumableInArrearTierUnitAggregate targetTierUnitDetail = fromJson(bi.getItemDetails(), new TypeReference<UsageConsumableInArrearTierUnitAggregate>() {});
+                final UsageConsumableInArrearTierUnitAggregate targetTierUnitDetail = billedUsageDetails.getTierUnitDetail(bi);
                 if (targetTierUnitDetail.getTierUnit().equals(unitType)) {
                     // See https://github.com/killbill/killbill/issues/1325
                     final BigDecimal quantity = bi.getQuantity();
@@ -165,10 +196,12 @@ public class ContiguousIntervalConsumableUsageInArrear extends ContiguousInterva
                     tierDetails.add(usageUnitAggregate);
                 }
             } else {
-                final UsageConsumableInArrearAggregate usageDetail = fromJson(bi.getItemDetails(), new TypeReference<UsageConsumableInArrearAggregate>() {});
+                final UsageConsumableInArrearAggregate usageDetail = billedUsageDetails.getAggregate(bi);
                 for (final UsageConsumableInArrearTierUnitAggregate unitAgg : usageDetail.getTierDetails()) {
                     if (unitAgg.getTierUnit().equals(unitType)) {
-                        tierDetails.add(unitAgg);
+                        // Parsed details are shared across intervals: copy, as the per-tier aggregation below updates quantity and amount
+                        tierDetails.add(new UsageConsumableInArrearTierUnitAggregate(unitAgg.getTier(), unitAgg.getTierUnit(), unitAgg.getTierPrice(),
+                                                                                     unitAgg.getTierBlockSize(), unitAgg.getQuantity(), unitAgg.getAmount()));
                     }
                 }
             }
@@ -283,7 +316,6 @@ public class ContiguousIntervalConsumableUsageInArrear extends ContiguousInterva
         final StringBuilder sb = new StringBuilder("ContiguousIntervalConsumableUsageInArrear{");
         sb.append("transitionTimes=").append(transitionTimes);
         sb.append(", billingEvents=").append(billingEvents);
-        sb.append(", rawSubscriptionUsage=").append(rawSubscriptionUsage);
         sb.append(", rawUsageStartDate=").append(rawUsageStartDate);
         sb.append('}');
         return sb.toString();
@@ -18,6 +18,8 @@
 
 package org.killbill.billing.invoice.usage;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -56,6 +58,7 @@ import org.killbill.billing.invoice.model.UsageInvoiceItem;
 import org.killbill.billing.invoice.usage.details.UsageInArrearAggregate;
 import org.killbill.billing.junction.BillingEvent;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
+import org.killbill.billing.usage.RawUsageReader;
 import org.killbill.billing.usage.api.RawUsageRecord;
 import org.killbill.billing.usage.api.RolledUpUnit;
 import org.killbill.commons.utils.Preconditions;
@@ -90,7 +93,7 @@ public abstract class ContiguousIntervalUsageInArrear {
 
     protected final Usage usage;
     protected final Set<String> unitTypes;
-    protected final List<RawUsageRecord> rawSubscriptionUsage;
+    protected final RawUsageReader rawUsageReader;
     protected final Set<TrackingRecordId> allExistingTrackingIds;
     protected final LocalDate targetDate;
     protected final UUID accountId;
@@ -101,6 +104,7 @@ public abstract class ContiguousIntervalUsageInArrear {
     protected final InternalTenantContext internalTenantContext;
     protected final UsageDetailMode usageDetailMode;
     protected final boolean isDryRun;
+    protected final BilledUsageDetails billedUsageDetails;
 
     @VisibleForTesting
     static class TransitionTime {
@@ -132,7 +136,7 @@ public abstract class ContiguousIntervalUsageInArrear {
     public ContiguousIntervalUsageInArrear(final Usage usage,
                                            final UUID accountId,
                                            final UUID invoiceId,
-                                           final List<RawUsageRecord> rawSubscriptionUsage,
+                                           final RawUsageReader rawUsageReader,
                                            final Set<TrackingRecordId> existingTrackingIds,
                                            final LocalDate targetDate,
                                            final DateTime rawUsageStartDate,
@@ -140,11 +144,26 @@ public abstract class ContiguousIntervalUsageInArrear {
                                            final InvoiceConfig invoiceConfig,
                                            final boolean isDryRun,
                                            final InternalTenantContext internalTenantContext) {
+        this(usage, accountId, invoiceId, rawUsageReader, existingTrackingIds, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, isDryRun, new BilledUsageDetails(), internalTenantContext);
+    }
+
+    public ContiguousIntervalUsageInArrear(final Usage usage,
+                                           final UUID accountId,
+                                           final UUID invoiceId,
+                                           final RawUsageReader rawUsageReader,
+                                           final Set<TrackingRecordId> existingTrackingIds,
+                                           final LocalDate targetDate,
+                                           final DateTime rawUsageStartDate,
+                                           final UsageDetailMode usageDetailMode,
+                                           final InvoiceConfig invoiceConfig,
+                                           final boolean isDryRun,
+                                           final BilledUsageDetails billedUsageDetails,
+                                           final InternalTenantContext internalTenantContext) {
         this.usage = usage;
         this.accountId = accountId;
         this.invoiceId = invoiceId;
         this.unitTypes = usage.getUsageType() == UsageType.CAPACITY ? getCapacityInArrearUnitTypes(usage) : getConsumableInArrearUnitTypes(usage);
-        this.rawSubscriptionUsage = rawSubscriptionUsage;
+        this.rawUsageReader = rawUsageReader;
         this.allExistingTrackingIds = existingTrackingIds;
         this.targetDate = targetDate;
         this.rawUsageStartDate = rawUsageStartDate;
@@ -156,6 +175,7 @@ public abstract class ContiguousIntervalUsageInArrear {
         this.isDryRun = isDryRun;
         this.isBuilt = new AtomicBoolean(false);
         this.usageDetailMode = usageDetailMode;
+        this.billedUsageDetails = billedUsageDetails;
     }
 
     /**
@@ -393,13 +413,42 @@ public abstract class ContiguousIntervalUsageInArrear {
         return result;
     }
     
+    // Raw usage already in memory (e.g. returned by a plugin), sorted by date
+    static RawUsageReader toRawUsageReader(final Iterable<RawUsageRecord> rawSubscriptionUsage) {
+        return (subscriptionId, startDate, endDate) -> rawSubscriptionUsage;
+    }
+
     @VisibleForTesting
     RolledUpUnitsWithTracking getRolledUpUsage() throws InvoiceApiException {
+        if (transitionTimes.isEmpty()) {
+            return new RolledUpUnitsWithTracking(getEmptyRolledUpUsage(), Collections.emptySet());
+        }
+
+        // Only read the raw usage within our transitionTimes range: anything outside is skipped below anyway.
+        // It may be streamed from the database (see RawUsageReader): make sure the cursor is released even if we stop early
+        final UUID subscriptionId = transitionTimes.get(0).getTargetBillingEvent().getSubscriptionId();
+        final Iterator<RawUsageRecord> rawUsageIterator = rawUsageReader.getRawUsageForSubscription(subscriptionId,
+                                                                                                    transitionTimes.get(0).getDate(),
+                                                                                                    transitionTimes.get(transitionTimes.size() - 1).getDate())
+                                                                         .iterator();
+        try {
+            return getRolledUpUsage(rawUsageIterator);
+        } finally {
+            if (rawUsageIterator instanceof Closeable) {
+                try {
+                    ((Closeable) rawUsageIterator).close();
+                } catch (final IOException e) {
+                    log.warn("Unable to close raw usage iterator", e);
+                }
+            }
+        }
+    }
+
+    private RolledUpUnitsWithTracking getRolledUpUsage(final Iterator<RawUsageRecord> rawUsageIterator) throws InvoiceApiException {
 
         final List<RolledUpUsageWithMetadata> result = new ArrayList<>();
         final Set<TrackingRecordId> trackingIds = new HashSet<>();
 
-        final Iterator<RawUsageRecord> rawUsageIterator = rawSubscriptionUsage.iterator();
         if (!rawUsageIterator.hasNext()) {
             return new RolledUpUnitsWithTracking(getEmptyRolledUpUsage(), Collections.emptySet());
         }
@@ -47,7 +47,7 @@ import org.killbill.billing.invoice.generator.InvoiceWithMetadata.TrackingRecord
 import org.killbill.billing.invoice.model.UsageInvoiceItem;
 import org.killbill.billing.payment.api.PluginProperty;
 import org.killbill.billing.usage.InternalUserApi;
-import org.killbill.billing.usage.api.RawUsageRecord;
+import org.killbill.billing.usage.RawUsageReader;
 import org.killbill.commons.utils.annotation.VisibleForTesting;
 import org.killbill.commons.utils.collect.Iterables;
 import org.killbill.billing.util.config.definition.InvoiceConfig;
@@ -83,14 +83,15 @@ public class RawUsageOptimizer {
         log.debug("RawUsageOptimizerResult accountRecordId='{}', configRawUsagePreviousPeriod='{}', firstEventStartDate='{}', optimizedStartDate='{}',  targetDate='{}'",
                   internalCallContext.getAccountRecordId(), configRawUsagePreviousPeriod, firstEventStartDate, optimizedStartDate, targetDate);
 
-        final List<RawUsageRecord> rawUsageData = usageApi.getRawUsageForAccount(optimizedStartDate, targetDateMax, dryRunInfo, inputProperties, internalCallContext);
+        // Usage is read lazily, per subscription and usage interval (see ContiguousIntervalUsageInArrear#getRolledUpUsage)
+        final RawUsageReader rawUsageReader = usageApi.getRawUsageReaderForAccount(optimizedStartDate, targetDateMax, dryRunInfo, inputProperties, internalCallContext);
 
         final List<InvoiceTrackingModelDao> trackingIds = invoiceDao.getTrackingsByDateRange(optimizedStartDate.toLocalDate(), targetDate, internalCallContext);
         final Set<TrackingRecordId> existingTrackingIds = new HashSet<>();
         for (final InvoiceTrackingModelDao invoiceTrackingModelDao : trackingIds) {
             existingTrackingIds.add(new TrackingRecordId(invoiceTrackingModelDao.getTrackingId(), invoiceTrackingModelDao.getInvoiceId(), invoiceTrackingModelDao.getSubscriptionId(), invoiceTrackingModelDao.getUnitType(), invoiceTrackingModelDao.getRecordDate()));
         }
-        return new RawUsageOptimizerResult(optimizedStartDate, rawUsageData, existingTrackingIds);
+        return new RawUsageOptimizerResult(optimizedStartDate, rawUsageReader, existingTrackingIds);
     }
 
     @VisibleForTesting
@@ -208,12 +209,12 @@ public class RawUsageOptimizer {
     public static class RawUsageOptimizerResult {
 
         private final DateTime rawUsageStartDate;
-        private final List<RawUsageRecord> rawUsage;
+        private final RawUsageReader rawUsageReader;
         private final Set<TrackingRecordId> existingTrackingIds;
 
-        public RawUsageOptimizerResult(final DateTime rawUsageStartDate, final List<RawUsageRecord> rawUsage, final Set<TrackingRecordId> existingTrackingIds) {
+        public RawUsageOptimizerResult(final DateTime rawUsageStartDate, final RawUsageReader rawUsageReader, final Set<TrackingRecordId> existingTrackingIds) {
             this.rawUsageStartDate = rawUsageStartDate;
-            this.rawUsage = rawUsage;
+            this.rawUsageReader = rawUsageReader;
             this.existingTrackingIds = existingTrackingIds;
         }
 
@@ -221,8 +222,8 @@ public class RawUsageOptimizer {
             return rawUsageStartDate;
         }
 
-        public List<RawUsageRecord> getRawUsage() {
-            return rawUsage;
+        public RawUsageReader getRawUsageReader() {
+            return rawUsageReader;
         }
 
         public Set<TrackingRecordId> getExistingTrackingIds() {
@@ -43,6 +43,7 @@ import org.killbill.billing.invoice.generator.InvoiceItemGenerator.InvoiceItemGe
 import org.killbill.billing.invoice.generator.InvoiceWithMetadata.TrackingRecordId;
 import org.killbill.billing.invoice.usage.ContiguousIntervalUsageInArrear.UsageInArrearItemsAndNextNotificationDate;
 import org.killbill.billing.junction.BillingEvent;
+import org.killbill.billing.usage.RawUsageReader;
 import org.killbill.billing.usage.api.RawUsageRecord;
 import org.killbill.commons.utils.annotation.VisibleForTesting;
 import org.killbill.billing.util.config.definition.InvoiceConfig;
@@ -78,12 +79,14 @@ public class SubscriptionUsageInArrear {
     private final UUID invoiceId;
     private final List<BillingEvent> subscriptionBillingEvents;
     private final LocalDate targetDate;
-    private final List<RawUsageRecord> rawSubscriptionUsage;
+    // Returns the usage ordered by date and unit type
+    private final RawUsageReader rawUsageReader;
     private final Set<TrackingRecordId> existingTrackingIds;
     private final DateTime rawUsageStartDate;
     private final InternalTenantContext internalTenantContext;
     private final UsageDetailMode usageDetailMode;
     private final InvoiceConfig invoiceConfig;
+    private final BilledUsageDetails billedUsageDetails;
 
     public SubscriptionUsageInArrear(final UUID accountId,
                                      final UUID invoiceId,
@@ -95,21 +98,63 @@ public class SubscriptionUsageInArrear {
                                      final UsageDetailMode usageDetailMode,
                                      final InvoiceConfig invoiceConfig,
                                      final InternalTenantContext internalTenantContext) {
+        this(accountId, invoiceId, subscriptionBillingEvents, rawUsage, existingTrackingIds, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, new BilledUsageDetails(), internalTenantContext);
+    }
+
+    public SubscriptionUsageInArrear(final UUID accountId,
+                                     final UUID invoiceId,
+                                     final List<BillingEvent> subscriptionBillingEvents,
+                                     final List<RawUsageRecord> rawUsage,
+                                     final Set<TrackingRecordId> existingTrackingIds,
+                                     final LocalDate targetDate,
+                                     final DateTime rawUsageStartDate,
+                                     final UsageDetailMode usageDetailMode,
+                                     final InvoiceConfig invoiceConfig,
+                                     final BilledUsageDetails billedUsageDetails,
+                                     final InternalTenantContext internalTenantContext) {
+        this(accountId,
+             invoiceId,
+             subscriptionBillingEvents,
+             ContiguousIntervalUsageInArrear.toRawUsageReader(getSortedRawSubscriptionUsage(rawUsage, subscriptionBillingEvents.get(0).getSubscriptionId())),
+             existingTrackingIds,
+             targetDate,
+             rawUsageStartDate,
+             usageDetailMode,
+             invoiceConfig,
+             billedUsageDetails,
+             internalTenantContext);
+    }
 
+    public SubscriptionUsageInArrear(final UUID accountId,
+                                     final UUID invoiceId,
+                                     final List<BillingEvent> subscriptionBillingEvents,
+                                     final RawUsageReader rawUsageReader,
+                                     final Set<TrackingRecordId> existingTrackingIds,
+                                     final LocalDate targetDate,
+                                     final DateTime rawUsageStartDate,
+                                     final UsageDetailMode usageDetailMode,
+                                     final InvoiceConfig invoiceConfig,
+                                     final BilledUsageDetails billedUsageDetails,
+                                     final InternalTenantContext internalTenantContext) {
         this.accountId = accountId;
         this.invoiceId = invoiceId;
         this.subscriptionBillingEvents = subscriptionBillingEvents;
         this.targetDate = targetDate;
         this.rawUsageStartDate = rawUsageStartDate;
         this.internalTenantContext = internalTenantContext;
-        // Extract raw usage for that subscription and sort it by date
-        this.rawSubscriptionUsage = rawUsage.stream()
-                .filter(input -> input.getSubscriptionId().equals(subscriptionBillingEvents.get(0).getSubscriptionId()))
-                .sorted(RAW_USAGE_DATE_COMPARATOR)
-                .collect(Collectors.toUnmodifiableList());
+        this.rawUsageReader = rawUsageReader;
         this.existingTrackingIds = existingTrackingIds;
         this.usageDetailMode = usageDetailMode;
         this.invoiceConfig = invoiceConfig;
+        this.billedUsageDetails = billedUsageDetails;
+    }
+
+    // Extract raw usage for that subscription and sort it by date
+    private static Iterable<RawUsageRecord> getSortedRawSubscriptionUsage(final List<RawUsageRecord> rawUsage, final UUID subscriptionId) {
+        return rawUsage.stream()
+                       .filter(input -> input.getSubscriptionId().equals(subscriptionId))
+                       .sorted(RAW_USAGE_DATE_COMPARATOR)
+                       .collect(Collectors.toUnmodifiableList());
     }
 
     /**
@@ -163,8 +208,8 @@ public class SubscriptionUsageInArrear {
                 ContiguousIntervalUsageInArrear existingInterval = inFlightInArrearUsageIntervals.get(usageKey);
                 if (existingInterval == null) {
                     existingInterval = usage.getUsageType() == UsageType.CAPACITY ?
-                                       new ContiguousIntervalCapacityUsageInArrear(usage, accountId, invoiceId, rawSubscriptionUsage, existingTrackingIds, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, isDryRun, internalTenantContext) :
-                                       new ContiguousIntervalConsumableUsageInArrear(usage, accountId, invoiceId, rawSubscriptionUsage, existingTrackingIds, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, isDryRun, internalTenantContext);
+                                       new ContiguousIntervalCapacityUsageInArrear(usage, accountId, invoiceId, rawUsageReader, existingTrackingIds, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, isDryRun, internalTenantContext) :
+                                       new ContiguousIntervalConsumableUsageInArrear(usage, accountId, invoiceId, rawUsageReader, existingTrackingIds, targetDate, rawUsageStartDate, usageDetailMode, invoiceConfig, isDryRun, billedUsageDetails, internalTenantContext);
 
                     inFlightInArrearUsageIntervals.put(usageKey, existingInterval);
                 }
@@ -20,20 +20,26 @@ package org.killbill.billing.invoice;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.ResourceBundle;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDate;
 import org.killbill.billing.account.api.Account;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.api.formatters.InvoiceFormatterFactory;
+import org.killbill.billing.invoice.api.formatters.ResourceBundleFactory.ResourceBundleType;
 import org.killbill.billing.invoice.template.HtmlInvoice;
 import org.killbill.billing.invoice.template.HtmlInvoiceGenerator;
+import org.killbill.billing.invoice.template.bundles.DefaultResourceBundleFactory;
 import org.killbill.billing.invoice.template.formatters.DefaultInvoiceFormatterFactory;
+import org.killbill.billing.tenant.api.TenantInternalApi;
 import org.killbill.billing.util.email.templates.MustacheTemplateEngine;
 import org.killbill.billing.util.email.templates.TemplateEngine;
 import org.killbill.billing.util.template.translation.TranslatorConfig;
@@ -45,6 +51,7 @@ import org.testng.annotations.Test;
 
 public class TestHtmlInvoiceGenerator extends InvoiceTestSuiteNoDB {
 
+    private TranslatorConfig config;
     private HtmlInvoiceGenerator g;
 
     @Override
@@ -55,7 +62,7 @@ public class TestHtmlInvoiceGenerator extends InvoiceTestSuiteNoDB {
         }
 
         super.beforeClass();
-        final TranslatorConfig config = new ConfigurationObjectFactory(skifeConfigSource).build(TranslatorConfig.class);
+        config = new ConfigurationObjectFactory(skifeConfigSource).build(TranslatorConfig.class);
         final TemplateEngine templateEngine = new MustacheTemplateEngine();
         final InvoiceFormatterFactory factory = new DefaultInvoiceFormatterFactory();
         g = new HtmlInvoiceGenerator(factory, templateEngine, config, null, resourceBundleFactory, null);
@@ -83,6 +90,66 @@ public class TestHtmlInvoiceGenerator extends InvoiceTestSuiteNoDB {
         Assert.assertNull(output);
     }
 
+    @Test(groups = "fast")
+    public void testGenerateInvoices() throws Exception {
+        final List<HtmlInvoice> output = g.generateInvoices(createAccount(),
+                                                            Arrays.asList(createInvoice(), null, Mockito.mock(Invoice.class), createInvoice()),
+                                                            false,
+                                                            internalCallContext);
+        Assert.assertEquals(output.size(), 4);
+        Assert.assertNull(output.get(1));
+        Assert.assertNull(output.get(2));
+        for (final HtmlInvoice htmlInvoice : List.of(output.get(0), output.get(3))) {
+            Assert.assertTrue(htmlInvoice.getBody().contains("<!-- Test customKey value -->"));
+            Assert.assertEquals(htmlInvoice.getSubject(), "Your invoice");
+        }
+        Assert.assertEquals(output.get(0).getBody(), g.generateInvoice(createAccount(), createInvoice(), false, internalCallContext).getBody());
+    }
+
+    @Test(groups = "fast")
+    public void testTemplateInvalidatedDuringLoad() throws Exception {
+        final InternalTenantContext tenantContext = new InternalTenantContext(1L);
+        final TenantInternalApi tenantInternalApi = Mockito.mock(TenantInternalApi.class);
+        final HtmlInvoiceGenerator generator = new HtmlInvoiceGenerator(new DefaultInvoiceFormatterFactory(), new MustacheTemplateEngine(), config, null, resourceBundleFactory, tenantInternalApi);
+        // The template is updated while the previous version is being loaded
+        Mockito.when(tenantInternalApi.getInvoiceTemplate(Mockito.<Locale>any(), Mockito.eq(tenantContext)))
+               .thenAnswer(invocation -> {
+                   generator.invalidateTemplates(false, tenantContext);
+                   return "stale";
+               })
+               .thenReturn("fresh");
+
+        Assert.assertEquals(generator.generateInvoice(createAccount(), createInvoice(), false, tenantContext).getBody(), "stale");
+        // The stale template wasn't cached
+        Assert.assertEquals(generator.generateInvoice(createAccount(), createInvoice(), false, tenantContext).getBody(), "fresh");
+        Assert.assertEquals(generator.generateInvoice(createAccount(), createInvoice(), false, tenantContext).getBody(), "fresh");
+        Mockito.verify(tenantInternalApi, Mockito.times(2)).getInvoiceTemplate(Mockito.<Locale>any(), Mockito.eq(tenantContext));
+    }
+
+    @Test(groups = "fast")
+    public void testBundleInvalidatedDuringLoad() throws Exception {
+        final InternalTenantContext tenantContext = new InternalTenantContext(1L);
+        final TenantInternalApi tenantInternalApi = Mockito.mock(TenantInternalApi.class);
+        final DefaultResourceBundleFactory bundleFactory = new DefaultResourceBundleFactory(tenantInternalApi);
+        // The translations are updated while the previous version is being loaded
+        Mockito.when(tenantInternalApi.getInvoiceTranslation(Locale.US, tenantContext))
+               .thenAnswer(invocation -> {
+                   bundleFactory.invalidateBundles(ResourceBundleType.INVOICE_TRANSLATION, tenantContext);
+                   return "invoiceTitle=stale";
+               })
+               .thenReturn("invoiceTitle=fresh");
+
+        final String bundlePath = config.getInvoiceTemplateBundlePath();
+        ResourceBundle bundle = bundleFactory.createBundle(Locale.US, bundlePath, ResourceBundleType.INVOICE_TRANSLATION, tenantContext);
+        Assert.assertEquals(bundle.getString("invoiceTitle"), "stale");
+        // The stale bundle wasn't cached
+        bundle = bundleFactory.createBundle(Locale.US, bundlePath, ResourceBundleType.INVOICE_TRANSLATION, tenantContext);
+        Assert.assertEquals(bundle.getString("invoiceTitle"), "fresh");
+        bundle = bundleFactory.createBundle(Locale.US, bundlePath, ResourceBundleType.INVOICE_TRANSLATION, tenantContext);
+        Assert.assertEquals(bundle.getString("invoiceTitle"), "fresh");
+        Mockito.verify(tenantInternalApi, Mockito.times(2)).getInvoiceTranslation(Locale.US, tenantContext);
+    }
+
     private Account createAccount() {
         final Account account = Mockito.mock(Account.class);
         Mockito.when(account.getExternalKey()).thenReturn("1234abcd");
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.killbill.billing.junction.BillingEvent;
+import org.killbill.billing.junction.BillingEventSet;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestIncrementalInvoiceGeneration extends InvoiceTestSuiteNoDB {
+
+    private final UUID bundleId = UUID.randomUUID();
+    private final UUID baseSubscriptionId = UUID.randomUUID();
+    private final UUID addOnSubscriptionId = UUID.randomUUID();
+    private final UUID otherSubscriptionId = UUID.randomUUID();
+
+    @Test(groups = "fast")
+    public void testFullReconciliation() {
+        final IncrementalInvoiceGeneration incrementalInvoiceGeneration = new IncrementalInvoiceGeneration(createInvoiceConfig(true));
+        final BillingEventSet billingEvents = createBillingEvents(new ArrayList<UUID>());
+
+        // First run of the account
+        Assert.assertNull(incrementalInvoiceGeneration.getSubscriptionIdsInScope(Set.of(otherSubscriptionId), billingEvents, internalCallContext));
+        // Incremental runs, with the add-ons of the dirty base subscription
+        Assert.assertEquals(incrementalInvoiceGeneration.getSubscriptionIdsInScope(Set.of(otherSubscriptionId), billingEvents, internalCallContext), Set.of(otherSubscriptionId));
+        Assert.assertEquals(incrementalInvoiceGeneration.getSubscriptionIdsInScope(Set.of(baseSubscriptionId), billingEvents, internalCallContext), Set.of(baseSubscriptionId, addOnSubscriptionId));
+        // Bundle level trigger
+        Assert.assertTrue(incrementalInvoiceGeneration.getSubscriptionIdsInScope(Set.of(bundleId), billingEvents, internalCallContext).containsAll(Set.of(baseSubscriptionId, addOnSubscriptionId)));
+        // Full reconciliation after 3 incremental runs
+        Assert.assertNull(incrementalInvoiceGeneration.getSubscriptionIdsInScope(Set.of(otherSubscriptionId), billingEvents, internalCallContext));
+        Assert.assertEquals(incrementalInvoiceGeneration.getSubscriptionIdsInScope(Set.of(otherSubscriptionId), billingEvents, internalCallContext), Set.of(otherSubscriptionId));
+
+        // Unknown trigger
+        Assert.assertNull(incrementalInvoiceGeneration.getSubscriptionIdsInScope(null, billingEvents, internalCallContext));
+    }
+
+    @Test(groups = "fast")
+    public void testFullRunRequired() {
+        final IncrementalInvoiceGeneration disabled = new IncrementalInvoiceGeneration(createInvoiceConfig(false));
+        Assert.assertNull(disabled.getSubscriptionIdsInScope(Set.of(otherSubscriptionId), createBillingEvents(new ArrayList<UUID>()), internalCallContext));
+        Assert.assertNull(disabled.getSubscriptionIdsInScope(Set.of(otherSubscriptionId), createBillingEvents(new ArrayList<UUID>()), internalCallContext));
+
+        final IncrementalInvoiceGeneration incrementalInvoiceGeneration = new IncrementalInvoiceGeneration(createInvoiceConfig(true));
+        Assert.assertNull(incrementalInvoiceGeneration.getSubscriptionIdsInScope(null, createBillingEvents(new ArrayList<UUID>()), internalCallContext));
+        // Subscriptions with AUTO_INVOICING_OFF
+        Assert.assertNull(incrementalInvoiceGeneration.getSubscriptionIdsInScope(Set.of(otherSubscriptionId), createBillingEvents(List.of(addOnSubscriptionId)), internalCallContext));
+        Assert.assertNotNull(incrementalInvoiceGeneration.getSubscriptionIdsInScope(Set.of(otherSubscriptionId), createBillingEvents(new ArrayList<UUID>()), internalCallContext));
+    }
+
+    private InvoiceConfig createInvoiceConfig(final boolean enabled) {
+        final InvoiceConfig invoiceConfig = Mockito.mock(InvoiceConfig.class);
+        Mockito.when(invoiceConfig.isIncrementalGenerationEnabled()).thenReturn(enabled);
+        Mockito.when(invoiceConfig.getIncrementalGenerationFullReconciliationRuns()).thenReturn(3);
+        return invoiceConfig;
+    }
+
+    private BillingEventSet createBillingEvents(final List<UUID> subscriptionIdsWithAutoInvoiceOff) {
+        final List<BillingEvent> events = List.of(createBillingEvent(bundleId, baseSubscriptionId),
+                                                  createBillingEvent(bundleId, addOnSubscriptionId),
+                                                  createBillingEvent(UUID.randomUUID(), otherSubscriptionId));
+        final BillingEventSet billingEvents = Mockito.mock(BillingEventSet.class);
+        Mockito.when(billingEvents.iterator()).thenAnswer(invocation -> events.iterator());
+        Mockito.when(billingEvents.getSubscriptionIdsWithAutoInvoiceOff()).thenReturn(subscriptionIdsWithAutoInvoiceOff);
+        return billingEvents;
+    }
+
+    private BillingEvent createBillingEvent(final UUID bundleId, final UUID subscriptionId) {
+        final BillingEvent billingEvent = Mockito.mock(BillingEvent.class);
+        Mockito.when(billingEvent.getBundleId()).thenReturn(bundleId);
+        Mockito.when(billingEvent.getSubscriptionId()).thenReturn(subscriptionId);
+        return billingEvent;
+    }
+}
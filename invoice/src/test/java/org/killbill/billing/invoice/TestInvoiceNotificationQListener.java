@@ -47,7 +47,7 @@ public class TestInvoiceNotificationQListener extends InvoiceListener {
     }
 
     @Override
-    public void handleNextBillingDateEvent(final DateTime eventDateTime, final boolean isRescheduled, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+    public void handleNextBillingDateEvent(final DateTime eventDateTime, final boolean isRescheduled, final Iterable<UUID> subscriptionIds, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
         eventCount++;
     }
 
@@ -18,25 +18,39 @@
 package org.killbill.billing.invoice;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
+import org.joda.time.DateTime;
 import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.InvoicePluginDispatcher.PriorCallResult;
+import org.killbill.billing.invoice.plugin.api.InvoiceContext;
 import org.killbill.billing.invoice.plugin.api.InvoicePluginApi;
+import org.killbill.billing.invoice.plugin.api.PriorInvoiceResult;
 import org.killbill.billing.invoice.provider.DefaultNoOpInvoiceProviderPlugin;
 import org.killbill.billing.osgi.api.OSGIServiceDescriptor;
 import org.killbill.billing.osgi.api.OSGIServiceRegistration;
+import org.killbill.billing.payment.api.PluginProperty;
 import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.billing.tenant.api.TenantInternalApi;
+import org.killbill.billing.util.config.tenant.CacheConfig;
+import org.killbill.commons.request.Request;
+import org.killbill.commons.request.RequestData;
 import org.killbill.commons.utils.Joiner;
 import org.mockito.Mockito;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class TestInvoicePluginDispatcher extends InvoiceTestSuiteNoDB {
 
@@ -53,11 +67,16 @@ public class TestInvoicePluginDispatcher extends InvoiceTestSuiteNoDB {
     @Inject
     TenantInternalApi tenantInternalApi;
 
+    @Inject
+    CacheConfig cacheConfig;
+
     @Override
     protected KillbillConfigSource getConfigSource(final Map<String, String> extraProperties) {
         final Map<String, String> allExtraProperties = new HashMap<String, String>(extraProperties);
         allExtraProperties.put("org.killbill.invoice.plugin", Joiner.on(",").join(PLUGIN_1, PLUGIN_2));
         allExtraProperties.put("org.killbill.invoice.maxNumberOfMonthsInFuture", "36");
+        allExtraProperties.put("org.killbill.invoice.plugin.orderIndependent", Joiner.on(",").join(PLUGIN_1, PLUGIN_2));
+        allExtraProperties.put("org.killbill.invoice.plugin.parallelism", "2");
         return getConfigSource(null, allExtraProperties);
     }
 
@@ -127,7 +146,73 @@ public class TestInvoicePluginDispatcher extends InvoiceTestSuiteNoDB {
         assertEquals(invoicePluginDispatcher.getInvoicePlugins(internalCallContext).keySet(), result);
     }
 
+    @Test(groups = "fast")
+    public void testParallelInvocation() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final ParallelPriorCallPlugin plugin1 = new ParallelPriorCallPlugin(PLUGIN_1, latch);
+        final ParallelPriorCallPlugin plugin2 = new ParallelPriorCallPlugin(PLUGIN_2, latch);
+        registerPlugin(PLUGIN_1, plugin1);
+        registerPlugin(PLUGIN_2, plugin2);
+        registerPlugin(PLUGIN_3);
+
+        // Both order independent plugins are in the same stage
+        assertEquals(invoicePluginDispatcher.getResultingPluginNameStages(internalCallContext), List.of(List.of(PLUGIN_1, PLUGIN_2)));
+
+        final Iterable<PluginProperty> inputProperties = List.of(new PluginProperty("input", "value", false));
+        final RequestData requestData = new RequestData("parallel-invocation");
+        Request.setPerThreadRequestData(requestData);
+        assertTrue(invoicePluginDispatcher.startRecordingPluginTimings());
+        final PriorCallResult priorCallResult;
+        try {
+            priorCallResult = invoicePluginDispatcher.priorCall(clock.getUTCToday(), Collections.emptyList(), false, false, callContext, inputProperties, internalCallContext);
+            assertEquals(invoicePluginDispatcher.getRecordedPluginTimings().keySet().size(), 2);
+        } finally {
+            invoicePluginDispatcher.stopRecordingPluginTimings();
+            Request.resetPerThreadRequestData();
+        }
+
+        // Plugins waited for each other: they were invoked concurrently, with the same input
+        assertTrue(plugin1.wasInvokedConcurrently);
+        assertTrue(plugin2.wasInvokedConcurrently);
+        assertEquals(plugin1.inputProperties, inputProperties);
+        assertEquals(plugin2.inputProperties, inputProperties);
+        // The request id of the caller is visible from the pool threads (re-entrant locks)
+        assertEquals(plugin1.requestData, requestData);
+        assertEquals(plugin2.requestData, requestData);
+        // Results are processed in the configured order
+        assertEquals(priorCallResult.getPluginProperties().iterator().next().getKey(), PLUGIN_2);
+        assertEquals(priorCallResult.getRescheduleDate(), plugin1.rescheduleDate);
+
+        // The resolved plugins are recomputed when the registered plugins change
+        pluginRegistry.unregisterService(PLUGIN_2);
+        assertEquals(invoicePluginDispatcher.getResultingPluginNameStages(internalCallContext), List.of(List.of(PLUGIN_1)));
+    }
+
+    @Test(groups = "fast")
+    public void testResolvedPluginsInvalidation() throws Exception {
+        registerPlugin(PLUGIN_1);
+        registerPlugin(PLUGIN_2);
+        registerPlugin(PLUGIN_3);
+        assertEquals(invoicePluginDispatcher.getResultingPluginNameList(internalCallContext), List.of(PLUGIN_1, PLUGIN_2));
+
+        // Per-tenant configuration update: the cached resolution is used until the per-tenant configuration is invalidated
+        Mockito.when(tenantInternalApi.getTenantConfig(Mockito.any(InternalTenantContext.class))).thenReturn("{\"org.killbill.invoice.plugin\":\"" + PLUGIN_3 + "\"}");
+        try {
+            assertEquals(invoicePluginDispatcher.getResultingPluginNameList(internalCallContext), List.of(PLUGIN_1, PLUGIN_2));
+
+            cacheConfig.clearPerTenantConfig(internalCallContext);
+            assertEquals(invoicePluginDispatcher.getResultingPluginNameList(internalCallContext), List.of(PLUGIN_3));
+        } finally {
+            Mockito.when(tenantInternalApi.getTenantConfig(Mockito.any(InternalTenantContext.class))).thenReturn(null);
+            cacheConfig.clearPerTenantConfig(internalCallContext);
+        }
+    }
+
     private void registerPlugin(final String plugin) {
+        registerPlugin(plugin, new DefaultNoOpInvoiceProviderPlugin());
+    }
+
+    private void registerPlugin(final String plugin, final InvoicePluginApi invoicePluginApi) {
         pluginRegistry.registerService(new OSGIServiceDescriptor() {
             @Override
             public String getPluginSymbolicName() {
@@ -143,6 +228,53 @@ public class TestInvoicePluginDispatcher extends InvoiceTestSuiteNoDB {
             public String getRegistrationName() {
                 return plugin;
             }
-        }, new DefaultNoOpInvoiceProviderPlugin());
+        }, invoicePluginApi);
+    }
+
+    private final class ParallelPriorCallPlugin extends DefaultNoOpInvoiceProviderPlugin {
+
+        private final String name;
+        private final CountDownLatch latch;
+        private final DateTime rescheduleDate;
+
+        private boolean wasInvokedConcurrently;
+        private Iterable<PluginProperty> inputProperties;
+        private RequestData requestData;
+
+        private ParallelPriorCallPlugin(final String name, final CountDownLatch latch) {
+            this.name = name;
+            this.latch = latch;
+            // Earliest for PLUGIN_1
+            this.rescheduleDate = clock.getUTCNow().plusDays(PLUGIN_1.equals(name) ? 1 : 2);
+        }
+
+        @Override
+        public PriorInvoiceResult priorCall(final InvoiceContext invoiceContext, final Iterable<PluginProperty> properties) {
+            inputProperties = properties;
+            requestData = Request.getPerThreadRequestData();
+            latch.countDown();
+            try {
+                wasInvokedConcurrently = latch.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return new PriorInvoiceResult() {
+                @Override
+                public boolean isAborted() {
+                    return false;
+                }
+
+                @Override
+                public DateTime getRescheduleDate() {
+                    return rescheduleDate;
+                }
+
+                @Override
+                public Iterable<PluginProperty> getAdjustedPluginProperties() {
+                    return List.of(new PluginProperty(name, "value", false));
+                }
+            };
+        }
     }
 }
\ No newline at end of file
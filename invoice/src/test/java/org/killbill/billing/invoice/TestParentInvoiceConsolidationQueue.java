@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.killbill.billing.ErrorCode;
+import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestParentInvoiceConsolidationQueue extends InvoiceTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testRequestsAreBatchedPerParent() throws Exception {
+        final ParentInvoiceConsolidationQueue<Integer> queue = new ParentInvoiceConsolidationQueue<Integer>();
+        final UUID parentAccountId = UUID.randomUUID();
+
+        final List<List<Integer>> batches = new CopyOnWriteArrayList<List<Integer>>();
+        final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        final ParentInvoiceConsolidationQueue.BatchHandler<Integer> handler = (parentId, batch) -> {
+            Assert.assertEquals(parentId, parentAccountId);
+            final List<Integer> payloads = new ArrayList<Integer>();
+            batch.forEach(request -> payloads.add(request.getPayload()));
+            batches.add(payloads);
+            if (payloads.contains(0)) {
+                firstBatchStarted.countDown();
+                try {
+                    releaseFirstBatch.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            final List<Future<?>> futures = new ArrayList<Future<?>>();
+            futures.add(executor.submit(() -> {
+                queue.submitAndWait(parentAccountId, 0, 100, handler);
+                return null;
+            }));
+            Assert.assertTrue(firstBatchStarted.await(10, TimeUnit.SECONDS));
+
+            // Queued while the consumer is busy
+            for (int i = 1; i < 10; i++) {
+                final int payload = i;
+                futures.add(executor.submit(() -> {
+                    queue.submitAndWait(parentAccountId, payload, 100, handler);
+                    return null;
+                }));
+            }
+            Thread.sleep(200);
+            releaseFirstBatch.countDown();
+
+            for (final Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int nbRequests = 0;
+        for (final List<Integer> batch : batches) {
+            nbRequests += batch.size();
+        }
+        Assert.assertEquals(nbRequests, 10);
+        // The 9 waiting requests were consolidated instead of being processed one by one
+        Assert.assertTrue(batches.size() < 10);
+    }
+
+    @Test(groups = "fast")
+    public void testFailuresAreReportedPerRequest() throws Exception {
+        final ParentInvoiceConsolidationQueue<Integer> queue = new ParentInvoiceConsolidationQueue<Integer>();
+        final ParentInvoiceConsolidationQueue.BatchHandler<Integer> handler = (parentId, batch) -> {
+            for (final ParentInvoiceConsolidationQueue.Request<Integer> request : batch) {
+                if (request.getPayload() == 1) {
+                    request.fail(new InvoiceApiException(ErrorCode.INVOICE_NOT_FOUND, "1"));
+                } else if (request.getPayload() == 2) {
+                    throw new IllegalStateException("boom");
+                }
+            }
+        };
+
+        final UUID parentAccountId = UUID.randomUUID();
+        queue.submitAndWait(parentAccountId, 0, 10, handler);
+        try {
+            queue.submitAndWait(parentAccountId, 1, 10, handler);
+            Assert.fail();
+        } catch (final InvoiceApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.INVOICE_NOT_FOUND.getCode());
+        }
+        try {
+            queue.submitAndWait(parentAccountId, 2, 10, handler);
+            Assert.fail();
+        } catch (final IllegalStateException e) {
+            Assert.assertEquals(e.getMessage(), "boom");
+        }
+    }
+}
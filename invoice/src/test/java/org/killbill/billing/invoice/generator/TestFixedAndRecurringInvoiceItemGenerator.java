@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -52,6 +53,7 @@ import org.killbill.billing.invoice.api.InvoiceItemType;
 import org.killbill.billing.invoice.generator.InvoiceItemGenerator.InvoiceItemGeneratorLogger;
 import org.killbill.billing.invoice.generator.InvoiceWithMetadata.SubscriptionFutureNotificationDates;
 import org.killbill.billing.invoice.model.DefaultInvoice;
+import org.killbill.billing.invoice.model.ExternalChargeInvoiceItem;
 import org.killbill.billing.invoice.model.FixedPriceInvoiceItem;
 import org.killbill.billing.invoice.model.ItemAdjInvoiceItem;
 import org.killbill.billing.invoice.model.RecurringInvoiceItem;
@@ -64,6 +66,7 @@ import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
 import org.killbill.billing.subscription.api.user.SubscriptionBillingEvent;
 import org.killbill.billing.util.UUIDs;
+import org.killbill.billing.util.config.definition.InvoiceConfig;
 import org.killbill.commons.utils.collect.MultiValueHashMap;
 import org.killbill.commons.utils.collect.MultiValueMap;
 import org.mockito.Mockito;
@@ -600,6 +603,127 @@ public class TestFixedAndRecurringInvoiceItemGenerator extends InvoiceTestSuiteN
         assertEquals(generatedItems.get(0).getAmount().compareTo(new BigDecimal("0.65")), 0);
     }
 
+    @Test(groups = "fast")
+    public void testPartitionedGenerationMatchesSequentialGeneration() throws Exception {
+        final LocalDate startDate = new LocalDate("2016-01-01");
+        final LocalDate targetDate = new LocalDate("2016-03-15");
+
+        final BigDecimal amount = BigDecimal.TEN;
+        final MockInternationalPrice price = new MockInternationalPrice(new DefaultPrice(amount, account.getCurrency()));
+        final Plan plan = new MockPlan("my-plan");
+        final PlanPhase trialPhase = new MockPlanPhase(null, price, BillingPeriod.NO_BILLING_PERIOD, PhaseType.TRIAL);
+        final PlanPhase evergreenPhase = new MockPlanPhase(price, null, BillingPeriod.MONTHLY, PhaseType.EVERGREEN);
+
+        final BillingEventSet events = new MockBillingEventSet();
+        final List<Invoice> existingInvoices = new LinkedList<Invoice>();
+        final Invoice invoice = new DefaultInvoice(account.getId(), clock.getUTCToday(), startDate, account.getCurrency());
+        existingInvoices.add(invoice);
+        for (int i = 0; i < 6; i++) {
+            final SubscriptionBase curSubscription = invoiceUtil.createSubscription();
+            final LocalDate evergreenStartDate = i % 2 == 0 ? startDate : startDate.plusDays(10);
+            if (i % 2 == 1) {
+                events.add(invoiceUtil.createMockBillingEvent(account, curSubscription, startDate.toDateTimeAtStartOfDay(), plan, trialPhase, amount, null,
+                                                              account.getCurrency(), BillingPeriod.NO_BILLING_PERIOD, 1, BillingMode.IN_ADVANCE, "Trial", 1L,
+                                                              SubscriptionBaseTransitionType.CREATE));
+            }
+            events.add(invoiceUtil.createMockBillingEvent(account, curSubscription, evergreenStartDate.toDateTimeAtStartOfDay(), plan, evergreenPhase, null, amount,
+                                                          account.getCurrency(), BillingPeriod.MONTHLY, 1, BillingMode.IN_ADVANCE, "Evergreen", 2L,
+                                                          i % 2 == 0 ? SubscriptionBaseTransitionType.CREATE : SubscriptionBaseTransitionType.PHASE));
+            if (i == 0) {
+                // Previous mis-bill, to be completed
+                invoice.addInvoiceItem(new RecurringInvoiceItem(UUID.randomUUID(), startDate.toDateTimeAtStartOfDay(), invoice.getId(), account.getId(), curSubscription.getBundleId(),
+                                                                curSubscription.getId(), null, plan.getName(), evergreenPhase.getName(), null, startDate, startDate.plusDays(29),
+                                                                amount, amount, account.getCurrency()));
+            }
+        }
+
+        final InvoiceConfig partitionedInvoiceConfig = Mockito.spy(invoiceConfig);
+        Mockito.doReturn(4).when(partitionedInvoiceConfig).getItemGenerationParallelism();
+        Mockito.doReturn(1).when(partitionedInvoiceConfig).getItemGenerationMinSubscriptionsForParallelism();
+        final FixedAndRecurringInvoiceItemGenerator partitionedGenerator = new FixedAndRecurringInvoiceItemGenerator(partitionedInvoiceConfig, clock);
+
+        final Map<UUID, SubscriptionFutureNotificationDates> sequentialNotificationDates = new HashMap<UUID, SubscriptionFutureNotificationDates>();
+        final List<InvoiceItem> sequentialItems = fixedAndRecurringInvoiceItemGenerator.generateItems(account, UUID.randomUUID(), events, new AccountInvoices(null, null, existingInvoices),
+                                                                                                      targetDate, account.getCurrency(), sequentialNotificationDates,
+                                                                                                      null, Collections.emptyList(), internalCallContext).getItems();
+        final Map<UUID, SubscriptionFutureNotificationDates> partitionedNotificationDates = new HashMap<UUID, SubscriptionFutureNotificationDates>();
+        final List<InvoiceItem> partitionedItems;
+        try {
+            partitionedItems = partitionedGenerator.generateItems(account, UUID.randomUUID(), events, new AccountInvoices(null, null, existingInvoices),
+                                                                  targetDate, account.getCurrency(), partitionedNotificationDates,
+                                                                  null, Collections.emptyList(), internalCallContext).getItems();
+        } finally {
+            partitionedGenerator.stop();
+        }
+
+        // 3 FIXED items and 3 RECURRING items per subscription (the first one being adjusted for the mis-billed subscription)
+        assertEquals(sequentialItems.size(), 3 + 6 * 3);
+        assertEquals(partitionedItems.size(), sequentialItems.size());
+        for (int i = 0; i < sequentialItems.size(); i++) {
+            final InvoiceItem expected = sequentialItems.get(i);
+            final InvoiceItem actual = partitionedItems.get(i);
+            assertEquals(actual.getInvoiceItemType(), expected.getInvoiceItemType());
+            assertEquals(actual.getSubscriptionId(), expected.getSubscriptionId());
+            assertEquals(actual.getStartDate(), expected.getStartDate());
+            assertEquals(actual.getEndDate(), expected.getEndDate());
+            assertEquals(actual.getAmount().compareTo(expected.getAmount()), 0);
+            assertEquals(actual.getLinkedItemId(), expected.getLinkedItemId());
+        }
+
+        assertEquals(partitionedNotificationDates.keySet(), sequentialNotificationDates.keySet());
+        for (final UUID subscriptionId : sequentialNotificationDates.keySet()) {
+            assertEquals(partitionedNotificationDates.get(subscriptionId).getNextRecurringDate(), sequentialNotificationDates.get(subscriptionId).getNextRecurringDate());
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testGenerationRestrictedToSubscriptionsInScope() throws Exception {
+        final LocalDate startDate = new LocalDate("2016-01-01");
+        final LocalDate targetDate = new LocalDate("2016-03-15");
+
+        final BigDecimal amount = BigDecimal.TEN;
+        final MockInternationalPrice price = new MockInternationalPrice(new DefaultPrice(amount, account.getCurrency()));
+        final Plan plan = new MockPlan("my-plan");
+        final PlanPhase planPhase = new MockPlanPhase(price, null, BillingPeriod.MONTHLY, PhaseType.EVERGREEN);
+
+        final BillingEventSet events = new MockBillingEventSet();
+        final List<Invoice> existingInvoices = new LinkedList<Invoice>();
+        final Invoice invoice = new DefaultInvoice(account.getId(), clock.getUTCToday(), startDate, account.getCurrency());
+        existingInvoices.add(invoice);
+        final List<UUID> subscriptionIds = new LinkedList<UUID>();
+        for (int i = 0; i < 2; i++) {
+            final SubscriptionBase curSubscription = invoiceUtil.createSubscription();
+            subscriptionIds.add(curSubscription.getId());
+            events.add(invoiceUtil.createMockBillingEvent(account, curSubscription, startDate.toDateTimeAtStartOfDay(), plan, planPhase, null, amount,
+                                                          account.getCurrency(), BillingPeriod.MONTHLY, 1, BillingMode.IN_ADVANCE, "Billing Event Desc", 1L,
+                                                          SubscriptionBaseTransitionType.CREATE));
+            invoice.addInvoiceItem(new RecurringInvoiceItem(UUID.randomUUID(), startDate.toDateTimeAtStartOfDay(), invoice.getId(), account.getId(), curSubscription.getBundleId(),
+                                                            curSubscription.getId(), null, plan.getName(), planPhase.getName(), null, startDate, startDate.plusMonths(1),
+                                                            amount, amount, account.getCurrency()));
+        }
+        // Account level item
+        invoice.addInvoiceItem(new ExternalChargeInvoiceItem(invoice.getId(), account.getId(), null, "Charge", startDate, startDate, amount, account.getCurrency(), null));
+
+        final List<InvoiceItem> allItems = fixedAndRecurringInvoiceItemGenerator.generateItems(account, UUID.randomUUID(), events, new AccountInvoices(null, null, existingInvoices),
+                                                                                               targetDate, account.getCurrency(), new HashMap<UUID, SubscriptionFutureNotificationDates>(),
+                                                                                               null, Collections.emptyList(), internalCallContext).getItems();
+        assertEquals(allItems.size(), 4);
+
+        // Only the items of the subscription in scope are generated, the existing items of the other one aren't repaired
+        final Set<UUID> subscriptionIdsInScope = Set.of(subscriptionIds.get(0));
+        final Map<UUID, SubscriptionFutureNotificationDates> notificationDates = new HashMap<UUID, SubscriptionFutureNotificationDates>();
+        final List<InvoiceItem> scopedItems = fixedAndRecurringInvoiceItemGenerator.generateItems(account, UUID.randomUUID(), new SubscriptionScopedBillingEventSet(events, subscriptionIdsInScope),
+                                                                                                  new AccountInvoices(null, null, existingInvoices), subscriptionIdsInScope,
+                                                                                                  targetDate, account.getCurrency(), notificationDates,
+                                                                                                  null, Collections.emptyList(), internalCallContext).getItems();
+        assertEquals(scopedItems.size(), 2);
+        for (final InvoiceItem item : scopedItems) {
+            assertEquals(item.getInvoiceItemType(), InvoiceItemType.RECURRING);
+            assertEquals(item.getSubscriptionId(), subscriptionIds.get(0));
+        }
+        assertEquals(notificationDates.keySet(), subscriptionIdsInScope);
+    }
+
     @Test(groups = "fast", description = "https://github.com/killbill/killbill/issues/664")
     public void testOverlappingExistingItems() throws InvoiceApiException {
         final LocalDate startDate = new LocalDate("2016-01-01");
@@ -108,6 +108,59 @@ public class TestContiguousIntervalConsumableInArrear extends TestUsageInArrearB
 
     }
 
+    @Test(groups = "fast")
+    public void testBilledDetailsForUnitTypeWithSharedDetails() throws Exception {
+
+        final LocalDate startDate = new LocalDate(2014, 03, 20);
+        final LocalDate targetDate = startDate.plusDays(1);
+
+        final DefaultTieredBlock block = createDefaultTieredBlock("unit", 100, 1000, BigDecimal.ONE);
+        final DefaultTier tier = createDefaultTierWithBlocks(block);
+        final DefaultUsage usage = createConsumableInArrearUsage(usageName, BillingPeriod.MONTHLY, TierBlockPolicy.ALL_TIERS, tier);
+        final BillingEvent event = createMockBillingEvent(targetDate.toDateTimeAtStartOfDay(DateTimeZone.UTC), BillingPeriod.MONTHLY, Collections.emptyList(), catalogEffectiveDate);
+
+        final UsageConsumableInArrearTierUnitAggregate detail1 = new UsageConsumableInArrearTierUnitAggregate(1, "FOO", BigDecimal.TEN, BigDecimal.ONE, BigDecimal.valueOf(10L));
+        final UsageConsumableInArrearTierUnitAggregate detail2 = new UsageConsumableInArrearTierUnitAggregate(1, "FOO", BigDecimal.TEN, BigDecimal.ONE, BigDecimal.valueOf(100L));
+        final UsageConsumableInArrearTierUnitAggregate detail3 = new UsageConsumableInArrearTierUnitAggregate(1, "BAR", BigDecimal.ONE, BigDecimal.ONE, BigDecimal.valueOf(5L));
+        final String existingUsageJson = objectMapper.writeValueAsString(new UsageConsumableInArrearAggregate(List.of(detail1, detail2, detail3)));
+
+        final InvoiceItem ii1 = new UsageInvoiceItem(invoiceId, accountId, bundleId, subscriptionId, productName, planName, phaseName, usageName, null,
+                                                     new LocalDate(2014, 03, 20), new LocalDate(2014, 04, 15), new BigDecimal("1105.00"), null, currency, null, existingUsageJson);
+        final List<InvoiceItem> existingItems = List.of(ii1);
+
+        // Shared across intervals, as for an invoice run
+        final BilledUsageDetails billedUsageDetails = new BilledUsageDetails();
+        final List<ContiguousIntervalConsumableUsageInArrear> intervals = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final ContiguousIntervalConsumableUsageInArrear interval = new ContiguousIntervalConsumableUsageInArrear(usage, accountId, invoiceId, Collections.emptyList(), EMPTY_EXISTING_TRACKING_IDS, targetDate, event.getEffectiveDate(),
+                                                                                                                     UsageDetailMode.AGGREGATE, invoiceConfig, false, billedUsageDetails, internalCallContext);
+            interval.addBillingEvent(event);
+            interval.addAllSeenUnitTypesForBillingEvent(event, interval.getUnitTypes());
+            interval.build(false);
+            intervals.add(interval);
+        }
+
+        for (final ContiguousIntervalConsumableUsageInArrear interval : intervals) {
+            // Aggregation across calls doesn't leak into the shared (parsed once) details
+            for (int i = 0; i < 2; i++) {
+                final List<UsageConsumableInArrearTierUnitAggregate> fooDetails = interval.getBilledDetailsForUnitType(existingItems, "FOO");
+                assertEquals(fooDetails.size(), 1);
+                assertEquals(fooDetails.get(0).getQuantity(), BigDecimal.valueOf(110));
+                assertEquals(fooDetails.get(0).getAmount().compareTo(new BigDecimal("1100")), 0);
+
+                final List<UsageConsumableInArrearTierUnitAggregate> barDetails = interval.getBilledDetailsForUnitType(existingItems, "BAR");
+                assertEquals(barDetails.size(), 1);
+                assertEquals(barDetails.get(0).getQuantity(), BigDecimal.valueOf(5));
+            }
+        }
+
+        final UsageConsumableInArrearAggregate parsed = billedUsageDetails.getAggregate(ii1);
+        Assert.assertSame(billedUsageDetails.getAggregate(ii1), parsed);
+        assertEquals(parsed.getTierDetails().size(), 3);
+        assertEquals(parsed.getTierDetails().get(0).getQuantity(), BigDecimal.valueOf(10));
+        assertEquals(parsed.getTierDetails().get(1).getQuantity(), BigDecimal.valueOf(100));
+    }
+
     @Test(groups = "fast")
     public void testComputeToBeBilledUsage() throws Exception {
 
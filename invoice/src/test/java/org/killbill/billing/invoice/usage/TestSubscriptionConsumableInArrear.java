@@ -21,6 +21,8 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -31,6 +33,9 @@ import org.killbill.billing.catalog.api.BillingPeriod;
 import org.killbill.billing.catalog.api.TierBlockPolicy;
 import org.killbill.billing.catalog.api.Usage;
 import org.killbill.billing.junction.BillingEvent;
+import org.killbill.billing.usage.RawUsageReader;
+import org.killbill.billing.usage.api.RawUsageRecord;
+import org.killbill.billing.usage.api.svcs.DefaultRawUsage;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
@@ -101,4 +106,75 @@ public class TestSubscriptionConsumableInArrear extends TestUsageInArrearBase {
         assertTrue(thirdResult.getTransitionTimes().get(0).compareTo(dt3) == 0);
         assertTrue(internalCallContext.toLocalDate(thirdResult.getTransitionTimes().get(1)).compareTo(new LocalDate(2013, 6, 15)) == 0);
     }
+
+    @Test(groups = "fast")
+    public void testRawUsageReaderIsBoundedToEachInterval() throws Exception {
+
+        final List<BillingEvent> billingEvents = new ArrayList<>();
+
+        final String usageName1 = "erw";
+        final DefaultTieredBlock block1 = createDefaultTieredBlock("unit", 100, 10, BigDecimal.ONE);
+        final DefaultTier tier1 = createDefaultTierWithBlocks(block1);
+        final Usage usage1 = createConsumableInArrearUsage(usageName1, BillingPeriod.MONTHLY, TierBlockPolicy.ALL_TIERS, tier1);
+
+        final String usageName2 = "hghg";
+        final DefaultTieredBlock block2 = createDefaultTieredBlock("unit", 100, 10, BigDecimal.ONE);
+        final DefaultTier tier2 = createDefaultTierWithBlocks(block2);
+        final Usage usage2 = createConsumableInArrearUsage(usageName2, BillingPeriod.MONTHLY, TierBlockPolicy.ALL_TIERS, tier2);
+
+        final DateTime dt1 = new DateTime(2013, 3, 23, 4, 34, 59, DateTimeZone.UTC);
+        billingEvents.add(createMockBillingEvent(dt1, BillingPeriod.MONTHLY, List.of(usage1, usage2), catalogEffectiveDate));
+
+        final DateTime dt2 = new DateTime(2013, 4, 23, 4, 34, 59, DateTimeZone.UTC);
+        billingEvents.add(createMockBillingEvent(dt2, BillingPeriod.MONTHLY, List.of(usage1), catalogEffectiveDate));
+
+        final DateTime dt3 = new DateTime(2013, 5, 23, 4, 34, 59, DateTimeZone.UTC);
+        billingEvents.add(createMockBillingEvent(dt3, BillingPeriod.MONTHLY, List.of(usage1, usage2), catalogEffectiveDate));
+
+        final LocalDate targetDate = new LocalDate(2013, 6, 23);
+
+        final List<RawUsageRecord> rawUsages = List.of(new DefaultRawUsage(subscriptionId, new DateTime(2013, 3, 1, 0, 0, DateTimeZone.UTC), "unit", BigDecimal.valueOf(1L), "tracking-1"),
+                                                       new DefaultRawUsage(subscriptionId, new DateTime(2013, 3, 30, 0, 0, DateTimeZone.UTC), "unit", BigDecimal.valueOf(10L), "tracking-2"),
+                                                       new DefaultRawUsage(subscriptionId, new DateTime(2013, 4, 20, 0, 0, DateTimeZone.UTC), "unit", BigDecimal.valueOf(100L), "tracking-3"),
+                                                       new DefaultRawUsage(subscriptionId, new DateTime(2013, 5, 30, 0, 0, DateTimeZone.UTC), "unit", BigDecimal.valueOf(1000L), "tracking-4"),
+                                                       new DefaultRawUsage(subscriptionId, new DateTime(2013, 7, 1, 0, 0, DateTimeZone.UTC), "unit", BigDecimal.valueOf(10000L), "tracking-5"));
+
+        // Behaves like the streaming query: only the records of that subscription within the requested range are returned
+        final List<DateTime[]> requestedRanges = new ArrayList<>();
+        final RawUsageReader rawUsageReader = (final UUID requestedSubscriptionId, final DateTime startDate, final DateTime endDate) -> {
+            requestedRanges.add(new DateTime[]{startDate, endDate});
+            return rawUsages.stream()
+                            .filter(input -> input.getSubscriptionId().equals(requestedSubscriptionId))
+                            .filter(input -> !input.getDate().isBefore(startDate) && !input.getDate().isAfter(endDate))
+                            .collect(Collectors.toUnmodifiableList());
+        };
+
+        final List<ContiguousIntervalUsageInArrear> fromReader = new SubscriptionUsageInArrear(accountId, invoiceId, billingEvents, rawUsageReader, Collections.emptySet(), targetDate, dt1, usageDetailMode, invoiceConfig, new BilledUsageDetails(), internalCallContext).computeInArrearUsageInterval(false);
+        final List<ContiguousIntervalUsageInArrear> fromList = new SubscriptionUsageInArrear(accountId, invoiceId, billingEvents, rawUsages, Collections.emptySet(), targetDate, dt1, usageDetailMode, invoiceConfig, internalCallContext).computeInArrearUsageInterval(false);
+        assertEquals(fromReader.size(), 3);
+        assertEquals(fromList.size(), 3);
+
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (int i = 0; i < fromReader.size(); i++) {
+            final ContiguousIntervalUsageInArrear interval = fromReader.get(i);
+            final List<RolledUpUsageWithMetadata> rolledUpUsage = interval.getRolledUpUsage().getUsage();
+
+            // One query per interval, bounded to its own transition times
+            assertEquals(requestedRanges.size(), i + 1);
+            assertEquals(requestedRanges.get(i)[0].compareTo(interval.getTransitionTimes().get(0)), 0);
+            assertEquals(requestedRanges.get(i)[1].compareTo(interval.getTransitionTimes().get(interval.getTransitionTimes().size() - 1)), 0);
+
+            final List<RolledUpUsageWithMetadata> expectedRolledUpUsage = fromList.get(i).getRolledUpUsage().getUsage();
+            assertEquals(rolledUpUsage.size(), expectedRolledUpUsage.size());
+            for (int j = 0; j < rolledUpUsage.size(); j++) {
+                assertEquals(rolledUpUsage.get(j).getStart().compareTo(expectedRolledUpUsage.get(j).getStart()), 0);
+                assertEquals(rolledUpUsage.get(j).getEnd().compareTo(expectedRolledUpUsage.get(j).getEnd()), 0);
+                assertEquals(rolledUpUsage.get(j).getRolledUpUnits().get(0).getAmount().compareTo(expectedRolledUpUsage.get(j).getRolledUpUnits().get(0).getAmount()), 0);
+                totalAmount = totalAmount.add(rolledUpUsage.get(j).getRolledUpUnits().get(0).getAmount());
+            }
+        }
+
+        // Usage outside of all the intervals is never read
+        assertEquals(totalAmount.compareTo(BigDecimal.valueOf(2220L)), 0);
+    }
 }
@@ -18,8 +18,11 @@
 
 package org.killbill.billing.jaxrs.resources;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -30,7 +33,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.Map.Entry;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -52,8 +59,10 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.joda.time.DateTime;
@@ -130,9 +139,11 @@ import org.killbill.billing.util.audit.AuditLogWithHistory;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.commons.utils.collect.Iterables;
+import org.killbill.commons.utils.annotation.VisibleForTesting;
 import org.killbill.billing.util.config.definition.JaxrsConfig;
 import org.killbill.billing.util.customfield.CustomField;
 import org.killbill.billing.util.entity.Pagination;
+import org.killbill.billing.util.entity.dao.DBRouterUntyped;
 import org.killbill.billing.util.tag.ControlTagType;
 import org.killbill.billing.util.tag.Tag;
 import org.killbill.clock.Clock;
@@ -141,6 +152,8 @@ import org.killbill.commons.metrics.api.annotation.TimedResource;
 import org.killbill.notificationq.api.NotificationQueue;
 import org.killbill.notificationq.api.NotificationQueueService;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -516,6 +529,7 @@ public class AccountResource extends JaxRsResourceBase {
                            @ApiResponse(code = 404, message = "Account not found")})
     public Response getAccountTimeline(@PathParam("accountId") final UUID accountId,
                                        @QueryParam(QUERY_PARALLEL) @DefaultValue("false") final Boolean parallel,
+                                       @QueryParam(QUERY_STREAMING) @DefaultValue("false") final Boolean streaming,
                                        @QueryParam(QUERY_AUDIT) @DefaultValue("NONE") final AuditMode auditMode,
                                        @javax.ws.rs.core.Context final HttpServletRequest request) throws AccountApiException, PaymentApiException, SubscriptionApiException, InvoiceApiException, CatalogApiException {
 
@@ -556,35 +570,55 @@ public class AccountResource extends JaxRsResourceBase {
 
         final AccountTimelineJson json;
 
-        List<Invoice> invoices = null;
-        List<SubscriptionBundle> bundles = null;
-        List<InvoicePayment> invoicePayments = null;
-        List<Payment> payments = null;
-        AccountAuditLogs accountAuditLogs = null;
+        final List<Invoice> invoices;
+        final List<SubscriptionBundle> bundles;
+        final List<InvoicePayment> invoicePayments;
+        final List<Payment> payments;
+        final AccountAuditLogs accountAuditLogs;
 
-        if (parallel) {
+        if (parallel || streaming) {
             final ExecutorService executor = jaxrsExecutors.getJaxrsExecutorService();
-            final Future<List<SubscriptionBundle>> futureBundlesCallable = executor.submit(bundlesCallable);
-            final Future<List<Invoice>> futureInvoicesCallable = executor.submit(invoicesCallable);
-            final Future<List<InvoicePayment>> futureInvoicePaymentsCallable = executor.submit(invoicePaymentsCallable);
-            final Future<List<Payment>> futurePaymentsCallable = executor.submit(paymentsCallable);
-            final Future<AccountAuditLogs> futureAuditsCallable = executor.submit(auditsCallable);
-            final List<Future> toBeCancelled = List.of(futureBundlesCallable, futureInvoicesCallable, futureInvoicePaymentsCallable, futurePaymentsCallable, futureAuditsCallable);
-            final int timeoutMsec = 100;
-
-            final long ini = System.currentTimeMillis();
-            do {
-                bundles = (bundles == null) ? waitOnFutureAndHandleTimeout("bundles", futureBundlesCallable, timeoutMsec, toBeCancelled) : bundles;
-                invoices = (invoices == null) ? waitOnFutureAndHandleTimeout("invoices", futureInvoicesCallable, timeoutMsec, toBeCancelled) : invoices;
-                invoicePayments = (invoicePayments == null) ? waitOnFutureAndHandleTimeout("invoicePayments", futureInvoicePaymentsCallable, timeoutMsec, toBeCancelled) : invoicePayments;
-                payments = (payments == null) ? waitOnFutureAndHandleTimeout("payments", futurePaymentsCallable, timeoutMsec, toBeCancelled) : payments;
-                accountAuditLogs = (accountAuditLogs == null) ? waitOnFutureAndHandleTimeout("accountAuditLogs", futureAuditsCallable, timeoutMsec, toBeCancelled) : accountAuditLogs;
-            } while ((System.currentTimeMillis() - ini < jaxrsConfig.getJaxrsTimeout().getMillis()) &&
-                     (bundles == null || invoices == null || invoicePayments == null || payments == null || accountAuditLogs == null));
-
-            if (bundles == null || invoices == null || invoicePayments == null || payments == null || accountAuditLogs == null) {
-                Response.status(Status.SERVICE_UNAVAILABLE).build();
+            final long componentTimeoutMsec = jaxrsConfig.getJaxrsTimelineComponentTimeout().getMillis();
+            final CompletableFuture<List<SubscriptionBundle>> futureBundles = submitCallable(bundlesCallable, executor, componentTimeoutMsec);
+            final CompletableFuture<List<Invoice>> futureInvoices = submitCallable(invoicesCallable, executor, componentTimeoutMsec);
+            final CompletableFuture<List<InvoicePayment>> futureInvoicePayments = submitCallable(invoicePaymentsCallable, executor, componentTimeoutMsec);
+            final CompletableFuture<List<Payment>> futurePayments = submitCallable(paymentsCallable, executor, componentTimeoutMsec);
+            final CompletableFuture<AccountAuditLogs> futureAudits = submitCallable(auditsCallable, executor, componentTimeoutMsec);
+            final List<CompletableFuture<?>> toBeCancelled = List.of(futureBundles, futureInvoices, futureInvoicePayments, futurePayments, futureAudits);
+
+            if (streaming) {
+                final StreamingOutput timeline = buildStreamingTimeline(account, futureBundles, futureInvoices, futureInvoicePayments, futurePayments, futureAudits, toBeCancelled);
+                return Response.status(Status.OK).entity(timeline).build();
+            }
+
+            try {
+                CompletableFuture.allOf(futureBundles, futureInvoices, futureInvoicePayments, futurePayments, futureAudits)
+                                 .get(jaxrsConfig.getJaxrsTimeout().getMillis(), TimeUnit.MILLISECONDS);
+            } catch (final TimeoutException e) {
+                log.warn("Timeout while retrieving the timeline for accountId='{}'", accountId);
+                cancelFutures(toBeCancelled);
+                return Response.status(Status.SERVICE_UNAVAILABLE).build();
+            } catch (final InterruptedException e) {
+                log.warn("InterruptedException while retrieving the timeline for accountId='{}'", accountId, e);
+                cancelFutures(toBeCancelled);
+                handleCallableException(e);
+            } catch (final ExecutionException e) {
+                final Throwable cause = unwrapCompletionException(e.getCause());
+                cancelFutures(toBeCancelled);
+                if (cause instanceof TimeoutException) {
+                    log.warn("Timeout while retrieving one of the timeline components for accountId='{}'", accountId);
+                    return Response.status(Status.SERVICE_UNAVAILABLE).build();
+                }
+                log.warn("ExecutionException while retrieving the timeline for accountId='{}'", accountId, cause);
+                handleCallableException(cause);
             }
+
+            // All futures are completed at this point
+            bundles = futureBundles.join();
+            invoices = futureInvoices.join();
+            invoicePayments = futureInvoicePayments.join();
+            payments = futurePayments.join();
+            accountAuditLogs = futureAudits.join();
         } else {
             invoices = runCallable("invoices", invoicesCallable);
             payments = runCallable("payments", paymentsCallable);
@@ -597,27 +631,104 @@ public class AccountResource extends JaxRsResourceBase {
         return Response.status(Status.OK).entity(json).build();
     }
 
-    private <T> T waitOnFutureAndHandleTimeout(final String logSuffix, final Future<T> future, final long timeoutMsec, final Iterable<Future> toBeCancelled) throws PaymentApiException, AccountApiException, InvoiceApiException, SubscriptionApiException {
-        try {
-            return waitOnFutureAndHandleTimeout(future, timeoutMsec);
-        } catch (final InterruptedException e) {
-            log.warn("InterruptedException while retrieving {}", logSuffix, e);
-            handleCallableException(e, toBeCancelled);
-        } catch (final ExecutionException e) {
-            log.warn("ExecutionException while retrieving {}", logSuffix, e);
-            handleCallableException(e.getCause(), toBeCancelled);
-        }
+    // Sections are written in a fixed order (account, bundles, invoices, payments), each one as soon as the data it depends on is available.
+    // Because the status has already been sent by then, a failure or a timeout while streaming aborts the response.
+    private StreamingOutput buildStreamingTimeline(final Account account,
+                                                   final CompletableFuture<List<SubscriptionBundle>> futureBundles,
+                                                   final CompletableFuture<List<Invoice>> futureInvoices,
+                                                   final CompletableFuture<List<InvoicePayment>> futureInvoicePayments,
+                                                   final CompletableFuture<List<Payment>> futurePayments,
+                                                   final CompletableFuture<AccountAuditLogs> futureAudits,
+                                                   final Iterable<CompletableFuture<?>> toBeCancelled) {
+        final List<CompletableFuture<Entry<String, Object>>> sections = List.of(
+                futureAudits.thenApply(audits -> timelineSection("account", new AccountJson(account, null, null, audits))),
+                futureBundles.thenCombine(futureAudits, (bundles, audits) -> {
+                    try {
+                        return timelineSection("bundles", AccountTimelineJson.toBundlesJson(account, bundles, audits));
+                    } catch (final CatalogApiException e) {
+                        throw new CompletionException(e);
+                    }
+                }),
+                CompletableFuture.allOf(futureInvoices, futureBundles, futureAudits)
+                                 .thenApply(ignored -> timelineSection("invoices", AccountTimelineJson.toInvoicesJson(futureInvoices.join(), futureBundles.join(), futureAudits.join()))),
+                CompletableFuture.allOf(futurePayments, futureInvoicePayments, futureAudits)
+                                 .thenApply(ignored -> timelineSection("payments", AccountTimelineJson.toPaymentsJson(futurePayments.join(), futureInvoicePayments.join(), futureAudits.join()))));
 
-        // Never reached
-        return null;
+        return new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                final long deadline = System.currentTimeMillis() + jaxrsConfig.getJaxrsTimeout().getMillis();
+                try {
+                    final JsonGenerator generator = mapper.getFactory().createGenerator(output);
+                    generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+                    generator.writeStartObject();
+                    for (final CompletableFuture<Entry<String, Object>> section : sections) {
+                        final Entry<String, Object> entry = section.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+                        generator.writeObjectField(entry.getKey(), entry.getValue());
+                        generator.flush();
+                    }
+                    generator.writeEndObject();
+                    generator.close();
+                } catch (final TimeoutException e) {
+                    log.warn("Timeout while streaming the timeline for accountId='{}'", account.getId());
+                    throw new WebApplicationException("Timeout while streaming the account timeline", Status.SERVICE_UNAVAILABLE);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new WebApplicationException(e, Status.SERVICE_UNAVAILABLE);
+                } catch (final ExecutionException e) {
+                    final Throwable cause = unwrapCompletionException(e.getCause());
+                    log.warn("Failed to stream the timeline for accountId='{}'", account.getId(), cause);
+                    throw new WebApplicationException(cause, cause instanceof TimeoutException ? Status.SERVICE_UNAVAILABLE : Status.INTERNAL_SERVER_ERROR);
+                } finally {
+                    cancelFutures(toBeCancelled);
+                }
+            }
+        };
     }
 
-    private <T> T waitOnFutureAndHandleTimeout(final Future<T> future, final long timeoutMsec) throws ExecutionException, InterruptedException {
-        try {
-            return future.get(timeoutMsec, TimeUnit.MILLISECONDS);
-        } catch (final TimeoutException e) {
-            return null;
+    private static Entry<String, Object> timelineSection(final String name, final Object value) {
+        return new SimpleImmutableEntry<>(name, value);
+    }
+
+    // CompletableFuture#cancel doesn't interrupt the thread running the task: the callable is submitted to the executor directly instead,
+    // and cancelling (or timing out) the returned future cancels the underlying task, interrupting the callable if it is still running.
+    // The callable runs with the caller's DBRouter state, so that the timeline reads can still go to the read-only replica.
+    @VisibleForTesting
+    static <T> CompletableFuture<T> submitCallable(final Callable<T> callable, final ExecutorService executor, final long timeoutMsec) {
+        final Callable<T> callableWithCallerState = DBRouterUntyped.withCurrentThreadState(callable);
+        final CompletableFuture<T> result = new CompletableFuture<T>();
+        final Future<?> task = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result.complete(callableWithCallerState.call());
+                } catch (final Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        result.whenComplete((value, throwable) -> {
+            if (throwable instanceof CancellationException || throwable instanceof TimeoutException) {
+                task.cancel(true);
+            }
+        });
+        return result.orTimeout(timeoutMsec, TimeUnit.MILLISECONDS);
+    }
+
+    private static void cancelFutures(final Iterable<CompletableFuture<?>> toBeCancelled) {
+        // No-op for the futures already completed
+        for (final CompletableFuture<?> f : toBeCancelled) {
+            f.cancel(true);
+        }
+    }
+
+    private static Throwable unwrapCompletionException(final Throwable throwable) {
+        Throwable cur = throwable;
+        while (cur instanceof CompletionException && cur.getCause() != null) {
+            cur = cur.getCause();
         }
+        return cur;
     }
 
     private <T> T runCallable(final String logSuffix, final Callable<T> callable) throws PaymentApiException, AccountApiException, InvoiceApiException, SubscriptionApiException {
@@ -632,13 +743,6 @@ public class AccountResource extends JaxRsResourceBase {
         return null;
     }
 
-    private void handleCallableException(final Throwable causeOrException, final Iterable<Future> toBeCancelled) throws AccountApiException, SubscriptionApiException, PaymentApiException, InvoiceApiException {
-        for (final Future f : toBeCancelled) {
-            f.cancel(true);
-        }
-        handleCallableException(causeOrException);
-    }
-
     private void handleCallableException(final Throwable causeOrException) throws AccountApiException, SubscriptionApiException, PaymentApiException, InvoiceApiException {
         if (causeOrException instanceof AccountApiException) {
             throw (AccountApiException) causeOrException;
@@ -79,9 +79,11 @@ import org.killbill.billing.util.cache.Cachable.CacheType;
 import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
 import org.killbill.commons.utils.collect.Iterables;
 import org.killbill.billing.util.config.tenant.PerTenantConfig;
+import org.killbill.billing.util.dao.SearchTokenDao;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.tag.Tag;
 import org.killbill.billing.util.tag.dao.SystemTags;
@@ -119,6 +121,8 @@ public class AdminResource extends JaxRsResourceBase {
     private final PersistentBus persistentBus;
     private final NotificationQueueService notificationQueueService;
     private final KillbillHealthcheck killbillHealthcheck;
+    private final SearchTokenDao searchTokenDao;
+    private final InternalCallContextFactory internalCallContextFactory;
 
     @Inject
     public AdminResource(final JaxrsUriBuilder uriBuilder,
@@ -136,6 +140,8 @@ public class AdminResource extends JaxRsResourceBase {
                          final PersistentBus persistentBus,
                          final NotificationQueueService notificationQueueService,
                          final KillbillHealthcheck killbillHealthcheck,
+                         final SearchTokenDao searchTokenDao,
+                         final InternalCallContextFactory internalCallContextFactory,
                          final Clock clock,
                          final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, invoicePaymentApi, null, clock, context);
@@ -147,6 +153,8 @@ public class AdminResource extends JaxRsResourceBase {
         this.persistentBus = persistentBus;
         this.notificationQueueService = notificationQueueService;
         this.killbillHealthcheck = killbillHealthcheck;
+        this.searchTokenDao = searchTokenDao;
+        this.internalCallContextFactory = internalCallContextFactory;
     }
 
     @GET
@@ -423,6 +431,20 @@ public class AdminResource extends JaxRsResourceBase {
         return Response.status(Status.NO_CONTENT).build();
     }
 
+    @PUT
+    @Path("/" + SEARCH_INDEX)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Rebuild the search index for the tenant")
+    @ApiResponses(value = {@ApiResponse(code = 204, message = "Successful operation")})
+    public Response rebuildSearchIndex(@HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                       @HeaderParam(HDR_REASON) final String reason,
+                                       @HeaderParam(HDR_COMMENT) final String comment,
+                                       @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final CallContext callContext = context.createCallContextNoAccountId(createdBy, reason, comment, request);
+        searchTokenDao.rebuildSearchTokens(internalCallContextFactory.createInternalCallContextWithoutAccountRecordId(callContext));
+        return Response.status(Status.NO_CONTENT).build();
+    }
+
     @PUT
     @Path("/" + HEALTHCHECK)
     @Produces(APPLICATION_JSON)
@@ -44,6 +44,8 @@ import org.killbill.billing.util.api.CustomFieldUserApi;
 import org.killbill.billing.util.api.ExportUserApi;
 import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.entity.dao.DBRouterUntyped;
+import org.killbill.billing.util.entity.dao.DBRouterUntyped.THREAD_STATE;
 import org.killbill.clock.Clock;
 import org.killbill.commons.metrics.api.annotation.TimedResource;
 
@@ -90,11 +92,22 @@ public class ExportResource extends JaxRsResourceBase {
                                                 @HeaderParam(HDR_COMMENT) final String comment,
                                                 @javax.ws.rs.core.Context final HttpServletRequest request) {
         final CallContext callContext = context.createCallContextWithAccountId(accountId, createdBy, reason, comment, request);
+        // The output is written once the resource method has returned: keep its read-only routing decision
+        final THREAD_STATE dbRouterState = DBRouterUntyped.getCurrentState();
         return new StreamingOutput() {
             @Override
             public void write(final OutputStream output) throws IOException, WebApplicationException {
-                // CSV by default for now
-                exportUserApi.exportDataAsCSVForAccount(accountId, output, callContext);
+                try {
+                    DBRouterUntyped.withThreadState(dbRouterState, () -> {
+                        // CSV by default for now
+                        exportUserApi.exportDataAsCSVForAccount(accountId, output, callContext);
+                        return null;
+                    });
+                } catch (final IOException | RuntimeException e) {
+                    throw e;
+                } catch (final Exception e) {
+                    throw new RuntimeException(e);
+                }
             }
         };
     }
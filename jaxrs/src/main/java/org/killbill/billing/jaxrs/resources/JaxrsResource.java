@@ -52,6 +52,8 @@ public interface JaxrsResource {
     String HDR_PAGINATION_TOTAL_NB_RECORDS = "X-Killbill-Pagination-TotalNbRecords";
     String HDR_PAGINATION_MAX_NB_RECORDS = "X-Killbill-Pagination-MaxNbRecords";
     String HDR_PAGINATION_NEXT_PAGE_URI = "X-Killbill-Pagination-NextPageUri";
+    // true: the request tolerates replication delay (read-only database), false: read-your-writes (primary database)
+    String HDR_ALLOW_STALE_READS = "X-Killbill-AllowStaleReads";
 
     /*
      * Patterns
@@ -153,6 +155,8 @@ public interface JaxrsResource {
 
     String QUERY_PARALLEL = "parallel";
 
+    String QUERY_STREAMING = "streaming";
+
     String QUERY_AUTO_COMMIT = "autoCommit";
 
     String QUERY_NOTIFICATION_CALLBACK = "cb";
@@ -303,6 +307,7 @@ public interface JaxrsResource {
 
     String CACHE = "cache";
     String HEALTHCHECK = "healthcheck";
+    String SEARCH_INDEX = "searchIndex";
 
     String QUERY_INCLUDED_DELETED = "includedDeleted";
     String AUDIT_LOG = "auditLogs";
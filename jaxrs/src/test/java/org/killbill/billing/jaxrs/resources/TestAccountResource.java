@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.jaxrs.resources;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.killbill.billing.jaxrs.JaxrsTestSuiteNoDB;
+import org.killbill.billing.util.entity.dao.DBRouterUntyped;
+import org.killbill.billing.util.entity.dao.DBRouterUntyped.THREAD_STATE;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestAccountResource extends JaxrsTestSuiteNoDB {
+
+    private ExecutorService executor;
+
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterMethod(groups = "fast")
+    public void afterMethod() {
+        executor.shutdownNow();
+    }
+
+    @Test(groups = "fast")
+    public void testSubmitCallable() throws Exception {
+        final CompletableFuture<String> future = AccountResource.submitCallable(() -> "timeline", executor, 10000);
+        Assert.assertEquals(future.get(10, TimeUnit.SECONDS), "timeline");
+    }
+
+    @Test(groups = "fast")
+    public void testSubmitCallableWithCallerThreadState() throws Throwable {
+        // Timeline sections run with the RO state of the request thread
+        final Object roState = DBRouterUntyped.withRODBIAllowed(true, () -> AccountResource.submitCallable(DBRouterUntyped::getCurrentState, executor, 10000).get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(roState, THREAD_STATE.RO_ALLOWED);
+
+        final Object rwState = DBRouterUntyped.withRODBIAllowed(false, () -> AccountResource.submitCallable(DBRouterUntyped::getCurrentState, executor, 10000).get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(rwState, THREAD_STATE.RW_ONLY);
+
+        // The executor thread is left in its original state
+        Assert.assertEquals(executor.submit(DBRouterUntyped::getCurrentState).get(10, TimeUnit.SECONDS), THREAD_STATE.RW_ONLY);
+    }
+
+    @Test(groups = "fast")
+    public void testCancelInterruptsCallable() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        final CompletableFuture<String> future = AccountResource.submitCallable(blockingCallable(started, interrupted), executor, 10000);
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        future.cancel(true);
+        Assert.assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(future.isCancelled());
+    }
+
+    @Test(groups = "fast")
+    public void testTimeoutInterruptsCallable() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        final CompletableFuture<String> future = AccountResource.submitCallable(blockingCallable(started, interrupted), executor, 100);
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (final ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    private Callable<String> blockingCallable(final CountDownLatch started, final CountDownLatch interrupted) {
+        return () -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (final InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return "timeline";
+        };
+    }
+}
@@ -166,11 +166,26 @@ public class MultiTenantPaymentConfig extends MultiTenantLockAwareConfigBase imp
         return staticConfig.getPaymentPluginThreadNb();
     }
 
+    @Override
+    public boolean isPaymentPluginVirtualThreadsEnabled() {
+        return staticConfig.isPaymentPluginVirtualThreadsEnabled();
+    }
+
+    @Override
+    public int getPaymentPluginMaxConcurrentCalls() {
+        return staticConfig.getPaymentPluginMaxConcurrentCalls();
+    }
+
     @Override
     public int getMaxGlobalLockRetries() {
         return staticConfig.getMaxGlobalLockRetries();
     }
 
+    @Override
+    public boolean isPaymentSplitPhaseExecutionEnabled() {
+        return staticConfig.isPaymentSplitPhaseExecutionEnabled();
+    }
+
     @Override
     public boolean isAllowedToOverwritePaymentMethodId() {
         return staticConfig.isAllowedToOverwritePaymentMethodId();
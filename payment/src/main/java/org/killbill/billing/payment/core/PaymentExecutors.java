@@ -17,6 +17,10 @@
 
 package org.killbill.billing.payment.core;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
@@ -26,12 +30,19 @@ import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
+import org.killbill.billing.payment.dispatcher.PluginBulkhead;
 import org.killbill.billing.util.config.definition.PaymentConfig;
 import org.killbill.commons.concurrent.Executors;
 import org.killbill.commons.concurrent.WithProfilingThreadPoolExecutor;
+import org.killbill.commons.metrics.api.Gauge;
+import org.killbill.commons.metrics.api.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class PaymentExecutors {
 
+    private static final Logger log = LoggerFactory.getLogger(PaymentExecutors.class);
+
     private static final long TIMEOUT_EXECUTOR_SEC = 3L;
 
     private static final int DEFAULT_MIN_PLUGIN_THREADS = 5;
@@ -42,20 +53,30 @@ public class PaymentExecutors {
     public static final String JANITOR_EXECUTOR_NAMED = "JanitorExecutor";
     public static final String PLUGIN_EXECUTOR_NAMED = "PluginExecutor";
 
+    private static final String PLUGIN_METRICS_PREFIX = "payment.plugin.";
+
     private final PaymentConfig paymentConfig;
+    private final MetricRegistry metricRegistry;
+    private final Map<String, PluginBulkhead> pluginBulkheads = new ConcurrentHashMap<String, PluginBulkhead>();
 
-    private volatile ThreadPoolExecutor pluginExecutorService;
+    private volatile ExecutorService pluginExecutorService;
     private volatile ScheduledExecutorService janitorExecutorService;
 
     @Inject
-    public PaymentExecutors(PaymentConfig paymentConfig) {
+    public PaymentExecutors(final PaymentConfig paymentConfig, final MetricRegistry metricRegistry) {
         this.paymentConfig = paymentConfig;
-
+        this.metricRegistry = metricRegistry;
     }
 
     public void initialize() {
-        this.pluginExecutorService = createPluginExecutorService();
-        this.pluginExecutorService.prestartAllCoreThreads();
+        final ExecutorService virtualThreadExecutorService = paymentConfig.isPaymentPluginVirtualThreadsEnabled() ? createVirtualThreadPluginExecutorService() : null;
+        if (virtualThreadExecutorService != null) {
+            this.pluginExecutorService = virtualThreadExecutorService;
+        } else {
+            final ThreadPoolExecutor threadPoolExecutor = createPluginExecutorService();
+            threadPoolExecutor.prestartAllCoreThreads();
+            this.pluginExecutorService = threadPoolExecutor;
+        }
         this.janitorExecutorService = createJanitorExecutorService();
     }
 
@@ -79,6 +100,61 @@ public class PaymentExecutors {
         return janitorExecutorService;
     }
 
+    public PluginBulkhead getPluginBulkhead(final String pluginName) {
+        return pluginBulkheads.computeIfAbsent(pluginName, this::createPluginBulkhead);
+    }
+
+    private PluginBulkhead createPluginBulkhead(final String pluginName) {
+        final PluginBulkhead bulkhead = new PluginBulkhead(pluginName, paymentConfig.getPaymentPluginMaxConcurrentCalls());
+
+        final String prefix = PLUGIN_METRICS_PREFIX + pluginName + ".";
+        metricRegistry.gauge(prefix + "in-flight", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return bulkhead.getNbInFlight();
+            }
+        });
+        metricRegistry.gauge(prefix + "waiting", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return bulkhead.getNbWaiting();
+            }
+        });
+        metricRegistry.gauge(prefix + "calls", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return bulkhead.getNbCalls();
+            }
+        });
+        metricRegistry.gauge(prefix + "queue-wait-total-ms", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return bulkhead.getTotalQueueWaitMillis();
+            }
+        });
+        metricRegistry.gauge(prefix + "queue-wait-max-ms", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return bulkhead.getMaxQueueWaitMillis();
+            }
+        });
+
+        return bulkhead;
+    }
+
+    // Resolved by reflection, as we still need to run (and compile) on JVMs without virtual threads
+    private ExecutorService createVirtualThreadPluginExecutorService() {
+        try {
+            final Method newVirtualThreadPerTaskExecutor = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            final ExecutorService executorService = (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+            log.info("Payment plugin calls will be dispatched on virtual threads");
+            return executorService;
+        } catch (final NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            log.warn("Virtual threads aren't available on this JVM, defaulting to the payment plugin thread pool", e);
+            return null;
+        }
+    }
+
     private ThreadPoolExecutor createPluginExecutorService() {
         final int minThreadNb = DEFAULT_MIN_PLUGIN_THREADS < paymentConfig.getPaymentPluginThreadNb() ? DEFAULT_MIN_PLUGIN_THREADS : paymentConfig.getPaymentPluginThreadNb();
         return new WithProfilingThreadPoolExecutor(minThreadNb,
@@ -48,7 +48,7 @@ import org.killbill.billing.util.config.definition.PaymentConfig;
 import org.killbill.clock.Clock;
 import org.killbill.commons.locker.GlobalLocker;
 
-import static org.killbill.billing.payment.dispatcher.PaymentPluginDispatcher.dispatchWithExceptionHandling;
+import static org.killbill.billing.payment.dispatcher.PaymentPluginDispatcher.dispatchPaymentPluginCallWithExceptionHandling;
 
 public class PaymentGatewayProcessor extends ProcessorBase {
 
@@ -82,19 +82,19 @@ public class PaymentGatewayProcessor extends ProcessorBase {
         final PaymentPluginApi plugin = getPaymentPluginApi(pluginName);
 
         if (shouldDispatch) {
-            return dispatchWithExceptionHandling(null,
-                                                 pluginName,
-                                                 new Callable<PluginDispatcherReturnType<GatewayNotification>>() {
-                                                     @Override
-                                                     public PluginDispatcherReturnType<GatewayNotification> call() throws PaymentApiException {
-                                                         try {
-                                                             final GatewayNotification result = plugin.processNotification(notification, properties, callContext);
-                                                             return PluginDispatcher.createPluginDispatcherReturnType(result == null ? new DefaultNoOpGatewayNotification() : result);
-                                                         } catch (final PaymentPluginApiException e) {
-                                                             throw new PaymentApiException(e, ErrorCode.PAYMENT_PLUGIN_EXCEPTION, e.getErrorMessage());
-                                                         }
-                                                     }
-                                                 }, paymentPluginNotificationDispatcher);
+            return dispatchPaymentPluginCallWithExceptionHandling(null,
+                                                                  pluginName,
+                                                                  new Callable<PluginDispatcherReturnType<GatewayNotification>>() {
+                                                                      @Override
+                                                                      public PluginDispatcherReturnType<GatewayNotification> call() throws PaymentApiException {
+                                                                          try {
+                                                                              final GatewayNotification result = plugin.processNotification(notification, properties, callContext);
+                                                                              return PluginDispatcher.createPluginDispatcherReturnType(result == null ? new DefaultNoOpGatewayNotification() : result);
+                                                                          } catch (final PaymentPluginApiException e) {
+                                                                              throw new PaymentApiException(e, ErrorCode.PAYMENT_PLUGIN_EXCEPTION, e.getErrorMessage());
+                                                                          }
+                                                                      }
+                                                                  }, paymentPluginNotificationDispatcher);
         } else {
             try {
                 return plugin.processNotification(notification, properties, callContext);
@@ -109,21 +109,21 @@ public class PaymentGatewayProcessor extends ProcessorBase {
         final PaymentPluginApi plugin = getPaymentPluginApi(pluginName);
 
         if (shouldDispatch) {
-            return dispatchWithExceptionHandling(account,
-                                                 pluginName,
-                                                 new Callable<PluginDispatcherReturnType<HostedPaymentPageFormDescriptor>>() {
-                                                     @Override
-                                                     public PluginDispatcherReturnType<HostedPaymentPageFormDescriptor> call() throws PaymentApiException {
-                                                         try {
-                                                             final HostedPaymentPageFormDescriptor result = plugin.buildFormDescriptor(account.getId(), customFields, properties, callContext);
-                                                             return PluginDispatcher.createPluginDispatcherReturnType(result == null ? new DefaultNoOpHostedPaymentPageFormDescriptor(account.getId()) : result);
-                                                         } catch (final RuntimeException e) {
-                                                             throw new PaymentApiException(e, ErrorCode.PAYMENT_INTERNAL_ERROR, Objects.requireNonNullElse(e.getMessage(), ""));
-                                                         } catch (final PaymentPluginApiException e) {
-                                                             throw new PaymentApiException(e, ErrorCode.PAYMENT_PLUGIN_EXCEPTION, e.getErrorMessage());
-                                                         }
-                                                     }
-                                                 }, paymentPluginFormDispatcher);
+            return dispatchPaymentPluginCallWithExceptionHandling(account,
+                                                                  pluginName,
+                                                                  new Callable<PluginDispatcherReturnType<HostedPaymentPageFormDescriptor>>() {
+                                                                      @Override
+                                                                      public PluginDispatcherReturnType<HostedPaymentPageFormDescriptor> call() throws PaymentApiException {
+                                                                          try {
+                                                                              final HostedPaymentPageFormDescriptor result = plugin.buildFormDescriptor(account.getId(), customFields, properties, callContext);
+                                                                              return PluginDispatcher.createPluginDispatcherReturnType(result == null ? new DefaultNoOpHostedPaymentPageFormDescriptor(account.getId()) : result);
+                                                                          } catch (final RuntimeException e) {
+                                                                              throw new PaymentApiException(e, ErrorCode.PAYMENT_INTERNAL_ERROR, Objects.requireNonNullElse(e.getMessage(), ""));
+                                                                          } catch (final PaymentPluginApiException e) {
+                                                                              throw new PaymentApiException(e, ErrorCode.PAYMENT_PLUGIN_EXCEPTION, e.getErrorMessage());
+                                                                          }
+                                                                      }
+                                                                  }, paymentPluginFormDispatcher);
         } else {
             try {
                 return plugin.buildFormDescriptor(account.getId(), customFields, properties, callContext);
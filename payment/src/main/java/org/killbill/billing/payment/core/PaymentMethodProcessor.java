@@ -75,6 +75,7 @@ import org.killbill.commons.locker.GlobalLocker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.killbill.billing.payment.dispatcher.PaymentPluginDispatcher.dispatchPaymentPluginCallWithExceptionHandling;
 import static org.killbill.billing.payment.dispatcher.PaymentPluginDispatcher.dispatchWithExceptionHandling;
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPagination;
 import static org.killbill.billing.util.entity.dao.DefaultPaginationHelper.getEntityPaginationFromPlugins;
@@ -113,7 +114,7 @@ public class PaymentMethodProcessor extends ProcessorBase {
                                  final boolean setDefault, final PaymentMethodPlugin paymentMethodProps,
                                  final Iterable<PluginProperty> properties, final CallContext callContext, final InternalCallContext context)
             throws PaymentApiException {
-        return dispatchWithExceptionHandling(account,
+        return dispatchPaymentPluginCallWithExceptionHandling(account,
                                              paymentPluginServiceName,
                                              new CallableWithAccountLock<UUID, PaymentApiException>(locker,
                                                                                                     account.getId(),
@@ -59,6 +59,15 @@ public abstract class OperationCallbackBase<CallbackOperationResult, CallbackOpe
     // callback to eventually throw a OperationException, that will be used to drive the state machine in the right direction.
     //
     protected <ExceptionType extends Exception> OperationResult dispatchWithAccountLockAndTimeout(final String pluginNames, final DispatcherCallback<PluginDispatcherReturnType<OperationResult>, ExceptionType> callback) throws OperationException {
+        return dispatchWithAccountLockAndTimeout(pluginNames, false, callback);
+    }
+
+    // Used when calling the payment plugin itself (as opposed to the control plugins): the call goes through the bulkhead of that plugin
+    protected <ExceptionType extends Exception> OperationResult dispatchPaymentPluginCallWithAccountLockAndTimeout(final String paymentPluginName, final DispatcherCallback<PluginDispatcherReturnType<OperationResult>, ExceptionType> callback) throws OperationException {
+        return dispatchWithAccountLockAndTimeout(paymentPluginName, true, callback);
+    }
+
+    private <ExceptionType extends Exception> OperationResult dispatchWithAccountLockAndTimeout(final String pluginNames, final boolean isPaymentPluginCall, final DispatcherCallback<PluginDispatcherReturnType<OperationResult>, ExceptionType> callback) throws OperationException {
         final Account account = paymentStateContext.getAccount();
         logger.debug("Dispatching plugin call for account {}", account.getExternalKey());
 
@@ -67,13 +76,49 @@ public abstract class OperationCallbackBase<CallbackOperationResult, CallbackOpe
                                                                                                                                            account.getId(),
                                                                                                                                            paymentConfig,
                                                                                                                                            callback);
-            final OperationResult operationResult = PaymentPluginDispatcher.dispatchWithExceptionHandling(account, pluginNames, task, paymentPluginDispatcher);
-            return operationResult;
+            return dispatch(account, pluginNames, isPaymentPluginCall, task);
         } catch (final PaymentApiException e) {
             throw unwrapExceptionFromDispatchedTask(e);
         }
     }
 
+    //
+    // Same as above but without the account lock: used in split-phase execution mode, where the transaction has been persisted (and will be completed)
+    // under the account lock by the state callbacks (see PaymentAutomatonRunner).
+    //
+    protected <ExceptionType extends Exception> OperationResult dispatchPaymentPluginCallWithTimeout(final String paymentPluginName, final DispatcherCallback<PluginDispatcherReturnType<OperationResult>, ExceptionType> callback) throws OperationException {
+        return dispatchWithTimeout(paymentPluginName, true, callback);
+    }
+
+    private <ExceptionType extends Exception> OperationResult dispatchWithTimeout(final String pluginNames, final boolean isPaymentPluginCall, final DispatcherCallback<PluginDispatcherReturnType<OperationResult>, ExceptionType> callback) throws OperationException {
+        final Account account = paymentStateContext.getAccount();
+        logger.debug("Dispatching plugin call (without account lock) for account {}", account.getExternalKey());
+
+        try {
+            final Callable<PluginDispatcherReturnType<OperationResult>> task = new Callable<PluginDispatcherReturnType<OperationResult>>() {
+                @Override
+                public PluginDispatcherReturnType<OperationResult> call() throws ExceptionType {
+                    return callback.doOperation();
+                }
+            };
+            return dispatch(account, pluginNames, isPaymentPluginCall, task);
+        } catch (final PaymentApiException e) {
+            throw unwrapExceptionFromDispatchedTask(e);
+        }
+    }
+
+    private OperationResult dispatch(final Account account, final String pluginNames, final boolean isPaymentPluginCall, final Callable<PluginDispatcherReturnType<OperationResult>> task) throws PaymentApiException {
+        if (isPaymentPluginCall) {
+            return PaymentPluginDispatcher.dispatchPaymentPluginCallWithExceptionHandling(account, pluginNames, task, paymentPluginDispatcher);
+        } else {
+            return PaymentPluginDispatcher.dispatchWithExceptionHandling(account, pluginNames, task, paymentPluginDispatcher);
+        }
+    }
+
+    protected boolean isSplitPhaseExecution() {
+        return paymentConfig.isPaymentSplitPhaseExecutionEnabled();
+    }
+
     //
     // The OperationCallback per state machine are often very similar in between operation
     //
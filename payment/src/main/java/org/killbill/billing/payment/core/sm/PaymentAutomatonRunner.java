@@ -214,7 +214,20 @@ public class PaymentAutomatonRunner {
                 throw new IllegalStateException("Unsupported transaction type " + transactionType);
         }
 
-        runStateMachineOperation(currentStateName, transactionType, leavingStateCallback, operationCallback, enteringStateCallback, includeDeletedPaymentMethod, paymentStateContext, daoHelper);
+        if (paymentStateContext.shouldLockAccountAndDispatch() && paymentConfig.isPaymentSplitPhaseExecutionEnabled()) {
+            // The account lock isn't held during the plugin call (see PaymentOperation), only when creating and completing the transaction
+            final SplitPhaseStateCallbacks splitPhaseStateCallbacks = new SplitPhaseStateCallbacks(locker, paymentConfig, paymentStateContext, daoHelper);
+            runStateMachineOperation(currentStateName,
+                                     transactionType,
+                                     splitPhaseStateCallbacks.withAccountLock(leavingStateCallback),
+                                     operationCallback,
+                                     splitPhaseStateCallbacks.withAccountLockAndConflictDetection(enteringStateCallback),
+                                     includeDeletedPaymentMethod,
+                                     paymentStateContext,
+                                     daoHelper);
+        } else {
+            runStateMachineOperation(currentStateName, transactionType, leavingStateCallback, operationCallback, enteringStateCallback, includeDeletedPaymentMethod, paymentStateContext, daoHelper);
+        }
     }
 
     //
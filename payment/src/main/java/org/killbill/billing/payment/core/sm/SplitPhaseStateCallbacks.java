@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core.sm;
+
+import org.killbill.automaton.Operation.OperationCallback;
+import org.killbill.automaton.OperationException;
+import org.killbill.automaton.OperationResult;
+import org.killbill.automaton.State;
+import org.killbill.automaton.State.EnteringStateCallback;
+import org.killbill.automaton.State.LeavingStateCallback;
+import org.killbill.billing.ErrorCode;
+import org.killbill.billing.payment.api.PaymentApiException;
+import org.killbill.billing.payment.core.ProcessorBase.DispatcherCallback;
+import org.killbill.billing.payment.core.ProcessorBase.WithAccountLock;
+import org.killbill.billing.payment.dao.PaymentDao;
+import org.killbill.billing.payment.dao.PaymentTransactionModelDao;
+import org.killbill.billing.payment.dispatcher.PluginDispatcher;
+import org.killbill.billing.payment.dispatcher.PluginDispatcher.PluginDispatcherReturnType;
+import org.killbill.billing.util.config.definition.PaymentConfig;
+import org.killbill.commons.locker.GlobalLocker;
+import org.killbill.commons.locker.LockFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+//
+// Split-phase execution (see PaymentConfig#isPaymentSplitPhaseExecutionEnabled): instead of holding the account lock during the plugin call,
+// the UNKNOWN (or existing PENDING) transaction is persisted under the lock, the plugin is called without it and the lock is re-acquired to
+// apply the plugin result.
+//
+// While the lock is released, the Janitor (or an on-the-fly refresh) may have fixed the transaction: the plugin result is only applied if
+// the transaction row is unchanged since it was persisted. Otherwise, the row is left as-is (the Janitor already reconciled it with the plugin).
+// If the lock cannot be re-acquired, the transaction stays UNKNOWN (or PENDING) and will be fixed by the Janitor.
+//
+class SplitPhaseStateCallbacks {
+
+    private static final Logger logger = LoggerFactory.getLogger(SplitPhaseStateCallbacks.class);
+
+    private final GlobalLocker locker;
+    private final PaymentConfig paymentConfig;
+    private final PaymentStateContext paymentStateContext;
+    private final PaymentAutomatonDAOHelper daoHelper;
+
+    SplitPhaseStateCallbacks(final GlobalLocker locker,
+                             final PaymentConfig paymentConfig,
+                             final PaymentStateContext paymentStateContext,
+                             final PaymentAutomatonDAOHelper daoHelper) {
+        this.locker = locker;
+        this.paymentConfig = paymentConfig;
+        this.paymentStateContext = paymentStateContext;
+        this.daoHelper = daoHelper;
+    }
+
+    LeavingStateCallback withAccountLock(final LeavingStateCallback leavingStateCallback) {
+        return new LeavingStateCallback() {
+            @Override
+            public void leavingState(final State oldState) throws OperationException {
+                final DispatcherCallback<PluginDispatcherReturnType<Void>, OperationException> callback = new DispatcherCallback<PluginDispatcherReturnType<Void>, OperationException>() {
+                    @Override
+                    public PluginDispatcherReturnType<Void> doOperation() throws OperationException {
+                        leavingStateCallback.leavingState(oldState);
+                        return PluginDispatcher.createPluginDispatcherReturnType(null);
+                    }
+                };
+
+                try {
+                    new WithAccountLock<Void, OperationException>(paymentConfig).processAccountWithLock(locker, paymentStateContext.getAccount().getId(), callback);
+                } catch (final LockFailedException e) {
+                    // Nothing was persisted, the plugin won't be called
+                    final String format = String.format("Failed to lock account accountId='%s', externalKey='%s'", paymentStateContext.getAccount().getId(), paymentStateContext.getAccount().getExternalKey());
+                    throw new OperationException(new PaymentApiException(e, ErrorCode.PAYMENT_INTERNAL_ERROR, format));
+                }
+            }
+        };
+    }
+
+    EnteringStateCallback withAccountLockAndConflictDetection(final EnteringStateCallback enteringStateCallback) {
+        return new EnteringStateCallback() {
+            @Override
+            public void enteringState(final State newState, final OperationCallback operationCallback, final OperationResult operationResult, final LeavingStateCallback leavingStateCallback) {
+                final PaymentTransactionModelDao persistedTransaction = paymentStateContext.getPaymentTransactionModelDao();
+                if (persistedTransaction == null || persistedTransaction.getId() == null) {
+                    // The transaction was not created (nothing to complete)
+                    enteringStateCallback.enteringState(newState, operationCallback, operationResult, leavingStateCallback);
+                    return;
+                }
+
+                final DispatcherCallback<PluginDispatcherReturnType<Void>, RuntimeException> callback = new DispatcherCallback<PluginDispatcherReturnType<Void>, RuntimeException>() {
+                    @Override
+                    public PluginDispatcherReturnType<Void> doOperation() {
+                        final PaymentTransactionModelDao currentTransaction = daoHelper.getPaymentDao().getPaymentTransaction(persistedTransaction.getId(), paymentStateContext.getInternalCallContext());
+                        if (hasChanged(persistedTransaction, currentTransaction)) {
+                            logger.warn("Ignoring plugin result for paymentTransactionId='{}': transaction was updated concurrently, transactionStatus='{}', operationResult='{}'",
+                                        persistedTransaction.getId(), currentTransaction.getTransactionStatus(), operationResult);
+                            refreshPaymentStateContext();
+                        } else {
+                            enteringStateCallback.enteringState(newState, operationCallback, operationResult, leavingStateCallback);
+                        }
+                        return PluginDispatcher.createPluginDispatcherReturnType(null);
+                    }
+                };
+
+                try {
+                    new WithAccountLock<Void, RuntimeException>(paymentConfig).processAccountWithLock(locker, paymentStateContext.getAccount().getId(), callback);
+                } catch (final LockFailedException e) {
+                    logger.warn("Failed to lock accountId='{}' to complete paymentTransactionId='{}', transaction will be fixed by the Janitor",
+                                paymentStateContext.getAccount().getId(), persistedTransaction.getId());
+                    refreshPaymentStateContext();
+                }
+            }
+        };
+    }
+
+    // The plugin result wasn't applied: expose the persisted payment and transaction
+    private void refreshPaymentStateContext() {
+        final PaymentDao paymentDao = daoHelper.getPaymentDao();
+        paymentStateContext.setPaymentTransactionModelDao(paymentDao.getPaymentTransaction(paymentStateContext.getTransactionId(), paymentStateContext.getInternalCallContext()));
+        paymentStateContext.setPaymentModelDao(paymentDao.getPayment(paymentStateContext.getPaymentId(), paymentStateContext.getInternalCallContext()));
+    }
+
+    static boolean hasChanged(final PaymentTransactionModelDao persistedTransaction, final PaymentTransactionModelDao currentTransaction) {
+        if (currentTransaction.getTransactionStatus() != persistedTransaction.getTransactionStatus()) {
+            return true;
+        }
+        if (currentTransaction.getUpdatedDate() == null || persistedTransaction.getUpdatedDate() == null) {
+            return currentTransaction.getUpdatedDate() != persistedTransaction.getUpdatedDate();
+        }
+        return !currentTransaction.getUpdatedDate().isEqual(persistedTransaction.getUpdatedDate());
+    }
+}
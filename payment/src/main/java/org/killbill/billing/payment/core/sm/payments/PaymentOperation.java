@@ -64,7 +64,10 @@ public abstract class PaymentOperation extends OperationCallbackBase<PaymentTran
             throw convertToUnknownTransactionStatusAndErroredPaymentState(e);
         }
 
-        if (paymentStateContext.shouldLockAccountAndDispatch()) {
+        if (paymentStateContext.shouldLockAccountAndDispatch() && isSplitPhaseExecution()) {
+            // The account lock is only held while creating and completing the transaction (see PaymentAutomatonRunner)
+            return doOperationCallbackWithDispatch(daoHelper.getPluginName());
+        } else if (paymentStateContext.shouldLockAccountAndDispatch()) {
             // This will already call unwrapExceptionFromDispatchedTask
             return doOperationCallbackWithDispatchAndAccountLock(daoHelper.getPluginName());
         } else {
@@ -114,7 +117,17 @@ public abstract class PaymentOperation extends OperationCallbackBase<PaymentTran
     protected abstract PaymentTransactionInfoPlugin doCallSpecificOperationCallback() throws PaymentPluginApiException;
 
     private OperationResult doOperationCallbackWithDispatchAndAccountLock(final String pluginName) throws OperationException {
-        return dispatchWithAccountLockAndTimeout(pluginName, new DispatcherCallback<PluginDispatcherReturnType<OperationResult>, OperationException>() {
+        return dispatchPaymentPluginCallWithAccountLockAndTimeout(pluginName, new DispatcherCallback<PluginDispatcherReturnType<OperationResult>, OperationException>() {
+            @Override
+            public PluginDispatcherReturnType<OperationResult> doOperation() throws OperationException {
+                final OperationResult result = doSimpleOperationCallback();
+                return PluginDispatcher.createPluginDispatcherReturnType(result);
+            }
+        });
+    }
+
+    private OperationResult doOperationCallbackWithDispatch(final String pluginName) throws OperationException {
+        return dispatchPaymentPluginCallWithTimeout(pluginName, new DispatcherCallback<PluginDispatcherReturnType<OperationResult>, OperationException>() {
             @Override
             public PluginDispatcherReturnType<OperationResult> doOperation() throws OperationException {
                 final OperationResult result = doSimpleOperationCallback();
@@ -21,6 +21,7 @@ package org.killbill.billing.payment.dao;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -57,7 +58,9 @@ import org.killbill.billing.util.audit.dao.AuditDao;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.commons.utils.collect.Iterables;
+import org.killbill.billing.util.config.definition.SearchConfig;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.dao.SearchTokens;
 import org.killbill.billing.util.dao.TableName;
 import org.killbill.billing.util.entity.Entity;
 import org.killbill.billing.util.entity.Pagination;
@@ -85,15 +88,18 @@ public class DefaultPaymentDao extends EntityDaoBase<PaymentModelDao, Payment, P
     private final BusOptimizer eventBus;
     private final Clock clock;
     private final AuditDao auditDao;
+    private final SearchConfig searchConfig;
 
     @Inject
     public DefaultPaymentDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher,
-                             final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final BusOptimizer eventBus, final AuditDao auditDao) {
-        super(nonEntityDao, cacheControllerDispatcher, new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory), PaymentSqlDao.class);
+                             final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final BusOptimizer eventBus, final AuditDao auditDao,
+                             final SearchConfig searchConfig) {
+        super(nonEntityDao, cacheControllerDispatcher, new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, searchConfig), PaymentSqlDao.class);
         this.paginationHelper = new DefaultPaginationSqlDaoHelper(transactionalSqlDao);
         this.eventBus = eventBus;
         this.clock = clock;
         this.auditDao = auditDao;
+        this.searchConfig = searchConfig;
     }
 
     @Override
@@ -222,6 +228,19 @@ public class DefaultPaymentDao extends EntityDaoBase<PaymentModelDao, Payment, P
         });
     }
 
+    @Override
+    public List<PaymentTransactionModelDao> getPaymentTransactionsByExternalKeys(final Collection<String> transactionExternalKeys, final InternalTenantContext context) {
+        if (transactionExternalKeys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<List<PaymentTransactionModelDao>>() {
+            @Override
+            public List<PaymentTransactionModelDao> inTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.become(TransactionSqlDao.class).getPaymentTransactionsByExternalKeys(transactionExternalKeys, context);
+            }
+        });
+    }
+
     @Override
     public PaymentModelDao getPaymentByExternalKey(final String paymentExternalKey, final InternalTenantContext context) {
         return transactionalSqlDao.execute(true, new EntitySqlDaoTransactionWrapper<PaymentModelDao>() {
@@ -259,16 +278,23 @@ public class DefaultPaymentDao extends EntityDaoBase<PaymentModelDao, Payment, P
         final List<String> paymentStates = expandSearchFilterToStateNames(searchKey);
 
         final String likeSearchKey = String.format("%%%s%%", searchKey);
+        final String tokenSearchKey = SearchTokens.toTokenSearchKey(searchConfig, searchKey);
         return paginationHelper.getPagination(PaymentSqlDao.class,
                                               new PaginationIteratorBuilder<PaymentModelDao, Payment, PaymentSqlDao>() {
                                                   @Override
                                                   public Long getCount(final PaymentSqlDao paymentSqlDao, final InternalTenantContext context) {
-                                                      return !paymentStates.isEmpty() ? paymentSqlDao.getSearchByStateCount(paymentStates, context) : paymentSqlDao.getSearchCount(searchKey, likeSearchKey, context);
+                                                      if (!paymentStates.isEmpty()) {
+                                                          return paymentSqlDao.getSearchByStateCount(paymentStates, context);
+                                                      }
+                                                      return tokenSearchKey == null ? paymentSqlDao.getSearchCount(searchKey, likeSearchKey, context) : paymentSqlDao.getIndexedSearchCount(searchKey, likeSearchKey, tokenSearchKey, context);
                                                   }
 
                                                   @Override
                                                   public Iterator<PaymentModelDao> build(final PaymentSqlDao paymentSqlDao, final Long offset, final Long limit, final Ordering ordering, final InternalTenantContext context) {
-                                                      return !paymentStates.isEmpty() ? paymentSqlDao.searchByState(paymentStates, offset, limit, ordering.toString(), context) : paymentSqlDao.search(searchKey, likeSearchKey, offset, limit, ordering.toString(), context);
+                                                      if (!paymentStates.isEmpty()) {
+                                                          return paymentSqlDao.searchByState(paymentStates, offset, limit, ordering.toString(), context);
+                                                      }
+                                                      return tokenSearchKey == null ? paymentSqlDao.search(searchKey, likeSearchKey, offset, limit, ordering.toString(), context) : paymentSqlDao.indexedSearch(searchKey, likeSearchKey, tokenSearchKey, offset, limit, ordering.toString(), context);
                                                   }
                                               },
                                               offset,
@@ -585,16 +611,18 @@ public class DefaultPaymentDao extends EntityDaoBase<PaymentModelDao, Payment, P
 
     @Override
     public Pagination<PaymentMethodModelDao> searchPaymentMethods(final String searchKey, final Long offset, final Long limit, final InternalTenantContext context) {
+        final String likeSearchKey = String.format("%%%s%%", searchKey);
+        final String tokenSearchKey = SearchTokens.toTokenSearchKey(searchConfig, searchKey);
         return paginationHelper.getPagination(PaymentMethodSqlDao.class,
                                               new PaginationIteratorBuilder<PaymentMethodModelDao, PaymentMethod, PaymentMethodSqlDao>() {
                                                   @Override
                                                   public Long getCount(final PaymentMethodSqlDao paymentMethodSqlDao, final InternalTenantContext context) {
-                                                      return paymentMethodSqlDao.getSearchCount(searchKey, String.format("%%%s%%", searchKey), context);
+                                                      return tokenSearchKey == null ? paymentMethodSqlDao.getSearchCount(searchKey, likeSearchKey, context) : paymentMethodSqlDao.getIndexedSearchCount(searchKey, likeSearchKey, tokenSearchKey, context);
                                                   }
 
                                                   @Override
                                                   public Iterator<PaymentMethodModelDao> build(final PaymentMethodSqlDao paymentMethodSqlDao, final Long offset, final Long limit, final Ordering ordering, final InternalTenantContext context) {
-                                                      return paymentMethodSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, ordering.toString(), context);
+                                                      return tokenSearchKey == null ? paymentMethodSqlDao.search(searchKey, likeSearchKey, offset, limit, ordering.toString(), context) : paymentMethodSqlDao.indexedSearch(searchKey, likeSearchKey, tokenSearchKey, offset, limit, ordering.toString(), context);
                                                   }
                                               },
                                               offset,
@@ -19,6 +19,7 @@
 package org.killbill.billing.payment.dao;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -51,6 +52,8 @@ public interface PaymentDao extends EntityDao<PaymentModelDao, Payment, PaymentA
 
     public List<PaymentTransactionModelDao> getPaymentTransactionsByExternalKey(String transactionExternalKey, InternalTenantContext context);
 
+    public List<PaymentTransactionModelDao> getPaymentTransactionsByExternalKeys(Collection<String> transactionExternalKeys, InternalTenantContext context);
+
     public PaymentModelDao getPaymentByExternalKey(String externalKey, InternalTenantContext context);
 
     public Pagination<PaymentModelDao> getPayments(String pluginName, Long offset, Long limit, InternalTenantContext context);
@@ -56,6 +56,10 @@ public interface TransactionSqlDao extends EntitySqlDao<PaymentTransactionModelD
     List<PaymentTransactionModelDao> getPaymentTransactionsByExternalKey(@Bind("transactionExternalKey") final String transactionExternalKey,
                                                                          @SmartBindBean final InternalTenantContext context);
 
+    @SqlQuery
+    List<PaymentTransactionModelDao> getPaymentTransactionsByExternalKeys(@BindIn("transactionExternalKeys") final Collection<String> transactionExternalKeys,
+                                                                          @SmartBindBean final InternalTenantContext context);
+
     @SqlQuery
     Long getCountByTransactionStatusPriorDateAcrossTenants(@BindIn("statuses") final Collection<String> statuses,
                                                            @Bind("createdBeforeDate") final Date createdBeforeDate,
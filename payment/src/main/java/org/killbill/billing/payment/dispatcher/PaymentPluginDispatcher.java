@@ -38,12 +38,21 @@ public class PaymentPluginDispatcher {
     private static final Logger log = LoggerFactory.getLogger(PaymentPluginDispatcher.class);
 
     public static <ReturnType> ReturnType dispatchWithExceptionHandling(@Nullable final Account account, final String pluginNames, final Callable<PluginDispatcherReturnType<ReturnType>> callable, final PluginDispatcher<ReturnType> pluginDispatcher) throws PaymentApiException {
+        return dispatchWithExceptionHandling(account, pluginNames, null, callable, pluginDispatcher);
+    }
+
+    // Same as above, for a call to the payment plugin paymentPluginName: the call goes through its bulkhead (see PluginBulkhead)
+    public static <ReturnType> ReturnType dispatchPaymentPluginCallWithExceptionHandling(@Nullable final Account account, final String paymentPluginName, final Callable<PluginDispatcherReturnType<ReturnType>> callable, final PluginDispatcher<ReturnType> pluginDispatcher) throws PaymentApiException {
+        return dispatchWithExceptionHandling(account, paymentPluginName, paymentPluginName, callable, pluginDispatcher);
+    }
+
+    private static <ReturnType> ReturnType dispatchWithExceptionHandling(@Nullable final Account account, final String pluginNames, @Nullable final String paymentPluginName, final Callable<PluginDispatcherReturnType<ReturnType>> callable, final PluginDispatcher<ReturnType> pluginDispatcher) throws PaymentApiException {
         final UUID accountId = account != null ? account.getId() : null;
         final String accountExternalKey = account != null ? account.getExternalKey() : "";
 
         try {
             log.debug("Calling plugin(s) {}", pluginNames);
-            final ReturnType result = pluginDispatcher.dispatchWithTimeout(callable);
+            final ReturnType result = pluginDispatcher.dispatchWithTimeout(callable, paymentPluginName);
             log.debug("Successful plugin(s) call of {} for account {} with result {}", pluginNames, accountExternalKey, result);
             return result;
         } catch (final TimeoutException e) {
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.dispatcher;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+//
+// Per-plugin concurrency limit and dispatch statistics: a slow gateway can only hold up to maxConcurrentCalls
+// dispatch slots, so calls to other plugins keep flowing. Permits are acquired by the caller (bounded by the
+// plugin timeout) and released by the dispatch thread, once the plugin call actually returns.
+//
+public class PluginBulkhead {
+
+    private final String pluginName;
+    // Null when there is no limit
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong nbCalls = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+
+    public PluginBulkhead(final String pluginName, final int maxConcurrentCalls) {
+        this.pluginName = pluginName;
+        this.permits = maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls, true) : null;
+    }
+
+    public String getPluginName() {
+        return pluginName;
+    }
+
+    public boolean tryAcquire(final long timeout, final TimeUnit unit) throws InterruptedException {
+        if (permits == null) {
+            return true;
+        }
+        waiting.incrementAndGet();
+        try {
+            return permits.tryAcquire(timeout, unit);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    // The returned callable releases the permit (previously acquired through tryAcquire) when done
+    public <T> Callable<T> wrap(final Callable<T> delegate, final long dispatchStartNanos) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                recordQueueWait(System.nanoTime() - dispatchStartNanos);
+                inFlight.incrementAndGet();
+                try {
+                    return delegate.call();
+                } finally {
+                    inFlight.decrementAndGet();
+                    release();
+                }
+            }
+        };
+    }
+
+    private void recordQueueWait(final long queueWaitNanos) {
+        nbCalls.incrementAndGet();
+        totalQueueWaitNanos.addAndGet(queueWaitNanos);
+        maxQueueWaitNanos.accumulateAndGet(queueWaitNanos, Math::max);
+    }
+
+    public int getNbWaiting() {
+        return waiting.get();
+    }
+
+    public int getNbInFlight() {
+        return inFlight.get();
+    }
+
+    @Nullable
+    public Integer getNbAvailablePermits() {
+        return permits != null ? permits.availablePermits() : null;
+    }
+
+    public long getNbCalls() {
+        return nbCalls.get();
+    }
+
+    public long getTotalQueueWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalQueueWaitNanos.get());
+    }
+
+    public long getMaxQueueWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos.get());
+    }
+}
@@ -22,9 +22,12 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import javax.annotation.Nullable;
+
 import org.apache.shiro.util.ThreadContext;
 import org.killbill.billing.payment.core.PaymentExecutors;
 import org.killbill.billing.util.UUIDs;
@@ -48,12 +51,26 @@ public class PluginDispatcher<ReturnType> {
 
     // TODO Once we switch fully to automata, should this throw PaymentPluginApiException instead?
     public ReturnType dispatchWithTimeout(final Callable<PluginDispatcherReturnType<ReturnType>> task) throws TimeoutException, ExecutionException, InterruptedException {
-        return dispatchWithTimeout(task, timeoutSeconds, DEFAULT_PLUGIN_TIMEOUT_UNIT);
+        return dispatchWithTimeout(task, null, timeoutSeconds, DEFAULT_PLUGIN_TIMEOUT_UNIT);
+    }
+
+    public ReturnType dispatchWithTimeout(final Callable<PluginDispatcherReturnType<ReturnType>> task, @Nullable final String pluginName) throws TimeoutException, ExecutionException, InterruptedException {
+        return dispatchWithTimeout(task, pluginName, timeoutSeconds, DEFAULT_PLUGIN_TIMEOUT_UNIT);
     }
 
     @VisibleForTesting
     ReturnType dispatchWithTimeout(final Callable<PluginDispatcherReturnType<ReturnType>> task, final long timeout, final TimeUnit unit)
             throws TimeoutException, ExecutionException, InterruptedException {
+        return dispatchWithTimeout(task, null, timeout, unit);
+    }
+
+    @VisibleForTesting
+    ReturnType dispatchWithTimeout(final Callable<PluginDispatcherReturnType<ReturnType>> task, @Nullable final String pluginName, final long timeout, final TimeUnit unit)
+            throws TimeoutException, ExecutionException, InterruptedException {
+
+        // The timeout covers both the wait for a dispatch slot (bulkhead) and the plugin call itself
+        final long dispatchStartNanos = System.nanoTime();
+        final long timeoutNanos = unit.toNanos(timeout);
 
         final ExecutorService pluginExecutor = paymentExecutors.getPluginExecutorService();
 
@@ -65,8 +82,24 @@ public class PluginDispatcher<ReturnType> {
                                                                                                                      MDC.getCopyOfContextMap(),
                                                                                                                      task);
 
-        final Future<PluginDispatcherReturnType<ReturnType>> future = pluginExecutor.submit(callableWithRequestData);
-        final PluginDispatcherReturnType<ReturnType> pluginDispatcherResult = future.get(timeout, unit);
+        final Future<PluginDispatcherReturnType<ReturnType>> future;
+        if (pluginName == null) {
+            future = pluginExecutor.submit(callableWithRequestData);
+        } else {
+            final PluginBulkhead bulkhead = paymentExecutors.getPluginBulkhead(pluginName);
+            if (!bulkhead.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException(String.format("Too many concurrent calls to plugin='%s'", pluginName));
+            }
+            try {
+                future = pluginExecutor.submit(bulkhead.wrap(callableWithRequestData, dispatchStartNanos));
+            } catch (final RejectedExecutionException e) {
+                bulkhead.release();
+                throw e;
+            }
+        }
+
+        final long remainingNanos = timeoutNanos - (System.nanoTime() - dispatchStartNanos);
+        final PluginDispatcherReturnType<ReturnType> pluginDispatcherResult = future.get(Math.max(remainingNanos, 0), TimeUnit.NANOSECONDS);
 
         if (pluginDispatcherResult instanceof WithProfilingPluginDispatcherReturnType) {
             // Transfer state from dispatch thread into current one.
@@ -282,7 +282,7 @@ public final class InvoicePaymentControlPluginApi implements PaymentControlPlugi
                     log.error("InvoicePaymentControlPluginApi onFailureCall failed ton update invoice for attemptId = " + paymentControlContext.getAttemptPaymentId() + ", transactionType  = " + transactionType, e);
                 }
 
-                nextRetryDate = computeNextRetryDate(paymentControlContext.getPaymentExternalKey(), paymentControlContext.isApiPayment(), internalContext);
+                nextRetryDate = computeNextRetryDate(paymentControlContext.getPaymentId(), paymentControlContext.getPaymentExternalKey(), paymentControlContext.isApiPayment(), internalContext);
                 break;
             case CREDIT:
             case REFUND:
@@ -343,7 +343,8 @@ public final class InvoicePaymentControlPluginApi implements PaymentControlPlugi
                 return new DefaultPriorPaymentControlResult(true);
             }
 
-            final Invoice invoice = getAndSanitizeInvoice(invoiceId, paymentControlPluginContext.getAttemptPaymentId(), internalContext);
+            final InvoicePaymentSnapshot snapshot = new InvoicePaymentSnapshot(invoiceApi, paymentDao, invoiceId, internalContext);
+            final Invoice invoice = getAndSanitizeInvoice(snapshot, paymentControlPluginContext.getAttemptPaymentId(), internalContext);
             // Get account and check if it is child and payment is delegated to parent => abort
             final AccountData accountData = accountApi.getAccountById(invoice.getAccountId(), internalContext);
             if (((accountData != null) && (accountData.getParentAccountId() != null) && accountData.isPaymentDelegatedToParent()) || // Valid when we initially create the child invoice (even if parent invoice does not exist yet)
@@ -389,9 +390,9 @@ public final class InvoicePaymentControlPluginApi implements PaymentControlPlugi
                 return new DefaultPriorPaymentControlResult(true);
             }
 
-            final List<InvoicePayment> existingInvoicePayments = invoiceApi.getInvoicePaymentsByInvoice(invoiceId, internalContext);
+            final List<InvoicePayment> existingInvoicePayments = snapshot.getInvoicePayments();
             for (final InvoicePayment existingInvoicePayment : existingInvoicePayments) {
-                final List<PaymentTransactionModelDao> existingTransactions = paymentDao.getPaymentTransactionsByExternalKey(existingInvoicePayment.getPaymentCookieId(), internalContext);
+                final List<PaymentTransactionModelDao> existingTransactions = snapshot.getTransactionsByExternalKey(existingInvoicePayment.getPaymentCookieId());
                 for (final PaymentTransactionModelDao existingTransaction : existingTransactions) {
                     if (existingTransaction.getTransactionStatus() == TransactionStatus.UNKNOWN) {
                         log.warn("Existing paymentTransactionId='{}' for invoiceId='{}' in UNKNOWN state", existingTransaction.getId(), invoiceId);
@@ -557,14 +558,14 @@ public final class InvoicePaymentControlPluginApi implements PaymentControlPlugi
         throw new PaymentControlApiException(String.format("Unable to find invoice item for id %s", itemId), new PaymentApiException(ErrorCode.PAYMENT_PLUGIN_EXCEPTION, "Invalid plugin properties"));
     }
 
-    private DateTime computeNextRetryDate(final String paymentExternalKey, final boolean isApiAPayment, final InternalCallContext internalContext) {
+    private DateTime computeNextRetryDate(@Nullable final UUID paymentId, final String paymentExternalKey, final boolean isApiAPayment, final InternalCallContext internalContext) {
 
         // Don't retry call that come from API.
         if (isApiAPayment) {
             return null;
         }
 
-        final List<PaymentTransactionModelDao> purchasedTransactions = getPurchasedTransactions(paymentExternalKey, internalContext);
+        final List<PaymentTransactionModelDao> purchasedTransactions = getPurchasedTransactions(paymentId, paymentExternalKey, internalContext);
         if (purchasedTransactions.size() == 0) {
             return null;
         }
@@ -631,12 +632,19 @@ public final class InvoicePaymentControlPluginApi implements PaymentControlPlugi
                 .count();
     }
 
-    private List<PaymentTransactionModelDao> getPurchasedTransactions(final String paymentExternalKey, final InternalCallContext internalContext) {
-        final PaymentModelDao payment = paymentDao.getPaymentByExternalKey(paymentExternalKey, internalContext);
-        if (payment == null) {
-            return Collections.emptyList();
+    private List<PaymentTransactionModelDao> getPurchasedTransactions(@Nullable final UUID paymentId, final String paymentExternalKey, final InternalCallContext internalContext) {
+        // The payment id is known as soon as the payment was created, no need to look it up by external key
+        final UUID resolvedPaymentId;
+        if (paymentId != null) {
+            resolvedPaymentId = paymentId;
+        } else {
+            final PaymentModelDao payment = paymentDao.getPaymentByExternalKey(paymentExternalKey, internalContext);
+            if (payment == null) {
+                return Collections.emptyList();
+            }
+            resolvedPaymentId = payment.getId();
         }
-        final List<PaymentTransactionModelDao> transactions = paymentDao.getTransactionsForPayment(payment.getId(), internalContext);
+        final List<PaymentTransactionModelDao> transactions = paymentDao.getTransactionsForPayment(resolvedPaymentId, internalContext);
         if (transactions == null || transactions.isEmpty()) {
             return Collections.emptyList();
         }
@@ -645,18 +653,17 @@ public final class InvoicePaymentControlPluginApi implements PaymentControlPlugi
                 .collect(Collectors.toUnmodifiableList());
     }
 
-    private Invoice getAndSanitizeInvoice(final UUID invoiceId, final UUID paymentAttemptId, final InternalCallContext context) throws InvoiceApiException {
-        final Invoice invoice = invoiceApi.getInvoiceById(invoiceId, context);
-        if (checkForIncompleteInvoicePaymentAndRepair(invoice, paymentAttemptId, context)) {
+    private Invoice getAndSanitizeInvoice(final InvoicePaymentSnapshot snapshot, final UUID paymentAttemptId, final InternalCallContext context) throws InvoiceApiException {
+        if (checkForIncompleteInvoicePaymentAndRepair(snapshot, paymentAttemptId, context)) {
             // Fetch new repaired 'invoice'
-            return invoiceApi.getInvoiceById(invoiceId, context);
-        } else {
-            return invoice;
+            snapshot.invalidateInvoice();
         }
+        return snapshot.getInvoice();
     }
 
-    private boolean checkForIncompleteInvoicePaymentAndRepair(final Invoice invoice, final UUID paymentAttemptId, final InternalCallContext internalContext) throws InvoiceApiException {
+    private boolean checkForIncompleteInvoicePaymentAndRepair(final InvoicePaymentSnapshot snapshot, final UUID paymentAttemptId, final InternalCallContext internalContext) throws InvoiceApiException {
 
+        final Invoice invoice = snapshot.getInvoice();
         final List<InvoicePayment> invoicePayments = invoice.getPayments();
 
         // Look for ATTEMPT matching that invoiceId that are not successful and extract matching paymentTransaction
@@ -668,7 +675,7 @@ public final class InvoicePaymentControlPluginApi implements PaymentControlPlugi
         // If such (incomplete) paymentTransaction exists, verify the state of the payment transaction
         if (incompleteInvoicePayment != null) {
             final String transactionExternalKey = incompleteInvoicePayment.getPaymentCookieId();
-            final List<PaymentTransactionModelDao> transactions = paymentDao.getPaymentTransactionsByExternalKey(transactionExternalKey, internalContext);
+            final List<PaymentTransactionModelDao> transactions = snapshot.getTransactionsByExternalKey(transactionExternalKey);
             final PaymentTransactionModelDao successfulTransaction = transactions.stream()
                     .filter(input -> {
                         //
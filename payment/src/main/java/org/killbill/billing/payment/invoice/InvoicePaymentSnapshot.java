@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.invoice;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.invoice.api.InvoiceInternalApi;
+import org.killbill.billing.invoice.api.InvoicePayment;
+import org.killbill.billing.payment.dao.PaymentDao;
+import org.killbill.billing.payment.dao.PaymentTransactionModelDao;
+
+//
+// State of the invoice being paid (invoice, invoice payments and matching payment transactions), loaded once per
+// payment attempt call instead of issuing one query per lookup:
+// - invoice payments are the ones attached to the invoice (same query as InvoiceInternalApi#getInvoicePaymentsByInvoice)
+// - payment transactions for all invoice payments are retrieved in bulk, by their transaction external keys
+//
+// Not thread-safe, meant to be used within a single priorCall/onSuccessCall/onFailureCall invocation.
+//
+final class InvoicePaymentSnapshot {
+
+    private final InvoiceInternalApi invoiceApi;
+    private final PaymentDao paymentDao;
+    private final UUID invoiceId;
+    private final InternalTenantContext context;
+
+    private Invoice invoice;
+    private Map<String, List<PaymentTransactionModelDao>> transactionsByExternalKey;
+
+    InvoicePaymentSnapshot(final InvoiceInternalApi invoiceApi, final PaymentDao paymentDao, final UUID invoiceId, final InternalTenantContext context) {
+        this.invoiceApi = invoiceApi;
+        this.paymentDao = paymentDao;
+        this.invoiceId = invoiceId;
+        this.context = context;
+    }
+
+    Invoice getInvoice() throws InvoiceApiException {
+        if (invoice == null) {
+            invoice = invoiceApi.getInvoiceById(invoiceId, context);
+        }
+        return invoice;
+    }
+
+    List<InvoicePayment> getInvoicePayments() throws InvoiceApiException {
+        return getInvoice().getPayments();
+    }
+
+    List<PaymentTransactionModelDao> getTransactionsByExternalKey(final String transactionExternalKey) throws InvoiceApiException {
+        if (transactionsByExternalKey == null) {
+            loadTransactions();
+        }
+        final List<PaymentTransactionModelDao> transactions = transactionsByExternalKey.get(transactionExternalKey);
+        if (transactions != null) {
+            return transactions;
+        }
+        // Not part of the snapshot (shouldn't happen as we look for transactions of invoice payments)
+        return paymentDao.getPaymentTransactionsByExternalKey(transactionExternalKey, context);
+    }
+
+    // The invoice was modified by us (e.g. repaired): only the invoice side needs to be reloaded, payment transactions are untouched
+    void invalidateInvoice() {
+        invoice = null;
+    }
+
+    private void loadTransactions() throws InvoiceApiException {
+        final Set<String> transactionExternalKeys = new LinkedHashSet<String>();
+        for (final InvoicePayment invoicePayment : getInvoicePayments()) {
+            if (invoicePayment.getPaymentCookieId() != null) {
+                transactionExternalKeys.add(invoicePayment.getPaymentCookieId());
+            }
+        }
+
+        final Map<String, List<PaymentTransactionModelDao>> result = new HashMap<String, List<PaymentTransactionModelDao>>();
+        for (final String transactionExternalKey : transactionExternalKeys) {
+            result.put(transactionExternalKey, new LinkedList<PaymentTransactionModelDao>());
+        }
+        for (final PaymentTransactionModelDao transaction : paymentDao.getPaymentTransactionsByExternalKeys(transactionExternalKeys, context)) {
+            final List<PaymentTransactionModelDao> transactions = result.get(transaction.getTransactionExternalKey());
+            if (transactions != null) {
+                transactions.add(transaction);
+            }
+        }
+        transactionsByExternalKey = Collections.unmodifiableMap(result);
+    }
+}
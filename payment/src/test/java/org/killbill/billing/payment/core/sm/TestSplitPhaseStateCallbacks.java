@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core.sm;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.killbill.automaton.Operation.OperationCallback;
+import org.killbill.automaton.OperationException;
+import org.killbill.automaton.OperationResult;
+import org.killbill.automaton.State;
+import org.killbill.automaton.State.EnteringStateCallback;
+import org.killbill.automaton.State.LeavingStateCallback;
+import org.killbill.billing.account.api.Account;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.payment.PaymentTestSuiteWithEmbeddedDB;
+import org.killbill.billing.payment.api.PaymentApiException;
+import org.killbill.billing.payment.api.TransactionStatus;
+import org.killbill.billing.payment.api.TransactionType;
+import org.killbill.billing.payment.core.sm.payments.PaymentEnteringStateCallback;
+import org.killbill.billing.payment.core.sm.payments.PaymentLeavingStateCallback;
+import org.killbill.billing.payment.dao.PaymentTransactionModelDao;
+import org.killbill.billing.payment.plugin.api.PaymentPluginStatus;
+import org.killbill.billing.payment.plugin.api.PaymentTransactionInfoPlugin;
+import org.killbill.billing.util.globallocker.LockerType;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestSplitPhaseStateCallbacks extends PaymentTestSuiteWithEmbeddedDB {
+
+    private final State state = Mockito.mock(State.class);
+    private final OperationCallback operationCallback = Mockito.mock(OperationCallback.class);
+
+    private UUID accountId;
+    private PaymentStateContext paymentStateContext;
+    private PaymentAutomatonDAOHelper daoHelper;
+    private SplitPhaseStateCallbacks splitPhaseStateCallbacks;
+
+    @BeforeMethod(groups = "slow")
+    public void setUp() throws Exception {
+        if (hasFailed()) {
+            return;
+        }
+
+        accountId = UUID.randomUUID();
+        final Account account = Mockito.mock(Account.class);
+        Mockito.when(account.getId()).thenReturn(accountId);
+        paymentStateContext = new PaymentStateContext(true,
+                                                      null,
+                                                      UUID.randomUUID().toString(),
+                                                      TransactionType.CAPTURE,
+                                                      account,
+                                                      UUID.randomUUID(),
+                                                      new BigDecimal("192.3920111"),
+                                                      Currency.BRL,
+                                                      null,
+                                                      true,
+                                                      Collections.emptyList(),
+                                                      internalCallContext,
+                                                      callContext);
+        daoHelper = new PaymentAutomatonDAOHelper(paymentStateContext, clock.getUTCNow(), paymentDao, paymentPluginServiceRegistration, internalCallContext, eventBus, paymentSMHelper);
+        splitPhaseStateCallbacks = new SplitPhaseStateCallbacks(locker, paymentConfig, paymentStateContext, daoHelper);
+
+        Mockito.when(state.getName()).thenReturn("NEW_STATE");
+    }
+
+    @Test(groups = "slow")
+    public void testTransactionCreatedUnderAccountLock() throws Exception {
+        final LeavingStateCallback leavingStateCallback = splitPhaseStateCallbacks.withAccountLock(new PaymentLeavingStateCallback(daoHelper, paymentStateContext) {
+            @Override
+            public void leavingState(final State oldState) throws OperationException {
+                Assert.assertFalse(locker.isFree(LockerType.ACCNT_INV_PAY.toString(), accountId.toString()));
+                super.leavingState(oldState);
+            }
+        });
+
+        leavingStateCallback.leavingState(state);
+
+        // Lock released for the plugin call
+        Assert.assertTrue(locker.isFree(LockerType.ACCNT_INV_PAY.toString(), accountId.toString()));
+        Assert.assertEquals(paymentDao.getPaymentTransaction(paymentStateContext.getPaymentTransactionModelDao().getId(), internalCallContext).getTransactionStatus(), TransactionStatus.UNKNOWN);
+    }
+
+    @Test(groups = "slow")
+    public void testPluginResultAppliedWhenTransactionUnchanged() throws Exception {
+        daoHelper.createNewPaymentTransaction();
+        paymentStateContext.setPaymentTransactionInfoPlugin(createPaymentInfoPlugin(PaymentPluginStatus.PROCESSED));
+
+        splitPhaseStateCallbacks.withAccountLockAndConflictDetection(new PaymentEnteringStateTestCallback(daoHelper, paymentStateContext))
+                                .enteringState(state, operationCallback, OperationResult.SUCCESS, Mockito.mock(LeavingStateCallback.class));
+
+        Assert.assertEquals(paymentDao.getPaymentTransaction(paymentStateContext.getPaymentTransactionModelDao().getId(), internalCallContext).getTransactionStatus(), TransactionStatus.SUCCESS);
+        Assert.assertTrue(locker.isFree(LockerType.ACCNT_INV_PAY.toString(), accountId.toString()));
+    }
+
+    @Test(groups = "slow")
+    public void testPluginResultIgnoredWhenTransactionFixedConcurrently() throws Exception {
+        daoHelper.createNewPaymentTransaction();
+        final PaymentTransactionModelDao persistedTransaction = paymentStateContext.getPaymentTransactionModelDao();
+
+        // The Janitor fixes the transaction while the plugin call is in flight
+        paymentDao.updatePaymentAndTransactionOnCompletion(accountId,
+                                                           null,
+                                                           persistedTransaction.getPaymentId(),
+                                                           TransactionType.CAPTURE,
+                                                           "NEW_STATE",
+                                                           persistedTransaction.getId(),
+                                                           TransactionStatus.SUCCESS,
+                                                           persistedTransaction.getAmount(),
+                                                           persistedTransaction.getCurrency(),
+                                                           null,
+                                                           null,
+                                                           true,
+                                                           internalCallContext);
+
+        // The (late) plugin call timed out
+        paymentStateContext.setPaymentTransactionInfoPlugin(createPaymentInfoPlugin(PaymentPluginStatus.UNDEFINED));
+        final EnteringStateCallback enteringStateCallback = Mockito.mock(EnteringStateCallback.class);
+        splitPhaseStateCallbacks.withAccountLockAndConflictDetection(enteringStateCallback)
+                                .enteringState(state, operationCallback, OperationResult.EXCEPTION, Mockito.mock(LeavingStateCallback.class));
+
+        Mockito.verify(enteringStateCallback, Mockito.never()).enteringState(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+        Assert.assertEquals(paymentDao.getPaymentTransaction(persistedTransaction.getId(), internalCallContext).getTransactionStatus(), TransactionStatus.SUCCESS);
+        Assert.assertEquals(paymentStateContext.getPaymentTransactionModelDao().getTransactionStatus(), TransactionStatus.SUCCESS);
+        Assert.assertNotNull(paymentStateContext.getPaymentModelDao());
+    }
+
+    private PaymentTransactionInfoPlugin createPaymentInfoPlugin(final PaymentPluginStatus status) {
+        final PaymentTransactionInfoPlugin paymentInfoPlugin = Mockito.mock(PaymentTransactionInfoPlugin.class);
+        Mockito.when(paymentInfoPlugin.getAmount()).thenReturn(paymentStateContext.getAmount());
+        Mockito.when(paymentInfoPlugin.getCurrency()).thenReturn(paymentStateContext.getCurrency());
+        Mockito.when(paymentInfoPlugin.getStatus()).thenReturn(status);
+        return paymentInfoPlugin;
+    }
+
+    private static final class PaymentEnteringStateTestCallback extends PaymentEnteringStateCallback {
+
+        private PaymentEnteringStateTestCallback(final PaymentAutomatonDAOHelper daoHelper, final PaymentStateContext paymentStateContext) throws PaymentApiException {
+            super(daoHelper, paymentStateContext);
+        }
+    }
+}
@@ -20,6 +20,7 @@ package org.killbill.billing.payment.dao;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -163,6 +164,19 @@ public class MockPaymentDao extends MockEntityDaoBase<PaymentModelDao, Payment,
         return result;
     }
 
+    @Override
+    public List<PaymentTransactionModelDao> getPaymentTransactionsByExternalKeys(final Collection<String> transactionExternalKeys, final InternalTenantContext context) {
+        final List<PaymentTransactionModelDao> result = new ArrayList<>();
+        synchronized (this) {
+            for (final PaymentTransactionModelDao cur : transactions.values()) {
+                if (transactionExternalKeys.contains(cur.getTransactionExternalKey())) {
+                    result.add(cur);
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public PaymentModelDao getPaymentByExternalKey(final String externalKey, final InternalTenantContext context) {
         synchronized (this) {
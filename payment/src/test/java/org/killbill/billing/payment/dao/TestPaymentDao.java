@@ -195,6 +195,12 @@ public class TestPaymentDao extends PaymentTestSuiteWithEmbeddedDB {
         final List<PaymentTransactionModelDao> transactions = paymentDao.getTransactionsForPayment(savedPayment.getId(), internalCallContext);
         assertEquals(transactions.size(), 2);
 
+        final List<PaymentTransactionModelDao> transactionsByExternalKeys = paymentDao.getPaymentTransactionsByExternalKeys(List.of(transactionExternalKey, transactionExternalKey2, UUID.randomUUID().toString()), internalCallContext);
+        assertEquals(transactionsByExternalKeys.size(), 2);
+        assertEquals(transactionsByExternalKeys.get(0).getTransactionExternalKey(), transactionExternalKey);
+        assertEquals(transactionsByExternalKeys.get(1).getTransactionExternalKey(), transactionExternalKey2);
+        assertEquals(paymentDao.getPaymentTransactionsByExternalKeys(List.of(), internalCallContext).size(), 0);
+
         paymentDao.updatePaymentAndTransactionOnCompletion(accountId, savedTransactionModelDao2.getAttemptId(), savedPayment.getId(), savedTransactionModelDao2.getTransactionType(), "AUTH_ABORTED", "AUTH_SUCCESS", transactionModelDao2.getId(), TransactionStatus.SUCCESS,
                                                            BigDecimal.ONE, Currency.USD, null, "nothing", true, internalCallContext);
 
@@ -264,6 +270,68 @@ public class TestPaymentDao extends PaymentTestSuiteWithEmbeddedDB {
         assertEquals(transactions2.size(), 2);
     }
 
+    @Test(groups = "slow", description = "Bulk lookup used by InvoicePaymentSnapshot")
+    public void testPaymentTransactionsByExternalKeys() {
+        final UUID paymentMethodId = UUID.randomUUID();
+        final UUID accountId = UUID.randomUUID();
+        final String transactionExternalKey1 = UUID.randomUUID().toString();
+        final String transactionExternalKey2 = UUID.randomUUID().toString();
+        final String unknownTransactionExternalKey = UUID.randomUUID().toString();
+
+        final DateTime utcNow = clock.getUTCNow();
+
+        // First payment: two transactions sharing the same external key
+        final PaymentModelDao payment1 = new PaymentModelDao(utcNow, utcNow, accountId, paymentMethodId, UUID.randomUUID().toString());
+        final PaymentTransactionModelDao authorization = new PaymentTransactionModelDao(utcNow, utcNow, null, transactionExternalKey1,
+                                                                                        payment1.getId(), TransactionType.AUTHORIZE, utcNow,
+                                                                                        TransactionStatus.SUCCESS, BigDecimal.TEN, Currency.USD,
+                                                                                        "success", "");
+        paymentDao.insertPaymentWithFirstTransaction(payment1, authorization, internalCallContext);
+        final PaymentTransactionModelDao capture = new PaymentTransactionModelDao(utcNow, utcNow, null, transactionExternalKey1,
+                                                                                  payment1.getId(), TransactionType.CAPTURE, utcNow,
+                                                                                  TransactionStatus.PAYMENT_FAILURE, BigDecimal.TEN, Currency.USD,
+                                                                                  "failure", "");
+        paymentDao.updatePaymentWithNewTransaction(payment1.getId(), capture, internalCallContext);
+
+        // Second payment
+        final PaymentModelDao payment2 = new PaymentModelDao(utcNow, utcNow, accountId, paymentMethodId, UUID.randomUUID().toString());
+        final PaymentTransactionModelDao purchase = new PaymentTransactionModelDao(utcNow, utcNow, null, transactionExternalKey2,
+                                                                                   payment2.getId(), TransactionType.PURCHASE, utcNow,
+                                                                                   TransactionStatus.UNKNOWN, BigDecimal.ONE, Currency.USD,
+                                                                                   "unknown", "");
+        paymentDao.insertPaymentWithFirstTransaction(payment2, purchase, internalCallContext);
+
+        final List<String> transactionExternalKeys = List.of(transactionExternalKey1, transactionExternalKey2, unknownTransactionExternalKey);
+        final List<PaymentTransactionModelDao> transactions = paymentDao.getPaymentTransactionsByExternalKeys(transactionExternalKeys, internalCallContext);
+        assertEquals(transactions.size(), 3);
+
+        // Same transactions, in the same order, as the per external key lookup
+        for (final String transactionExternalKey : transactionExternalKeys) {
+            final List<UUID> expected = paymentDao.getPaymentTransactionsByExternalKey(transactionExternalKey, internalCallContext)
+                                                  .stream()
+                                                  .map(PaymentTransactionModelDao::getId)
+                                                  .collect(Collectors.toUnmodifiableList());
+            final List<UUID> actual = transactions.stream()
+                                                  .filter(input -> transactionExternalKey.equals(input.getTransactionExternalKey()))
+                                                  .map(PaymentTransactionModelDao::getId)
+                                                  .collect(Collectors.toUnmodifiableList());
+            assertEquals(actual, expected);
+        }
+        assertEquals(transactions.stream().filter(input -> transactionExternalKey1.equals(input.getTransactionExternalKey())).count(), 2);
+
+        final PaymentTransactionModelDao savedPurchase = transactions.stream().filter(input -> transactionExternalKey2.equals(input.getTransactionExternalKey())).findFirst().orElse(null);
+        assertNotNull(savedPurchase);
+        assertEquals(savedPurchase.getId(), purchase.getId());
+        assertEquals(savedPurchase.getPaymentId(), payment2.getId());
+        assertEquals(savedPurchase.getTransactionType(), TransactionType.PURCHASE);
+        assertEquals(savedPurchase.getTransactionStatus(), TransactionStatus.UNKNOWN);
+        assertEquals(savedPurchase.getAmount().compareTo(BigDecimal.ONE), 0);
+        assertEquals(savedPurchase.getCurrency(), Currency.USD);
+
+        assertEquals(paymentDao.getPaymentTransactionsByExternalKeys(List.of(unknownTransactionExternalKey), internalCallContext).size(), 0);
+        assertEquals(paymentDao.getPaymentTransactionsByExternalKeys(List.of(), internalCallContext).size(), 0);
+    }
+
     @Test(groups = "slow")
     public void testPaymentMethod() {
 
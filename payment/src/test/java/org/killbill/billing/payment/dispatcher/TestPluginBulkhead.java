@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.payment.dispatcher;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.killbill.billing.payment.PaymentTestSuiteNoDB;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestPluginBulkhead extends PaymentTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testNoLimit() throws Exception {
+        final PluginBulkhead bulkhead = new PluginBulkhead("__TEST__", 0);
+        Assert.assertNull(bulkhead.getNbAvailablePermits());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(bulkhead.tryAcquire(0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testPermitsReleasedAfterCall() throws Exception {
+        final PluginBulkhead bulkhead = new PluginBulkhead("__TEST__", 1);
+        Assert.assertTrue(bulkhead.tryAcquire(0, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(bulkhead.getNbAvailablePermits(), (Integer) 0);
+        // Bulkhead is full
+        Assert.assertFalse(bulkhead.tryAcquire(10, TimeUnit.MILLISECONDS));
+
+        final Callable<String> wrapped = bulkhead.wrap(new Callable<String>() {
+            @Override
+            public String call() {
+                Assert.assertEquals(bulkhead.getNbInFlight(), 1);
+                return "done";
+            }
+        }, System.nanoTime());
+        Assert.assertEquals(wrapped.call(), "done");
+
+        Assert.assertEquals(bulkhead.getNbInFlight(), 0);
+        Assert.assertEquals(bulkhead.getNbCalls(), 1);
+        Assert.assertEquals(bulkhead.getNbAvailablePermits(), (Integer) 1);
+        Assert.assertTrue(bulkhead.tryAcquire(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(groups = "fast")
+    public void testPermitsReleasedOnFailure() throws Exception {
+        final PluginBulkhead bulkhead = new PluginBulkhead("__TEST__", 1);
+        Assert.assertTrue(bulkhead.tryAcquire(0, TimeUnit.MILLISECONDS));
+
+        final Callable<String> wrapped = bulkhead.wrap(new Callable<String>() {
+            @Override
+            public String call() {
+                throw new IllegalStateException("gateway down");
+            }
+        }, System.nanoTime());
+        try {
+            wrapped.call();
+            Assert.fail();
+        } catch (final IllegalStateException ignored) {
+        }
+
+        Assert.assertEquals(bulkhead.getNbInFlight(), 0);
+        Assert.assertEquals(bulkhead.getNbAvailablePermits(), (Integer) 1);
+    }
+}
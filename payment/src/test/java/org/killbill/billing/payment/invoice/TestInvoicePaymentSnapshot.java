@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.invoice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceInternalApi;
+import org.killbill.billing.invoice.api.InvoicePayment;
+import org.killbill.billing.payment.PaymentTestSuiteNoDB;
+import org.killbill.billing.payment.dao.PaymentDao;
+import org.killbill.billing.payment.dao.PaymentTransactionModelDao;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestInvoicePaymentSnapshot extends PaymentTestSuiteNoDB {
+
+    @SuppressWarnings("unchecked")
+    @Test(groups = "fast")
+    public void testTransactionsAreLoadedOnceAndGroupedByExternalKey() throws Exception {
+        final UUID invoiceId = UUID.randomUUID();
+        final Invoice invoice = createInvoice(invoiceId, "key1", "key2", null);
+
+        final PaymentTransactionModelDao transaction1 = createTransaction("key1");
+        final PaymentTransactionModelDao transaction2 = createTransaction("key1");
+        final PaymentTransactionModelDao unrelatedTransaction = createTransaction("key3");
+
+        final InvoiceInternalApi invoiceApi = Mockito.mock(InvoiceInternalApi.class);
+        Mockito.when(invoiceApi.getInvoiceById(invoiceId, internalCallContext)).thenReturn(invoice);
+        final PaymentDao paymentDao = Mockito.mock(PaymentDao.class);
+        Mockito.when(paymentDao.getPaymentTransactionsByExternalKeys(ArgumentMatchers.<Collection<String>>any(), ArgumentMatchers.<InternalTenantContext>any()))
+               .thenReturn(List.of(transaction1, unrelatedTransaction, transaction2));
+
+        final InvoicePaymentSnapshot snapshot = new InvoicePaymentSnapshot(invoiceApi, paymentDao, invoiceId, internalCallContext);
+        Assert.assertEquals(snapshot.getInvoice(), invoice);
+        Assert.assertEquals(snapshot.getInvoicePayments(), invoice.getPayments());
+        Assert.assertEquals(snapshot.getTransactionsByExternalKey("key1"), List.of(transaction1, transaction2));
+        Assert.assertEquals(snapshot.getTransactionsByExternalKey("key2"), List.of());
+        Assert.assertEquals(snapshot.getTransactionsByExternalKey("key1"), List.of(transaction1, transaction2));
+
+        // Single bulk query, for the external keys of the invoice payments only
+        final ArgumentCaptor<Collection<String>> transactionExternalKeys = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(paymentDao, Mockito.times(1)).getPaymentTransactionsByExternalKeys(transactionExternalKeys.capture(), Mockito.eq(internalCallContext));
+        Assert.assertEquals(Set.copyOf(transactionExternalKeys.getValue()), Set.of("key1", "key2"));
+        Mockito.verify(paymentDao, Mockito.never()).getPaymentTransactionsByExternalKey(Mockito.anyString(), ArgumentMatchers.<InternalTenantContext>any());
+        Mockito.verify(invoiceApi, Mockito.times(1)).getInvoiceById(invoiceId, internalCallContext);
+
+        // Keys outside of the snapshot are looked up individually
+        Mockito.when(paymentDao.getPaymentTransactionsByExternalKey("key3", internalCallContext)).thenReturn(List.of(unrelatedTransaction));
+        Assert.assertEquals(snapshot.getTransactionsByExternalKey("key3"), List.of(unrelatedTransaction));
+    }
+
+    @Test(groups = "fast")
+    public void testInvalidateInvoice() throws Exception {
+        final UUID invoiceId = UUID.randomUUID();
+        final Invoice invoice = createInvoice(invoiceId, "key1");
+        final Invoice repairedInvoice = createInvoice(invoiceId, "key1");
+
+        final InvoiceInternalApi invoiceApi = Mockito.mock(InvoiceInternalApi.class);
+        Mockito.when(invoiceApi.getInvoiceById(invoiceId, internalCallContext)).thenReturn(invoice, repairedInvoice);
+        final PaymentDao paymentDao = Mockito.mock(PaymentDao.class);
+        Mockito.when(paymentDao.getPaymentTransactionsByExternalKeys(ArgumentMatchers.<Collection<String>>any(), ArgumentMatchers.<InternalTenantContext>any()))
+               .thenReturn(List.of());
+
+        final InvoicePaymentSnapshot snapshot = new InvoicePaymentSnapshot(invoiceApi, paymentDao, invoiceId, internalCallContext);
+        Assert.assertEquals(snapshot.getInvoice(), invoice);
+        Assert.assertEquals(snapshot.getTransactionsByExternalKey("key1"), List.of());
+
+        snapshot.invalidateInvoice();
+        Assert.assertEquals(snapshot.getInvoice(), repairedInvoice);
+        Assert.assertEquals(snapshot.getTransactionsByExternalKey("key1"), List.of());
+
+        // Payment transactions aren't reloaded
+        Mockito.verify(invoiceApi, Mockito.times(2)).getInvoiceById(invoiceId, internalCallContext);
+        Mockito.verify(paymentDao, Mockito.times(1)).getPaymentTransactionsByExternalKeys(ArgumentMatchers.<Collection<String>>any(), ArgumentMatchers.<InternalTenantContext>any());
+    }
+
+    private Invoice createInvoice(final UUID invoiceId, final String... paymentCookieIds) {
+        final List<InvoicePayment> invoicePayments = new ArrayList<InvoicePayment>();
+        for (final String paymentCookieId : paymentCookieIds) {
+            final InvoicePayment invoicePayment = Mockito.mock(InvoicePayment.class);
+            Mockito.when(invoicePayment.getPaymentCookieId()).thenReturn(paymentCookieId);
+            invoicePayments.add(invoicePayment);
+        }
+
+        final Invoice invoice = Mockito.mock(Invoice.class);
+        Mockito.when(invoice.getId()).thenReturn(invoiceId);
+        Mockito.when(invoice.getPayments()).thenReturn(invoicePayments);
+        return invoice;
+    }
+
+    private PaymentTransactionModelDao createTransaction(final String transactionExternalKey) {
+        final PaymentTransactionModelDao transaction = Mockito.mock(PaymentTransactionModelDao.class);
+        Mockito.when(transaction.getTransactionExternalKey()).thenReturn(transactionExternalKey);
+        return transaction;
+    }
+}
@@ -83,6 +83,7 @@ public class DefaultServerService implements ServerService {
         } catch (final EventBusException e) {
             log.warn("Failed to unregister PushNotificationListener", e);
         }
+        pushNotificationListener.flushPendingNotifications();
         pushNotificationRetryService.stop();
     }
 }
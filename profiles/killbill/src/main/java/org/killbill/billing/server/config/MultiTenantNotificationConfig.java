@@ -59,6 +59,46 @@ public class MultiTenantNotificationConfig extends MultiTenantConfigBase impleme
         return getPushNotificationsRetries();
     }
 
+    @Override
+    public int getPushNotificationsMaxConcurrentRequestsPerUrl() {
+        return staticConfig.getPushNotificationsMaxConcurrentRequestsPerUrl();
+    }
+
+    @Override
+    public int getPushNotificationsMaxConcurrentRequestsPerTenant() {
+        return staticConfig.getPushNotificationsMaxConcurrentRequestsPerTenant();
+    }
+
+    @Override
+    public int getPushNotificationsMaxPendingRequestsPerUrl() {
+        return staticConfig.getPushNotificationsMaxPendingRequestsPerUrl();
+    }
+
+    @Override
+    public int getPushNotificationsMaxEventsPerRequest() {
+        return staticConfig.getPushNotificationsMaxEventsPerRequest();
+    }
+
+    @Override
+    public TimeSpan getPushNotificationsDeliveryTimeout() {
+        return staticConfig.getPushNotificationsDeliveryTimeout();
+    }
+
+    @Override
+    public int getPushNotificationsCircuitBreakerFailureThreshold() {
+        return staticConfig.getPushNotificationsCircuitBreakerFailureThreshold();
+    }
+
+    @Override
+    public TimeSpan getPushNotificationsCircuitBreakerOpenDuration() {
+        return staticConfig.getPushNotificationsCircuitBreakerOpenDuration();
+    }
+
+    @Override
+    public TimeSpan getPushNotificationsCallbacksCacheTtl() {
+        return staticConfig.getPushNotificationsCallbacksCacheTtl();
+    }
+
     @Override
     protected Class<? extends KillbillConfig> getConfigClass() {
         return NotificationConfig.class;
@@ -24,6 +24,7 @@ import java.util.Map;
 
 import javax.servlet.ServletContext;
 
+import org.apache.shiro.session.mgt.eis.SessionDAO;
 import org.glassfish.jersey.message.GZipEncoder;
 import org.glassfish.jersey.server.filter.EncodingFilter;
 import org.killbill.billing.jaxrs.resources.JaxRsResourceBase;
@@ -40,6 +41,7 @@ import org.killbill.billing.server.notifications.PushNotificationListener;
 import org.killbill.billing.server.providers.KillbillExceptionListener;
 import org.killbill.billing.server.security.TenantFilter;
 import org.killbill.billing.util.nodes.KillbillVersions;
+import org.killbill.billing.util.security.shiro.dao.JDBCSessionDao;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.commons.skeleton.modules.BaseServerModuleBuilder;
 import org.slf4j.Logger;
@@ -171,5 +173,11 @@ public class KillbillGuiceListener extends KillbillPlatformGuiceListener {
         } catch (final IOException e) {
             logger.warn("Failed close the push notifications client", e);
         }
+
+        // Flush the coalesced session touches, if any
+        final SessionDAO sessionDAO = injector.getInstance(SessionDAO.class);
+        if (sessionDAO instanceof JDBCSessionDao) {
+            ((JDBCSessionDao) sessionDAO).shutdown();
+        }
     }
 }
@@ -18,7 +18,10 @@
 package org.killbill.billing.server.modules;
 
 import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.HEAD;
@@ -70,24 +73,29 @@ public class JaxRSAopModule extends AbstractModule {
     };
 
     private final boolean shouldGETUseROConnection;
+    private final Set<String> staleReadEndpoints;
 
     public JaxRSAopModule(final JaxrsConfig jaxrsConfig) {
         this.shouldGETUseROConnection = jaxrsConfig.shouldGETUseROConnection();
+        this.staleReadEndpoints = new HashSet<String>(jaxrsConfig.getJaxrsStaleReadEndpoints());
     }
 
     @Override
     protected void configure() {
         bindInterceptor(Matchers.subclassesOf(JaxrsResource.class),
                         API_RESOURCE_METHOD_MATCHER,
-                        new JaxRsMethodInterceptor(shouldGETUseROConnection));
+                        new JaxRsMethodInterceptor(shouldGETUseROConnection, staleReadEndpoints));
     }
 
     public static class JaxRsMethodInterceptor implements MethodInterceptor {
 
         private final boolean shouldGETUseROConnection;
+        // ResourceClass.method
+        private final Set<String> staleReadEndpoints;
 
-        public JaxRsMethodInterceptor(final boolean shouldGETUseROConnection) {
+        public JaxRsMethodInterceptor(final boolean shouldGETUseROConnection, final Set<String> staleReadEndpoints) {
             this.shouldGETUseROConnection = shouldGETUseROConnection;
+            this.staleReadEndpoints = staleReadEndpoints;
         }
 
         @Override
@@ -105,7 +113,28 @@ public class JaxRSAopModule extends AbstractModule {
         }
 
         private boolean isRODBIAllowed(final MethodInvocation invocation) {
-            return shouldGETUseROConnection && invocation.getMethod().getAnnotation(GET.class) != null;
+            final Method method = invocation.getMethod();
+            if (method.getAnnotation(GET.class) == null) {
+                return false;
+            }
+
+            // Explicit request from the client
+            final Boolean allowStaleReads = getAllowStaleReadsHeader(invocation);
+            if (allowStaleReads != null) {
+                return allowStaleReads;
+            }
+
+            return shouldGETUseROConnection || staleReadEndpoints.contains(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        }
+
+        private Boolean getAllowStaleReadsHeader(final MethodInvocation invocation) {
+            for (final Object argument : invocation.getArguments()) {
+                if (argument instanceof HttpServletRequest) {
+                    final String headerValue = ((HttpServletRequest) argument).getHeader(JaxrsResource.HDR_ALLOW_STALE_READS);
+                    return headerValue == null ? null : Boolean.valueOf(headerValue);
+                }
+            }
+            return null;
         }
     }
 }
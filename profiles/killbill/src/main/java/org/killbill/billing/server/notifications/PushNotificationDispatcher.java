@@ -0,0 +1,417 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.server.notifications;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.jaxrs.json.NotificationJson;
+import org.killbill.commons.utils.annotation.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+//
+// Delivers push notifications without blocking the caller (i.e. the external bus thread):
+// - notifications are queued per (tenant, url) and sent using HttpClient#sendAsync, with a bounded number of in-flight
+//   requests per url and per tenant (one request per url, the default, preserves the ordering of the notifications)
+// - when several notifications are queued for the same url, up to maxEventsPerRequest of them are sent as a single JSON array
+// - after circuitBreakerFailureThreshold consecutive failures, the url is considered down for circuitBreakerOpenDuration:
+//   notifications are directly handed to the failure handler (i.e. the retry queue), until a probe request succeeds
+// - the future returned by submit completes once the notification has been delivered or handed to the failure handler:
+//   callers wait on it before acknowledging the event, so that a crash doesn't lose in-memory notifications (see handOff to bound that wait)
+// - urls without pending or in-flight notifications are evicted, once their last failure (if any) is older than circuitBreakerOpenDuration
+//
+public class PushNotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(PushNotificationDispatcher.class);
+
+    public interface DeliveryFailureHandler {
+
+        void onDeliveryFailure(UUID tenantId, String url, NotificationJson notification, int attemptRetryNumber, String reason);
+    }
+
+    private final HttpClient httpClient;
+    private final Map<String, String> headers;
+    private final Duration requestTimeout;
+    private final int maxConcurrentRequestsPerUrl;
+    private final int maxConcurrentRequestsPerTenant;
+    private final int maxPendingRequestsPerUrl;
+    private final int maxEventsPerRequest;
+    private final int circuitBreakerFailureThreshold;
+    private final long circuitBreakerOpenNanos;
+    private final DeliveryFailureHandler failureHandler;
+
+    private final Map<String, TenantEndpoints> tenantEndpoints = new ConcurrentHashMap<String, TenantEndpoints>();
+    private final AtomicInteger nbPendingOrInFlight = new AtomicInteger();
+    private final Object quiescenceLock = new Object();
+
+    public PushNotificationDispatcher(final HttpClient httpClient,
+                                      final Map<String, String> headers,
+                                      final Duration requestTimeout,
+                                      final int maxConcurrentRequestsPerUrl,
+                                      final int maxConcurrentRequestsPerTenant,
+                                      final int maxPendingRequestsPerUrl,
+                                      final int maxEventsPerRequest,
+                                      final int circuitBreakerFailureThreshold,
+                                      final long circuitBreakerOpenDuration,
+                                      final TimeUnit circuitBreakerOpenDurationUnit,
+                                      final DeliveryFailureHandler failureHandler) {
+        this.httpClient = httpClient;
+        this.headers = headers;
+        this.requestTimeout = requestTimeout;
+        this.maxConcurrentRequestsPerUrl = Math.max(1, maxConcurrentRequestsPerUrl);
+        this.maxConcurrentRequestsPerTenant = Math.max(1, maxConcurrentRequestsPerTenant);
+        this.maxPendingRequestsPerUrl = Math.max(1, maxPendingRequestsPerUrl);
+        this.maxEventsPerRequest = Math.max(1, maxEventsPerRequest);
+        this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+        this.circuitBreakerOpenNanos = circuitBreakerOpenDurationUnit.toNanos(circuitBreakerOpenDuration);
+        this.failureHandler = failureHandler;
+    }
+
+    public CompletableFuture<Void> submit(final UUID tenantId, final String url, final NotificationJson notification, final String body, final int attemptRetryNumber) {
+        final PendingNotification pendingNotification = new PendingNotification(tenantId, url, notification, body, attemptRetryNumber);
+        nbPendingOrInFlight.incrementAndGet();
+
+        final TenantEndpoints tenant = tenantEndpoints.computeIfAbsent(String.valueOf(tenantId), k -> new TenantEndpoints());
+        boolean isQueued = false;
+        synchronized (tenant) {
+            final Endpoint endpoint = tenant.endpoints.computeIfAbsent(url, Endpoint::new);
+            if (endpoint.queue.size() < maxPendingRequestsPerUrl) {
+                endpoint.queue.add(pendingNotification);
+                isQueued = true;
+            }
+        }
+
+        if (isQueued) {
+            drain(tenant);
+        } else {
+            fail(List.of(pendingNotification), "too many pending notifications");
+        }
+        return pendingNotification.completion;
+    }
+
+    // Wait for all queued and in-flight notifications to be processed
+    public boolean awaitQuiescence(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (quiescenceLock) {
+            while (nbPendingOrInFlight.get() > 0) {
+                final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                quiescenceLock.wait(remainingMillis);
+            }
+        }
+        return true;
+    }
+
+    // Wait for the pending notifications to be delivered and hand the ones not sent in time to the failure handler, so they aren't lost
+    public void flush(final long timeout, final TimeUnit unit) throws InterruptedException {
+        if (awaitQuiescence(timeout, unit)) {
+            return;
+        }
+
+        final List<PendingNotification> notSent = new LinkedList<PendingNotification>();
+        for (final TenantEndpoints tenant : tenantEndpoints.values()) {
+            synchronized (tenant) {
+                for (final Endpoint endpoint : tenant.endpoints.values()) {
+                    notSent.addAll(endpoint.queue);
+                    endpoint.queue.clear();
+                }
+            }
+        }
+        log.warn("Timed out while delivering push notifications: {} notifications will be retried", notSent.size());
+        fail(notSent, "shutting down");
+    }
+
+    // Hand the notifications not processed yet to the failure handler, so that callers don't wait on them any longer:
+    // queued notifications are removed from their queue, in-flight ones may still be delivered (i.e. delivered twice, as with any retry)
+    public void handOff(final Iterable<CompletableFuture<Void>> completions, final String reason) {
+        final List<PendingNotification> dequeued = new LinkedList<PendingNotification>();
+        for (final CompletableFuture<Void> completion : completions) {
+            if (completion.isDone() || !(completion instanceof DeliveryFuture)) {
+                continue;
+            }
+
+            final PendingNotification notification = ((DeliveryFuture) completion).notification;
+            final TenantEndpoints tenant = tenantEndpoints.get(String.valueOf(notification.tenantId));
+            boolean wasQueued = false;
+            if (tenant != null) {
+                synchronized (tenant) {
+                    final Endpoint endpoint = tenant.endpoints.get(notification.url);
+                    wasQueued = endpoint != null && endpoint.queue.remove(notification);
+                }
+            }
+
+            if (wasQueued) {
+                dequeued.add(notification);
+            } else {
+                // In-flight: released once the request completes
+                settle(notification, reason);
+            }
+        }
+        fail(dequeued, reason);
+    }
+
+    public int getNbPendingOrInFlight() {
+        return nbPendingOrInFlight.get();
+    }
+
+    @VisibleForTesting
+    int getNbEndpoints(final UUID tenantId) {
+        final TenantEndpoints tenant = tenantEndpoints.get(String.valueOf(tenantId));
+        if (tenant == null) {
+            return 0;
+        }
+        synchronized (tenant) {
+            return tenant.endpoints.size();
+        }
+    }
+
+    private void drain(final TenantEndpoints tenant) {
+        final List<Batch> toSend = new LinkedList<Batch>();
+        final List<PendingNotification> shortCircuited = new LinkedList<PendingNotification>();
+        synchronized (tenant) {
+            final long nowNanos = System.nanoTime();
+            final Iterator<Endpoint> iterator = tenant.endpoints.values().iterator();
+            while (iterator.hasNext()) {
+                final Endpoint endpoint = iterator.next();
+                if (endpoint.isOpen(nowNanos)) {
+                    shortCircuited.addAll(endpoint.queue);
+                    endpoint.queue.clear();
+                } else {
+                    // Only one probe request while half-open
+                    final int maxInFlight = endpoint.isHalfOpen(nowNanos) ? 1 : maxConcurrentRequestsPerUrl;
+                    while (!endpoint.queue.isEmpty() && endpoint.inFlight < maxInFlight && tenant.inFlight < maxConcurrentRequestsPerTenant) {
+                        final List<PendingNotification> notifications = new ArrayList<PendingNotification>(Math.min(maxEventsPerRequest, endpoint.queue.size()));
+                        while (!endpoint.queue.isEmpty() && notifications.size() < maxEventsPerRequest) {
+                            notifications.add(endpoint.queue.poll());
+                        }
+                        endpoint.inFlight++;
+                        tenant.inFlight++;
+                        toSend.add(new Batch(endpoint, notifications));
+                    }
+                }
+
+                if (endpoint.isIdle(nowNanos, circuitBreakerOpenNanos)) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        if (!shortCircuited.isEmpty()) {
+            log.warn("Skipping {} push notifications for url='{}': too many consecutive failures", shortCircuited.size(), shortCircuited.get(0).url);
+            fail(shortCircuited, "circuit breaker open");
+        }
+        for (final Batch batch : toSend) {
+            send(tenant, batch);
+        }
+    }
+
+    private void send(final TenantEndpoints tenant, final Batch batch) {
+        final String body = batch.notifications.size() == 1 ?
+                            batch.notifications.get(0).body :
+                            batch.notifications.stream().map(n -> n.body).collect(Collectors.joining(",", "[", "]"));
+        log.info("Sending push notification url='{}', body='{}', attemptRetryNumber='{}'", batch.endpoint.url, body, batch.notifications.get(0).attemptRetryNumber);
+
+        final HttpRequest request;
+        try {
+            final HttpRequest.Builder builder = HttpRequest.newBuilder()
+                                                           .uri(URI.create(batch.endpoint.url))
+                                                           .timeout(requestTimeout)
+                                                           .POST(HttpRequest.BodyPublishers.ofString(body));
+            headers.forEach(builder::header);
+            request = builder.build();
+        } catch (final IllegalArgumentException e) {
+            log.warn("Failed to push notification url='{}', tenantId='{}'", batch.endpoint.url, batch.notifications.get(0).tenantId, e);
+            onCompletion(tenant, batch, e.getMessage());
+            return;
+        }
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                  .whenComplete((response, throwable) -> {
+                      final String failure;
+                      if (throwable != null) {
+                          log.warn("Failed to push notification url='{}', tenantId='{}'", batch.endpoint.url, batch.notifications.get(0).tenantId, throwable);
+                          failure = throwable.getMessage();
+                      } else if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                          failure = "statusCode=" + response.statusCode();
+                      } else {
+                          failure = null;
+                      }
+                      onCompletion(tenant, batch, failure);
+                  });
+    }
+
+    private void onCompletion(final TenantEndpoints tenant, final Batch batch, final String failure) {
+        synchronized (tenant) {
+            final Endpoint endpoint = batch.endpoint;
+            endpoint.inFlight--;
+            tenant.inFlight--;
+            if (failure == null) {
+                endpoint.consecutiveFailures = 0;
+                endpoint.openUntilNanos = 0;
+            } else {
+                endpoint.consecutiveFailures++;
+                endpoint.lastFailureNanos = System.nanoTime();
+                if (circuitBreakerFailureThreshold > 0 && endpoint.consecutiveFailures >= circuitBreakerFailureThreshold) {
+                    endpoint.openUntilNanos = System.nanoTime() + circuitBreakerOpenNanos;
+                }
+            }
+        }
+
+        if (failure == null) {
+            release(batch.notifications);
+        } else {
+            fail(batch.notifications, failure);
+        }
+
+        // Free slot(s) for this tenant
+        drain(tenant);
+    }
+
+    private void fail(final List<PendingNotification> notifications, final String reason) {
+        try {
+            for (final PendingNotification notification : notifications) {
+                settle(notification, reason);
+            }
+        } finally {
+            release(notifications);
+        }
+    }
+
+    private void release(final List<PendingNotification> notifications) {
+        for (final PendingNotification notification : notifications) {
+            settle(notification, null);
+        }
+        if (nbPendingOrInFlight.addAndGet(-notifications.size()) == 0) {
+            synchronized (quiescenceLock) {
+                quiescenceLock.notifyAll();
+            }
+        }
+    }
+
+    // Complete the notification, once handed to the failure handler on failure: at most once per notification (see handOff)
+    private void settle(final PendingNotification notification, @Nullable final String failure) {
+        if (!notification.isSettled.compareAndSet(false, true)) {
+            return;
+        }
+
+        if (failure != null) {
+            try {
+                failureHandler.onDeliveryFailure(notification.tenantId, notification.url, notification.notification, notification.attemptRetryNumber, failure);
+            } catch (final RuntimeException e) {
+                log.error("Failed to handle push notification failure url='{}', tenantId='{}'", notification.url, notification.tenantId, e);
+            }
+        }
+        notification.completion.complete(null);
+    }
+
+    private static final class TenantEndpoints {
+
+        // Guarded by the TenantEndpoints instance
+        private final Map<String, Endpoint> endpoints = new LinkedHashMap<String, Endpoint>();
+        private int inFlight = 0;
+    }
+
+    private static final class Endpoint {
+
+        private final String url;
+        private final Deque<PendingNotification> queue = new ArrayDeque<PendingNotification>();
+        private int inFlight = 0;
+        private int consecutiveFailures = 0;
+        private long openUntilNanos = 0;
+        private long lastFailureNanos = 0;
+
+        private Endpoint(final String url) {
+            this.url = url;
+        }
+
+        private boolean isOpen(final long nowNanos) {
+            return openUntilNanos != 0 && nowNanos - openUntilNanos < 0;
+        }
+
+        private boolean isHalfOpen(final long nowNanos) {
+            return openUntilNanos != 0 && nowNanos - openUntilNanos >= 0;
+        }
+
+        // Failures are remembered for the duration of the circuit breaker: past that, the endpoint is forgotten (even if the circuit was open)
+        private boolean isIdle(final long nowNanos, final long failureRetentionNanos) {
+            return queue.isEmpty() && inFlight == 0 && (consecutiveFailures == 0 || nowNanos - lastFailureNanos - failureRetentionNanos >= 0);
+        }
+    }
+
+    private static final class Batch {
+
+        private final Endpoint endpoint;
+        private final List<PendingNotification> notifications;
+
+        private Batch(final Endpoint endpoint, final List<PendingNotification> notifications) {
+            this.endpoint = endpoint;
+            this.notifications = notifications;
+        }
+    }
+
+    private static final class PendingNotification {
+
+        private final UUID tenantId;
+        private final String url;
+        private final NotificationJson notification;
+        private final String body;
+        private final int attemptRetryNumber;
+        private final AtomicBoolean isSettled = new AtomicBoolean(false);
+        private final DeliveryFuture completion = new DeliveryFuture(this);
+
+        private PendingNotification(final UUID tenantId, final String url, final NotificationJson notification, final String body, final int attemptRetryNumber) {
+            this.tenantId = tenantId;
+            this.url = url;
+            this.notification = notification;
+            this.body = body;
+            this.attemptRetryNumber = attemptRetryNumber;
+        }
+    }
+
+    private static final class DeliveryFuture extends CompletableFuture<Void> {
+
+        private final PendingNotification notification;
+
+        private DeliveryFuture(final PendingNotification notification) {
+            this.notification = notification;
+        }
+    }
+}
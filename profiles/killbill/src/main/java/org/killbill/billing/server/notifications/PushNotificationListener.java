@@ -20,16 +20,19 @@
 package org.killbill.billing.server.notifications;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URI;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.inject.Inject;
 
@@ -38,6 +41,7 @@ import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.jaxrs.json.NotificationJson;
 import org.killbill.billing.notification.plugin.api.ExtBusEvent;
+import org.killbill.billing.notification.plugin.api.ExtBusEventType;
 import org.killbill.billing.platform.api.KillbillService.KILLBILL_SERVICES;
 import org.killbill.billing.tenant.api.TenantApiException;
 import org.killbill.billing.tenant.api.TenantKV.TenantKey;
@@ -73,6 +77,8 @@ public class PushNotificationListener {
 
     private static final int TIMEOUT_NOTIFICATION = 15; // 15 seconds
 
+    private static final long TERMINATION_TIMEOUT_SEC = 5;
+
     private final TenantUserApi tenantApi;
     private final CallContextFactory contextFactory;
     private final HttpClient httpClient;
@@ -81,6 +87,10 @@ public class PushNotificationListener {
     private final InternalCallContextFactory internalCallContextFactory;
     private final Clock clock;
     private final NotificationConfig notificationConfig;
+    private final PushNotificationDispatcher dispatcher;
+    private final long callbacksCacheTtlNanos;
+    private final long deliveryTimeoutMillis;
+    private final Map<UUID, CachedCallbacks> callbacksCache = new ConcurrentHashMap<UUID, CachedCallbacks>();
 
     @Inject
     public PushNotificationListener(final ObjectMapper mapper, final TenantUserApi tenantApi, final CallContextFactory contextFactory,
@@ -95,11 +105,29 @@ public class PushNotificationListener {
         this.internalCallContextFactory = internalCallContextFactory;
         this.clock = clock;
         this.notificationConfig = notificationConfig;
+        this.dispatcher = new PushNotificationDispatcher(httpClient,
+                                                         Map.of("User-Agent", USER_AGENT, HTTP_HEADER_CONTENT_TYPE, CONTENT_TYPE_JSON),
+                                                         Duration.of(TIMEOUT_NOTIFICATION, ChronoUnit.SECONDS),
+                                                         notificationConfig.getPushNotificationsMaxConcurrentRequestsPerUrl(),
+                                                         notificationConfig.getPushNotificationsMaxConcurrentRequestsPerTenant(),
+                                                         notificationConfig.getPushNotificationsMaxPendingRequestsPerUrl(),
+                                                         notificationConfig.getPushNotificationsMaxEventsPerRequest(),
+                                                         notificationConfig.getPushNotificationsCircuitBreakerFailureThreshold(),
+                                                         notificationConfig.getPushNotificationsCircuitBreakerOpenDuration().getMillis(),
+                                                         TimeUnit.MILLISECONDS,
+                                                         this::saveRetryPushNotificationInQueue);
+        this.callbacksCacheTtlNanos = TimeUnit.MILLISECONDS.toNanos(notificationConfig.getPushNotificationsCallbacksCacheTtl().getMillis());
+        this.deliveryTimeoutMillis = notificationConfig.getPushNotificationsDeliveryTimeout().getMillis();
     }
 
     @AllowConcurrentEvents
     @Subscribe
     public void triggerPushNotifications(final ExtBusEvent event) {
+        if (isPushNotificationCallbacksChange(event)) {
+            // Make sure the new callbacks (if any) are used right away on this node
+            callbacksCache.remove(event.getTenantId());
+        }
+
         final TenantContext context = contextFactory.createTenantContext(event.getAccountId(), event.getTenantId());
         try {
             final List<String> callbacks = getCallbacksForTenant(context);
@@ -118,39 +146,42 @@ public class PushNotificationListener {
     public void shutdown() throws IOException {
     }
 
+    // Deliver (or hand to the retry queue) the in-flight notifications, before the retry queue is stopped
+    public void flushPendingNotifications() {
+        try {
+            dispatcher.flush(TERMINATION_TIMEOUT_SEC, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            log.warn("Interrupted while delivering pending push notifications");
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private void dispatchCallback(final UUID tenantId, final ExtBusEvent event, final Iterable<String> callbacks) throws IOException {
         final NotificationJson notification = new NotificationJson(event);
         final String body = mapper.writeValueAsString(notification);
+        final List<CompletableFuture<Void>> deliveries = new LinkedList<CompletableFuture<Void>>();
         for (final String cur : callbacks) {
-            doPost(tenantId, cur, body, notification, TIMEOUT_NOTIFICATION, 0);
+            // The callbacks are notified concurrently
+            deliveries.add(dispatcher.submit(tenantId, cur, notification, body, 0));
         }
+        awaitDelivery(deliveries);
     }
 
-    private boolean doPost(final UUID tenantId, final String url, final String body, final NotificationJson notification,
-                           final int timeoutSec, final int attemptRetryNumber) {
-        log.info("Sending push notification url='{}', body='{}', attemptRetryNumber='{}'", url, body, attemptRetryNumber);
-        final HttpRequest request = HttpRequest.newBuilder()
-                                               .uri(URI.create(url))
-                                               .header("User-Agent", USER_AGENT)
-                                               .header(HTTP_HEADER_CONTENT_TYPE, CONTENT_TYPE_JSON)
-                                               .timeout(Duration.of(TIMEOUT_NOTIFICATION, ChronoUnit.SECONDS))
-                                               .POST(HttpRequest.BodyPublishers.ofString(body == null ? "{}" : body))
-                                               .build();
-
-        final HttpResponse<InputStream> response;
+    // The bus event (or retry queue entry) is only acknowledged once all notifications have been either delivered or
+    // recorded in the retry queue: keeps at-least-once semantics across restarts. The wait is bounded, so that a slow
+    // callback url doesn't hold the bus thread: past the timeout, the pending notifications are recorded in the retry queue
+    private void awaitDelivery(final List<CompletableFuture<Void>> deliveries) {
         try {
-            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
-        } catch (final Exception e) {
-            log.warn("Failed to push notification url='{}', tenantId='{}'", url, tenantId, e);
-            saveRetryPushNotificationInQueue(tenantId, url, notification, attemptRetryNumber, e.getMessage());
-            return false;
-        }
-
-        if (response.statusCode() >= 200 && response.statusCode() < 300) {
-            return true;
-        } else {
-            saveRetryPushNotificationInQueue(tenantId, url, notification, attemptRetryNumber, "statusCode=" + response.statusCode());
-            return false;
+            CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).get(deliveryTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            log.warn("Timed out after {} ms while delivering push notifications: pending notifications will be retried", deliveryTimeoutMillis);
+            dispatcher.handOff(deliveries, "timed out");
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while delivering push notifications", e);
+        } catch (final ExecutionException e) {
+            // Not expected, the futures are always completed normally
+            throw new RuntimeException(e.getCause());
         }
     }
 
@@ -162,7 +193,7 @@ public class PushNotificationListener {
                                                                    key.getObjectId(),
                                                                    key.getMetaData());
         final String body = mapper.writeValueAsString(notification);
-        doPost(key.getTenantId(), key.getUrl(), body, notification, TIMEOUT_NOTIFICATION, key.getAttemptNumber());
+        awaitDelivery(List.of(dispatcher.submit(key.getTenantId(), key.getUrl(), notification, body, key.getAttemptNumber())));
     }
 
     private void saveRetryPushNotificationInQueue(final UUID tenantId, final String url, final NotificationJson notificationJson, final int attemptRetryNumber, final String reason) {
@@ -207,6 +238,35 @@ public class PushNotificationListener {
     }
 
     private List<String> getCallbacksForTenant(final TenantContext context) throws TenantApiException {
-        return tenantApi.getTenantValuesForKey(TenantKey.PUSH_NOTIFICATION_CB.toString(), context);
+        if (callbacksCacheTtlNanos <= 0 || context.getTenantId() == null) {
+            return tenantApi.getTenantValuesForKey(TenantKey.PUSH_NOTIFICATION_CB.toString(), context);
+        }
+
+        final long nowNanos = System.nanoTime();
+        final CachedCallbacks cachedCallbacks = callbacksCache.get(context.getTenantId());
+        if (cachedCallbacks != null && nowNanos - cachedCallbacks.expirationNanos < 0) {
+            return cachedCallbacks.callbacks;
+        }
+
+        final List<String> callbacks = tenantApi.getTenantValuesForKey(TenantKey.PUSH_NOTIFICATION_CB.toString(), context);
+        callbacksCache.put(context.getTenantId(), new CachedCallbacks(callbacks, nowNanos + callbacksCacheTtlNanos));
+        return callbacks;
+    }
+
+    private boolean isPushNotificationCallbacksChange(final ExtBusEvent event) {
+        return (event.getEventType() == ExtBusEventType.TENANT_CONFIG_CHANGE || event.getEventType() == ExtBusEventType.TENANT_CONFIG_DELETION) &&
+               event.getTenantId() != null &&
+               (event.getMetaData() == null || event.getMetaData().contains(TenantKey.PUSH_NOTIFICATION_CB.toString()));
+    }
+
+    private static final class CachedCallbacks {
+
+        private final List<String> callbacks;
+        private final long expirationNanos;
+
+        private CachedCallbacks(final List<String> callbacks, final long expirationNanos) {
+            this.callbacks = callbacks;
+            this.expirationNanos = expirationNanos;
+        }
     }
 }
@@ -18,8 +18,15 @@
 
 package org.killbill.billing.jaxrs;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.net.http.HttpResponse;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -27,6 +34,7 @@ import javax.annotation.Nullable;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.killbill.billing.client.KillBillClientException;
+import org.killbill.billing.client.RequestOptions;
 import org.killbill.billing.client.model.InvoiceItems;
 import org.killbill.billing.client.model.gen.Account;
 import org.killbill.billing.client.model.gen.AccountTimeline;
@@ -42,6 +50,7 @@ import org.killbill.billing.entitlement.api.SubscriptionEventType;
 import org.killbill.billing.payment.api.TransactionType;
 import org.killbill.billing.util.api.AuditLevel;
 import org.killbill.billing.util.audit.ChangeType;
+import org.killbill.billing.util.jackson.ObjectMapper;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -312,6 +321,25 @@ public class TestAccountTimeline extends TestJaxrsBase {
         final AccountTimeline accountTimelineInParallel = accountApi.getAccountTimeline(accountId, true, auditLevel, requestOptions);
         Assert.assertEquals(accountTimelineInParallel, accountTimeline);
 
+        // Verify also the streaming path
+        final Map<String, Collection<String>> queryParams = new LinkedHashMap<>();
+        queryParams.put("streaming", List.of("true"));
+        queryParams.put("audit", List.of(auditLevel.toString()));
+        final RequestOptions streamingRequestOptions = requestOptions.extend().withQueryParams(queryParams).build();
+        final String timelineUri = "/1.0/kb/accounts/" + accountId + "/timeline";
+        final AccountTimeline streamedAccountTimeline = killBillHttpClient.doGet(timelineUri, AccountTimeline.class, streamingRequestOptions);
+        Assert.assertEquals(streamedAccountTimeline, accountTimeline);
+
+        // Sections are always streamed in the same order
+        final HttpResponse<InputStream> response = killBillHttpClient.doGet(timelineUri, streamingRequestOptions);
+        final List<String> sections = new LinkedList<>();
+        try {
+            new ObjectMapper().readTree(response.body()).fieldNames().forEachRemaining(sections::add);
+        } catch (final IOException e) {
+            Assert.fail("Invalid streamed timeline", e);
+        }
+        Assert.assertEquals(sections, List.of("account", "bundles", "invoices", "payments"));
+
         return accountTimeline;
     }
 }
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.server.notifications;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.awaitility.Awaitility;
+import org.killbill.billing.jaxrs.json.NotificationJson;
+import org.killbill.billing.server.log.ServerTestSuiteNoDB;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class TestPushNotificationDispatcher extends ServerTestSuiteNoDB {
+
+    private HttpServer server;
+    private String url;
+
+    private final List<String> receivedBodies = new CopyOnWriteArrayList<String>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final List<String> failures = new CopyOnWriteArrayList<String>();
+
+    private volatile int statusCode;
+    private volatile CountDownLatch releaseLatch;
+
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        if (hasFailed()) {
+            return;
+        }
+
+        receivedBodies.clear();
+        failures.clear();
+        inFlight.set(0);
+        maxInFlight.set(0);
+        statusCode = 200;
+        releaseLatch = new CountDownLatch(0);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/callmeback", exchange -> {
+            final int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try (final InputStream in = exchange.getRequestBody()) {
+                receivedBodies.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                releaseLatch.await(10, TimeUnit.SECONDS);
+                exchange.sendResponseHeaders(statusCode, -1);
+            } catch (final InterruptedException e) {
+                throw new IOException(e);
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/callmeback";
+    }
+
+    @AfterMethod(groups = "fast")
+    public void afterMethod() {
+        if (hasFailed()) {
+            return;
+        }
+        server.stop(0);
+    }
+
+    @Test(groups = "fast")
+    public void testSubmitDoesNotBlockAndRespectsConcurrencyPerUrl() throws Exception {
+        final PushNotificationDispatcher dispatcher = createDispatcher(1, 1, 0);
+        releaseLatch = new CountDownLatch(1);
+
+        final UUID tenantId = UUID.randomUUID();
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            submit(dispatcher, tenantId, "event-" + i);
+        }
+        // The callback endpoint is stuck, yet the caller (bus thread) isn't
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos) < 5);
+
+        Awaitility.await().atMost(10, TimeUnit.SECONDS).until(() -> receivedBodies.size() == 1);
+        releaseLatch.countDown();
+
+        Assert.assertTrue(dispatcher.awaitQuiescence(10, TimeUnit.SECONDS));
+        Assert.assertEquals(receivedBodies.size(), 5);
+        Assert.assertEquals(maxInFlight.get(), 1);
+        // Ordering is preserved
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(receivedBodies.get(i).contains("event-" + i));
+        }
+        Assert.assertTrue(failures.isEmpty());
+    }
+
+    @Test(groups = "fast")
+    public void testBatching() throws Exception {
+        final PushNotificationDispatcher dispatcher = createDispatcher(1, 10, 0);
+        releaseLatch = new CountDownLatch(1);
+
+        final UUID tenantId = UUID.randomUUID();
+        submit(dispatcher, tenantId, "event-0");
+        Awaitility.await().atMost(10, TimeUnit.SECONDS).until(() -> receivedBodies.size() == 1);
+
+        // Queued while the first request is in-flight
+        submit(dispatcher, tenantId, "event-1");
+        submit(dispatcher, tenantId, "event-2");
+        submit(dispatcher, tenantId, "event-3");
+        releaseLatch.countDown();
+
+        Assert.assertTrue(dispatcher.awaitQuiescence(10, TimeUnit.SECONDS));
+        Assert.assertEquals(receivedBodies.size(), 2);
+        Assert.assertTrue(receivedBodies.get(0).startsWith("{"));
+        Assert.assertTrue(receivedBodies.get(1).startsWith("["));
+        Assert.assertTrue(receivedBodies.get(1).contains("event-1") && receivedBodies.get(1).contains("event-2") && receivedBodies.get(1).contains("event-3"));
+    }
+
+    @Test(groups = "fast")
+    public void testCircuitBreaker() throws Exception {
+        final PushNotificationDispatcher dispatcher = createDispatcher(1, 1, 2);
+        statusCode = 500;
+
+        final UUID tenantId = UUID.randomUUID();
+        for (int i = 0; i < 2; i++) {
+            submit(dispatcher, tenantId, "event-" + i);
+            Assert.assertTrue(dispatcher.awaitQuiescence(10, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(receivedBodies.size(), 2);
+        Assert.assertEquals(failures.size(), 2);
+        Assert.assertEquals(failures.get(1), "statusCode=500");
+
+        // Circuit is open: directly handed to the retry queue, without hitting the endpoint
+        submit(dispatcher, tenantId, "event-2");
+        Assert.assertTrue(dispatcher.awaitQuiescence(10, TimeUnit.SECONDS));
+        Assert.assertEquals(receivedBodies.size(), 2);
+        Assert.assertEquals(failures.size(), 3);
+        Assert.assertEquals(failures.get(2), "circuit breaker open");
+
+        // Other tenants aren't impacted
+        statusCode = 200;
+        submit(dispatcher, UUID.randomUUID(), "event-3");
+        Assert.assertTrue(dispatcher.awaitQuiescence(10, TimeUnit.SECONDS));
+        Assert.assertEquals(receivedBodies.size(), 3);
+        Assert.assertEquals(failures.size(), 3);
+    }
+
+    @Test(groups = "fast")
+    public void testCompletionAndEviction() throws Exception {
+        final PushNotificationDispatcher dispatcher = createDispatcher(1, 1, 1, 1, TimeUnit.SECONDS);
+        releaseLatch = new CountDownLatch(1);
+
+        final UUID tenantId = UUID.randomUUID();
+        final CompletableFuture<Void> delivered = submit(dispatcher, tenantId, "event-0");
+        Awaitility.await().atMost(10, TimeUnit.SECONDS).until(() -> receivedBodies.size() == 1);
+        // Not acknowledged until the endpoint has replied
+        Assert.assertFalse(delivered.isDone());
+        Assert.assertEquals(dispatcher.getNbEndpoints(tenantId), 1);
+
+        releaseLatch.countDown();
+        delivered.get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(failures.isEmpty());
+
+        // The failure is handed to the retry queue before completing
+        statusCode = 500;
+        submit(dispatcher, tenantId, "event-1").get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(failures.size(), 1);
+
+        // Circuit is open
+        submit(dispatcher, tenantId, "event-2").get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(failures.size(), 2);
+        Assert.assertEquals(failures.get(1), "circuit breaker open");
+        Assert.assertEquals(dispatcher.getNbEndpoints(tenantId), 1);
+
+        // Once the circuit has been open long enough, the endpoint of the unreachable url is evicted on the next drain
+        Thread.sleep(1500);
+        final String otherUrl = url.replace("/callmeback", "/other");
+        dispatcher.submit(tenantId, otherUrl, new NotificationJson("event-3", UUID.randomUUID(), "ACCOUNT", UUID.randomUUID(), null), "{}", 0).get(10, TimeUnit.SECONDS);
+        Awaitility.await().atMost(10, TimeUnit.SECONDS).until(() -> dispatcher.getNbEndpoints(tenantId) == 1);
+        Assert.assertEquals(dispatcher.getNbPendingOrInFlight(), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testHandOff() throws Exception {
+        final PushNotificationDispatcher dispatcher = createDispatcher(1, 1, 0);
+        releaseLatch = new CountDownLatch(1);
+
+        final UUID tenantId = UUID.randomUUID();
+        final CompletableFuture<Void> inFlightDelivery = submit(dispatcher, tenantId, "event-0");
+        Awaitility.await().atMost(10, TimeUnit.SECONDS).until(() -> receivedBodies.size() == 1);
+        final CompletableFuture<Void> queuedDelivery = submit(dispatcher, tenantId, "event-1");
+        Assert.assertFalse(inFlightDelivery.isDone());
+        Assert.assertFalse(queuedDelivery.isDone());
+
+        // The caller stops waiting: both notifications are handed to the retry queue right away
+        dispatcher.handOff(List.of(inFlightDelivery, queuedDelivery), "timed out");
+        Assert.assertTrue(inFlightDelivery.isDone());
+        Assert.assertTrue(queuedDelivery.isDone());
+        Assert.assertEquals(failures, List.of("timed out", "timed out"));
+        // Only the in-flight request is still tracked
+        Assert.assertEquals(dispatcher.getNbPendingOrInFlight(), 1);
+
+        // The queued notification isn't sent and the in-flight one isn't retried twice
+        statusCode = 500;
+        releaseLatch.countDown();
+        Assert.assertTrue(dispatcher.awaitQuiescence(10, TimeUnit.SECONDS));
+        Assert.assertEquals(receivedBodies.size(), 1);
+        Assert.assertEquals(failures.size(), 2);
+    }
+
+    private PushNotificationDispatcher createDispatcher(final int maxConcurrentRequestsPerUrl, final int maxEventsPerRequest, final int circuitBreakerFailureThreshold) {
+        return createDispatcher(maxConcurrentRequestsPerUrl, maxEventsPerRequest, circuitBreakerFailureThreshold, 1, TimeUnit.HOURS);
+    }
+
+    private PushNotificationDispatcher createDispatcher(final int maxConcurrentRequestsPerUrl, final int maxEventsPerRequest, final int circuitBreakerFailureThreshold,
+                                                        final long circuitBreakerOpenDuration, final TimeUnit circuitBreakerOpenDurationUnit) {
+        return new PushNotificationDispatcher(HttpClient.newHttpClient(),
+                                              Map.of(PushNotificationListener.HTTP_HEADER_CONTENT_TYPE, PushNotificationListener.CONTENT_TYPE_JSON),
+                                              Duration.ofSeconds(15),
+                                              maxConcurrentRequestsPerUrl,
+                                              10,
+                                              100,
+                                              maxEventsPerRequest,
+                                              circuitBreakerFailureThreshold,
+                                              circuitBreakerOpenDuration,
+                                              circuitBreakerOpenDurationUnit,
+                                              (tenantId, url, notification, attemptRetryNumber, reason) -> failures.add(reason));
+    }
+
+    private CompletableFuture<Void> submit(final PushNotificationDispatcher dispatcher, final UUID tenantId, final String eventType) {
+        final NotificationJson notification = new NotificationJson(eventType, UUID.randomUUID(), "ACCOUNT", UUID.randomUUID(), null);
+        return dispatcher.submit(tenantId, url, notification, "{\"eventType\":\"" + eventType + "\"}", 0);
+    }
+}
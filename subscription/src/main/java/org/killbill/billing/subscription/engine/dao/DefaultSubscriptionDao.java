@@ -32,7 +32,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -111,6 +113,9 @@ import org.killbill.billing.util.optimizer.BusOptimizer;
 import org.killbill.bus.api.BusEvent;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.killbill.clock.Clock;
+import org.killbill.commons.profiling.Profiling;
+import org.killbill.commons.profiling.Profiling.WithProfilingCallback;
+import org.killbill.commons.profiling.ProfilingFeature.ProfilingFeatureType;
 import org.killbill.notificationq.api.NotificationEvent;
 import org.killbill.notificationq.api.NotificationQueue;
 import org.killbill.notificationq.api.NotificationQueueService;
@@ -125,6 +130,9 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
     private static final Logger log = LoggerFactory.getLogger(DefaultSubscriptionDao.class);
 
+    // Number of ids per lookup query when retrieving the created events
+    private static final int MAX_EVENTS_PER_LOOKUP = 1000;
+
     private static final LocalDate NO_CUTOFF_DT = new LocalDate(1970, 01, 02);
 
     private final Clock clock;
@@ -499,44 +507,118 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
         });
     }
 
+    //
+    // Set-based creation: subscriptions and initial events are inserted using JDBC batches (without per-row refresh), the created
+    // events are then retrieved at once (for their total ordering), and finally future notifications and bus events are recorded
+    // in a single pass, in the same order as before.
+    //
     @Override
     public List<SubscriptionBaseEvent> createSubscriptionsWithAddOns(final List<SubscriptionBaseWithAddOns> subscriptions,
                                                                      final Map<UUID, List<SubscriptionBaseEvent>> initialEventsMap,
                                                                      final SubscriptionCatalog catalog,
                                                                      final InternalCallContext context) {
         final boolean groupBusEvents = eventBus.shouldAggregateSubscriptionEvents(context);
+        final Profiling<Object, RuntimeException> prof = new Profiling<Object, RuntimeException>();
         return transactionalSqlDao.execute(false, entitySqlDaoWrapperFactory -> {
             final SubscriptionSqlDao transactional = entitySqlDaoWrapperFactory.become(SubscriptionSqlDao.class);
             final SubscriptionEventSqlDao eventsDaoFromSameTransaction = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class);
-            int busEffSeqId = 0;
-            int busReqSeqId = 0;
-            final List<SubscriptionEventModelDao> createdEvents = new LinkedList<SubscriptionEventModelDao>();
+
+            final List<DefaultSubscriptionBase> subscriptionsToCreate = new ArrayList<DefaultSubscriptionBase>();
+            final List<SubscriptionModelDao> subscriptionModels = new ArrayList<SubscriptionModelDao>();
+            final List<SubscriptionEventModelDao> eventModels = new ArrayList<SubscriptionEventModelDao>();
             for (final SubscriptionBaseWithAddOns subscription : subscriptions) {
                 for (final SubscriptionBase subscriptionBase : subscription.getSubscriptionBaseList()) {
                     // Safe cast
                     final DefaultSubscriptionBase defaultSubscriptionBase = (DefaultSubscriptionBase) subscriptionBase;
-                    createAndRefresh(transactional, new SubscriptionModelDao(defaultSubscriptionBase), context);
-
-                    final List<SubscriptionBaseEvent> initialEvents = initialEventsMap.get(defaultSubscriptionBase.getId());
-
-                    for (final SubscriptionBaseEvent cur : initialEvents) {
-                        createdEvents.add(createAndRefresh(eventsDaoFromSameTransaction, new SubscriptionEventModelDao(cur), context));
+                    subscriptionsToCreate.add(defaultSubscriptionBase);
+                    subscriptionModels.add(new SubscriptionModelDao(defaultSubscriptionBase));
+                    for (final SubscriptionBaseEvent cur : initialEventsMap.get(defaultSubscriptionBase.getId())) {
+                        eventModels.add(new SubscriptionEventModelDao(cur));
+                    }
+                }
+            }
 
-                        final boolean isBusEvent = cur.getEffectiveDate().compareTo(context.getCreatedDate()) <= 0 && (cur.getType() == EventType.API_USER || cur.getType() == EventType.BCD_UPDATE || cur.getType() == EventType.QUANTITY_UPDATE);
-                        final int seqId = isBusEvent ? busEffSeqId++ : 0;
-                        if (!isBusEvent || !groupBusEvents || seqId == 0) {
-                            recordBusOrFutureNotificationFromTransaction(defaultSubscriptionBase, cur, entitySqlDaoWrapperFactory, isBusEvent, seqId, catalog, context);
+            final long startNanos = System.nanoTime();
+            prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, "createSubscriptionsWithAddOns (subscriptions)", new WithProfilingCallback<Object, RuntimeException>() {
+                @Override
+                public Object execute() {
+                    bulkCreate(transactional, subscriptionModels, context);
+                    return null;
+                }
+            });
+            final long subscriptionsNanos = System.nanoTime();
+
+            final Map<UUID, SubscriptionEventModelDao> createdEventsById = new HashMap<UUID, SubscriptionEventModelDao>();
+            prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, "createSubscriptionsWithAddOns (events)", new WithProfilingCallback<Object, RuntimeException>() {
+                @Override
+                public Object execute() {
+                    bulkCreate(eventsDaoFromSameTransaction, eventModels, context);
+                    for (int i = 0; i < eventModels.size(); i += MAX_EVENTS_PER_LOOKUP) {
+                        final List<String> eventIds = eventModels.subList(i, Math.min(eventModels.size(), i + MAX_EVENTS_PER_LOOKUP)).stream()
+                                                                 .map(eventModel -> eventModel.getId().toString())
+                                                                 .collect(Collectors.toUnmodifiableList());
+                        for (final SubscriptionEventModelDao createdEvent : eventsDaoFromSameTransaction.getByIds(eventIds, context)) {
+                            createdEventsById.put(createdEvent.getId(), createdEvent);
                         }
                     }
+                    return null;
+                }
+            });
+            final long eventsNanos = System.nanoTime();
+
+            final List<SubscriptionEventModelDao> createdEvents = new LinkedList<SubscriptionEventModelDao>();
+            prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, "createSubscriptionsWithAddOns (notifications)", new WithProfilingCallback<Object, RuntimeException>() {
+                @Override
+                public Object execute() {
+                    final NotificationQueue subscriptionEventQueue = getSubscriptionEventQueue();
+                    int busEffSeqId = 0;
+                    int busReqSeqId = 0;
+                    for (final DefaultSubscriptionBase defaultSubscriptionBase : subscriptionsToCreate) {
+                        final List<SubscriptionBaseEvent> initialEvents = initialEventsMap.get(defaultSubscriptionBase.getId());
+
+                        // The subscription is new: its active events are the ones created so far
+                        final SortedSet<SubscriptionEventModelDao> subscriptionEvents = new TreeSet<SubscriptionEventModelDao>();
+                        for (final SubscriptionBaseEvent cur : initialEvents) {
+                            final SubscriptionEventModelDao createdEvent = createdEventsById.get(cur.getId());
+                            createdEvents.add(createdEvent);
+                            subscriptionEvents.add(createdEvent);
+
+                            final boolean isBusEvent = cur.getEffectiveDate().compareTo(context.getCreatedDate()) <= 0 && (cur.getType() == EventType.API_USER || cur.getType() == EventType.BCD_UPDATE || cur.getType() == EventType.QUANTITY_UPDATE);
+                            final int seqId = isBusEvent ? busEffSeqId++ : 0;
+                            if (!isBusEvent || !groupBusEvents || seqId == 0) {
+                                if (isBusEvent) {
+                                    // Same as rebuildSubscriptionAndNotifyBusOfEffectiveImmediateChange, without going back to the database
+                                    try {
+                                        defaultSubscriptionBase.rebuildTransitions(filterSubscriptionBaseEvents(subscriptionEvents), catalog);
+                                        notifyBusOfEffectiveImmediateChange(entitySqlDaoWrapperFactory, defaultSubscriptionBase, cur, seqId, context);
+                                    } catch (final CatalogApiException e) {
+                                        log.warn("Failed to post effective event for subscriptionId='{}'", defaultSubscriptionBase.getId(), e);
+                                    }
+                                } else {
+                                    recordFutureNotificationFromTransaction(subscriptionEventQueue, entitySqlDaoWrapperFactory, cur.getEffectiveDate(), new SubscriptionNotificationKey(cur.getId()), context);
+                                }
+                            }
+                        }
 
-                    // Notify the Bus of the latest requested change, if needed
-                    if (!initialEvents.isEmpty()) {
-                        if (!groupBusEvents || busReqSeqId == 0) {
-                            notifyBusOfRequestedChange(entitySqlDaoWrapperFactory, defaultSubscriptionBase, initialEvents.get(initialEvents.size() - 1), SubscriptionBaseTransitionType.CREATE, busReqSeqId++, context);
+                        // Notify the Bus of the latest requested change, if needed
+                        if (!initialEvents.isEmpty()) {
+                            if (!groupBusEvents || busReqSeqId == 0) {
+                                notifyBusOfRequestedChange(entitySqlDaoWrapperFactory, defaultSubscriptionBase, initialEvents.get(initialEvents.size() - 1), SubscriptionBaseTransitionType.CREATE, busReqSeqId++, context);
+                            }
                         }
                     }
+                    return null;
                 }
-            }
+            });
+            final long notificationsNanos = System.nanoTime();
+
+            log.debug("Created nbSubscriptions='{}', nbEvents='{}': subscriptions={}ms, events={}ms, notifications={}ms",
+                      subscriptionModels.size(),
+                      eventModels.size(),
+                      TimeUnit.NANOSECONDS.toMillis(subscriptionsNanos - startNanos),
+                      TimeUnit.NANOSECONDS.toMillis(eventsNanos - subscriptionsNanos),
+                      TimeUnit.NANOSECONDS.toMillis(notificationsNanos - eventsNanos));
+
             return toSubscriptionBaseEvents(createdEvents);
         });
     }
@@ -1106,17 +1188,27 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
     private void recordFutureNotificationFromTransaction(final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final DateTime effectiveDate,
                                                          final NotificationEvent notificationKey, final InternalCallContext context) {
+        recordFutureNotificationFromTransaction(getSubscriptionEventQueue(), entitySqlDaoWrapperFactory, effectiveDate, notificationKey, context);
+    }
+
+    private void recordFutureNotificationFromTransaction(final NotificationQueue subscriptionEventQueue, final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final DateTime effectiveDate,
+                                                         final NotificationEvent notificationKey, final InternalCallContext context) {
         try {
-            final NotificationQueue subscriptionEventQueue = notificationQueueService.getNotificationQueue(KILLBILL_SERVICES.SUBSCRIPTION_BASE_SERVICE.getServiceName(),
-                                                                                                           DefaultSubscriptionBaseService.NOTIFICATION_QUEUE_NAME);
             subscriptionEventQueue.recordFutureNotificationFromTransaction(entitySqlDaoWrapperFactory.getHandle().getConnection(), effectiveDate, notificationKey, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
-        } catch (final NoSuchNotificationQueue e) {
-            throw new RuntimeException(e);
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private NotificationQueue getSubscriptionEventQueue() {
+        try {
+            return notificationQueueService.getNotificationQueue(KILLBILL_SERVICES.SUBSCRIPTION_BASE_SERVICE.getServiceName(),
+                                                                 DefaultSubscriptionBaseService.NOTIFICATION_QUEUE_NAME);
+        } catch (final NoSuchNotificationQueue e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private void transferBundleDataFromTransaction(final BundleTransferData bundleTransferData, final EntitySqlDao transactional,
                                                    final EntitySqlDaoWrapperFactory entitySqlDaoWrapperFactory, final InternalCallContext context) throws EntityPersistenceException {
 
@@ -17,6 +17,8 @@
 
 package org.killbill.billing.subscription.engine.dao;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -156,6 +158,56 @@ public class TestSubscriptionDao extends SubscriptionTestSuiteWithEmbeddedDB {
         subscriptionTestInitializer.stopTestFramework(testListener, busService, subscriptionBaseService);
     }
 
+    @Test(groups = "slow")
+    public void testCreateMultipleSubscriptionsWithAddOns() throws Exception {
+        final DateTime startDate = clock.getUTCNow();
+        final DateTime createdDate = startDate.plusSeconds(10);
+
+        final List<SubscriptionBaseWithAddOns> subscriptionBaseWithAddOns = new ArrayList<SubscriptionBaseWithAddOns>();
+        final Map<UUID, List<SubscriptionBaseEvent>> initialEvents = new HashMap<UUID, List<SubscriptionBaseEvent>>();
+        for (int i = 0; i < 3; i++) {
+            final DefaultSubscriptionBaseBundle bundleDef = new DefaultSubscriptionBaseBundle("bulk-" + i, accountId, startDate, startDate, createdDate, createdDate);
+            final SubscriptionBaseBundle bundle = dao.createSubscriptionBundle(bundleDef, catalog, true, internalCallContext);
+
+            final SubscriptionBuilder builder = new SubscriptionBuilder()
+                    .setId(UUIDs.randomUUID())
+                    .setBundleId(bundle.getId())
+                    .setBundleExternalKey(bundle.getExternalKey())
+                    .setCategory(ProductCategory.BASE)
+                    .setBundleStartDate(startDate)
+                    .setAlignStartDate(startDate)
+                    .setMigrated(false);
+            final ApiEventBuilder createBuilder = new ApiEventBuilder()
+                    .setSubscriptionId(builder.getId())
+                    .setEventPlan("shotgun-monthly")
+                    .setEventPlanPhase("shotgun-monthly-trial")
+                    .setEventPriceList(DefaultPriceListSet.DEFAULT_PRICELIST_NAME)
+                    .setEffectiveDate(startDate)
+                    .setFromDisk(true);
+
+            final DefaultSubscriptionBase subscription = new DefaultSubscriptionBase(builder);
+            subscriptionBaseWithAddOns.add(new DefaultSubscriptionBaseWithAddOns(bundle, List.of(subscription)));
+            initialEvents.put(subscription.getId(), List.of(new ApiEventCreate(createBuilder)));
+        }
+
+        testListener.pushExpectedEvents(NextEvent.CREATE, NextEvent.CREATE, NextEvent.CREATE);
+        final List<SubscriptionBaseEvent> createdEvents = dao.createSubscriptionsWithAddOns(subscriptionBaseWithAddOns, initialEvents, catalog, internalCallContext);
+        assertListenerStatus();
+
+        // Events are returned in creation order, with their total ordering
+        assertEquals(createdEvents.size(), 3);
+        for (int i = 0; i < 3; i++) {
+            final UUID subscriptionId = subscriptionBaseWithAddOns.get(i).getSubscriptionBaseList().get(0).getId();
+            assertEquals(createdEvents.get(i).getSubscriptionId(), subscriptionId);
+            Assert.assertTrue(createdEvents.get(i).getTotalOrdering() > 0);
+
+            final List<SubscriptionBaseEvent> eventsOnDisk = dao.getEventsForSubscription(subscriptionId, false, internalCallContext);
+            assertEquals(eventsOnDisk.size(), 1);
+            assertEquals(eventsOnDisk.get(0).getId(), createdEvents.get(i).getId());
+            assertEquals(eventsOnDisk.get(0).getTotalOrdering(), createdEvents.get(i).getTotalOrdering());
+        }
+    }
+
     @Test(groups = "slow")
     public void testBundleExternalKeyReused() throws Exception {
 
@@ -17,8 +17,14 @@
 
 package org.killbill.billing.usage.api.svcs;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -32,6 +38,7 @@ import org.killbill.billing.invoice.api.DryRunType;
 import org.killbill.billing.osgi.api.OSGIServiceRegistration;
 import org.killbill.billing.payment.api.PluginProperty;
 import org.killbill.billing.usage.InternalUserApi;
+import org.killbill.billing.usage.RawUsageReader;
 import org.killbill.billing.usage.api.BaseUserApi;
 import org.killbill.billing.usage.api.DefaultUsageContext;
 import org.killbill.billing.usage.api.RawUsageRecord;
@@ -48,6 +55,10 @@ public class DefaultInternalUserApi extends BaseUserApi implements InternalUserA
 
     private static final Logger log = LoggerFactory.getLogger(DefaultInternalUserApi.class);
 
+    // Same ordering as the streaming query (record_date, unit_type)
+    private static final Comparator<RawUsageRecord> RAW_USAGE_COMPARATOR = Comparator.comparing(RawUsageRecord::getDate)
+                                                                                     .thenComparing(RawUsageRecord::getUnitType);
+
     private final RolledUpUsageDao rolledUpUsageDao;
     private final InternalCallContextFactory internalCallContextFactory;
 
@@ -65,22 +76,87 @@ public class DefaultInternalUserApi extends BaseUserApi implements InternalUserA
 
         log.info("GetRawUsageForAccount startDate='{}', endDate='{}'", startDate, endDate);
 
+        final List<RawUsageRecord> resultFromPlugin = getAccountUsageFromPlugin(startDate, endDate, pluginProperties, createUsageContext(dryRunInfo, internalTenantContext));
+        if (resultFromPlugin != null) {
+            return resultFromPlugin;
+        }
+
+        final List<RolledUpUsageModelDao> usage = rolledUpUsageDao.getRawUsageForAccount(startDate, endDate, internalTenantContext);
+        return usage.stream()
+                .map(DefaultInternalUserApi::toRawUsage)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    @Override
+    public RawUsageReader getRawUsageReaderForAccount(final DateTime startDate, final DateTime endDate, @Nullable final DryRunInfo dryRunInfo, final Iterable<PluginProperty> pluginProperties, final InternalTenantContext internalTenantContext) {
+
+        log.info("GetRawUsageReaderForAccount startDate='{}', endDate='{}'", startDate, endDate);
+
+        // Plugins return the usage for the whole account: we can only group it in memory
+        final List<RawUsageRecord> resultFromPlugin = getAccountUsageFromPlugin(startDate, endDate, pluginProperties, createUsageContext(dryRunInfo, internalTenantContext));
+        if (resultFromPlugin != null) {
+            final Map<UUID, List<RawUsageRecord>> perSubscriptionUsage = resultFromPlugin.stream()
+                                                                                         .sorted(RAW_USAGE_COMPARATOR)
+                                                                                         .collect(Collectors.groupingBy(RawUsageRecord::getSubscriptionId));
+            return (subscriptionId, subscriptionStartDate, subscriptionEndDate) -> perSubscriptionUsage.getOrDefault(subscriptionId, Collections.emptyList())
+                                                                                                     .stream()
+                                                                                                     .filter(input -> !input.getDate().isBefore(subscriptionStartDate) && !input.getDate().isAfter(subscriptionEndDate))
+                                                                                                     .collect(Collectors.toUnmodifiableList());
+        }
+
+        // Each iteration runs its own streaming query bounded to the requested range, so only one record per subscription and usage interval is held in memory at a time
+        return (subscriptionId, subscriptionStartDate, subscriptionEndDate) -> () -> new RawUsageIterator(rolledUpUsageDao.getRawUsageForSubscription(subscriptionId,
+                                                                                                                                                        latest(startDate, subscriptionStartDate),
+                                                                                                                                                        earliest(endDate, subscriptionEndDate),
+                                                                                                                                                        internalTenantContext));
+    }
+
+    private static DateTime latest(final DateTime first, final DateTime second) {
+        return first.isAfter(second) ? first : second;
+    }
+
+    private static DateTime earliest(final DateTime first, final DateTime second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    private UsageContext createUsageContext(@Nullable final DryRunInfo dryRunInfo, final InternalTenantContext internalTenantContext) {
         final TenantContext tenantContext = internalCallContextFactory.createTenantContext(internalTenantContext);
 
         final DryRunType dryRunType = dryRunInfo != null ? dryRunInfo.getDryRunType() : null;
         final LocalDate inputTargetDate = dryRunInfo != null ? dryRunInfo.getInputTargetDate() : null;
 
-        final UsageContext usageContext = new DefaultUsageContext(dryRunType, inputTargetDate, tenantContext);
+        return new DefaultUsageContext(dryRunType, inputTargetDate, tenantContext);
+    }
 
-        final List<RawUsageRecord> resultFromPlugin = getAccountUsageFromPlugin(startDate, endDate, pluginProperties, usageContext);
-        if (resultFromPlugin != null) {
-            return resultFromPlugin;
+    private static RawUsageRecord toRawUsage(final RolledUpUsageModelDao input) {
+        return new DefaultRawUsage(input.getSubscriptionId(), input.getRecordDate(), input.getUnitType(), input.getAmount(), input.getTrackingId());
+    }
+
+    private static final class RawUsageIterator implements Iterator<RawUsageRecord>, Closeable {
+
+        private final Iterator<RolledUpUsageModelDao> delegate;
+
+        private RawUsageIterator(final Iterator<RolledUpUsageModelDao> delegate) {
+            this.delegate = delegate;
         }
 
-        final List<RolledUpUsageModelDao> usage = rolledUpUsageDao.getRawUsageForAccount(startDate, endDate, internalTenantContext);
-        return usage.stream()
-                .map(input -> new DefaultRawUsage(input.getSubscriptionId(), input.getRecordDate(), input.getUnitType(), input.getAmount(), input.getTrackingId()))
-                .collect(Collectors.toUnmodifiableList());
+        @Override
+        public boolean hasNext() {
+            // The underlying org.skife.jdbi.v2.ResultIterator releases its resources once exhausted
+            return delegate.hasNext();
+        }
+
+        @Override
+        public RawUsageRecord next() {
+            return toRawUsage(delegate.next());
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (delegate instanceof Closeable) {
+                ((Closeable) delegate).close();
+            }
+        }
     }
 
 }
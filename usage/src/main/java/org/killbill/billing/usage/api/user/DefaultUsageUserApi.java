@@ -18,9 +18,12 @@ package org.killbill.billing.usage.api.user;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -28,6 +31,7 @@ import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
@@ -44,27 +48,43 @@ import org.killbill.billing.usage.api.UnitUsageRecord;
 import org.killbill.billing.usage.api.UsageApiException;
 import org.killbill.billing.usage.api.UsageRecord;
 import org.killbill.billing.usage.api.UsageUserApi;
+import org.killbill.billing.usage.dao.RolledUpUsageDailyModelDao;
 import org.killbill.billing.usage.dao.RolledUpUsageDao;
 import org.killbill.billing.usage.dao.RolledUpUsageModelDao;
 import org.killbill.billing.usage.plugin.api.UsageContext;
 import org.killbill.billing.usage.plugin.api.UsagePluginApi;
 import org.killbill.billing.util.UUIDs;
 import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.CallOrigin;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.callcontext.UserType;
+import org.killbill.billing.util.config.definition.UsageConfig;
 
 public class DefaultUsageUserApi extends BaseUserApi implements UsageUserApi {
 
+    private static final int MAX_BACKFILLED_SUBSCRIPTIONS = 10000;
+
     private final RolledUpUsageDao rolledUpUsageDao;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final UsageConfig usageConfig;
+    // Subscriptions whose daily rollups were rebuilt since startup (the rollups aren't maintained while disabled)
+    private final Set<UUID> backfilledSubscriptions = Collections.newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<UUID, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<UUID, Boolean> eldest) {
+            return size() > MAX_BACKFILLED_SUBSCRIPTIONS;
+        }
+    }));
 
     @Inject
     public DefaultUsageUserApi(final RolledUpUsageDao rolledUpUsageDao,
                                final InternalCallContextFactory internalCallContextFactory,
-                               final OSGIServiceRegistration<UsagePluginApi> pluginRegistry) {
+                               final OSGIServiceRegistration<UsagePluginApi> pluginRegistry,
+                               final UsageConfig usageConfig) {
         super(pluginRegistry);
         this.rolledUpUsageDao = rolledUpUsageDao;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.usageConfig = usageConfig;
     }
 
     @Override
@@ -102,6 +122,11 @@ public class DefaultUsageUserApi extends BaseUserApi implements UsageUserApi {
             return new DefaultRolledUpUsage(subscriptionId, startDate, endDate, rolledUpAmount);
         }
 
+        if (useDailyUsage(startDate, endDate)) {
+            final List<RolledUpUsageDailyModelDao> dailyUsageForSubscription = getDailyUsageForSubscription(subscriptionId, startDate, endDate, unitType, internalCallContext);
+            return new DefaultRolledUpUsage(subscriptionId, startDate, endDate, getRolledUpUnitsForDailyUsage(dailyUsageForSubscription));
+        }
+
         final List<RolledUpUsageModelDao> usageForSubscription = rolledUpUsageDao.getUsageForSubscription(subscriptionId, startDate, endDate, unitType, internalCallContextFactory.createInternalTenantContext(subscriptionId, ObjectType.SUBSCRIPTION, tenantContext));
         final List<RolledUpUnit> rolledUpAmount = getRolledUpUnits(usageForSubscription);
         return new DefaultRolledUpUsage(subscriptionId, startDate, endDate, rolledUpAmount);
@@ -122,6 +147,9 @@ public class DefaultUsageUserApi extends BaseUserApi implements UsageUserApi {
                 if (rawUsage != null) {
                     final List<RolledUpUnit> rolledUpAmount = getRolledUpUnitsForRawPluginUsage(subscriptionId, null, rawUsage);
                     result.add(new DefaultRolledUpUsage(subscriptionId, prevDate, curDate, rolledUpAmount));
+                } else if (useDailyUsage(prevDate, curDate)) {
+                    final List<RolledUpUsageDailyModelDao> dailyUsageForSubscription = getDailyUsageForSubscription(subscriptionId, prevDate, curDate, null, internalCallContext);
+                    result.add(new DefaultRolledUpUsage(subscriptionId, prevDate, curDate, getRolledUpUnitsForDailyUsage(dailyUsageForSubscription)));
                 } else {
                     final List<RolledUpUsageModelDao> usageForSubscription = rolledUpUsageDao.getAllUsageForSubscription(subscriptionId, prevDate, curDate, internalCallContext);
                     final List<RolledUpUnit> rolledUpAmount = getRolledUpUnits(usageForSubscription);
@@ -167,6 +195,33 @@ public class DefaultUsageUserApi extends BaseUserApi implements UsageUserApi {
                   .collect(Collectors.toUnmodifiableList());
     }
 
+    // The daily rollups can only be used for whole (UTC) days
+    private boolean useDailyUsage(final DateTime startDate, final DateTime endDate) {
+        return usageConfig.isDailyRollupsEnabled() &&
+               startDate.withZone(DateTimeZone.UTC).getMillisOfDay() == 0 &&
+               endDate.withZone(DateTimeZone.UTC).getMillisOfDay() == 0;
+    }
+
+    private List<RolledUpUsageDailyModelDao> getDailyUsageForSubscription(final UUID subscriptionId, final DateTime startDate, final DateTime endDate, @Nullable final String unitType, final InternalTenantContext context) {
+        // The daily rollups are rebuilt from the raw usage before their first use, as usage may have been recorded while they were disabled
+        if (!backfilledSubscriptions.contains(subscriptionId)) {
+            final InternalCallContext backfillContext = internalCallContextFactory.createInternalCallContext(context.getTenantRecordId(), context.getAccountRecordId(), "DailyUsageBackfill", CallOrigin.INTERNAL, UserType.SYSTEM, null);
+            rolledUpUsageDao.backfillDailyUsage(subscriptionId, backfillContext);
+            backfilledSubscriptions.add(subscriptionId);
+        }
+        return rolledUpUsageDao.getDailyUsageForSubscription(subscriptionId, startDate, endDate, unitType, context);
+    }
+
+    private List<RolledUpUnit> getRolledUpUnitsForDailyUsage(final List<RolledUpUsageDailyModelDao> dailyUsageForSubscription) {
+        final Map<String, BigDecimal> tmp = new HashMap<>();
+        for (final RolledUpUsageDailyModelDao cur : dailyUsageForSubscription) {
+            tmp.merge(cur.getUnitType(), cur.getAmount(), BigDecimal::add);
+        }
+        return tmp.entrySet()
+                  .stream().map(e -> new DefaultRolledUpUnit(e.getKey(), e.getValue()))
+                  .collect(Collectors.toUnmodifiableList());
+    }
+
     private boolean recordsWithTrackingIdExist(final SubscriptionUsageRecord record, final InternalCallContext context) {
         return rolledUpUsageDao.recordsWithTrackingIdExist(record.getSubscriptionId(), record.getTrackingId(), context);
     }
@@ -18,33 +18,169 @@
 
 package org.killbill.billing.usage.dao;
 
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDate;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.config.definition.UsageConfig;
 import org.killbill.billing.util.entity.dao.DBRouter;
+import org.killbill.commons.utils.annotation.VisibleForTesting;
+import org.killbill.commons.jdbi.mapper.LowerToCamelBeanMapperFactory;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.TransactionStatus;
+import org.skife.jdbi.v2.exceptions.CallbackFailedException;
+import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static org.killbill.billing.util.glue.IDBISetup.MAIN_RO_IDBI_NAMED;
 
 public class DefaultRolledUpUsageDao implements RolledUpUsageDao {
 
+    private static final Logger log = LoggerFactory.getLogger(DefaultRolledUpUsageDao.class);
+
+    // Consistent ordering of the daily rows updates across concurrent ingestions
+    private static final Comparator<RolledUpUsageDailyModelDao> DAILY_USAGE_COMPARATOR = Comparator.comparing(RolledUpUsageDailyModelDao::getRecordDate)
+                                                                                                  .thenComparing(RolledUpUsageDailyModelDao::getSubscriptionId)
+                                                                                                  .thenComparing(RolledUpUsageDailyModelDao::getUnitType);
+
+    // 23505: unique key violation (H2, PostgreSQL), 40001: deadlock (H2, MySQL) or serialization failure, 40P01: deadlock (PostgreSQL)
+    private static final Set<String> RETRYABLE_SQL_STATES = Set.of("23505", "40001", "40P01");
+    // MySQL reports all integrity constraint violations with SQL state 23000: ER_DUP_ENTRY identifies unique key violations
+    private static final int MYSQL_DUPLICATE_ENTRY_ERROR_CODE = 1062;
+
+    private final IDBI dbi;
     private final DBRouter<RolledUpUsageSqlDao> dbRouter;
+    private final DBRouter<RolledUpUsageDailySqlDao> dailyDbRouter;
+    private final UsageConfig usageConfig;
 
     @Inject
-    public DefaultRolledUpUsageDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi) {
+    public DefaultRolledUpUsageDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final UsageConfig usageConfig) {
+        this.dbi = dbi;
+        this.usageConfig = usageConfig;
         this.dbRouter = new DBRouter<RolledUpUsageSqlDao>(dbi, roDbi, RolledUpUsageSqlDao.class);
+        this.dailyDbRouter = new DBRouter<RolledUpUsageDailySqlDao>(dbi, roDbi, RolledUpUsageDailySqlDao.class);
+        ((DBI) dbi).registerMapper(new LowerToCamelBeanMapperFactory(RolledUpUsageDailyModelDao.class));
+        if (roDbi != dbi) {
+            ((DBI) roDbi).registerMapper(new LowerToCamelBeanMapperFactory(RolledUpUsageDailyModelDao.class));
+        }
     }
 
     @Override
     public void record(final Iterable<RolledUpUsageModelDao> usages, final InternalCallContext context) {
-        dbRouter.onDemand(false).create(usages, context);
+        // The daily rollups are only maintained when used (see backfillDailyUsage)
+        if (!usageConfig.isDailyRollupsEnabled()) {
+            dbRouter.onDemand(false).create(usages, context);
+            return;
+        }
+
+        final List<RolledUpUsageDailyModelDao> dailyUsages = toDailyUsage(usages);
+        // The raw usage and its daily rollups are updated in the same transaction
+        inTransactionWithRetry(new TransactionCallback<Void>() {
+            @Override
+            public Void inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                handle.attach(RolledUpUsageSqlDao.class).create(usages, context);
+
+                final RolledUpUsageDailySqlDao dailySqlDao = handle.attach(RolledUpUsageDailySqlDao.class);
+                for (final RolledUpUsageDailyModelDao dailyUsage : dailyUsages) {
+                    if (dailySqlDao.addToDailyUsage(dailyUsage, context) == 0) {
+                        dailySqlDao.createDailyUsage(dailyUsage, context);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void backfillDailyUsage(final UUID subscriptionId, final InternalCallContext context) {
+        // Rebuild the daily rollups of the subscription from its raw usage (which may have been recorded while the rollups were disabled)
+        inTransactionWithRetry(new TransactionCallback<Void>() {
+            @Override
+            public Void inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                final RolledUpUsageDailySqlDao dailySqlDao = handle.attach(RolledUpUsageDailySqlDao.class);
+                dailySqlDao.deleteDailyUsageForSubscription(subscriptionId, context);
+
+                final Iterator<RolledUpUsageModelDao> rawUsage = handle.attach(RolledUpUsageSqlDao.class).getAllRawUsageForSubscription(subscriptionId, context);
+                for (final RolledUpUsageDailyModelDao dailyUsage : toDailyUsage(() -> rawUsage)) {
+                    dailySqlDao.createDailyUsage(dailyUsage, context);
+                }
+                return null;
+            }
+        });
+    }
+
+    private void inTransactionWithRetry(final TransactionCallback<Void> callback) {
+        try {
+            inTransaction(callback);
+        } catch (final UnableToExecuteStatementException e) {
+            if (!isUniqueKeyOrDeadlockViolation(e)) {
+                throw e;
+            }
+            // Most likely a concurrent ingestion created one of the daily rows first (unique index) or updated them in a different
+            // order: the transaction was rolled back, and the second attempt will update these rows instead
+            log.debug("Retrying daily usage update after failure", e);
+            inTransaction(callback);
+        }
+    }
+
+    @VisibleForTesting
+    static boolean isUniqueKeyOrDeadlockViolation(final Throwable throwable) {
+        for (Throwable cur = throwable; cur != null; cur = cur.getCause()) {
+            // Batch failures (e.g. java.sql.BatchUpdateException) chain the failed statement through getNextException
+            for (SQLException sqlException = cur instanceof SQLException ? (SQLException) cur : null; sqlException != null; sqlException = sqlException.getNextException()) {
+                if ((sqlException.getSQLState() != null && RETRYABLE_SQL_STATES.contains(sqlException.getSQLState())) || sqlException.getErrorCode() == MYSQL_DUPLICATE_ENTRY_ERROR_CODE) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void inTransaction(final TransactionCallback<Void> callback) {
+        try {
+            dbi.inTransaction(callback);
+        } catch (final CallbackFailedException e) {
+            // Surface the statement failure (e.g. duplicate records) as if the DAO had been called outside of a transaction
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static List<RolledUpUsageDailyModelDao> toDailyUsage(final Iterable<RolledUpUsageModelDao> usages) {
+        final Map<List<Object>, RolledUpUsageDailyModelDao> dailyUsages = new LinkedHashMap<>();
+        for (final RolledUpUsageModelDao usage : usages) {
+            final DateTime day = usage.getRecordDate().withZone(DateTimeZone.UTC).withTimeAtStartOfDay();
+            final RolledUpUsageDailyModelDao dailyUsage = dailyUsages.computeIfAbsent(List.of(usage.getSubscriptionId(), usage.getUnitType(), day),
+                                                                                      key -> new RolledUpUsageDailyModelDao(usage.getSubscriptionId(), usage.getUnitType(), day, BigDecimal.ZERO, 0L));
+            dailyUsage.setAmount(dailyUsage.getAmount().add(usage.getAmount()));
+            dailyUsage.setNbRecords(dailyUsage.getNbRecords() + 1);
+        }
+        return dailyUsages.values()
+                          .stream()
+                          .sorted(DAILY_USAGE_COMPARATOR)
+                          .collect(Collectors.toUnmodifiableList());
     }
 
     @Override
@@ -67,4 +203,18 @@ public class DefaultRolledUpUsageDao implements RolledUpUsageDao {
     public List<RolledUpUsageModelDao> getRawUsageForAccount(final DateTime startDate, final DateTime endDate, final InternalTenantContext context) {
         return dbRouter.onDemand(true).getRawUsageForAccount(startDate.toDate(), endDate.toDate(), context);
     }
+
+    @Override
+    public Iterator<RolledUpUsageModelDao> getRawUsageForSubscription(final UUID subscriptionId, final DateTime startDate, final DateTime endDate, final InternalTenantContext context) {
+        return dbRouter.onDemand(true).getRawUsageForSubscription(subscriptionId, startDate.toDate(), endDate.toDate(), context);
+    }
+
+    @Override
+    public List<RolledUpUsageDailyModelDao> getDailyUsageForSubscription(final UUID subscriptionId, final DateTime startDate, final DateTime endDate, @Nullable final String unitType, final InternalTenantContext context) {
+        if (unitType == null) {
+            return dailyDbRouter.onDemand(true).getDailyUsageForSubscription(subscriptionId, startDate.toDate(), endDate.toDate(), context);
+        } else {
+            return dailyDbRouter.onDemand(true).getDailyUsageForSubscriptionAndUnitType(subscriptionId, startDate.toDate(), endDate.toDate(), unitType, context);
+        }
+    }
 }
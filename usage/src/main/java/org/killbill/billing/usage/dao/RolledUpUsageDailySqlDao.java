@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.usage.dao;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.commons.jdbi.binder.SmartBindBean;
+import org.killbill.commons.jdbi.template.KillBillSqlDaoStringTemplate;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.mixins.CloseMe;
+import org.skife.jdbi.v2.sqlobject.mixins.Transactional;
+
+@KillBillSqlDaoStringTemplate
+public interface RolledUpUsageDailySqlDao extends Transactional<RolledUpUsageDailySqlDao>, CloseMe {
+
+    @SqlUpdate
+    public int addToDailyUsage(@SmartBindBean final RolledUpUsageDailyModelDao dailyUsage,
+                               @SmartBindBean final InternalCallContext context);
+
+    @SqlUpdate
+    public void createDailyUsage(@SmartBindBean final RolledUpUsageDailyModelDao dailyUsage,
+                                 @SmartBindBean final InternalCallContext context);
+
+    @SqlUpdate
+    public void deleteDailyUsageForSubscription(@Bind("subscriptionId") final UUID subscriptionId,
+                                                @SmartBindBean final InternalCallContext context);
+
+    @SqlQuery
+    public List<RolledUpUsageDailyModelDao> getDailyUsageForSubscription(@Bind("subscriptionId") final UUID subscriptionId,
+                                                                         @Bind("startDate") final Date startDate,
+                                                                         @Bind("endDate") final Date endDate,
+                                                                         @SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<RolledUpUsageDailyModelDao> getDailyUsageForSubscriptionAndUnitType(@Bind("subscriptionId") final UUID subscriptionId,
+                                                                                    @Bind("startDate") final Date startDate,
+                                                                                    @Bind("endDate") final Date endDate,
+                                                                                    @Bind("unitType") final String unitType,
+                                                                                    @SmartBindBean final InternalTenantContext context);
+}
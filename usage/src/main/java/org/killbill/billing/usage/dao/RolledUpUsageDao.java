@@ -16,9 +16,12 @@
 
 package org.killbill.billing.usage.dao;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
 import org.joda.time.DateTime;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
@@ -34,4 +37,13 @@ public interface RolledUpUsageDao {
     List<RolledUpUsageModelDao> getAllUsageForSubscription(UUID subscriptionId, DateTime startDate, DateTime endDate, InternalTenantContext context);
 
     List<RolledUpUsageModelDao> getRawUsageForAccount(DateTime startDate, DateTime endDate, InternalTenantContext context);
+
+    // Streamed: the iterator must be exhausted or closed to release the connection
+    Iterator<RolledUpUsageModelDao> getRawUsageForSubscription(UUID subscriptionId, DateTime startDate, DateTime endDate, InternalTenantContext context);
+
+    // Daily rollups of the raw usage, for whole (UTC) days: startDate and endDate are expected to be at the start of a day
+    List<RolledUpUsageDailyModelDao> getDailyUsageForSubscription(UUID subscriptionId, DateTime startDate, DateTime endDate, @Nullable String unitType, InternalTenantContext context);
+
+    // Rebuild the daily rollups of the subscription from its raw usage
+    void backfillDailyUsage(UUID subscriptionId, InternalCallContext context);
 }
@@ -27,7 +27,9 @@ import org.killbill.billing.usage.api.user.DefaultUsageUserApi;
 import org.killbill.billing.usage.dao.DefaultRolledUpUsageDao;
 import org.killbill.billing.usage.dao.RolledUpUsageDao;
 import org.killbill.billing.usage.plugin.api.UsagePluginApi;
+import org.killbill.billing.util.config.definition.UsageConfig;
 import org.killbill.billing.util.glue.KillBillModule;
+import org.skife.config.ConfigurationObjectFactory;
 
 import com.google.inject.TypeLiteral;
 
@@ -37,6 +39,10 @@ public class UsageModule extends KillBillModule {
         super(configSource);
     }
 
+    protected void installConfig() {
+        bind(UsageConfig.class).toInstance(new ConfigurationObjectFactory(skifeConfigSource).build(UsageConfig.class));
+    }
+
     protected void installRolledUpUsageDao() {
         bind(RolledUpUsageDao.class).to(DefaultRolledUpUsageDao.class).asEagerSingleton();
     }
@@ -57,6 +63,7 @@ public class UsageModule extends KillBillModule {
 
     @Override
     protected void configure() {
+        installConfig();
         installRolledUpUsageDao();
         installUsageUserApi();
         installInternalUserApi();
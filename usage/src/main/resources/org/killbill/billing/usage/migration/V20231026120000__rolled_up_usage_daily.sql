@@ -0,0 +1,15 @@
+create table rolled_up_usage_daily (
+    record_id serial unique,
+    subscription_id varchar(36) NOT NULL,
+    unit_type varchar(255) NOT NULL,
+    record_date datetime NOT NULL,
+    amount decimal(27, 9) NOT NULL,
+    nb_records bigint NOT NULL,
+    created_date datetime NOT NULL,
+    updated_date datetime NOT NULL,
+    account_record_id bigint /*! unsigned */ not null,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+create unique index rolled_up_usage_daily_subscription_id_record_date on rolled_up_usage_daily(subscription_id, record_date, unit_type, tenant_record_id);
+create index rolled_up_usage_daily_tenant_account_record_id on rolled_up_usage_daily(tenant_record_id, account_record_id);
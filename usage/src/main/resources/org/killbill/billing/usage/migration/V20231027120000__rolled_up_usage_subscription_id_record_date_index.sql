@@ -0,0 +1 @@
+create index rolled_up_usage_subscription_id_record_date on rolled_up_usage(subscription_id, record_date, unit_type);
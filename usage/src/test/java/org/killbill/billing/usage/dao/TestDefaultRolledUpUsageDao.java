@@ -18,7 +18,10 @@
 package org.killbill.billing.usage.dao;
 
 import java.math.BigDecimal;
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
@@ -27,10 +30,13 @@ import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDate;
 import org.killbill.billing.usage.UsageTestSuiteWithEmbeddedDB;
 import org.killbill.billing.util.UUIDs;
+import org.skife.jdbi.v2.StatementContext;
 import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 public class TestDefaultRolledUpUsageDao extends UsageTestSuiteWithEmbeddedDB {
@@ -194,4 +200,94 @@ public class TestDefaultRolledUpUsageDao extends UsageTestSuiteWithEmbeddedDB {
         assertEquals(rolledUpUsageDao.recordsWithTrackingIdExist(subscriptionId, trackingId, internalCallContext),
                      Boolean.TRUE);
     }
-}
\ No newline at end of file
+
+    @Test(groups = "slow")
+    public void testStreamRawUsageForSubscription() {
+        final UUID subscriptionId = UUIDs.randomUUID();
+        final UUID otherSubscriptionId = UUIDs.randomUUID();
+        final DateTime startDate = new LocalDate(2013, 1, 1).toDateTimeAtStartOfDay(DateTimeZone.UTC);
+        final DateTime endDate = new LocalDate(2013, 2, 1).toDateTimeAtStartOfDay(DateTimeZone.UTC);
+
+        final List<RolledUpUsageModelDao> usages = new ArrayList<RolledUpUsageModelDao>();
+        // Recorded out of order
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "foo", startDate.plusDays(2), BigDecimal.valueOf(3L), UUIDs.randomUUID().toString()));
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "foo", startDate, BigDecimal.valueOf(2L), UUIDs.randomUUID().toString()));
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "bar", startDate, BigDecimal.valueOf(1L), UUIDs.randomUUID().toString()));
+        // Included, usage reported on the end date (e.g. cancellation day)
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "foo", endDate, BigDecimal.valueOf(4L), UUIDs.randomUUID().toString()));
+        // Excluded
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "foo", startDate.minusDays(1), BigDecimal.valueOf(100L), UUIDs.randomUUID().toString()));
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "foo", endDate.plusDays(1), BigDecimal.valueOf(100L), UUIDs.randomUUID().toString()));
+        usages.add(new RolledUpUsageModelDao(otherSubscriptionId, "foo", startDate.plusDays(1), BigDecimal.valueOf(100L), UUIDs.randomUUID().toString()));
+        rolledUpUsageDao.record(usages, internalCallContext);
+
+        final List<RolledUpUsageModelDao> result = new ArrayList<RolledUpUsageModelDao>();
+        final Iterator<RolledUpUsageModelDao> iterator = rolledUpUsageDao.getRawUsageForSubscription(subscriptionId, startDate, endDate, internalCallContext);
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+
+        // Ordered by date and unit type
+        assertEquals(result.size(), 4);
+        assertEquals(result.get(0).getUnitType(), "bar");
+        assertEquals(result.get(0).getAmount().compareTo(BigDecimal.valueOf(1L)), 0);
+        assertEquals(result.get(1).getUnitType(), "foo");
+        assertEquals(result.get(1).getAmount().compareTo(BigDecimal.valueOf(2L)), 0);
+        assertEquals(result.get(2).getRecordDate().compareTo(startDate.plusDays(2)), 0);
+        assertEquals(result.get(3).getRecordDate().compareTo(endDate), 0);
+        for (final RolledUpUsageModelDao usage : result) {
+            assertEquals(usage.getSubscriptionId(), subscriptionId);
+        }
+    }
+
+    @Test(groups = "slow")
+    public void testDailyUsageNotMaintainedWhenDisabled() {
+        final UUID subscriptionId = UUIDs.randomUUID();
+        final DateTime day1 = new LocalDate(2013, 1, 1).toDateTimeAtStartOfDay(DateTimeZone.UTC);
+        final DateTime day2 = day1.plusDays(1);
+
+        final List<RolledUpUsageModelDao> usages = new ArrayList<RolledUpUsageModelDao>();
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "foo", day1.plusHours(1), BigDecimal.valueOf(1L), UUIDs.randomUUID().toString()));
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "foo", day1.plusHours(23), BigDecimal.valueOf(2L), UUIDs.randomUUID().toString()));
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "bar", day1, BigDecimal.valueOf(5L), UUIDs.randomUUID().toString()));
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "foo", day2, BigDecimal.valueOf(7L), UUIDs.randomUUID().toString()));
+        rolledUpUsageDao.record(usages, internalCallContext);
+
+        // Only the raw usage is recorded
+        assertEquals(rolledUpUsageDao.getUsageForSubscription(subscriptionId, day1, day2.plusDays(1), "foo", internalCallContext).size(), 3);
+        assertTrue(rolledUpUsageDao.getDailyUsageForSubscription(subscriptionId, day1, day2.plusDays(1), null, internalCallContext).isEmpty());
+
+        // The daily rollups can be rebuilt from the raw usage
+        rolledUpUsageDao.backfillDailyUsage(subscriptionId, internalCallContext);
+        final List<RolledUpUsageDailyModelDao> dailyUsage = rolledUpUsageDao.getDailyUsageForSubscription(subscriptionId, day1, day2.plusDays(1), null, internalCallContext);
+        assertEquals(dailyUsage.size(), 3);
+        assertEquals(dailyUsage.get(0).getUnitType(), "bar");
+        assertEquals(dailyUsage.get(0).getAmount().compareTo(BigDecimal.valueOf(5L)), 0);
+        assertEquals(dailyUsage.get(1).getUnitType(), "foo");
+        assertEquals(dailyUsage.get(1).getRecordDate().compareTo(day1), 0);
+        assertEquals(dailyUsage.get(1).getAmount().compareTo(BigDecimal.valueOf(3L)), 0);
+        assertEquals(dailyUsage.get(1).getNbRecords(), (Long) 2L);
+        assertEquals(dailyUsage.get(2).getRecordDate().compareTo(day2), 0);
+        assertEquals(dailyUsage.get(2).getAmount().compareTo(BigDecimal.valueOf(7L)), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testRetryableRecordingFailures() {
+        // Unique key violations and deadlocks
+        assertTrue(DefaultRolledUpUsageDao.isUniqueKeyOrDeadlockViolation(new UnableToExecuteStatementException(new SQLException("duplicate", "23505"), null)));
+        assertTrue(DefaultRolledUpUsageDao.isUniqueKeyOrDeadlockViolation(new UnableToExecuteStatementException(new SQLException("duplicate", "23000", 1062), null)));
+        assertTrue(DefaultRolledUpUsageDao.isUniqueKeyOrDeadlockViolation(new UnableToExecuteStatementException(new SQLException("deadlock", "40001", 1213), null)));
+        assertTrue(DefaultRolledUpUsageDao.isUniqueKeyOrDeadlockViolation(new UnableToExecuteStatementException(new SQLException("deadlock", "40P01"), null)));
+
+        final BatchUpdateException batchUpdateException = new BatchUpdateException(new int[0]);
+        batchUpdateException.setNextException(new SQLException("duplicate", "23505"));
+        assertTrue(DefaultRolledUpUsageDao.isUniqueKeyOrDeadlockViolation(new UnableToExecuteStatementException(batchUpdateException, null)));
+
+        // Anything else is not retried
+        assertFalse(DefaultRolledUpUsageDao.isUniqueKeyOrDeadlockViolation(new UnableToExecuteStatementException(new SQLException("not null", "23502"), null)));
+        assertFalse(DefaultRolledUpUsageDao.isUniqueKeyOrDeadlockViolation(new UnableToExecuteStatementException(new SQLException("foreign key", "23000", 1452), null)));
+        assertFalse(DefaultRolledUpUsageDao.isUniqueKeyOrDeadlockViolation(new UnableToExecuteStatementException(new SQLException("syntax", "42000"), null)));
+        assertFalse(DefaultRolledUpUsageDao.isUniqueKeyOrDeadlockViolation(new UnableToExecuteStatementException("no cause", (StatementContext) null)));
+    }
+}
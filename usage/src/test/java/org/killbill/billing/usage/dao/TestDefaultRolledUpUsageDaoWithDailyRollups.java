@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.usage.dao;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.usage.UsageTestSuiteWithEmbeddedDB;
+import org.killbill.billing.util.UUIDs;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestDefaultRolledUpUsageDaoWithDailyRollups extends UsageTestSuiteWithEmbeddedDB {
+
+    @Override
+    protected KillbillConfigSource getConfigSource(final Map<String, String> extraProperties) {
+        final Map<String, String> allExtraProperties = new HashMap<String, String>(extraProperties);
+        allExtraProperties.put("org.killbill.usage.dailyRollups.enabled", "true");
+        return getConfigSource(null, allExtraProperties);
+    }
+
+    @Test(groups = "slow")
+    public void testDailyUsage() {
+        final UUID subscriptionId = UUIDs.randomUUID();
+        final DateTime day1 = new LocalDate(2013, 1, 1).toDateTimeAtStartOfDay(DateTimeZone.UTC);
+        final DateTime day2 = day1.plusDays(1);
+
+        final List<RolledUpUsageModelDao> usages = new ArrayList<RolledUpUsageModelDao>();
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "foo", day1.plusHours(1), BigDecimal.valueOf(1L), UUIDs.randomUUID().toString()));
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "foo", day1.plusHours(23), BigDecimal.valueOf(2L), UUIDs.randomUUID().toString()));
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "bar", day1, BigDecimal.valueOf(5L), UUIDs.randomUUID().toString()));
+        usages.add(new RolledUpUsageModelDao(subscriptionId, "foo", day2, BigDecimal.valueOf(7L), UUIDs.randomUUID().toString()));
+        rolledUpUsageDao.record(usages, internalCallContext);
+
+        // Subsequent ingestion for an existing day
+        final List<RolledUpUsageModelDao> moreUsages = new ArrayList<RolledUpUsageModelDao>();
+        moreUsages.add(new RolledUpUsageModelDao(subscriptionId, "foo", day1.plusHours(12), BigDecimal.valueOf(4L), UUIDs.randomUUID().toString()));
+        rolledUpUsageDao.record(moreUsages, internalCallContext);
+
+        final List<RolledUpUsageDailyModelDao> dailyUsage = rolledUpUsageDao.getDailyUsageForSubscription(subscriptionId, day1, day2.plusDays(1), null, internalCallContext);
+        checkDailyUsage(dailyUsage, day1, day2);
+
+        // Same totals as the raw usage
+        final List<RolledUpUsageDailyModelDao> dailyUsageForUnitType = rolledUpUsageDao.getDailyUsageForSubscription(subscriptionId, day1, day2, "foo", internalCallContext);
+        assertEquals(dailyUsageForUnitType.size(), 1);
+        BigDecimal rawAmount = BigDecimal.ZERO;
+        for (final RolledUpUsageModelDao usage : rolledUpUsageDao.getUsageForSubscription(subscriptionId, day1, day2, "foo", internalCallContext)) {
+            rawAmount = rawAmount.add(usage.getAmount());
+        }
+        assertEquals(dailyUsageForUnitType.get(0).getAmount().compareTo(rawAmount), 0);
+
+        // Rebuilding the rollups doesn't change them
+        rolledUpUsageDao.backfillDailyUsage(subscriptionId, internalCallContext);
+        checkDailyUsage(rolledUpUsageDao.getDailyUsageForSubscription(subscriptionId, day1, day2.plusDays(1), null, internalCallContext), day1, day2);
+    }
+
+    private void checkDailyUsage(final List<RolledUpUsageDailyModelDao> dailyUsage, final DateTime day1, final DateTime day2) {
+        assertEquals(dailyUsage.size(), 3);
+        assertEquals(dailyUsage.get(0).getUnitType(), "bar");
+        assertEquals(dailyUsage.get(0).getAmount().compareTo(BigDecimal.valueOf(5L)), 0);
+        assertEquals(dailyUsage.get(1).getUnitType(), "foo");
+        assertEquals(dailyUsage.get(1).getRecordDate().compareTo(day1), 0);
+        assertEquals(dailyUsage.get(1).getAmount().compareTo(BigDecimal.valueOf(7L)), 0);
+        assertEquals(dailyUsage.get(1).getNbRecords(), (Long) 3L);
+        assertEquals(dailyUsage.get(2).getRecordDate().compareTo(day2), 0);
+        assertEquals(dailyUsage.get(2).getAmount().compareTo(BigDecimal.valueOf(7L)), 0);
+    }
+}
@@ -33,7 +33,7 @@ public abstract class AccountDateTimeUtils {
         return getFixedOffsetTimeZone(account.getTimeZone(), account.getReferenceTime());
     }
 
-    private static DateTimeZone getFixedOffsetTimeZone(final DateTimeZone referenceDateTimeZone, final DateTime referenceDateTime) {
+    public static DateTimeZone getFixedOffsetTimeZone(final DateTimeZone referenceDateTimeZone, final DateTime referenceDateTime) {
         // Check if DST was in effect at the reference date time
         final boolean shouldUseDST = !referenceDateTimeZone.isStandardOffset(referenceDateTime.getMillis());
         if (shouldUseDST) {
@@ -18,10 +18,17 @@
 
 package org.killbill.billing.util.audit.dao;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -41,7 +48,6 @@ import org.killbill.billing.util.audit.DefaultAuditLog;
 import org.killbill.billing.util.audit.DefaultAuditLogWithHistory;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
-import org.killbill.commons.utils.collect.Iterators;
 import org.killbill.billing.util.dao.EntityHistoryModelDao;
 import org.killbill.billing.util.dao.HistorySqlDao;
 import org.killbill.billing.util.dao.NonEntityDao;
@@ -52,19 +58,30 @@ import org.killbill.billing.util.entity.dao.DBRouter;
 import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.clock.Clock;
+import org.killbill.commons.utils.annotation.VisibleForTesting;
 import org.skife.jdbi.v2.IDBI;
 
 import static org.killbill.billing.util.glue.IDBISetup.MAIN_RO_IDBI_NAMED;
 
 public class DefaultAuditDao implements AuditDao {
 
+    // Number of audit logs for which the audited entity ids are resolved at once
+    private static final int ID_RESOLUTION_CHUNK_SIZE = 1000;
+
     private final DBRouter<NonEntitySqlDao> dbRouter;
     private final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao;
+    private final int idResolutionChunkSize;
 
     @Inject
     public DefaultAuditDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory) {
+        this(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, ID_RESOLUTION_CHUNK_SIZE);
+    }
+
+    @VisibleForTesting
+    DefaultAuditDao(final IDBI dbi, final IDBI roDbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final int idResolutionChunkSize) {
         this.dbRouter = new DBRouter<NonEntitySqlDao>(dbi, roDbi, NonEntitySqlDao.class);
         this.transactionalSqlDao = new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory);
+        this.idResolutionChunkSize = idResolutionChunkSize;
     }
 
     @Override
@@ -101,40 +118,66 @@ public class DefaultAuditDao implements AuditDao {
     }
 
     private Iterator<AuditLog> buildAuditLogsFromModelDao(final Iterator<AuditLogModelDao> auditLogsForAccountRecordId, final InternalTenantContext tenantContext) {
-        final Map<TableName, Map<Long, UUID>> recordIdIdsCache = new HashMap<>();
-        final Map<TableName, Map<Long, UUID>> historyRecordIdIdsCache = new HashMap<>();
-        return Iterators.transform(auditLogsForAccountRecordId, input -> {
-            final TableName originalTableNameForHistoryTableName = findTableNameForHistoryTableName(input.getTableName());
-            final NonEntitySqlDao nonEntitySqlDao = dbRouter.onDemand(true);
-            final ObjectType objectType;
-            final UUID auditedEntityId;
-            if (originalTableNameForHistoryTableName != null) {
-                // input point to a history entry
-                objectType = originalTableNameForHistoryTableName.getObjectType();
-
-                if (historyRecordIdIdsCache.get(originalTableNameForHistoryTableName) == null) {
-                    if (TableName.ACCOUNT.equals(originalTableNameForHistoryTableName)) {
-                        final Iterable<RecordIdIdMappings> mappings = nonEntitySqlDao.getHistoryRecordIdIdMappingsForAccountsTable(originalTableNameForHistoryTableName.getTableName(), input.getTableName().getTableName(), tenantContext);
-                        historyRecordIdIdsCache.put(originalTableNameForHistoryTableName, RecordIdIdMappings.toMap(mappings));
-                    } else if (TableName.TAG_DEFINITIONS.equals(originalTableNameForHistoryTableName)) {
-                        final Iterable<RecordIdIdMappings> mappings = nonEntitySqlDao.getHistoryRecordIdIdMappingsForTablesWithoutAccountRecordId(originalTableNameForHistoryTableName.getTableName(), input.getTableName().getTableName(), tenantContext);
-                        historyRecordIdIdsCache.put(originalTableNameForHistoryTableName, RecordIdIdMappings.toMap(mappings));
-                    } else {
-                        final Iterable<RecordIdIdMappings> mappings = nonEntitySqlDao.getHistoryRecordIdIdMappings(originalTableNameForHistoryTableName.getTableName(), input.getTableName().getTableName(), tenantContext);
-                        historyRecordIdIdsCache.put(originalTableNameForHistoryTableName, RecordIdIdMappings.toMap(mappings));
+        // Audited entity ids are resolved chunk by chunk, for the record ids being emitted only: memory stays bounded,
+        // regardless of the size of the account history
+        return new Iterator<AuditLog>() {
+
+            private final Deque<AuditLog> resolvedAuditLogs = new ArrayDeque<AuditLog>();
+
+            @Override
+            public boolean hasNext() {
+                if (resolvedAuditLogs.isEmpty() && auditLogsForAccountRecordId.hasNext()) {
+                    final List<AuditLogModelDao> chunk = new ArrayList<AuditLogModelDao>(idResolutionChunkSize);
+                    while (auditLogsForAccountRecordId.hasNext() && chunk.size() < idResolutionChunkSize) {
+                        chunk.add(auditLogsForAccountRecordId.next());
                     }
+                    resolvedAuditLogs.addAll(buildAuditLogsFromModelDao(chunk, tenantContext));
                 }
-                auditedEntityId = historyRecordIdIdsCache.get(originalTableNameForHistoryTableName).get(input.getTargetRecordId());
-            } else {
-                objectType = input.getTableName().getObjectType();
-                if (recordIdIdsCache.get(input.getTableName()) == null) {
-                    final Iterable<RecordIdIdMappings> mappings = nonEntitySqlDao.getRecordIdIdMappings(input.getTableName().getTableName(), tenantContext);
-                    recordIdIdsCache.put(input.getTableName(), RecordIdIdMappings.toMap(mappings));
+                return !resolvedAuditLogs.isEmpty();
+            }
+
+            @Override
+            public AuditLog next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
                 }
-                auditedEntityId = recordIdIdsCache.get(input.getTableName()).get(input.getTargetRecordId());
+                return resolvedAuditLogs.poll();
             }
-            return new DefaultAuditLog(input, objectType, auditedEntityId);
-        });
+        };
+    }
+
+    private List<AuditLog> buildAuditLogsFromModelDao(final List<AuditLogModelDao> auditLogs, final InternalTenantContext tenantContext) {
+        // Table name here is either the entity table or its history table
+        final Map<TableName, Set<Long>> targetRecordIdsPerTableName = new HashMap<TableName, Set<Long>>();
+        for (final AuditLogModelDao input : auditLogs) {
+            if (input.getTargetRecordId() != null) {
+                targetRecordIdsPerTableName.computeIfAbsent(input.getTableName(), k -> new HashSet<Long>()).add(input.getTargetRecordId());
+            }
+        }
+
+        final NonEntitySqlDao nonEntitySqlDao = dbRouter.onDemand(true);
+        final Map<TableName, Map<Long, UUID>> idsPerTableName = new HashMap<TableName, Map<Long, UUID>>();
+        for (final Entry<TableName, Set<Long>> entry : targetRecordIdsPerTableName.entrySet()) {
+            final TableName originalTableNameForHistoryTableName = findTableNameForHistoryTableName(entry.getKey());
+            final Iterable<RecordIdIdMappings> mappings;
+            if (originalTableNameForHistoryTableName != null) {
+                // Entries point to history rows
+                mappings = nonEntitySqlDao.getHistoryRecordIdIdMappingsForHistoryRecordIds(originalTableNameForHistoryTableName.getTableName(), entry.getKey().getTableName(), entry.getValue(), tenantContext);
+            } else {
+                mappings = nonEntitySqlDao.getRecordIdIdMappingsForRecordIds(entry.getKey().getTableName(), entry.getValue(), tenantContext);
+            }
+            idsPerTableName.put(entry.getKey(), RecordIdIdMappings.toMap(mappings));
+        }
+
+        final List<AuditLog> result = new ArrayList<AuditLog>(auditLogs.size());
+        for (final AuditLogModelDao input : auditLogs) {
+            final TableName originalTableNameForHistoryTableName = findTableNameForHistoryTableName(input.getTableName());
+            final ObjectType objectType = originalTableNameForHistoryTableName != null ? originalTableNameForHistoryTableName.getObjectType() : input.getTableName().getObjectType();
+            final Map<Long, UUID> ids = idsPerTableName.get(input.getTableName());
+            final UUID auditedEntityId = ids == null ? null : ids.get(input.getTargetRecordId());
+            result.add(new DefaultAuditLog(input, objectType, auditedEntityId));
+        }
+        return result;
     }
 
     private TableName findTableNameForHistoryTableName(final TableName historyTableName) {
@@ -29,6 +29,9 @@ public interface CacheController<K, V> {
 
     V get(K key, CacheLoaderArgument objectType);
 
+    // Cached value, null if absent (the cache loader isn't invoked)
+    V getIfPresent(K key);
+
     boolean remove(K key);
 
     void remove(Function<K, Boolean> keyMatcher);
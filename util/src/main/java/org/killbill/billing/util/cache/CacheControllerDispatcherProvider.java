@@ -28,6 +28,9 @@ import javax.cache.CacheManager;
 import javax.inject.Inject;
 import javax.inject.Provider;
 
+import org.killbill.clock.Clock;
+import org.killbill.commons.metrics.api.Gauge;
+import org.killbill.commons.metrics.api.MetricRegistry;
 import org.killbill.commons.utils.Preconditions;
 import org.killbill.billing.util.cache.Cachable.CacheType;
 import org.killbill.billing.util.config.definition.CacheConfig;
@@ -42,14 +45,20 @@ public class CacheControllerDispatcherProvider implements Provider<CacheControll
     private final CacheManager cacheManager;
     private final Set<BaseCacheLoader> cacheLoaders;
     private final CacheConfig cacheConfig;
+    private final MetricRegistry metricRegistry;
+    private final Clock clock;
 
     @Inject
     public CacheControllerDispatcherProvider(final CacheManager cacheManager,
                                              final Set<BaseCacheLoader> cacheLoaders,
-                                             final CacheConfig cacheConfig) {
+                                             final CacheConfig cacheConfig,
+                                             final MetricRegistry metricRegistry,
+                                             final Clock clock) {
         this.cacheManager = cacheManager;
         this.cacheLoaders = cacheLoaders;
         this.cacheConfig = cacheConfig;
+        this.metricRegistry = metricRegistry;
+        this.clock = clock;
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
@@ -71,7 +80,7 @@ public class CacheControllerDispatcherProvider implements Provider<CacheControll
                 }
                 Preconditions.checkState(!cache.isClosed(), "Cache '%s' should not be closed", cacheType.getCacheName());
 
-                cacheController = new KillBillCacheController<Object, Object>(cache, cacheLoader);
+                cacheController = withNearCache(new KillBillCacheController<Object, Object>(cache, cacheLoader));
             }
 
             cacheControllers.put(cacheType, cacheController);
@@ -79,4 +88,38 @@ public class CacheControllerDispatcherProvider implements Provider<CacheControll
 
         return new CacheControllerDispatcher(cacheControllers);
     }
+
+    private CacheController<Object, Object> withNearCache(final CacheController<Object, Object> cacheController) {
+        final CacheType cacheType = cacheController.getCacheType();
+        final long timeToLiveMillis = cacheType.isImmutable() ? 0 : cacheConfig.getNearCacheTimeToLive().getMillis();
+        if (!cacheConfig.isNearCacheEnabled() || (!cacheType.isImmutable() && timeToLiveMillis <= 0)) {
+            return cacheController;
+        }
+
+        logger.info("Enabling near cache for cacheName='{}', timeToLiveMillis='{}'", cacheType.getCacheName(), timeToLiveMillis);
+        final NearCacheController<Object, Object> nearCacheController = new NearCacheController<Object, Object>(cacheController, cacheConfig.getNearCacheMaxEntries(), timeToLiveMillis, clock);
+
+        // L2 metrics are exposed by the JCache provider (see CacheProviderBase)
+        final String prefix = "kb.cache." + cacheType.getCacheName() + ".near-cache-";
+        metricRegistry.gauge(prefix + "hits", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return nearCacheController.getNbHits();
+            }
+        });
+        metricRegistry.gauge(prefix + "misses", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return nearCacheController.getNbMisses();
+            }
+        });
+        metricRegistry.gauge(prefix + "size", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return nearCacheController.getNearCacheSize();
+            }
+        });
+
+        return nearCacheController;
+    }
 }
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ning.compress.lzf.LZFDecoder;
+import com.ning.compress.lzf.LZFEncoder;
+
+//
+// Compact binary encoding of the cached keys and values (see CacheType), used by distributed cache providers (see CompactCacheCodec):
+// - keys and simple values (record ids, object ids, tenant KV values, ...) are encoded natively, without any Java serialization overhead
+// - Externalizable values (catalogs, per tenant configs, immutable account data, ...) are written using their own externalized form,
+//   prefixed by their class name (no Java serialization class descriptor for the value itself)
+// - all other values are Java serialized
+//
+// Encoded values larger than the compression threshold are LZF compressed.
+//
+// Format: one header byte (type, compression flag) followed by the (potentially compressed) payload.
+//
+public class CacheValueSerializer {
+
+    private static final byte TYPE_JAVA = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_INTEGER = 3;
+    private static final byte TYPE_UUID = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_EXTERNALIZABLE = 6;
+
+    private static final int COMPRESSED_FLAG = 0x80;
+    private static final int TYPE_MASK = 0x7F;
+
+    private final ClassLoader classLoader;
+    // Negative to disable compression
+    private final int compressionThreshold;
+
+    private final AtomicLong nbSerializations;
+    private final AtomicLong nbDeserializations;
+    private final AtomicLong nbCompressions;
+    private final AtomicLong serializedBytes;
+    private final AtomicLong uncompressedBytes;
+    private final AtomicLong serializationTimeNanos;
+    private final AtomicLong deserializationTimeNanos;
+
+    public CacheValueSerializer(final ClassLoader classLoader, final int compressionThreshold) {
+        this.classLoader = classLoader;
+        this.compressionThreshold = compressionThreshold;
+        this.nbSerializations = new AtomicLong();
+        this.nbDeserializations = new AtomicLong();
+        this.nbCompressions = new AtomicLong();
+        this.serializedBytes = new AtomicLong();
+        this.uncompressedBytes = new AtomicLong();
+        this.serializationTimeNanos = new AtomicLong();
+        this.deserializationTimeNanos = new AtomicLong();
+    }
+
+    // Same configuration and statistics, different class loader
+    private CacheValueSerializer(final ClassLoader classLoader, final CacheValueSerializer serializer) {
+        this.classLoader = classLoader;
+        this.compressionThreshold = serializer.compressionThreshold;
+        this.nbSerializations = serializer.nbSerializations;
+        this.nbDeserializations = serializer.nbDeserializations;
+        this.nbCompressions = serializer.nbCompressions;
+        this.serializedBytes = serializer.serializedBytes;
+        this.uncompressedBytes = serializer.uncompressedBytes;
+        this.serializationTimeNanos = serializer.serializationTimeNanos;
+        this.deserializationTimeNanos = serializer.deserializationTimeNanos;
+    }
+
+    public CacheValueSerializer withClassLoader(final ClassLoader classLoader) {
+        return new CacheValueSerializer(classLoader, this);
+    }
+
+    public byte[] serialize(final Object value) throws IOException {
+        final long startNanos = System.nanoTime();
+
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        final byte type = writePayload(value, new DataOutputStream(payload));
+        final byte[] uncompressed = payload.toByteArray();
+
+        byte[] encoded = uncompressed;
+        int header = type;
+        if (compressionThreshold >= 0 && uncompressed.length > compressionThreshold) {
+            final byte[] compressed = LZFEncoder.encode(uncompressed);
+            if (compressed.length < uncompressed.length) {
+                encoded = compressed;
+                header |= COMPRESSED_FLAG;
+                nbCompressions.incrementAndGet();
+            }
+        }
+
+        final byte[] result = new byte[encoded.length + 1];
+        result[0] = (byte) header;
+        System.arraycopy(encoded, 0, result, 1, encoded.length);
+
+        nbSerializations.incrementAndGet();
+        uncompressedBytes.addAndGet(uncompressed.length + 1);
+        serializedBytes.addAndGet(result.length);
+        serializationTimeNanos.addAndGet(System.nanoTime() - startNanos);
+
+        return result;
+    }
+
+    public Object deserialize(final byte[] bytes) throws IOException {
+        final long startNanos = System.nanoTime();
+
+        final int header = bytes[0] & 0xFF;
+        final byte[] payload;
+        if ((header & COMPRESSED_FLAG) != 0) {
+            payload = LZFDecoder.decode(bytes, 1, bytes.length - 1);
+        } else {
+            payload = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, payload, 0, payload.length);
+        }
+
+        final Object value = readPayload((byte) (header & TYPE_MASK), new DataInputStream(new ByteArrayInputStream(payload)));
+
+        nbDeserializations.incrementAndGet();
+        deserializationTimeNanos.addAndGet(System.nanoTime() - startNanos);
+
+        return value;
+    }
+
+    private byte writePayload(final Object value, final DataOutputStream out) throws IOException {
+        final byte type;
+        if (value instanceof String) {
+            type = TYPE_STRING;
+            // Not writeUTF, as values (e.g. catalogs stored in the tenant KV) can be larger than 64KB
+            final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof Long) {
+            type = TYPE_LONG;
+            out.writeLong((Long) value);
+        } else if (value instanceof Integer) {
+            type = TYPE_INTEGER;
+            out.writeInt((Integer) value);
+        } else if (value instanceof UUID) {
+            type = TYPE_UUID;
+            out.writeLong(((UUID) value).getMostSignificantBits());
+            out.writeLong(((UUID) value).getLeastSignificantBits());
+        } else if (value instanceof Boolean) {
+            type = TYPE_BOOLEAN;
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Externalizable) {
+            type = TYPE_EXTERNALIZABLE;
+            out.writeUTF(value.getClass().getName());
+            final ObjectOutputStream oos = new ObjectOutputStream(out);
+            ((Externalizable) value).writeExternal(oos);
+            oos.flush();
+        } else if (value == null || value instanceof Serializable) {
+            type = TYPE_JAVA;
+            final ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(value);
+            oos.flush();
+        } else {
+            throw new IOException("Unable to serialize value of type " + value.getClass().getName());
+        }
+        out.flush();
+        return type;
+    }
+
+    private Object readPayload(final byte type, final DataInputStream in) throws IOException {
+        switch (type) {
+            case TYPE_STRING:
+                final byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_INTEGER:
+                return in.readInt();
+            case TYPE_UUID:
+                return new UUID(in.readLong(), in.readLong());
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_EXTERNALIZABLE:
+                final String className = in.readUTF();
+                try {
+                    final Externalizable value = (Externalizable) Class.forName(className, true, classLoader).getDeclaredConstructor().newInstance();
+                    value.readExternal(new ClassLoaderObjectInputStream(in, classLoader));
+                    return value;
+                } catch (final ReflectiveOperationException e) {
+                    throw new IOException("Unable to deserialize value of type " + className, e);
+                }
+            case TYPE_JAVA:
+                try {
+                    return new ClassLoaderObjectInputStream(in, classLoader).readObject();
+                } catch (final ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            default:
+                throw new IOException("Unknown cached value type " + type);
+        }
+    }
+
+    public long getNbSerializations() {
+        return nbSerializations.get();
+    }
+
+    public long getNbDeserializations() {
+        return nbDeserializations.get();
+    }
+
+    public long getNbCompressions() {
+        return nbCompressions.get();
+    }
+
+    public long getSerializedBytes() {
+        return serializedBytes.get();
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    public long getSerializationTimeNanos() {
+        return serializationTimeNanos.get();
+    }
+
+    public long getDeserializationTimeNanos() {
+        return deserializationTimeNanos.get();
+    }
+
+    private static final class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+        private final ClassLoader classLoader;
+
+        private ClassLoaderObjectInputStream(final InputStream in, final ClassLoader classLoader) throws IOException {
+            super(in);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, classLoader);
+            } catch (final ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+}
@@ -88,6 +88,27 @@ public class KillBillCacheController<K, V> implements CacheController<K, V> {
         }
     }
 
+    @Override
+    public V getIfPresent(final K key) {
+        if (key == null) {
+            return null;
+        }
+
+        final V value;
+        try {
+            value = cache.get(key);
+        } catch (final CacheException e) {
+            logger.warn("Unable to retrieve cached value for key='{}'", key, e);
+            return null;
+        }
+
+        if (value == null || value.equals(BaseCacheLoader.EMPTY_VALUE_PLACEHOLDER)) {
+            return null;
+        } else {
+            return value;
+        }
+    }
+
     @Override
     public void putIfAbsent(final K key, final V value) {
         cache.putIfAbsent(key, value);
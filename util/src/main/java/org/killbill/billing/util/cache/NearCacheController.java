@@ -0,0 +1,199 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.clock.Clock;
+
+//
+// In-process (L1) cache in front of a cache controller backed by a (potentially remote) JCache provider (L2), see CacheConfig#isNearCacheEnabled.
+//
+// Immutable mappings (see CacheType#isImmutable) never expire, other entries expire after the configured time to live: removals
+// are applied to both tiers but are only visible by the current node (other nodes will see them after the time to live).
+// The near cache is size-bounded (least recently used entries are evicted first).
+//
+public class NearCacheController<K, V> implements CacheController<K, V> {
+
+    private final CacheController<K, V> delegate;
+    private final Clock clock;
+    // 0 if entries never expire
+    private final long timeToLiveMillis;
+    private final Map<K, NearCacheEntry<V>> entries;
+    // Incremented on each removal, to avoid re-populating the near cache with a value read before the removal
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong nbHits = new AtomicLong();
+    private final AtomicLong nbMisses = new AtomicLong();
+
+    public NearCacheController(final CacheController<K, V> delegate, final int maxEntries, final long timeToLiveMillis, final Clock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<K, NearCacheEntry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, NearCacheEntry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @Override
+    public List<K> getKeys() {
+        return delegate.getKeys();
+    }
+
+    @Override
+    public boolean isKeyInCache(final K key) {
+        return getFromNearCache(key) != null || delegate.isKeyInCache(key);
+    }
+
+    @Override
+    public V get(final K key, final CacheLoaderArgument cacheLoaderArgument) {
+        if (key == null) {
+            return null;
+        }
+
+        final V nearCacheValue = getFromNearCache(key);
+        if (nearCacheValue != null) {
+            nbHits.incrementAndGet();
+            return nearCacheValue;
+        }
+
+        nbMisses.incrementAndGet();
+        final long invalidationsBeforeLookup = invalidations.get();
+        final V value = delegate.get(key, cacheLoaderArgument);
+        if (value != null) {
+            final long expirationMillis = timeToLiveMillis > 0 ? clock.getUTCNow().getMillis() + timeToLiveMillis : 0;
+            synchronized (entries) {
+                if (invalidations.get() == invalidationsBeforeLookup) {
+                    entries.put(key, new NearCacheEntry<V>(value, expirationMillis));
+                }
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public V getIfPresent(final K key) {
+        if (key == null) {
+            return null;
+        }
+
+        final V nearCacheValue = getFromNearCache(key);
+        if (nearCacheValue != null) {
+            nbHits.incrementAndGet();
+            return nearCacheValue;
+        }
+
+        nbMisses.incrementAndGet();
+        return delegate.getIfPresent(key);
+    }
+
+    @Override
+    public boolean remove(final K key) {
+        invalidateNearCache(key);
+        return delegate.remove(key);
+    }
+
+    @Override
+    public void remove(final Function<K, Boolean> keyMatcher) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            for (final K key : new ArrayList<K>(entries.keySet())) {
+                if (Boolean.TRUE.equals(keyMatcher.apply(key))) {
+                    entries.remove(key);
+                }
+            }
+        }
+        delegate.remove(keyMatcher);
+    }
+
+    @Override
+    public void putIfAbsent(final K key, final V value) {
+        // The near cache is populated on lookups only
+        delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void removeAll() {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.clear();
+        }
+        delegate.removeAll();
+    }
+
+    @Override
+    public CacheType getCacheType() {
+        return delegate.getCacheType();
+    }
+
+    public long getNbHits() {
+        return nbHits.get();
+    }
+
+    public long getNbMisses() {
+        return nbMisses.get();
+    }
+
+    public int getNearCacheSize() {
+        return entries.size();
+    }
+
+    private V getFromNearCache(final K key) {
+        final NearCacheEntry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        } else if (entry.expirationMillis > 0 && entry.expirationMillis <= clock.getUTCNow().getMillis()) {
+            entries.remove(key, entry);
+            return null;
+        } else {
+            return entry.value;
+        }
+    }
+
+    private void invalidateNearCache(final K key) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    private static final class NearCacheEntry<V> {
+
+        private final V value;
+        private final long expirationMillis;
+
+        private NearCacheEntry(final V value, final long expirationMillis) {
+            this.value = value;
+            this.expirationMillis = expirationMillis;
+        }
+    }
+}
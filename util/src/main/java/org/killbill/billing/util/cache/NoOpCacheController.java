@@ -56,6 +56,11 @@ public class NoOpCacheController<K, V> implements CacheController<K, V> {
         }
     }
 
+    @Override
+    public V getIfPresent(final K key) {
+        return null;
+    }
+
     @Override
     public boolean remove(final K key) {
         return false;
@@ -37,6 +37,7 @@ import org.killbill.billing.util.account.AccountDateTimeUtils;
 import org.killbill.billing.util.cache.Cachable.CacheType;
 import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.billing.util.dao.AccountContextMappings;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.billing.util.entity.dao.TimeZoneAwareEntity;
 import org.killbill.clock.Clock;
@@ -122,9 +123,8 @@ public class InternalCallContextFactory {
     }
 
     public InternalTenantContext createInternalTenantContext(final UUID accountId, final InternalTenantContext context) {
-        final Long tenantRecordId = context.getTenantRecordId();
-        final Long accountRecordId = getAccountRecordIdSafe(accountId, ObjectType.ACCOUNT, context.getTenantRecordId());
-        return createInternalTenantContext(tenantRecordId, accountRecordId);
+        final ContextSkeleton contextSkeleton = getContextSkeletonSafe(accountId, ObjectType.ACCOUNT, context.getTenantRecordId());
+        return createInternalTenantContext(contextSkeleton);
     }
 
     /**
@@ -141,9 +141,8 @@ public class InternalCallContextFactory {
         //final Long tenantRecordIdFromContext = getTenantRecordIdSafe(callcontext);
         //Preconditions.checkState(tenantRecordIdFromContext.equals(tenantRecordIdFromObject),
         //                         "tenant of the pointed object (%s) and the callcontext (%s) don't match!", tenantRecordIdFromObject, tenantRecordIdFromContext);
-        final Long tenantRecordId = getTenantRecordIdSafe(context);
-        final Long accountRecordId = getAccountRecordIdSafe(objectId, objectType, context);
-        return createInternalTenantContext(tenantRecordId, accountRecordId);
+        final ContextSkeleton contextSkeleton = getContextSkeletonSafe(objectId, objectType, context);
+        return createInternalTenantContext(contextSkeleton);
     }
 
     /**
@@ -166,6 +165,16 @@ public class InternalCallContextFactory {
         }
     }
 
+    private InternalTenantContext createInternalTenantContext(final ContextSkeleton contextSkeleton) {
+        populateMDCContext(null, contextSkeleton.accountRecordId, contextSkeleton.tenantRecordId);
+
+        if (contextSkeleton.accountRecordId == null) {
+            return new InternalTenantContext(contextSkeleton.tenantRecordId);
+        } else {
+            return new InternalTenantContext(contextSkeleton.tenantRecordId, contextSkeleton.accountRecordId, contextSkeleton.fixedOffsetTimeZone, contextSkeleton.referenceTime);
+        }
+    }
+
     //
     // Create InternalCallContext
     //
@@ -198,10 +207,11 @@ public class InternalCallContextFactory {
         //Preconditions.checkState(tenantRecordIdFromContext.equals(tenantRecordIdFromObject),
         //                         "tenant of the pointed object (%s) and the callcontext (%s) don't match!", tenantRecordIdFromObject, tenantRecordIdFromContext);
 
-        final Long tenantRecordId = getTenantRecordIdSafe(context);
-        final Long accountRecordId = getAccountRecordIdSafe(objectId, objectType, context);
-        return createInternalCallContext(tenantRecordId,
-                                         accountRecordId,
+        final ContextSkeleton contextSkeleton = getContextSkeletonSafe(objectId, objectType, context);
+        return createInternalCallContext(contextSkeleton.tenantRecordId,
+                                         contextSkeleton.accountRecordId,
+                                         contextSkeleton.fixedOffsetTimeZone,
+                                         contextSkeleton.referenceTime,
                                          context.getUserName(),
                                          context.getCallOrigin(),
                                          context.getUserType(),
@@ -215,8 +225,9 @@ public class InternalCallContextFactory {
     // Used by the payment retry service
     public InternalCallContext createInternalCallContext(final UUID objectId, final ObjectType objectType, final String userName,
                                                          final CallOrigin callOrigin, final UserType userType, @Nullable final UUID userToken, final Long tenantRecordId) {
-        final Long accountRecordId = getAccountRecordIdSafe(objectId, objectType, tenantRecordId);
-        return createInternalCallContext(tenantRecordId, accountRecordId, userName, callOrigin, userType, userToken, null, null, null, null);
+        final ContextSkeleton contextSkeleton = getContextSkeletonSafe(objectId, objectType, tenantRecordId);
+        return createInternalCallContext(contextSkeleton.tenantRecordId, contextSkeleton.accountRecordId, contextSkeleton.fixedOffsetTimeZone, contextSkeleton.referenceTime,
+                                         userName, callOrigin, userType, userToken, null, null, null, null);
     }
 
     /**
@@ -300,6 +311,21 @@ public class InternalCallContextFactory {
             referenceTime = immutableAccountData.getReferenceTime();
         }
 
+        return createInternalCallContext(nonNulTenantRecordId, accountRecordId, fixedOffsetTimeZone, referenceTime, userName, callOrigin, userType, userToken, reasonCode, comment, createdDate, updatedDate);
+    }
+
+    private InternalCallContext createInternalCallContext(final Long nonNulTenantRecordId,
+                                                          @Nullable final Long accountRecordId,
+                                                          @Nullable final DateTimeZone fixedOffsetTimeZone,
+                                                          @Nullable final DateTime referenceTime,
+                                                          final String userName,
+                                                          final CallOrigin callOrigin,
+                                                          final UserType userType,
+                                                          @Nullable final UUID userToken,
+                                                          @Nullable final String reasonCode,
+                                                          @Nullable final String comment,
+                                                          @Nullable final DateTime createdDate,
+                                                          @Nullable final DateTime updatedDate) {
         populateMDCContext(userToken, accountRecordId, nonNulTenantRecordId);
 
         return new InternalCallContext(nonNulTenantRecordId,
@@ -345,7 +371,7 @@ public class InternalCallContextFactory {
 
     // Safe method to retrieve the account id from any object
     public UUID getAccountId(final UUID objectId, final ObjectType objectType, final TenantContext context) {
-        final Long accountRecordId = getAccountRecordIdSafe(objectId, objectType, context);
+        final Long accountRecordId = getContextSkeletonSafe(objectId, objectType, context).accountRecordId;
         if (accountRecordId != null) {
             return nonEntityDao.retrieveIdFromObject(accountRecordId, ObjectType.ACCOUNT, objectIdCacheController);
         } else {
@@ -370,17 +396,19 @@ public class InternalCallContextFactory {
     // Safe NonEntityDao private wrappers
     //
 
-    private Long getAccountRecordIdSafe(final UUID objectId, final ObjectType objectType, final TenantContext context) {
-        if (objectBelongsToTheRightTenant(objectId, objectType, context)) {
-            return getAccountRecordIdUnsafe(objectId, objectType);
+    private ContextSkeleton getContextSkeletonSafe(final UUID objectId, final ObjectType objectType, final TenantContext context) {
+        final ContextSkeleton contextSkeleton = getContextSkeletonUnsafe(objectId, objectType);
+        if (contextSkeleton.tenantRecordId.equals(getTenantRecordIdSafe(context))) {
+            return contextSkeleton;
         } else {
             throw new IllegalStateException(String.format("Object id=%s type=%s doesn't belong to tenant id=%s", objectId, objectType, context.getTenantId()));
         }
     }
 
-    private Long getAccountRecordIdSafe(final UUID objectId, final ObjectType objectType, final Long tenantRecordId) throws ObjectDoesNotExist {
-        if (objectBelongsToTheRightTenant(objectId, objectType, tenantRecordId)) {
-            return getAccountRecordIdUnsafe(objectId, objectType);
+    private ContextSkeleton getContextSkeletonSafe(final UUID objectId, final ObjectType objectType, final Long tenantRecordId) throws ObjectDoesNotExist {
+        final ContextSkeleton contextSkeleton = getContextSkeletonUnsafe(objectId, objectType);
+        if (contextSkeleton.tenantRecordId.equals(tenantRecordId)) {
+            return contextSkeleton;
         } else {
             throw new IllegalStateException(String.format("Object id=%s type=%s doesn't belong to tenant recordId=%s", objectId, objectType, tenantRecordId));
         }
@@ -427,8 +455,48 @@ public class InternalCallContextFactory {
     // Unsafe methods - no context is validated
     //
 
-    private Long getAccountRecordIdUnsafe(final UUID objectId, final ObjectType objectType) {
-        return nonEntityDao.retrieveAccountRecordIdFromObject(objectId, objectType, accountRecordIdCacheController);
+    private ContextSkeleton getContextSkeletonUnsafe(final UUID objectId, final ObjectType objectType) {
+        // The account and tenant record ids of an object never change: when both are cached, only the time zone and
+        // reference time (which can be set after the account creation) are looked up, through the account-immutable cache
+        final String key = objectId != null ? objectId.toString() : null;
+        if (key != null && accountRecordIdCacheController != null) {
+            final Long accountRecordId = accountRecordIdCacheController.getIfPresent(key);
+            final Long tenantRecordId = accountRecordId != null ? tenantRecordIdCacheController.getIfPresent(key) : null;
+            if (tenantRecordId != null) {
+                final ImmutableAccountData immutableAccountData = getImmutableAccountData(accountRecordId, tenantRecordId);
+                return new ContextSkeleton(tenantRecordId, accountRecordId, immutableAccountData.getFixedOffsetTimeZone(), immutableAccountData.getReferenceTime());
+            }
+        }
+
+        // Single round trip for the account record id, tenant record id, time zone and reference time
+        final AccountContextMappings accountContextMappings = nonEntityDao.retrieveAccountContextFromObject(objectId, objectType);
+        if (accountContextMappings == null) {
+            throw new ObjectDoesNotExist(String.format("Object id=%s type=%s doesn't exist!", objectId, objectType));
+        }
+
+        if (accountContextMappings.getAccountRecordId() == null) {
+            return new ContextSkeleton(accountContextMappings.getTenantRecordId(), null, null, null);
+        }
+
+        if (accountRecordIdCacheController != null) {
+            accountRecordIdCacheController.putIfAbsent(key, accountContextMappings.getAccountRecordId());
+            tenantRecordIdCacheController.putIfAbsent(key, accountContextMappings.getTenantRecordId());
+        }
+
+        if (accountContextMappings.getTimeZone() == null || accountContextMappings.getReferenceTime() == null) {
+            // Account row not visible from here, go through the account API
+            final ImmutableAccountData immutableAccountData = getImmutableAccountData(accountContextMappings.getAccountRecordId(), accountContextMappings.getTenantRecordId());
+            return new ContextSkeleton(accountContextMappings.getTenantRecordId(),
+                                       accountContextMappings.getAccountRecordId(),
+                                       immutableAccountData.getFixedOffsetTimeZone(),
+                                       immutableAccountData.getReferenceTime());
+        } else {
+            // See DefaultImmutableAccountData implementation
+            return new ContextSkeleton(accountContextMappings.getTenantRecordId(),
+                                       accountContextMappings.getAccountRecordId(),
+                                       AccountDateTimeUtils.getFixedOffsetTimeZone(accountContextMappings.getTimeZone(), accountContextMappings.getReferenceTime()),
+                                       accountContextMappings.getReferenceTime());
+        }
     }
 
     private Long getTenantRecordIdUnsafe(final UUID objectId, final ObjectType objectType) {
@@ -440,6 +508,24 @@ public class InternalCallContextFactory {
         return objectTenantRecordId;
     }
 
+    private static final class ContextSkeleton {
+
+        private final Long tenantRecordId;
+        private final Long accountRecordId;
+        private final DateTimeZone fixedOffsetTimeZone;
+        private final DateTime referenceTime;
+
+        private ContextSkeleton(final Long tenantRecordId,
+                                @Nullable final Long accountRecordId,
+                                @Nullable final DateTimeZone fixedOffsetTimeZone,
+                                @Nullable final DateTime referenceTime) {
+            this.tenantRecordId = tenantRecordId;
+            this.accountRecordId = accountRecordId;
+            this.fixedOffsetTimeZone = fixedOffsetTimeZone;
+            this.referenceTime = referenceTime;
+        }
+    }
+
     public static final class ObjectDoesNotExist extends IllegalStateException {
 
         public ObjectDoesNotExist(final String s) {
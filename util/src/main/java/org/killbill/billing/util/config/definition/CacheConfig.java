@@ -20,8 +20,10 @@ package org.killbill.billing.util.config.definition;
 import java.util.Set;
 
 import org.skife.config.Config;
+import org.skife.config.Default;
 import org.skife.config.DefaultNull;
 import org.skife.config.Description;
+import org.skife.config.TimeSpan;
 
 public interface CacheConfig extends KillbillConfig {
 
@@ -29,4 +31,19 @@ public interface CacheConfig extends KillbillConfig {
     @DefaultNull
     @Description("Caches to be disabled")
     public Set<String> getDisabledCaches();
+
+    @Config("org.killbill.cache.nearCache.enabled")
+    @Default("false")
+    @Description("Whether an in-process (near) cache should be used in front of the cache provider (e.g. to avoid Redis round trips)")
+    public boolean isNearCacheEnabled();
+
+    @Config("org.killbill.cache.nearCache.maxEntries")
+    @Default("10000")
+    @Description("Maximum number of entries per cache in the near cache")
+    public int getNearCacheMaxEntries();
+
+    @Config("org.killbill.cache.nearCache.ttl")
+    @Default("0s")
+    @Description("Time to live of mutable entries in the near cache (0 to only keep immutable mappings such as record ids and object ids, which never expire)")
+    public TimeSpan getNearCacheTimeToLive();
 }
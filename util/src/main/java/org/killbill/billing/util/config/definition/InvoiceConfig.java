@@ -132,6 +132,26 @@ public interface InvoiceConfig extends LockAwareConfig {
     @Description("Default invoice plugin names")
     List<String> getInvoicePluginNames(@Param("dummy") final InternalTenantContext tenantContext);
 
+    @Config("org.killbill.invoice.plugin.orderIndependent")
+    @Default("")
+    @Description("Invoice plugin names which don't depend on the results of the previous plugins and can be invoked in parallel")
+    List<String> getOrderIndependentInvoicePluginNames();
+
+    @Config("org.killbill.invoice.plugin.orderIndependent")
+    @Default("")
+    @Description("Invoice plugin names which don't depend on the results of the previous plugins and can be invoked in parallel")
+    List<String> getOrderIndependentInvoicePluginNames(@Param("dummy") final InternalTenantContext tenantContext);
+
+    @Config("org.killbill.invoice.plugin.parallelism")
+    @Default("0")
+    @Description("Number of threads used to invoke the order independent invoice plugins in parallel (0 to always invoke plugins sequentially)")
+    int getInvoicePluginParallelism();
+
+    @Config("org.killbill.invoice.plugin.parallelTimeout")
+    @Default("60s")
+    @Description("Maximum time to wait for the order independent invoice plugins invoked in parallel")
+    TimeSpan getInvoicePluginParallelTimeout();
+
     @Config("org.killbill.invoice.emailNotificationsEnabled")
     @Default("false")
     @Description("Whether to send email notifications on invoice creation (for configured accounts)")
@@ -157,6 +177,36 @@ public interface InvoiceConfig extends LockAwareConfig {
     @Description("Whether the invoicing system is enabled")
     boolean isInvoicingSystemEnabled(@Param("dummy") final InternalTenantContext tenantContext);
 
+    @Config("org.killbill.invoice.parent.consolidation.batched")
+    @Default("false")
+    @Description("Whether child invoices should be queued and folded into the parent DRAFT invoice in batches (one consumer per parent account)")
+    boolean isParentInvoiceBatchConsolidationEnabled();
+
+    @Config("org.killbill.invoice.parent.consolidation.maxBatchSize")
+    @Default("500")
+    @Description("Maximum number of child invoices folded into the parent DRAFT invoice at once")
+    int getParentInvoiceConsolidationMaxBatchSize();
+
+    @Config("org.killbill.invoice.itemGeneration.parallelism")
+    @Default("0")
+    @Description("Number of threads used to generate the fixed and recurring items of large accounts per subscription (0 to always generate them sequentially)")
+    int getItemGenerationParallelism();
+
+    @Config("org.killbill.invoice.itemGeneration.minSubscriptionsForParallelism")
+    @Default("100")
+    @Description("Minimum number of subscriptions for the fixed and recurring items of an account to be generated in parallel")
+    int getItemGenerationMinSubscriptionsForParallelism();
+
+    @Config("org.killbill.invoice.incrementalGeneration.enabled")
+    @Default("false")
+    @Description("Whether bus events and notifications only regenerate the items of the subscriptions they relate to (plus account level items)")
+    boolean isIncrementalGenerationEnabled();
+
+    @Config("org.killbill.invoice.incrementalGeneration.fullReconciliationRuns")
+    @Default("10")
+    @Description("Number of incremental invoice runs for an account after which a full run is performed to reconcile all subscriptions")
+    int getIncrementalGenerationFullReconciliationRuns();
+
     @Config("org.killbill.invoice.item.result.behavior.mode")
     @Default("AGGREGATE")
     @Description("How the result for an item will be reported (aggregate mode or detail mode). ")
@@ -17,6 +17,8 @@
 
 package org.killbill.billing.util.config.definition;
 
+import java.util.List;
+
 import org.skife.config.Config;
 import org.skife.config.Default;
 import org.skife.config.DefaultNull;
@@ -35,6 +37,11 @@ public interface JaxrsConfig extends KillbillConfig {
     @Description("Total timeout for all callables associated to a given api call (parallel mode)")
     TimeSpan getJaxrsTimeout();
 
+    @Config("org.killbill.jaxrs.timeline.component.timeout")
+    @Default("30s")
+    @Description("Timeout for each of the callables (bundles, invoices, payments, audit logs) of the account timeline (parallel mode)")
+    TimeSpan getJaxrsTimelineComponentTimeout();
+
     @Config("org.killbill.jaxrs.location.full.url")
     @Default("true")
     @Description("Type of return for the jaxrs response location URL")
@@ -54,4 +61,9 @@ public interface JaxrsConfig extends KillbillConfig {
     @Default("true")
     @Description("Whether GET calls should leverage the read-only database connection")
     boolean shouldGETUseROConnection();
+
+    @Config("org.killbill.jaxrs.ro.stale.endpoints")
+    @Default("")
+    @Description("Heavy read endpoints (ResourceClass.method, e.g. AccountResource.getAccountTimeline) which leverage the read-only database connection even if org.killbill.jaxrs.get.ro is false (can be overridden per request using the X-Killbill-AllowStaleReads header)")
+    List<String> getJaxrsStaleReadEndpoints();
 }
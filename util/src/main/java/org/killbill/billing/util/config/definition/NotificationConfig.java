@@ -38,4 +38,43 @@ public interface NotificationConfig extends KillbillConfig {
     @Description("Delay before which unresolved push notifications should be retried")
     List<TimeSpan> getPushNotificationsRetries(@Param("dummy") final InternalTenantContext tenantContext);
 
-}
\ No newline at end of file
+    @Config("org.killbill.billing.server.notifications.maxConcurrentRequestsPerUrl")
+    @Default("1")
+    @Description("Maximum number of in-flight push notification requests per callback url (1 preserves the ordering of notifications)")
+    int getPushNotificationsMaxConcurrentRequestsPerUrl();
+
+    @Config("org.killbill.billing.server.notifications.maxConcurrentRequestsPerTenant")
+    @Default("10")
+    @Description("Maximum number of in-flight push notification requests per tenant")
+    int getPushNotificationsMaxConcurrentRequestsPerTenant();
+
+    @Config("org.killbill.billing.server.notifications.maxPendingRequestsPerUrl")
+    @Default("1000")
+    @Description("Maximum number of push notifications waiting to be sent per callback url, before they are handed to the retry queue")
+    int getPushNotificationsMaxPendingRequestsPerUrl();
+
+    @Config("org.killbill.billing.server.notifications.maxEventsPerRequest")
+    @Default("1")
+    @Description("Maximum number of pending push notifications sent as a JSON array in a single request (1 disables batching)")
+    int getPushNotificationsMaxEventsPerRequest();
+
+    @Config("org.killbill.billing.server.notifications.deliveryTimeout")
+    @Default("30s")
+    @Description("Maximum time an event waits for its push notifications to be delivered, before the pending ones are handed to the retry queue")
+    TimeSpan getPushNotificationsDeliveryTimeout();
+
+    @Config("org.killbill.billing.server.notifications.circuitBreaker.failureThreshold")
+    @Default("5")
+    @Description("Number of consecutive failures after which a callback url is considered down (0 disables the circuit breaker)")
+    int getPushNotificationsCircuitBreakerFailureThreshold();
+
+    @Config("org.killbill.billing.server.notifications.circuitBreaker.openDuration")
+    @Default("1m")
+    @Description("Delay during which notifications for a callback url considered down are directly handed to the retry queue")
+    TimeSpan getPushNotificationsCircuitBreakerOpenDuration();
+
+    @Config("org.killbill.billing.server.notifications.callbacksCacheTtl")
+    @Default("10s")
+    @Description("How long the push notification callbacks of a tenant are cached (0s disables the cache)")
+    TimeSpan getPushNotificationsCallbacksCacheTtl();
+}
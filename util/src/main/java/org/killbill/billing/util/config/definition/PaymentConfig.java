@@ -125,11 +125,26 @@ public interface PaymentConfig extends LockAwareConfig {
     @Description("Number of threads for plugin executor dispatcher")
     int getPaymentPluginThreadNb();
 
+    @Config("org.killbill.payment.plugin.threads.virtual")
+    @Default("false")
+    @Description("Whether plugin calls should be dispatched on virtual threads instead of the plugin thread pool (requires Java 21+)")
+    boolean isPaymentPluginVirtualThreadsEnabled();
+
+    @Config("org.killbill.payment.plugin.maxConcurrentCalls")
+    @Default("0")
+    @Description("Maximum number of concurrent calls per plugin (0 for no limit)")
+    int getPaymentPluginMaxConcurrentCalls();
+
     @Config("org.killbill.payment.globalLock.retries")
     @Default("50")
     @Description("Maximum number of times the system will retry to grab global lock (with a 100ms wait each time)")
     int getMaxGlobalLockRetries();
 
+    @Config("org.killbill.payment.splitPhaseExecution.enabled")
+    @Default("false")
+    @Description("Whether the account lock should be released during payment plugin calls (the transaction is still created and completed under the lock)")
+    boolean isPaymentSplitPhaseExecutionEnabled();
+
     @Config("org.killbill.payment.method.overwrite")
     @Default("false")
     @Description("Ability to overwrite an existing payment method from a control plugin")
@@ -28,4 +28,19 @@ public interface RbacConfig extends KillbillConfig {
     @Default("1h")
     @Description("System-wide default time that any session may remain idle before expiring")
     public TimeSpan getGlobalSessionTimeout();
+
+    @Config("org.killbill.rbac.session.writeBehind.enabled")
+    @Default("false")
+    @Description("Whether session touches (last access time updates) should be coalesced in memory and flushed in batches")
+    public boolean isSessionWriteBehindEnabled();
+
+    @Config("org.killbill.rbac.session.writeBehind.flushInterval")
+    @Default("5s")
+    @Description("Interval between two flushes of the coalesced session touches, i.e. maximum staleness of last_access_time in the sessions table")
+    public TimeSpan getSessionWriteBehindFlushInterval();
+
+    @Config("org.killbill.rbac.session.writeBehind.maxPending")
+    @Default("10000")
+    @Description("Number of coalesced session touches triggering an early flush")
+    public int getSessionWriteBehindMaxPending();
 }
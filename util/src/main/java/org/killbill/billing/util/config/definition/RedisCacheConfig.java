@@ -43,4 +43,14 @@ public interface RedisCacheConfig extends KillbillConfig {
     @DefaultNull
     @Description("Redis Password")
     public String getPassword();
+
+    @Config("org.killbill.cache.config.redis.codec")
+    @Default("java")
+    @Description("Codec for cached values: java (Java serialization) or compact (binary encoding of the cached types, see CacheValueSerializer)")
+    public String getCodec();
+
+    @Config("org.killbill.cache.config.redis.codec.compressionThreshold")
+    @Default("4096")
+    @Description("Size (in bytes) above which cached values are compressed by the compact codec (-1 to disable compression)")
+    public int getCodecCompressionThreshold();
 }
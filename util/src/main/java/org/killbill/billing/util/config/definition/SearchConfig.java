@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.config.definition;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+
+public interface SearchConfig extends KillbillConfig {
+
+    @Config("org.killbill.dao.searchTokens.maintain")
+    @Default("false")
+    @Description("Whether the search token index (search_tokens table) should be maintained on writes")
+    boolean shouldMaintainSearchTokens();
+
+    @Config("org.killbill.dao.searchTokens.useForSearch")
+    @Default("false")
+    @Description("Whether searches should leverage the search token index (requires org.killbill.dao.searchTokens.maintain and a backfill, see PUT /1.0/kb/admin/searchIndex)")
+    boolean shouldUseSearchTokensForSearch();
+}
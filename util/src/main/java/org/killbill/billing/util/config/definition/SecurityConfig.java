@@ -35,6 +35,21 @@ public interface SecurityConfig extends KillbillConfig {
     @Description("Sets the number of times submitted credentials will be hashed before comparing to the credentials stored in the system")
     public Integer getShiroNbHashIterations();
 
+    @Config("org.killbill.security.shiro.authenticationCache.enabled")
+    @Default("false")
+    @Description("Whether the Kill Bill users realm should cache authentication info and verified credentials (invalidated on user and role changes)")
+    public boolean isShiroAuthenticationCacheEnabled();
+
+    @Config("org.killbill.security.shiro.authenticationCache.ttl")
+    @Default("10m")
+    @Description("Maximum amount of time verified credentials are kept in the cache")
+    public TimeSpan getShiroAuthenticationCacheTtl();
+
+    @Config("org.killbill.security.shiro.authenticationCache.maxSize")
+    @Default("10000")
+    @Description("Maximum number of users with verified credentials kept in the cache")
+    public int getShiroAuthenticationCacheMaxSize();
+
     // LDAP Realm
 
     @Config("org.killbill.security.ldap.userDnTemplate")
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.config.definition;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+
+public interface UsageConfig extends KillbillConfig {
+
+    @Config("org.killbill.usage.dailyRollups.enabled")
+    @Default("false")
+    @Description("Whether the daily usage rollups should be maintained on ingestion and read by usage queries spanning whole (UTC) days (rebuilt per subscription on first use, must be the same on all nodes)")
+    boolean isDailyRollupsEnabled();
+}
@@ -18,6 +18,9 @@
 package org.killbill.billing.util.config.tenant;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -35,6 +38,8 @@ public class CacheConfig {
 
     private final CacheController<Long, PerTenantConfig> cacheController;
     private final CacheLoaderArgument cacheLoaderArgument;
+    // Notified with the tenantRecordId each time the per-tenant config of that tenant is invalidated
+    private final List<Consumer<Long>> invalidationListeners = new CopyOnWriteArrayList<>();
 
     private final ObjectMapper objectMapper;
 
@@ -53,6 +58,13 @@ public class CacheConfig {
 
     public void clearPerTenantConfig(final InternalTenantContext tenantContext) {
         cacheController.remove(tenantContext.getTenantRecordId());
+        for (final Consumer<Long> invalidationListener : invalidationListeners) {
+            invalidationListener.accept(tenantContext.getTenantRecordId());
+        }
+    }
+
+    public void addPerTenantConfigInvalidationListener(final Consumer<Long> invalidationListener) {
+        invalidationListeners.add(invalidationListener);
     }
 
     private CacheLoaderArgument initializeCacheLoaderArgument() {
@@ -40,10 +40,12 @@ import org.killbill.billing.util.audit.ChangeType;
 import org.killbill.billing.util.audit.dao.AuditDao;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.definition.SearchConfig;
 import org.killbill.billing.util.customfield.CustomField;
 import org.killbill.billing.util.customfield.api.DefaultCustomFieldCreationEvent;
 import org.killbill.billing.util.customfield.api.DefaultCustomFieldDeletionEvent;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.dao.SearchTokens;
 import org.killbill.billing.util.dao.TableName;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationSqlDaoHelper.Ordering;
@@ -67,13 +69,16 @@ public class DefaultCustomFieldDao extends EntityDaoBase<CustomFieldModelDao, Cu
 
     private final BusOptimizer bus;
     private final AuditDao auditDao;
+    private final SearchConfig searchConfig;
 
     @Inject
     public DefaultCustomFieldDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final Clock clock, final CacheControllerDispatcher controllerDispatcher,
-                                 final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final BusOptimizer bus, final AuditDao auditDao) {
-        super(nonEntityDao, controllerDispatcher, new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, controllerDispatcher, nonEntityDao, internalCallContextFactory), CustomFieldSqlDao.class);
+                                 final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final BusOptimizer bus, final AuditDao auditDao,
+                                 final SearchConfig searchConfig) {
+        super(nonEntityDao, controllerDispatcher, new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, controllerDispatcher, nonEntityDao, internalCallContextFactory, searchConfig), CustomFieldSqlDao.class);
         this.bus = bus;
         this.auditDao = auditDao;
+        this.searchConfig = searchConfig;
     }
 
     @Override
@@ -200,16 +205,18 @@ public class DefaultCustomFieldDao extends EntityDaoBase<CustomFieldModelDao, Cu
 
     @Override
     public Pagination<CustomFieldModelDao> searchCustomFields(final String searchKey, final Long offset, final Long limit, final InternalTenantContext context) {
+        final String likeSearchKey = String.format("%%%s%%", searchKey);
+        final String tokenSearchKey = SearchTokens.toTokenSearchKey(searchConfig, searchKey);
         return paginationHelper.getPagination(CustomFieldSqlDao.class,
                                               new PaginationIteratorBuilder<CustomFieldModelDao, CustomField, CustomFieldSqlDao>() {
                                                   @Override
                                                   public Long getCount(final CustomFieldSqlDao customFieldSqlDao, final InternalTenantContext context) {
-                                                      return customFieldSqlDao.getSearchCount(searchKey, String.format("%%%s%%", searchKey), context);
+                                                      return tokenSearchKey == null ? customFieldSqlDao.getSearchCount(searchKey, likeSearchKey, context) : customFieldSqlDao.getIndexedSearchCount(searchKey, likeSearchKey, tokenSearchKey, context);
                                                   }
 
                                                   @Override
                                                   public Iterator<CustomFieldModelDao> build(final CustomFieldSqlDao customFieldSqlDao, final Long offset, final Long limit, final Ordering ordering, final InternalTenantContext context) {
-                                                      return customFieldSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, ordering.toString(), context);
+                                                      return tokenSearchKey == null ? customFieldSqlDao.search(searchKey, likeSearchKey, offset, limit, ordering.toString(), context) : customFieldSqlDao.indexedSearch(searchKey, likeSearchKey, tokenSearchKey, offset, limit, ordering.toString(), context);
                                                   }
                                               },
                                               offset,
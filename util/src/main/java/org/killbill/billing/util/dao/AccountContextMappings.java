@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.dao;
+
+import javax.annotation.Nullable;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+// Everything needed to build an internal context for a given object (see NonEntityDao#retrieveAccountContextFromObject)
+public class AccountContextMappings {
+
+    private final Long accountRecordId;
+    private final Long tenantRecordId;
+    private final DateTimeZone timeZone;
+    private final DateTime referenceTime;
+
+    public AccountContextMappings(@Nullable final Long accountRecordId,
+                                  final Long tenantRecordId,
+                                  @Nullable final DateTimeZone timeZone,
+                                  @Nullable final DateTime referenceTime) {
+        this.accountRecordId = accountRecordId;
+        this.tenantRecordId = tenantRecordId;
+        this.timeZone = timeZone;
+        this.referenceTime = referenceTime;
+    }
+
+    // Null if the object isn't associated with an account (e.g. tag definitions)
+    public Long getAccountRecordId() {
+        return accountRecordId;
+    }
+
+    public Long getTenantRecordId() {
+        return tenantRecordId;
+    }
+
+    // Null if the account isn't visible (e.g. not committed yet)
+    public DateTimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    public DateTime getReferenceTime() {
+        return referenceTime;
+    }
+}
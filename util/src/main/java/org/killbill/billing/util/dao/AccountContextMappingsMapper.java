@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+public class AccountContextMappingsMapper extends MapperBase implements ResultSetMapper<AccountContextMappings> {
+
+    @Override
+    public AccountContextMappings map(final int index, final ResultSet r, final StatementContext ctx) throws SQLException {
+        final long accountRecordId = r.getLong("account_record_id");
+        final Long accountRecordIdOrNull = r.wasNull() ? null : accountRecordId;
+        final long tenantRecordId = r.getLong("tenant_record_id");
+        final String timeZone = r.getString("time_zone");
+        final DateTime referenceTime = getDateTime(r, "reference_time");
+        return new AccountContextMappings(accountRecordIdOrNull, tenantRecordId, timeZone == null ? null : DateTimeZone.forID(timeZone), referenceTime);
+    }
+}
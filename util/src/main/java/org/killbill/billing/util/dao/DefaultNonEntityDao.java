@@ -136,6 +136,40 @@ public class DefaultNonEntityDao implements NonEntityDao {
         }, objectIdOrNull, objectType, tableName, cache);
     }
 
+    @Override
+    public AccountContextMappings retrieveAccountContextFromObject(@Nullable final UUID objectId, final ObjectType objectType) {
+        if (objectId == null) {
+            return null;
+        }
+
+        final TableName tableName = TableName.fromObjectType(objectType);
+        Preconditions.checkNotNull(tableName, "%s is not a valid ObjectType", objectType);
+
+        final Profiling<AccountContextMappings, RuntimeException> prof = new Profiling<AccountContextMappings, RuntimeException>();
+        return prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, "NonEntityDao (type = " + objectType + ") account context", new WithProfilingCallback<AccountContextMappings, RuntimeException>() {
+            @Override
+            public AccountContextMappings execute() throws RuntimeException {
+                final NonEntitySqlDao nonEntitySqlDao = dbRouter.onDemand(true);
+                switch (tableName) {
+                    case TENANT:
+                        final Long tenantRecordId = nonEntitySqlDao.getTenantRecordIdFromTenant(objectId.toString());
+                        return tenantRecordId == null ? null : new AccountContextMappings(null, tenantRecordId, null, null);
+
+                    case TAG_DEFINITIONS:
+                    case TAG_DEFINITION_HISTORY:
+                        final Long objectTenantRecordId = nonEntitySqlDao.getTenantRecordIdFromObjectOtherThanTenant(objectId.toString(), tableName.getTableName());
+                        return objectTenantRecordId == null ? null : new AccountContextMappings(null, objectTenantRecordId, null, null);
+
+                    case ACCOUNT:
+                        return nonEntitySqlDao.getAccountContextFromAccount(objectId.toString());
+
+                    default:
+                        return nonEntitySqlDao.getAccountContextFromObjectOtherThanAccount(objectId.toString(), tableName.getTableName());
+                }
+            }
+        });
+    }
+
     @Override
     public UUID retrieveIdFromObject(final Long recordId, final ObjectType objectType, @Nullable final CacheController<String, UUID> cache) {
         return retrieveIdFromObjectInTransaction(recordId, objectType, cache, null);
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.dao;
+
+import java.util.List;
+import java.util.Map.Entry;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.util.entity.dao.DBRouter;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.TransactionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.killbill.billing.util.glue.IDBISetup.MAIN_RO_IDBI_NAMED;
+
+public class DefaultSearchTokenDao implements SearchTokenDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultSearchTokenDao.class);
+
+    // Each chunk is indexed in its own transaction, to avoid long-running transactions on large tables
+    private static final long REBUILD_CHUNK_SIZE = 1000L;
+
+    private final DBRouter<SearchTokenSqlDao> dbRouter;
+
+    @Inject
+    public DefaultSearchTokenDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi) {
+        this.dbRouter = new DBRouter<SearchTokenSqlDao>(dbi, roDbi, SearchTokenSqlDao.class);
+    }
+
+    @Override
+    public long rebuildSearchTokens(final InternalCallContext context) {
+        long nbIndexed = 0;
+        for (final Entry<TableName, List<String>> entry : SearchTokens.SEARCHABLE_COLUMNS.entrySet()) {
+            final TableName tableName = entry.getKey();
+
+            long nbIndexedForTable = 0;
+            Long fromRecordId = -1L;
+            while (fromRecordId != null) {
+                final Long lastRecordId = fromRecordId;
+                final List<Long> recordIds = dbRouter.inTransaction(false, new TransactionCallback<List<Long>>() {
+                    @Override
+                    public List<Long> inTransaction(final Handle handle, final TransactionStatus status) throws Exception {
+                        final SearchTokenSqlDao sqlDao = handle.attach(SearchTokenSqlDao.class);
+                        final List<Long> recordIds = sqlDao.getRecordIdsAfterRecordId(tableName.getTableName(), lastRecordId, REBUILD_CHUNK_SIZE, context);
+                        SearchTokens.refresh(sqlDao, tableName, recordIds, false, context);
+                        return recordIds;
+                    }
+                });
+
+                nbIndexedForTable += recordIds.size();
+                fromRecordId = recordIds.size() < REBUILD_CHUNK_SIZE ? null : recordIds.get(recordIds.size() - 1);
+            }
+
+            logger.info("Rebuilt search tokens for tableName='{}', tenantRecordId='{}': {} rows indexed", tableName, context.getTenantRecordId(), nbIndexedForTable);
+            nbIndexed += nbIndexedForTable;
+        }
+        return nbIndexed;
+    }
+}
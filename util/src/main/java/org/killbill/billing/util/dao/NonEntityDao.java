@@ -41,6 +41,9 @@ public interface NonEntityDao {
 
     public Long retrieveTenantRecordIdFromObjectInTransaction(final UUID objectId, final ObjectType objectType, @Nullable final CacheController<String, Long> cache, @Nullable final Handle handle);
 
+    // Account record id, tenant record id, account time zone and reference time in a single query (no caching: see InternalCallContextFactory)
+    public AccountContextMappings retrieveAccountContextFromObject(final UUID objectId, final ObjectType objectType);
+
     public UUID retrieveIdFromObject(final Long recordId, final ObjectType objectType, @Nullable final CacheController<String, UUID> cache);
 
     public UUID retrieveIdFromObjectInTransaction(final Long recordId, final ObjectType objectType, @Nullable final CacheController<String, UUID> cache, @Nullable final Handle handle);
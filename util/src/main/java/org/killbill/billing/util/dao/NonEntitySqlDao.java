@@ -18,6 +18,7 @@
 
 package org.killbill.billing.util.dao;
 
+import java.util.Collection;
 import java.util.UUID;
 
 import org.killbill.billing.callcontext.InternalTenantContext;
@@ -28,6 +29,7 @@ import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.customizers.Define;
 import org.skife.jdbi.v2.sqlobject.mixins.CloseMe;
 import org.skife.jdbi.v2.sqlobject.mixins.Transactional;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 @KillBillSqlDaoStringTemplate
 public interface NonEntitySqlDao extends Transactional<NonEntitySqlDao>, CloseMe {
@@ -48,33 +50,31 @@ public interface NonEntitySqlDao extends Transactional<NonEntitySqlDao>, CloseMe
     public Long getAccountRecordIdFromObjectOtherThanAccount(@Bind("id") String id, @Define("tableName") final String tableName);
 
     @SqlQuery
-    public Long getTenantRecordIdFromTenant(@Bind("id") String id);
+    public AccountContextMappings getAccountContextFromAccount(@Bind("id") String id);
 
     @SqlQuery
-    public Long getTenantRecordIdFromObjectOtherThanTenant(@Bind("id") String id, @Define("tableName") final String tableName);
+    public AccountContextMappings getAccountContextFromObjectOtherThanAccount(@Bind("id") String id, @Define("tableName") final String tableName);
 
     @SqlQuery
-    public Long getLastHistoryRecordId(@Bind("targetRecordId") Long targetRecordId, @Define("tableName") final String tableName);
+    public Long getTenantRecordIdFromTenant(@Bind("id") String id);
 
     @SqlQuery
-    public Long getHistoryTargetRecordId(@Bind("recordId") Long recordId, @Define("tableName") final String tableName);
+    public Long getTenantRecordIdFromObjectOtherThanTenant(@Bind("id") String id, @Define("tableName") final String tableName);
 
     @SqlQuery
-    public Iterable<RecordIdIdMappings> getHistoryRecordIdIdMappings(@Define("tableName") String tableName,
-                                                                     @Define("historyTableName") String historyTableName,
-                                                                     @SmartBindBean final InternalTenantContext context);
+    public Long getLastHistoryRecordId(@Bind("targetRecordId") Long targetRecordId, @Define("tableName") final String tableName);
 
     @SqlQuery
-    public Iterable<RecordIdIdMappings> getHistoryRecordIdIdMappingsForAccountsTable(@Define("tableName") String tableName,
-                                                                                     @Define("historyTableName") String historyTableName,
-                                                                                     @SmartBindBean final InternalTenantContext context);
+    public Long getHistoryTargetRecordId(@Bind("recordId") Long recordId, @Define("tableName") final String tableName);
 
     @SqlQuery
-    public Iterable<RecordIdIdMappings> getHistoryRecordIdIdMappingsForTablesWithoutAccountRecordId(@Define("tableName") String tableName,
-                                                                                                    @Define("historyTableName") String historyTableName,
-                                                                                                    @SmartBindBean final InternalTenantContext context);
+    public Iterable<RecordIdIdMappings> getRecordIdIdMappingsForRecordIds(@Define("tableName") String tableName,
+                                                                          @BindIn("recordIds") final Collection<Long> recordIds,
+                                                                          @SmartBindBean final InternalTenantContext context);
 
     @SqlQuery
-    public Iterable<RecordIdIdMappings> getRecordIdIdMappings(@Define("tableName") String tableName,
-                                                              @SmartBindBean final InternalTenantContext context);
+    public Iterable<RecordIdIdMappings> getHistoryRecordIdIdMappingsForHistoryRecordIds(@Define("tableName") String tableName,
+                                                                                        @Define("historyTableName") String historyTableName,
+                                                                                        @BindIn("historyRecordIds") final Collection<Long> historyRecordIds,
+                                                                                        @SmartBindBean final InternalTenantContext context);
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.dao;
+
+public class SearchTokenModelDao {
+
+    private final String tableName;
+    private final Long targetRecordId;
+    private final String token;
+
+    public SearchTokenModelDao(final String tableName, final Long targetRecordId, final String token) {
+        this.tableName = tableName;
+        this.targetRecordId = targetRecordId;
+        this.token = token;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Long getTargetRecordId() {
+        return targetRecordId;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchTokenModelDao{" +
+               "tableName='" + tableName + '\'' +
+               ", targetRecordId=" + targetRecordId +
+               ", token='" + token + '\'' +
+               '}';
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.dao;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.commons.jdbi.binder.SmartBindBean;
+import org.killbill.commons.jdbi.template.KillBillSqlDaoStringTemplate;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.customizers.BatchChunkSize;
+import org.skife.jdbi.v2.sqlobject.customizers.Define;
+import org.skife.jdbi.v2.sqlobject.mixins.CloseMe;
+import org.skife.jdbi.v2.sqlobject.mixins.Transactional;
+import org.skife.jdbi.v2.unstable.BindIn;
+
+/**
+ * Note: in the queries below, tableName always refers to the actual table name (TableName.getTableName()).
+ */
+@KillBillSqlDaoStringTemplate
+public interface SearchTokenSqlDao extends Transactional<SearchTokenSqlDao>, CloseMe {
+
+    @SqlQuery
+    public List<SearchableRecord> getSearchableRecords(@Define("tableName") final String tableName,
+                                                       @Define("searchColumns") final List<String> searchColumns,
+                                                       @BindIn("recordIds") final Collection<Long> recordIds,
+                                                       @SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<Long> getRecordIdsAfterRecordId(@Define("tableName") final String tableName,
+                                                @Bind("fromRecordId") final Long fromRecordId,
+                                                @Bind("rowCount") final Long rowCount,
+                                                @SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<SearchTokenModelDao> getSearchTokens(@Bind("tableName") final String tableName,
+                                                     @BindIn("targetRecordIds") final Collection<Long> targetRecordIds,
+                                                     @SmartBindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public void deleteSearchTokens(@Bind("tableName") final String tableName,
+                                   @BindIn("targetRecordIds") final Collection<Long> targetRecordIds,
+                                   @SmartBindBean final InternalCallContext context);
+
+    @SqlBatch
+    @BatchChunkSize(1000) // Arbitrary value, just a safety mechanism in case of very large datasets
+    public void create(@SmartBindBean final Iterable<SearchTokenModelDao> searchTokens,
+                       @SmartBindBean final InternalCallContext context);
+}
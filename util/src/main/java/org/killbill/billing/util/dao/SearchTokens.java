@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.util.config.definition.SearchConfig;
+
+//
+// Search token index (search_tokens table), used to avoid full table scans for the like '%searchKey%' searches.
+//
+// For each indexed row, we store the distinct (lowercased) trigrams of the searchable column values: a value containing
+// the search key contains all of its trigrams, so the rows having the first literal trigram of the key (i.e. token = 'abc',
+// which leverages the search_tokens_token index) are a superset of the results. These candidates are then filtered using
+// the original search predicate, so results (and pagination) are the same as the non-indexed search.
+//
+// To bound the size of the index, rows with more than MAX_TOKENS_PER_RECORD distinct trigrams are only indexed with
+// OVERFLOW_TOKEN, and are part of the candidates of every indexed search.
+//
+// The index is maintained transactionally when enabled (see EntitySqlDaoWrapperInvocationHandler) and needs to be backfilled
+// (see SearchTokenDao#rebuildSearchTokens) before being used by searches (see SearchConfig).
+//
+public final class SearchTokens {
+
+    public static final int TOKEN_LENGTH = 3;
+    // Shorter keys don't have any trigram
+    public static final int MIN_SEARCH_KEY_LENGTH = TOKEN_LENGTH;
+    public static final int MAX_TOKENS_PER_RECORD = 256;
+    // Needs to match the search_tokens queries (see EntitySqlDao.sql.stg and TagSqlDao.sql.stg)
+    public static final String OVERFLOW_TOKEN = "*";
+
+    // Columns used with like :likeSearchKey in the searchQuery templates
+    public static final Map<TableName, List<String>> SEARCHABLE_COLUMNS = Map.of(TableName.ACCOUNT, List.of("name", "email", "external_key", "company_name"),
+                                                                                  TableName.PAYMENTS, List.of("external_key"),
+                                                                                  TableName.PAYMENT_METHODS, List.of("external_key", "plugin_name"),
+                                                                                  TableName.CUSTOM_FIELD, List.of("object_type", "object_id", "field_name", "field_value"),
+                                                                                  // Tag definition names and descriptions are looked-up directly (see TagSqlDao.sql.stg)
+                                                                                  TableName.TAG, List.of("object_type"));
+
+    private SearchTokens() {}
+
+    public static boolean shouldMaintain(@Nullable final SearchConfig searchConfig, @Nullable final TableName tableName) {
+        return searchConfig != null && searchConfig.shouldMaintainSearchTokens() && tableName != null && SEARCHABLE_COLUMNS.containsKey(tableName);
+    }
+
+    // Token to match against search_tokens.token, null if the index shouldn't be used for that search
+    @Nullable
+    public static String toTokenSearchKey(final SearchConfig searchConfig, @Nullable final String searchKey) {
+        return searchConfig.shouldMaintainSearchTokens() && searchConfig.shouldUseSearchTokensForSearch() ? buildTokenSearchKey(searchKey) : null;
+    }
+
+    @Nullable
+    static String buildTokenSearchKey(@Nullable final String searchKey) {
+        if (searchKey == null || searchKey.length() < MIN_SEARCH_KEY_LENGTH) {
+            return null;
+        }
+        if (searchKey.indexOf('%') >= 0) {
+            // The match could be spread across the value
+            return null;
+        }
+
+        // The key is used as is in the like clause: only look at characters which aren't interpreted there ('_' wildcard and '\' escape)
+        int literalLength = 0;
+        for (int i = 0; i < searchKey.length(); i++) {
+            final char c = searchKey.charAt(i);
+            literalLength = (c == '_' || c == '\\') ? 0 : literalLength + 1;
+            if (literalLength == TOKEN_LENGTH) {
+                return searchKey.substring(i + 1 - TOKEN_LENGTH, i + 1).toLowerCase(Locale.ROOT);
+            }
+        }
+        return null;
+    }
+
+    public static Set<String> tokenize(final Iterable<String> values) {
+        final Set<String> tokens = new LinkedHashSet<String>();
+        for (final String value : values) {
+            if (value == null) {
+                continue;
+            }
+            final String lowerCaseValue = value.toLowerCase(Locale.ROOT);
+            for (int i = 0; i + TOKEN_LENGTH <= lowerCaseValue.length(); i++) {
+                tokens.add(lowerCaseValue.substring(i, i + TOKEN_LENGTH));
+                if (tokens.size() > MAX_TOKENS_PER_RECORD) {
+                    return Set.of(OVERFLOW_TOKEN);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    // Re-compute the tokens of the specified rows, using their current state in the database (must be called from the transaction which modified them).
+    // Only the rows whose tokens changed (i.e. whose searchable columns changed) are re-written, unless newRecords is set (nothing to compare against).
+    public static int refresh(final SearchTokenSqlDao searchTokenSqlDao, final TableName tableName, final Collection<Long> recordIds, final boolean newRecords, final InternalCallContext context) {
+        if (recordIds.isEmpty()) {
+            return 0;
+        }
+
+        final List<SearchableRecord> searchableRecords = searchTokenSqlDao.getSearchableRecords(tableName.getTableName(), SEARCHABLE_COLUMNS.get(tableName), recordIds, context);
+
+        final Map<Long, Set<String>> currentTokensByRecordId = new HashMap<Long, Set<String>>();
+        if (!newRecords) {
+            for (final SearchTokenModelDao currentToken : searchTokenSqlDao.getSearchTokens(tableName.getTableName(), recordIds, context)) {
+                currentTokensByRecordId.computeIfAbsent(currentToken.getTargetRecordId(), k -> new HashSet<String>()).add(currentToken.getToken());
+            }
+        }
+
+        final Collection<Long> staleRecordIds = new HashSet<Long>(currentTokensByRecordId.keySet());
+        final Collection<SearchTokenModelDao> searchTokens = new ArrayList<SearchTokenModelDao>();
+        int nbRefreshed = 0;
+        for (final SearchableRecord searchableRecord : searchableRecords) {
+            final Set<String> tokens = tokenize(searchableRecord.getValues());
+            final Set<String> currentTokens = currentTokensByRecordId.get(searchableRecord.getRecordId());
+            if (currentTokens != null && currentTokens.equals(tokens)) {
+                // Searchable columns didn't change
+                staleRecordIds.remove(searchableRecord.getRecordId());
+                continue;
+            }
+
+            nbRefreshed++;
+            for (final String token : tokens) {
+                searchTokens.add(new SearchTokenModelDao(tableName.getTableName(), searchableRecord.getRecordId(), token));
+            }
+        }
+
+        if (!staleRecordIds.isEmpty()) {
+            searchTokenSqlDao.deleteSearchTokens(tableName.getTableName(), staleRecordIds, context);
+        }
+        if (!searchTokens.isEmpty()) {
+            searchTokenSqlDao.create(searchTokens, context);
+        }
+        return nbRefreshed;
+    }
+}
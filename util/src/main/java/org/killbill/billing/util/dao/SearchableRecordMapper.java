@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+public class SearchableRecordMapper extends MapperBase implements ResultSetMapper<SearchableRecord> {
+
+    @Override
+    public SearchableRecord map(final int index, final ResultSet r, final StatementContext ctx) throws SQLException {
+        final long recordId = r.getLong("record_id");
+        // The searchable columns follow the record_id
+        final int nbColumns = r.getMetaData().getColumnCount();
+        final List<String> values = new ArrayList<String>(nbColumns - 1);
+        for (int i = 2; i <= nbColumns; i++) {
+            values.add(r.getString(i));
+        }
+        return new SearchableRecord(recordId, values);
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.killbill.billing.util.email.templates;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.samskivert.mustache.Mustache;
@@ -23,9 +25,29 @@ import com.samskivert.mustache.Template;
 
 public class MustacheTemplateEngine implements TemplateEngine {
 
+    // Compiled templates are immutable and thread-safe: cache them by template text, so that the cache never needs to be invalidated
+    // (a new template for a tenant simply results in a new entry, the old one being eventually evicted)
+    private static final int MAX_COMPILED_TEMPLATES = 100;
+
+    private final Map<String, Template> compiledTemplates = Collections.synchronizedMap(new LinkedHashMap<String, Template>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Template> eldest) {
+            return size() > MAX_COMPILED_TEMPLATES;
+        }
+    });
+
     @Override
     public String executeTemplateText(final String templateText, final Map<String, Object> data) {
-        final Template template = Mustache.compiler().nullValue("").compile(templateText);
-        return template.execute(data);
+        return getCompiledTemplate(templateText).execute(data);
+    }
+
+    private Template getCompiledTemplate(final String templateText) {
+        Template template = compiledTemplates.get(templateText);
+        if (template == null) {
+            // Compile outside of the lock, worst case a template is compiled twice
+            template = Mustache.compiler().nullValue("").compile(templateText);
+            compiledTemplates.put(templateText, template);
+        }
+        return template;
     }
 }
@@ -17,11 +17,13 @@
 
 package org.killbill.billing.util.entity.dao;
 
-import org.killbill.commons.utils.annotation.VisibleForTesting;
+import java.util.concurrent.Callable;
+
 import org.killbill.commons.profiling.Profiling.WithProfilingCallback;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.IDBI;
 import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.tweak.HandleCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,7 +61,27 @@ public class DBRouterUntyped {
         }
     }
 
-    @VisibleForTesting
+    // The state is per thread: tasks handed over to an executor (e.g. parallel timeline) need to carry the caller's state
+    public static <T> Callable<T> withCurrentThreadState(final Callable<T> callable) {
+        final THREAD_STATE callerState = getCurrentState();
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return withThreadState(callerState, callable);
+            }
+        };
+    }
+
+    public static <T> T withThreadState(final THREAD_STATE state, final Callable<T> callable) throws Exception {
+        final THREAD_STATE currentState = getCurrentState();
+        CURRENT_THREAD_STATE.set(state);
+        try {
+            return callable.call();
+        } finally {
+            CURRENT_THREAD_STATE.set(currentState);
+        }
+    }
+
     public static THREAD_STATE getCurrentState() {
         return CURRENT_THREAD_STATE.get();
     }
@@ -91,13 +113,26 @@ public class DBRouterUntyped {
     }
 
     public Handle getHandle(final boolean requestedRO) {
-        if (shouldUseRODBI(requestedRO)) {
+        return openHandle(shouldUseRODBI(requestedRO));
+    }
+
+    // Routing decision already made by the caller (see shouldUseRODBI)
+    Handle openHandle(final boolean useRODBI) {
+        if (useRODBI) {
             return roDbi.open();
         } else {
             return dbi.open();
         }
     }
 
+    public <T> T withHandle(final boolean requestedRO, final HandleCallback<T> callback) {
+        if (shouldUseRODBI(requestedRO)) {
+            return roDbi.withHandle(callback);
+        } else {
+            return dbi.withHandle(callback);
+        }
+    }
+
     public <T> T onDemand(final boolean requestedRO, final Class<T> sqlObjectType) {
         if (shouldUseRODBI(requestedRO)) {
             return roDbi.onDemand(sqlObjectType);
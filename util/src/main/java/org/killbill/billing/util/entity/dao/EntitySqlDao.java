@@ -108,6 +108,23 @@ public interface EntitySqlDao<M extends EntityModelDao<E>, E extends Entity> ext
                                @Bind("likeSearchKey") final String likeSearchKey,
                                @SmartBindBean final InternalTenantContext context);
 
+    // Same as search, but candidates are looked-up via the search token index (see SearchTokens)
+    @SqlQuery
+    @SmartFetchSize(shouldStream = true)
+    public Iterator<M> indexedSearch(@Bind("searchKey") final String searchKey,
+                                     @Bind("likeSearchKey") final String likeSearchKey,
+                                     @Bind("tokenSearchKey") final String tokenSearchKey,
+                                     @Bind("offset") final Long offset,
+                                     @Bind("rowCount") final Long rowCount,
+                                     @Define("ordering") final String ordering,
+                                     @SmartBindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public Long getIndexedSearchCount(@Bind("searchKey") final String searchKey,
+                                      @Bind("likeSearchKey") final String likeSearchKey,
+                                      @Bind("tokenSearchKey") final String tokenSearchKey,
+                                      @SmartBindBean final InternalTenantContext context);
+
     @SqlQuery
     @SmartFetchSize(shouldStream = true)
     public Iterator<M> getAll(@SmartBindBean final InternalTenantContext context);
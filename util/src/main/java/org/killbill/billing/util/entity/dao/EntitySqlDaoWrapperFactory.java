@@ -20,8 +20,11 @@ package org.killbill.billing.util.entity.dao;
 
 import java.lang.reflect.Proxy;
 
+import javax.annotation.Nullable;
+
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.definition.SearchConfig;
 import org.killbill.billing.util.entity.Entity;
 import org.killbill.clock.Clock;
 import org.skife.jdbi.v2.Handle;
@@ -36,16 +39,29 @@ import org.skife.jdbi.v2.sqlobject.SqlObjectBuilder;
 public class EntitySqlDaoWrapperFactory {
 
     private final Handle handle;
+    // Whether the handle points to the read-only instance
+    private final boolean readOnly;
     private final Clock clock;
     private final CacheControllerDispatcher cacheControllerDispatcher;
 
     private final InternalCallContextFactory internalCallContextFactory;
+    private final SearchConfig searchConfig;
 
     public EntitySqlDaoWrapperFactory(final Handle handle, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final InternalCallContextFactory internalCallContextFactory) {
+        this(handle, false, clock, cacheControllerDispatcher, internalCallContextFactory);
+    }
+
+    public EntitySqlDaoWrapperFactory(final Handle handle, final boolean readOnly, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final InternalCallContextFactory internalCallContextFactory) {
+        this(handle, readOnly, clock, cacheControllerDispatcher, internalCallContextFactory, null);
+    }
+
+    public EntitySqlDaoWrapperFactory(final Handle handle, final boolean readOnly, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final InternalCallContextFactory internalCallContextFactory, @Nullable final SearchConfig searchConfig) {
         this.handle = handle;
+        this.readOnly = readOnly;
         this.clock = clock;
         this.cacheControllerDispatcher = cacheControllerDispatcher;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.searchConfig = searchConfig;
     }
 
     /**
@@ -67,13 +83,17 @@ public class EntitySqlDaoWrapperFactory {
         return handle;
     }
 
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
     private <NewSqlDao extends EntitySqlDao<NewEntityModelDao, NewEntity>,
             NewEntityModelDao extends EntityModelDao<NewEntity>,
             NewEntity extends Entity> NewSqlDao create(final Class<NewSqlDao> newSqlDaoClass, final NewSqlDao newSqlDao) {
         final ClassLoader classLoader = newSqlDao.getClass().getClassLoader();
         final Class[] interfacesToImplement = {newSqlDaoClass};
         final EntitySqlDaoWrapperInvocationHandler<NewSqlDao, NewEntityModelDao, NewEntity> wrapperInvocationHandler =
-                new EntitySqlDaoWrapperInvocationHandler<NewSqlDao, NewEntityModelDao, NewEntity>(newSqlDaoClass, newSqlDao, handle, cacheControllerDispatcher, internalCallContextFactory);
+                new EntitySqlDaoWrapperInvocationHandler<NewSqlDao, NewEntityModelDao, NewEntity>(newSqlDaoClass, newSqlDao, handle, readOnly, cacheControllerDispatcher, internalCallContextFactory, searchConfig);
 
         final Object newSqlDaoObject = Proxy.newProxyInstance(classLoader, interfacesToImplement, wrapperInvocationHandler);
         return newSqlDaoClass.cast(newSqlDaoObject);
@@ -47,8 +47,11 @@ import org.killbill.billing.util.cache.Cachable.CacheType;
 import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.definition.SearchConfig;
 import org.killbill.billing.util.dao.EntityAudit;
 import org.killbill.billing.util.dao.EntityHistoryModelDao;
+import org.killbill.billing.util.dao.SearchTokenSqlDao;
+import org.killbill.billing.util.dao.SearchTokens;
 import org.killbill.billing.util.dao.TableName;
 import org.killbill.billing.util.entity.Entity;
 import org.killbill.clock.Clock;
@@ -83,22 +86,29 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
     private final Class<S> sqlDaoClass;
     private final S sqlDao;
     private final Handle handle;
+    private final boolean readOnly;
 
     private final CacheControllerDispatcher cacheControllerDispatcher;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final SearchConfig searchConfig;
     private final Profiling<Object, Throwable> prof;
 
     public EntitySqlDaoWrapperInvocationHandler(final Class<S> sqlDaoClass,
                                                 final S sqlDao,
                                                 final Handle handle,
+                                                final boolean readOnly,
                                                 // Special DAO that don't require caching can invoke EntitySqlDaoWrapperInvocationHandler with no caching (e.g NoCachingTenantDao)
                                                 @Nullable final CacheControllerDispatcher cacheControllerDispatcher,
-                                                final InternalCallContextFactory internalCallContextFactory) {
+                                                final InternalCallContextFactory internalCallContextFactory,
+                                                // Only set for DAOs writing to searchable tables (see SearchTokens)
+                                                @Nullable final SearchConfig searchConfig) {
         this.sqlDaoClass = sqlDaoClass;
         this.sqlDao = sqlDao;
         this.handle = handle;
+        this.readOnly = readOnly;
         this.cacheControllerDispatcher = cacheControllerDispatcher;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.searchConfig = searchConfig;
         this.prof = new Profiling<Object, Throwable>();
     }
 
@@ -182,6 +192,11 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         final boolean isROQuery = method.getAnnotation(SqlQuery.class) != null;
         Preconditions.checkState(auditedAnnotation != null || isROQuery, "Non-@SqlQuery method %s without @Audited annotation", method);
 
+        if (auditedAnnotation != null && readOnly) {
+            // Writes should never be routed to the read-only instance: the DAO should have requested a RW transaction
+            logger.warn("@Audited method {} of {} invoked in a read-only transaction", method.getName(), sqlDaoClass);
+        }
+
         // This can't be AUDIT'ed and CACHABLE'd at the same time as we only cache 'get'
         if (auditedAnnotation != null) {
             return invokeWithAuditAndHistory(auditedAnnotation, method, args);
@@ -200,6 +215,9 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
                 // the object after it was created, which means this method is (by pattern) first called right after object creation and contains all the goodies we care
                 // about (record_id, account_record_id, object_id, tenant_record_id)
                 //
+                // This is safe even when the row was read from a (lagging) replica: these ids never change once the row exists, and
+                // a row not replicated yet simply isn't found (nothing is cached then).
+                //
                 if (result != null && method.getName().equals("getById")) {
                     populateCacheOnGetByIdInvocation((M) result);
                 }
@@ -278,6 +296,9 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         }
 
         final Collection<M> reHydratedEntities = updateHistoryAndAudit(entityRecordIds, deletedAndUpdatedEntities, tableName, changeType, context);
+        if (SearchTokens.shouldMaintain(searchConfig, tableName)) {
+            updateSearchTokens(entityRecordIds, tableName, changeType == ChangeType.INSERT, context);
+        }
         if (method.getReturnType().equals(Void.TYPE)) {
             // Return early
             return null;
@@ -401,6 +422,24 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         return (Collection<M>) reHydratedEntitiesOrNull;
     }
 
+    private void updateSearchTokens(final List<Long> entityRecordIds, final TableName tableName, final boolean newRecords, final InternalCallContext context) throws Throwable {
+        // Same chunking as the history rows re-hydration, to keep the in clauses reasonable
+        final int MAX_BATCH_SIZE = 1000;
+
+        prof.executeWithProfiling(ProfilingFeatureType.DAO_DETAILS, getProfilingId("searchTokens", null), new WithProfilingCallback<Object, Throwable>() {
+            @Override
+            public Object execute() {
+                final SearchTokenSqlDao searchTokenSqlDao = handle.attach(SearchTokenSqlDao.class);
+                for (int start = 0; start < entityRecordIds.size(); start += MAX_BATCH_SIZE) {
+                    final int end = Math.min(entityRecordIds.size(), start + MAX_BATCH_SIZE);
+                    SearchTokens.refresh(searchTokenSqlDao, tableName, entityRecordIds.subList(start, end), newRecords, context);
+                    printSQLWarnings();
+                }
+                return null;
+            }
+        });
+    }
+
     private List<String> retrieveEntityIdsFromArguments(final Method method, final Object[] args) {
         final Annotation[][] parameterAnnotations = getAnnotations(method);
 
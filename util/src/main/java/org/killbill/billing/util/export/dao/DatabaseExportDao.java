@@ -26,12 +26,14 @@ import java.util.Map.Entry;
 import java.util.TreeMap;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.api.ColumnInfo;
 import org.killbill.billing.util.api.DatabaseExportOutputStream;
 import org.killbill.billing.util.dao.TableName;
+import org.killbill.billing.util.entity.dao.DBRouterUntyped;
 import org.killbill.billing.util.validation.DefaultColumnInfo;
 import org.killbill.billing.util.validation.dao.DatabaseSchemaDao;
 import org.skife.jdbi.v2.Handle;
@@ -41,19 +43,22 @@ import org.skife.jdbi.v2.tweak.HandleCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.killbill.billing.util.glue.IDBISetup.MAIN_RO_IDBI_NAMED;
+
 @Singleton
 public class DatabaseExportDao {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseExportDao.class);
 
     private final DatabaseSchemaDao databaseSchemaDao;
-    private final IDBI dbi;
+    private final DBRouterUntyped dbRouter;
 
     @Inject
     public DatabaseExportDao(final DatabaseSchemaDao databaseSchemaDao,
-                             final IDBI dbi) {
+                             final IDBI dbi,
+                             @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi) {
         this.databaseSchemaDao = databaseSchemaDao;
-        this.dbi = dbi;
+        this.dbRouter = new DBRouterUntyped(dbi, roDbi);
     }
 
     private enum TableType {
@@ -172,7 +177,8 @@ public class DatabaseExportDao {
         // Notify the stream that we're about to write data for a different table
         out.newTable(tableName, columnsForTable);
 
-        dbi.withHandle(new HandleCallback<Void>() {
+        // Full dump of the account data: served by the read-only instance when allowed (stale reads are acceptable for an export)
+        dbRouter.withHandle(true, new HandleCallback<Void>() {
             @Override
             public Void withHandle(final Handle handle) throws Exception {
                 final ResultIterator<Map<String, Object>> iterator = handle.createQuery(queryBuilder.toString())
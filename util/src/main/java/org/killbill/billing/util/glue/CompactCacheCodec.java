@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.glue;
+
+import java.io.IOException;
+
+import org.killbill.billing.util.cache.CacheValueSerializer;
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.handler.State;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+// Redisson codec using the compact cache encoding (see CacheValueSerializer)
+public class CompactCacheCodec extends BaseCodec {
+
+    private final CacheValueSerializer serializer;
+
+    private final Encoder encoder = new Encoder() {
+        @Override
+        public ByteBuf encode(final Object in) throws IOException {
+            final byte[] bytes = serializer.serialize(in);
+            final ByteBuf out = ByteBufAllocator.DEFAULT.buffer(bytes.length);
+            out.writeBytes(bytes);
+            return out;
+        }
+    };
+
+    private final Decoder<Object> decoder = new Decoder<Object>() {
+        @Override
+        public Object decode(final ByteBuf buf, final State state) throws IOException {
+            final byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+            return serializer.deserialize(bytes);
+        }
+    };
+
+    public CompactCacheCodec(final CacheValueSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    // Required by Redisson to copy the codec for a different class loader (see BaseCodec#copy)
+    public CompactCacheCodec(final ClassLoader classLoader, final CompactCacheCodec codec) {
+        this(codec.serializer.withClassLoader(classLoader));
+    }
+
+    @Override
+    public Decoder<Object> getValueDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public Encoder getValueEncoder() {
+        return encoder;
+    }
+
+    public CacheValueSerializer getSerializer() {
+        return serializer;
+    }
+}
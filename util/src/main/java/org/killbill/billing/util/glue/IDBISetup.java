@@ -24,10 +24,13 @@ import java.util.List;
 
 import org.killbill.billing.lifecycle.ServiceFinder;
 import org.killbill.billing.util.broadcast.dao.BroadcastModelDao;
+import org.killbill.billing.util.dao.AccountContextMappingsMapper;
 import org.killbill.billing.util.dao.AuditLogModelDaoMapper;
 import org.killbill.billing.util.dao.CounterMappingsMapper;
 import org.killbill.billing.util.dao.EntityHistoryModelDaoMapperFactory;
 import org.killbill.billing.util.dao.RecordIdIdMappingsMapper;
+import org.killbill.billing.util.dao.SearchTokenModelDaoMapper;
+import org.killbill.billing.util.dao.SearchableRecordMapper;
 import org.killbill.billing.util.entity.Entity;
 import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.nodes.dao.NodeInfoModelDao;
@@ -91,7 +94,10 @@ public class IDBISetup {
     public static List<? extends ResultSetMapper> mappersToRegister() {
         return List.of(new AuditLogModelDaoMapper(),
                 new RecordIdIdMappingsMapper(),
+                new AccountContextMappingsMapper(),
                 new CounterMappingsMapper(),
+                new SearchableRecordMapper(),
+                new SearchTokenModelDaoMapper(),
                 new DatabaseSchemaSqlDao.ColumnInfoMapper());
     }
 }
@@ -19,8 +19,12 @@
 package org.killbill.billing.util.glue;
 
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.util.config.definition.SearchConfig;
 import org.killbill.billing.util.dao.DefaultNonEntityDao;
+import org.killbill.billing.util.dao.DefaultSearchTokenDao;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.dao.SearchTokenDao;
+import org.skife.config.ConfigurationObjectFactory;
 
 public class NonEntityDaoModule extends KillBillModule {
 
@@ -30,6 +34,10 @@ public class NonEntityDaoModule extends KillBillModule {
 
     @Override
     protected void configure() {
+        final SearchConfig searchConfig = new ConfigurationObjectFactory(skifeConfigSource).build(SearchConfig.class);
+        bind(SearchConfig.class).toInstance(searchConfig);
+
         bind(NonEntityDao.class).to(DefaultNonEntityDao.class).asEagerSingleton();
+        bind(SearchTokenDao.class).to(DefaultSearchTokenDao.class).asEagerSingleton();
     }
 }
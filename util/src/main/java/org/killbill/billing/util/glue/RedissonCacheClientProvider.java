@@ -20,6 +20,9 @@ package org.killbill.billing.util.glue;
 import javax.inject.Inject;
 import javax.inject.Provider;
 
+import org.killbill.billing.util.cache.CacheValueSerializer;
+import org.killbill.commons.metrics.api.Gauge;
+import org.killbill.commons.metrics.api.MetricRegistry;
 import org.killbill.commons.utils.annotation.VisibleForTesting;
 import org.killbill.billing.util.config.definition.RedisCacheConfig;
 import org.redisson.Redisson;
@@ -30,26 +33,44 @@ import org.redisson.config.Config;
 
 public class RedissonCacheClientProvider implements Provider<RedissonClient> {
 
+    public static final String JAVA_CODEC = "java";
+    public static final String COMPACT_CODEC = "compact";
+
     private final String address;
     private final int connectionMinimumIdleSize;
     private final String password;
+    private final String codecName;
+    private final int codecCompressionThreshold;
+    private final MetricRegistry metricRegistry;
 
     @Inject
-    public RedissonCacheClientProvider(final RedisCacheConfig cacheConfig) {
-        this(cacheConfig.getUrl(), cacheConfig.getConnectionMinimumIdleSize(), cacheConfig.getPassword());
+    public RedissonCacheClientProvider(final RedisCacheConfig cacheConfig, final MetricRegistry metricRegistry) {
+        this(cacheConfig.getUrl(), cacheConfig.getConnectionMinimumIdleSize(), cacheConfig.getPassword(), cacheConfig.getCodec(), cacheConfig.getCodecCompressionThreshold(), metricRegistry);
     }
 
     @VisibleForTesting
     public RedissonCacheClientProvider(final String address, final int connectionMinimumIdleSize, final String password) {
+        this(address, connectionMinimumIdleSize, password, JAVA_CODEC, -1, null);
+    }
+
+    @VisibleForTesting
+    public RedissonCacheClientProvider(final String address,
+                                       final int connectionMinimumIdleSize,
+                                       final String password,
+                                       final String codecName,
+                                       final int codecCompressionThreshold,
+                                       final MetricRegistry metricRegistry) {
         this.address = address;
         this.connectionMinimumIdleSize = connectionMinimumIdleSize;
         this.password = password;
+        this.codecName = codecName;
+        this.codecCompressionThreshold = codecCompressionThreshold;
+        this.metricRegistry = metricRegistry;
     }
 
     @Override
     public RedissonClient get() {
-        // JDK serialization codec for now, but we can do better in speed and space
-        final Codec codec = new SerializationCodec();
+        final Codec codec = createCodec();
 
         final Config redissonCfg = new Config();
         redissonCfg.setCodec(codec)
@@ -59,4 +80,65 @@ public class RedissonCacheClientProvider implements Provider<RedissonClient> {
                    .setConnectionMinimumIdleSize(connectionMinimumIdleSize);
         return Redisson.create(redissonCfg);
     }
+
+    private Codec createCodec() {
+        if (JAVA_CODEC.equalsIgnoreCase(codecName)) {
+            return new SerializationCodec();
+        } else if (COMPACT_CODEC.equalsIgnoreCase(codecName)) {
+            // Values which aren't natively supported (e.g. Shiro sessions) are still Java serialized
+            final CacheValueSerializer serializer = new CacheValueSerializer(RedissonCacheClientProvider.class.getClassLoader(), codecCompressionThreshold);
+            if (metricRegistry != null) {
+                registerMetrics(serializer);
+            }
+            return new CompactCacheCodec(serializer);
+        } else {
+            throw new IllegalArgumentException("Unknown Redis cache codec " + codecName);
+        }
+    }
+
+    private void registerMetrics(final CacheValueSerializer serializer) {
+        final String prefix = "kb.cache.codec.";
+        metricRegistry.gauge(prefix + "serializations", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return serializer.getNbSerializations();
+            }
+        });
+        metricRegistry.gauge(prefix + "deserializations", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return serializer.getNbDeserializations();
+            }
+        });
+        metricRegistry.gauge(prefix + "compressions", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return serializer.getNbCompressions();
+            }
+        });
+        metricRegistry.gauge(prefix + "serialized-bytes", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return serializer.getSerializedBytes();
+            }
+        });
+        metricRegistry.gauge(prefix + "uncompressed-bytes", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return serializer.getUncompressedBytes();
+            }
+        });
+        metricRegistry.gauge(prefix + "serialization-time-ns", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return serializer.getSerializationTimeNanos();
+            }
+        });
+        metricRegistry.gauge(prefix + "deserialization-time-ns", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return serializer.getDeserializationTimeNanos();
+            }
+        });
+    }
 }
@@ -30,6 +30,7 @@ import org.killbill.billing.util.config.definition.RbacConfig;
 import org.killbill.billing.util.config.definition.RedisCacheConfig;
 import org.killbill.billing.util.security.shiro.dao.JDBCSessionDao;
 import org.killbill.billing.util.security.shiro.dao.RedisSessionDao;
+import org.killbill.commons.metrics.api.MetricRegistry;
 import org.skife.jdbi.v2.IDBI;
 
 import static org.killbill.billing.util.glue.IDBISetup.MAIN_RO_IDBI_NAMED;
@@ -41,14 +42,16 @@ public class SessionDAOProvider implements Provider<SessionDAO> {
     private final IDBI roDbi;
     private final RbacConfig rbacConfig;
     private final RedisCacheConfig redisCacheConfig;
+    private final MetricRegistry metricRegistry;
 
     @Inject
-    public SessionDAOProvider(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final SessionManager sessionManager, final RbacConfig rbacConfig, final RedisCacheConfig redisCacheConfig) {
+    public SessionDAOProvider(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final SessionManager sessionManager, final RbacConfig rbacConfig, final RedisCacheConfig redisCacheConfig, final MetricRegistry metricRegistry) {
         this.sessionManager = sessionManager;
         this.dbi = dbi;
         this.roDbi = roDbi;
         this.rbacConfig = rbacConfig;
         this.redisCacheConfig = redisCacheConfig;
+        this.metricRegistry = metricRegistry;
     }
 
     @Override
@@ -57,7 +60,7 @@ public class SessionDAOProvider implements Provider<SessionDAO> {
         if (redisCacheConfig.isRedisCachingEnabled()) {
             sessionDao = new RedisSessionDao();
         } else {
-            sessionDao = new JDBCSessionDao(dbi, roDbi);
+            sessionDao = new JDBCSessionDao(dbi, roDbi, rbacConfig, metricRegistry);
         }
 
         if (sessionManager instanceof DefaultSessionManager) {
@@ -17,9 +17,13 @@
 
 package org.killbill.billing.util.optimizer;
 
+import org.killbill.billing.events.BusInternalEvent.BusInternalEventType;
 import org.killbill.bus.api.BusEvent;
 
 public interface BusDispatcherOptimizer {
     boolean shouldDispatch(final BusEvent event);
 
+    // Lightweight variant, which doesn't require to build any call context (e.g. notification queue handlers)
+    boolean shouldDispatch(final BusInternalEventType eventType, final Long tenantRecordId);
+
 }
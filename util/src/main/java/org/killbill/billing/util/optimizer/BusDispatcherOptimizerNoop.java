@@ -17,6 +17,7 @@
 
 package org.killbill.billing.util.optimizer;
 
+import org.killbill.billing.events.BusInternalEvent.BusInternalEventType;
 import org.killbill.bus.api.BusEvent;
 
 public class BusDispatcherOptimizerNoop implements BusDispatcherOptimizer {
@@ -25,4 +26,9 @@ public class BusDispatcherOptimizerNoop implements BusDispatcherOptimizer {
     public boolean shouldDispatch(final BusEvent event) {
         return true;
     }
+
+    @Override
+    public boolean shouldDispatch(final BusInternalEventType eventType, final Long tenantRecordId) {
+        return true;
+    }
 }
@@ -17,43 +17,60 @@
 
 package org.killbill.billing.util.optimizer;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import javax.inject.Inject;
 
-import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.events.BusInternalEvent;
-import org.killbill.commons.utils.Preconditions;
-import org.killbill.billing.util.callcontext.CallOrigin;
+import org.killbill.billing.events.BusInternalEvent.BusInternalEventType;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
-import org.killbill.billing.util.callcontext.UserType;
 import org.killbill.billing.util.config.definition.EventConfig;
+import org.killbill.billing.util.config.tenant.CacheConfig;
 import org.killbill.bus.api.BusEvent;
+import org.killbill.commons.utils.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class BusDispatcherOptimizerOn implements BusDispatcherOptimizer{
+public class BusDispatcherOptimizerOn implements BusDispatcherOptimizer {
 
     private static final Logger logger = LoggerFactory.getLogger(BusDispatcherOptimizerOn.class);
 
     private final EventConfig eventConfig;
-    private final InternalCallContextFactory internalCallContextFactory;
+    // Snapshots are dropped when the per-tenant config is invalidated (see PerTenantConfigInvalidationCallback)
+    private final Map<Long, TenantEventConfigSnapshot> snapshots = new ConcurrentHashMap<>();
 
     @Inject
-    public BusDispatcherOptimizerOn(final EventConfig eventConfig, final InternalCallContextFactory internalCallContextFactory) {
+    public BusDispatcherOptimizerOn(final EventConfig eventConfig, final CacheConfig cacheConfig) {
         this.eventConfig = eventConfig;
-        this.internalCallContextFactory = internalCallContextFactory;
+        cacheConfig.addPerTenantConfigInvalidationListener(snapshots::remove);
     }
 
     @Override
     public boolean shouldDispatch(final BusEvent event) {
         Preconditions.checkState(event instanceof BusInternalEvent, "Unexpected external bus event %s, skip...", event);
         final BusInternalEvent internalEvent = (BusInternalEvent) event;
+        return shouldDispatch(internalEvent.getBusEventType(), event.getSearchKey2());
+    }
 
-        final InternalCallContext context = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), null, "BusOptimizerOn", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
-        if (eventConfig.getSkipDispatchBusEventTypeList(context).contains(internalEvent.getBusEventType())) {
-            logger.debug("BusDispatcherOptimizerOn: Skip dispatching event {}", internalEvent.getBusEventType());
+    @Override
+    public boolean shouldDispatch(final BusInternalEventType eventType, final Long tenantRecordId) {
+        if (getSnapshot(tenantRecordId).shouldSkipDispatch(eventType)) {
+            logger.debug("BusDispatcherOptimizerOn: Skip dispatching event {}", eventType);
             return false;
         }
         return true;
     }
 
+    TenantEventConfigSnapshot getSnapshot(final Long tenantRecordId) {
+        final Long nonNullTenantRecordId = tenantRecordId != null ? tenantRecordId : InternalCallContextFactory.INTERNAL_TENANT_RECORD_ID;
+        return snapshots.computeIfAbsent(nonNullTenantRecordId, this::loadSnapshot);
+    }
+
+    private TenantEventConfigSnapshot loadSnapshot(final Long tenantRecordId) {
+        // No need for a full call context: the per-tenant config only relies on the tenantRecordId
+        final InternalTenantContext tenantContext = new InternalTenantContext(tenantRecordId);
+        return new TenantEventConfigSnapshot(tenantRecordId, eventConfig.getSkipDispatchBusEventTypeList(tenantContext));
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020-2021 Equinix, Inc
+ * Copyright 2014-2021 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.optimizer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.killbill.billing.events.BusInternalEvent.BusInternalEventType;
+
+// Immutable view of the per-tenant event config, as needed on the dispatch path
+public final class TenantEventConfigSnapshot {
+
+    private final Long tenantRecordId;
+    private final Set<BusInternalEventType> skipDispatchBusEventTypes;
+
+    public TenantEventConfigSnapshot(final Long tenantRecordId, final Collection<BusInternalEventType> skipDispatchBusEventTypes) {
+        this.tenantRecordId = tenantRecordId;
+        this.skipDispatchBusEventTypes = skipDispatchBusEventTypes.isEmpty() ?
+                                         Collections.emptySet() :
+                                         Collections.unmodifiableSet(EnumSet.copyOf(skipDispatchBusEventTypes));
+    }
+
+    public Long getTenantRecordId() {
+        return tenantRecordId;
+    }
+
+    public boolean shouldSkipDispatch(final BusInternalEventType eventType) {
+        return skipDispatchBusEventTypes.contains(eventType);
+    }
+
+    @Override
+    public String toString() {
+        return "TenantEventConfigSnapshot{" +
+               "tenantRecordId=" + tenantRecordId +
+               ", skipDispatchBusEventTypes=" + skipDispatchBusEventTypes +
+               '}';
+    }
+}
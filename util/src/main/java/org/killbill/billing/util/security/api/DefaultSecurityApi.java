@@ -31,6 +31,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 import org.apache.shiro.SecurityUtils;
@@ -42,7 +43,6 @@ import org.apache.shiro.mgt.DefaultSecurityManager;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.session.UnknownSessionException;
-import org.apache.shiro.subject.SimplePrincipalCollection;
 import org.apache.shiro.subject.Subject;
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.security.Logical;
@@ -210,17 +210,20 @@ public class DefaultSecurityApi implements SecurityApi {
     @Override
     public void updateUserPassword(final String username, final String password, final CallContext callContext) throws SecurityApiException {
         userDao.updateUserPassword(username, password, callContext.getUserName());
+        // Other nodes are notified through the broadcast entry recorded by the DAO
+        invalidateJDBCRealmCache(username);
     }
 
     @Override
     public void updateUserRoles(final String username, final List<String> roles, final CallContext callContext) throws SecurityApiException {
         userDao.updateUserRoles(username, roles, callContext.getUserName());
-        invalidateJDBCAuthorizationCache(username);
+        invalidateJDBCRealmCache(username);
     }
 
     @Override
     public void invalidateUser(final String username, final CallContext callContext) throws SecurityApiException {
         userDao.invalidateUser(username, callContext.getUserName());
+        invalidateJDBCRealmCache(username);
         // Invalidate the JSESSIONID
         logout();
     }
@@ -242,6 +245,7 @@ public class DefaultSecurityApi implements SecurityApi {
     public void updateRoleDefinition(final String role, final List<String> permissions, final CallContext callContext) throws SecurityApiException {
         final List<String> sanitizedPermissions = sanitizePermissions(permissions);
         userDao.updateRoleDefinition(role, sanitizedPermissions, callContext.getUserName());
+        invalidateJDBCRealmCache(null);
     }
 
     @Override
@@ -292,17 +296,16 @@ public class DefaultSecurityApi implements SecurityApi {
         return expandedPermissions;
     }
 
-    private void invalidateJDBCAuthorizationCache(final String username) {
-        final Collection<Realm> realms = ((DefaultSecurityManager) SecurityUtils.getSecurityManager()).getRealms();
-        final KillBillJdbcRealm killBillJdbcRealm = (KillBillJdbcRealm) realms.stream()
-                .filter(realm -> (realm instanceof KillBillJdbcRealm))
-                .findFirst()
-                .orElse(null);
-
-        if (killBillJdbcRealm != null) {
-            final SimplePrincipalCollection principals = new SimplePrincipalCollection();
-            principals.add(username, killBillJdbcRealm.getName());
-            killBillJdbcRealm.clearCachedAuthorizationInfo(principals);
+    // A null username invalidates all users
+    private void invalidateJDBCRealmCache(@Nullable final String username) {
+        for (final Realm realm : realms) {
+            if (realm instanceof KillBillJdbcRealm) {
+                if (username == null) {
+                    ((KillBillJdbcRealm) realm).invalidateAllUsers();
+                } else {
+                    ((KillBillJdbcRealm) realm).invalidateUser(username);
+                }
+            }
         }
     }
 
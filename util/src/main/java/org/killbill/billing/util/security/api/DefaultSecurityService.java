@@ -24,15 +24,20 @@ import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.mgt.SecurityManager;
 import org.killbill.billing.platform.api.LifecycleHandlerType;
 import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
+import org.killbill.bus.api.PersistentBus;
 
 public class DefaultSecurityService implements SecurityService {
 
 
     private final SecurityManager securityManager;
+    private final PersistentBus eventBus;
+    private final UserCacheInvalidationListener userCacheInvalidationListener;
 
     @Inject
-    public DefaultSecurityService(final SecurityManager securityManager) {
+    public DefaultSecurityService(final SecurityManager securityManager, final PersistentBus eventBus) {
         this.securityManager = securityManager;
+        this.eventBus = eventBus;
+        this.userCacheInvalidationListener = new UserCacheInvalidationListener(securityManager);
     }
 
     @Override
@@ -48,10 +53,20 @@ public class DefaultSecurityService implements SecurityService {
     @LifecycleHandlerType(LifecycleHandlerType.LifecycleLevel.INIT_SERVICE)
     public void initialize() {
         SecurityUtils.setSecurityManager(securityManager);
+        try {
+            eventBus.register(userCacheInvalidationListener);
+        } catch (final PersistentBus.EventBusException e) {
+            throw new RuntimeException("Failed to register bus handlers", e);
+        }
     }
 
     @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
     public void stop() {
+        try {
+            eventBus.unregister(userCacheInvalidationListener);
+        } catch (final PersistentBus.EventBusException e) {
+            throw new RuntimeException("Failed to unregister bus handlers", e);
+        }
         SecurityUtils.setSecurityManager(null);
     }
 }
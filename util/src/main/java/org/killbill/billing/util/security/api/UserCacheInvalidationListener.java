@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.util.security.api;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.apache.shiro.mgt.RealmSecurityManager;
+import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.realm.Realm;
+import org.killbill.billing.events.BroadcastInternalEvent;
+import org.killbill.billing.platform.api.KillbillService.KILLBILL_SERVICES;
+import org.killbill.billing.util.jackson.ObjectMapper;
+import org.killbill.billing.util.security.shiro.realm.KillBillJdbcRealm;
+import org.killbill.commons.eventbus.AllowConcurrentEvents;
+import org.killbill.commons.eventbus.Subscribe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+//
+// Cluster-wide invalidation of the KillBillJdbcRealm caches: user and role changes are recorded as broadcast
+// entries (see DefaultUserDao), which each node replays on its own bus.
+//
+public class UserCacheInvalidationListener {
+
+    public static final String USER_CACHE_INVALIDATION_SERVICE = KILLBILL_SERVICES.SECURITY_SERVICE.getServiceName();
+    public static final String USER_CACHE_INVALIDATION_TYPE = "USER_CACHE_INVALIDATION";
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCacheInvalidationListener.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String USERNAME_KEY = "username";
+
+    private final SecurityManager securityManager;
+
+    public UserCacheInvalidationListener(final SecurityManager securityManager) {
+        this.securityManager = securityManager;
+    }
+
+    @AllowConcurrentEvents
+    @Subscribe
+    public void handleBroadcastEvent(final BroadcastInternalEvent event) {
+        if (!USER_CACHE_INVALIDATION_SERVICE.equals(event.getServiceName()) || !USER_CACHE_INVALIDATION_TYPE.equals(event.getType())) {
+            return;
+        }
+
+        try {
+            invalidate(securityManager, fromJsonEvent(event.getJsonEvent()));
+        } catch (final IOException e) {
+            logger.warn("Unable to parse user cache invalidation event {}, invalidating all users", event.getJsonEvent(), e);
+            invalidate(securityManager, null);
+        }
+    }
+
+    // A null username invalidates all users
+    public static void invalidate(final SecurityManager securityManager, @Nullable final String username) {
+        if (!(securityManager instanceof RealmSecurityManager)) {
+            return;
+        }
+
+        final Collection<Realm> realms = ((RealmSecurityManager) securityManager).getRealms();
+        if (realms == null) {
+            return;
+        }
+
+        for (final Realm realm : realms) {
+            if (realm instanceof KillBillJdbcRealm) {
+                if (username == null) {
+                    ((KillBillJdbcRealm) realm).invalidateAllUsers();
+                } else {
+                    ((KillBillJdbcRealm) realm).invalidateUser(username);
+                }
+            }
+        }
+    }
+
+    public static String toJsonEvent(@Nullable final String username) {
+        try {
+            return objectMapper.writeValueAsString(username == null ? Map.of() : Map.of(USERNAME_KEY, username));
+        } catch (final JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Nullable
+    static String fromJsonEvent(final String jsonEvent) throws IOException {
+        final Map<?, ?> event = objectMapper.readValue(jsonEvent, Map.class);
+        final Object username = event.get(USERNAME_KEY);
+        return username == null ? null : username.toString();
+    }
+}
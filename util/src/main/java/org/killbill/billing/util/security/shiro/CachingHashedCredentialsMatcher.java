@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.killbill.billing.util.security.shiro;
+
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.SaltedAuthenticationInfo;
+import org.apache.shiro.authc.credential.HashedCredentialsMatcher;
+
+//
+// Remembers, per username, the last credentials which successfully went through the (expensive) hashing, so that
+// subsequent requests with the same credentials can skip it. Submitted credentials are never kept as-is: only a keyed
+// digest (HMAC with a random key, generated at startup) is. An entry is only used if the stored credentials (hash and
+// salt) are still the same, so a password change is effective as soon as the realm authentication info is refreshed.
+//
+public class CachingHashedCredentialsMatcher extends HashedCredentialsMatcher {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final SecretKeySpec digestKey;
+    private final Map<String, VerifiedCredentials> verifiedCredentialsByUsername = new ConcurrentHashMap<String, VerifiedCredentials>();
+
+    private final AtomicLong nbHits = new AtomicLong();
+    private final AtomicLong nbMisses = new AtomicLong();
+    private final AtomicLong nbHashes = new AtomicLong();
+    private final AtomicLong totalHashNanos = new AtomicLong();
+
+    public CachingHashedCredentialsMatcher(final String hashAlgorithmName, final int maxSize, final long ttl, final TimeUnit ttlUnit) {
+        super(hashAlgorithmName);
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlUnit.toNanos(ttl);
+
+        final byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    @Override
+    public boolean doCredentialsMatch(final AuthenticationToken token, final AuthenticationInfo info) {
+        if (token.getPrincipal() == null || token.getCredentials() == null || info.getCredentials() == null) {
+            return hashAndMatch(token, info);
+        }
+
+        final String username = token.getPrincipal().toString();
+        final byte[] submittedDigest = digest(username, toBytes(token.getCredentials()));
+        final byte[] storedCredentials = toBytes(info.getCredentials());
+        final byte[] storedSalt = info instanceof SaltedAuthenticationInfo && ((SaltedAuthenticationInfo) info).getCredentialsSalt() != null ?
+                                  ((SaltedAuthenticationInfo) info).getCredentialsSalt().getBytes() :
+                                  new byte[0];
+
+        final VerifiedCredentials verifiedCredentials = verifiedCredentialsByUsername.get(username);
+        if (verifiedCredentials != null && verifiedCredentials.matches(submittedDigest, storedCredentials, storedSalt, System.nanoTime())) {
+            nbHits.incrementAndGet();
+            return true;
+        }
+
+        nbMisses.incrementAndGet();
+        final boolean match = hashAndMatch(token, info);
+        if (match) {
+            if (verifiedCredentialsByUsername.size() >= maxSize) {
+                // Simple safety mechanism, the cache will be repopulated by the next requests
+                verifiedCredentialsByUsername.clear();
+            }
+            verifiedCredentialsByUsername.put(username, new VerifiedCredentials(submittedDigest, storedCredentials, storedSalt, System.nanoTime() + ttlNanos));
+        } else {
+            verifiedCredentialsByUsername.remove(username);
+        }
+        return match;
+    }
+
+    public void invalidate(final String username) {
+        verifiedCredentialsByUsername.remove(username);
+    }
+
+    public void invalidateAll() {
+        verifiedCredentialsByUsername.clear();
+    }
+
+    public long getNbHits() {
+        return nbHits.get();
+    }
+
+    public long getNbMisses() {
+        return nbMisses.get();
+    }
+
+    public double getHitRatio() {
+        final long hits = nbHits.get();
+        final long total = hits + nbMisses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public long getNbHashes() {
+        return nbHashes.get();
+    }
+
+    public long getTotalHashMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalHashNanos.get());
+    }
+
+    private boolean hashAndMatch(final AuthenticationToken token, final AuthenticationInfo info) {
+        final long startNanos = System.nanoTime();
+        try {
+            return super.doCredentialsMatch(token, info);
+        } finally {
+            nbHashes.incrementAndGet();
+            totalHashNanos.addAndGet(System.nanoTime() - startNanos);
+        }
+    }
+
+    private byte[] digest(final String username, final byte[] credentials) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(digestKey);
+            mac.update(toBytes(username));
+            mac.update((byte) 0);
+            return mac.doFinal(credentials);
+        } catch (final NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class VerifiedCredentials {
+
+        private final byte[] submittedDigest;
+        private final byte[] storedCredentials;
+        private final byte[] storedSalt;
+        private final long expirationNanos;
+
+        private VerifiedCredentials(final byte[] submittedDigest, final byte[] storedCredentials, final byte[] storedSalt, final long expirationNanos) {
+            this.submittedDigest = submittedDigest;
+            this.storedCredentials = storedCredentials;
+            this.storedSalt = storedSalt;
+            this.expirationNanos = expirationNanos;
+        }
+
+        private boolean matches(final byte[] otherSubmittedDigest, final byte[] otherStoredCredentials, final byte[] otherStoredSalt, final long nowNanos) {
+            return nowNanos - expirationNanos < 0 &&
+                   MessageDigest.isEqual(submittedDigest, otherSubmittedDigest) &&
+                   MessageDigest.isEqual(storedCredentials, otherStoredCredentials) &&
+                   MessageDigest.isEqual(storedSalt, otherStoredSalt);
+        }
+    }
+}
@@ -18,6 +18,8 @@
 
 package org.killbill.billing.util.security.shiro;
 
+import java.util.concurrent.TimeUnit;
+
 import org.apache.shiro.authc.credential.CredentialsMatcher;
 import org.apache.shiro.authc.credential.HashedCredentialsMatcher;
 import org.apache.shiro.crypto.hash.Sha512Hash;
@@ -39,4 +41,16 @@ public class KillbillCredentialsMatcher {
 
         return credentialsMatcher;
     }
+
+    public static CachingHashedCredentialsMatcher getCachingCredentialsMatcher(final SecurityConfig securityConfig) {
+        final CachingHashedCredentialsMatcher credentialsMatcher = new CachingHashedCredentialsMatcher(HASH_ALGORITHM_NAME,
+                                                                                                       securityConfig.getShiroAuthenticationCacheMaxSize(),
+                                                                                                       securityConfig.getShiroAuthenticationCacheTtl().getMillis(),
+                                                                                                       TimeUnit.MILLISECONDS);
+        // Same settings as above
+        credentialsMatcher.setStoredCredentialsHexEncoded(false);
+        credentialsMatcher.setHashIterations(securityConfig.getShiroNbHashIterations());
+
+        return credentialsMatcher;
+    }
 }
@@ -20,18 +20,33 @@ package org.killbill.billing.util.security.shiro.dao;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.ValidatingSession;
 import org.apache.shiro.session.mgt.eis.CachingSessionDAO;
+import org.joda.time.DateTime;
 import org.killbill.billing.util.UUIDs;
+import org.killbill.billing.util.config.definition.RbacConfig;
 import org.killbill.billing.util.entity.dao.DBRouter;
+import org.killbill.commons.concurrent.Executors;
+import org.killbill.commons.metrics.api.Gauge;
+import org.killbill.commons.metrics.api.MetricRegistry;
 import org.killbill.commons.utils.annotation.VisibleForTesting;
 import org.killbill.commons.utils.cache.Cache;
 import org.killbill.commons.utils.cache.DefaultCache;
@@ -45,6 +60,8 @@ public class JDBCSessionDao extends CachingSessionDAO {
 
     private static final int CACHE_MAX_SIZE = 20;
     private static final int CACHE_TIMEOUT_IN_SECONDS = 5;
+    private static final long TERMINATION_TIMEOUT_SEC = 5;
+    private static final int MAX_PERSISTED_STATES_FACTOR = 10;
 
     private static final Logger log = LoggerFactory.getLogger(JDBCSessionDao.class);
 
@@ -53,20 +70,93 @@ public class JDBCSessionDao extends CachingSessionDAO {
     @VisibleForTesting
     final Cache<Serializable, Boolean> noUpdateSessionsCache = new DefaultCache<>(CACHE_MAX_SIZE, CACHE_TIMEOUT_IN_SECONDS, DefaultCache.noCacheLoader());
 
+    //
+    // Write-behind mode: a session touch (only the last access time changed since the last write) is coalesced in memory
+    // and flushed in batches, at most flushInterval later. Any other change (attributes, timeout, ...) is written through.
+    //
+    private final boolean writeBehindEnabled;
+    private final int writeBehindMaxPending;
+    // Non-touch fields, as last written to the database
+    @VisibleForTesting
+    final Map<Serializable, PersistedSessionState> persistedSessionStates = new ConcurrentHashMap<Serializable, PersistedSessionState>();
+    // Latest touch per session, pending flush
+    @VisibleForTesting
+    final Map<Serializable, PendingTouch> pendingTouches = new ConcurrentHashMap<Serializable, PendingTouch>();
+    private final ScheduledExecutorService writeBehindExecutor;
+
+    private final AtomicLong nbFlushes = new AtomicLong();
+    private final AtomicLong lastFlushSize = new AtomicLong();
+    private final AtomicLong nbFlushedTouches = new AtomicLong();
+
+    public JDBCSessionDao(final IDBI dbi, final IDBI roDbi) {
+        this(dbi, roDbi, null, null);
+    }
+
     @Inject
-    public JDBCSessionDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi) {
+    public JDBCSessionDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, @Nullable final RbacConfig rbacConfig, @Nullable final MetricRegistry metricRegistry) {
         this.dbRouter = new DBRouter<JDBCSessionSqlDao>(dbi, roDbi, JDBCSessionSqlDao.class);
+        this.writeBehindEnabled = rbacConfig != null && rbacConfig.isSessionWriteBehindEnabled();
+        if (writeBehindEnabled) {
+            this.writeBehindMaxPending = rbacConfig.getSessionWriteBehindMaxPending();
+            final long flushIntervalMillis = rbacConfig.getSessionWriteBehindFlushInterval().getMillis();
+            this.writeBehindExecutor = Executors.newSingleThreadScheduledExecutor("SessionWriteBehind");
+            this.writeBehindExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        flushPendingTouches();
+                    } catch (final RuntimeException e) {
+                        log.warn("Failed to flush session touches", e);
+                    }
+                }
+            }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+            if (metricRegistry != null) {
+                registerMetrics(metricRegistry);
+            }
+        } else {
+            this.writeBehindMaxPending = 0;
+            this.writeBehindExecutor = null;
+        }
     }
 
     @Override
     protected void doUpdate(final Session session) {
-        if (shouldUpdateSession(session)) {
-            dbRouter.onDemand(false).update(new SessionModelDao(session));
+        if (!shouldUpdateSession(session)) {
+            return;
+        }
+
+        final SessionModelDao sessionModelDao = new SessionModelDao(session);
+        if (!writeBehindEnabled) {
+            dbRouter.onDemand(false).update(sessionModelDao);
+            return;
+        }
+
+        final PersistedSessionState state = new PersistedSessionState(sessionModelDao);
+        if (isStopped(session) || !state.equals(persistedSessionStates.get(session.getId()))) {
+            // Not a simple touch (or logout): write-through, which also supersedes any pending touch
+            pendingTouches.remove(session.getId());
+            dbRouter.onDemand(false).update(sessionModelDao);
+            if (persistedSessionStates.size() >= MAX_PERSISTED_STATES_FACTOR * writeBehindMaxPending) {
+                // Sessions which are never deleted through this node (e.g. evicted from the cache): simply start over
+                persistedSessionStates.clear();
+            }
+            persistedSessionStates.put(session.getId(), state);
+            return;
+        }
+
+        // Last write wins
+        pendingTouches.compute(session.getId(), (id, previous) -> new PendingTouch(sessionModelDao, previous == null ? System.nanoTime() : previous.getFirstTouchNanos()));
+        if (pendingTouches.size() >= writeBehindMaxPending) {
+            flushPendingTouches();
         }
     }
 
     @Override
     protected void doDelete(final Session session) {
+        if (writeBehindEnabled) {
+            pendingTouches.remove(session.getId());
+            persistedSessionStates.remove(session.getId());
+        }
         dbRouter.onDemand(false).delete(new SessionModelDao(session));
     }
 
@@ -76,7 +166,11 @@ public class JDBCSessionDao extends CachingSessionDAO {
         // See SessionModelDao#toSimpleSession for why we use toString()
         final String sessionIdAsString = sessionId.toString();
         assignSessionId(session, sessionIdAsString);
-        dbRouter.onDemand(false).create(new SessionModelDao(session));
+        final SessionModelDao sessionModelDao = new SessionModelDao(session);
+        dbRouter.onDemand(false).create(sessionModelDao);
+        if (writeBehindEnabled) {
+            persistedSessionStates.put(sessionIdAsString, new PersistedSessionState(sessionModelDao));
+        }
         // Make sure to return a String here as well, or Shiro will cache the Session with a UUID key
         // while it is expecting String
         return sessionIdAsString;
@@ -90,6 +184,13 @@ public class JDBCSessionDao extends CachingSessionDAO {
         }
 
         final String sessionIdString = sessionId.toString();
+
+        // Not flushed yet: more recent than the database
+        final PendingTouch pendingTouch = pendingTouches.get(sessionIdString);
+        if (pendingTouch != null) {
+            return toSession(pendingTouch.getSessionModelDao());
+        }
+
         final SessionModelDao sessionModelDao = dbRouter.onDemand(true).read(sessionIdString);
 
         if (sessionModelDao == null) {
@@ -126,6 +227,155 @@ public class JDBCSessionDao extends CachingSessionDAO {
         return Boolean.TRUE.equals(noUpdateSessionsCache.get(session.getId())) ? Boolean.FALSE : Boolean.TRUE;
     }
 
+    public void flushPendingTouches() {
+        if (pendingTouches.isEmpty()) {
+            return;
+        }
+
+        final List<SessionModelDao> toFlush = new ArrayList<SessionModelDao>(pendingTouches.size());
+        for (final Serializable sessionId : pendingTouches.keySet()) {
+            final PendingTouch pendingTouch = pendingTouches.remove(sessionId);
+            if (pendingTouch != null) {
+                toFlush.add(pendingTouch.getSessionModelDao());
+            }
+        }
+        if (toFlush.isEmpty()) {
+            return;
+        }
+
+        dbRouter.onDemand(false).updateLastAccessTime(toFlush);
+        nbFlushes.incrementAndGet();
+        lastFlushSize.set(toFlush.size());
+        nbFlushedTouches.addAndGet(toFlush.size());
+        log.debug("Flushed {} session touches", toFlush.size());
+    }
+
+    public void shutdown() {
+        if (writeBehindExecutor == null) {
+            return;
+        }
+
+        writeBehindExecutor.shutdown();
+        try {
+            if (!writeBehindExecutor.awaitTermination(TERMINATION_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                log.warn("SessionWriteBehind failed to complete termination within {} sec", TERMINATION_TIMEOUT_SEC);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("SessionWriteBehind stop sequence got interrupted");
+        }
+        // Last flush, to not lose the pending touches
+        flushPendingTouches();
+    }
+
+    // Age of the oldest pending touch, i.e. current staleness of the sessions table
+    @VisibleForTesting
+    long getPendingTouchesLagMillis() {
+        final long now = System.nanoTime();
+        long maxLagNanos = 0;
+        for (final PendingTouch pendingTouch : pendingTouches.values()) {
+            maxLagNanos = Math.max(maxLagNanos, now - pendingTouch.getFirstTouchNanos());
+        }
+        return TimeUnit.NANOSECONDS.toMillis(maxLagNanos);
+    }
+
+    private void registerMetrics(final MetricRegistry metricRegistry) {
+        final String prefix = "kb.sessions.writeBehind.";
+        metricRegistry.gauge(prefix + "pending", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return pendingTouches.size();
+            }
+        });
+        metricRegistry.gauge(prefix + "lag-ms", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return getPendingTouchesLagMillis();
+            }
+        });
+        metricRegistry.gauge(prefix + "flushes", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return nbFlushes.get();
+            }
+        });
+        metricRegistry.gauge(prefix + "last-flush-size", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return lastFlushSize.get();
+            }
+        });
+        metricRegistry.gauge(prefix + "flushed-touches", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return nbFlushedTouches.get();
+            }
+        });
+    }
+
+    private static boolean isStopped(final Session session) {
+        return session instanceof ValidatingSession && !((ValidatingSession) session).isValid();
+    }
+
+    @VisibleForTesting
+    static final class PendingTouch {
+
+        private final SessionModelDao sessionModelDao;
+        private final long firstTouchNanos;
+
+        PendingTouch(final SessionModelDao sessionModelDao, final long firstTouchNanos) {
+            this.sessionModelDao = sessionModelDao;
+            this.firstTouchNanos = firstTouchNanos;
+        }
+
+        SessionModelDao getSessionModelDao() {
+            return sessionModelDao;
+        }
+
+        long getFirstTouchNanos() {
+            return firstTouchNanos;
+        }
+    }
+
+    // Compared by value (including the serialized attributes), a hash collision must not turn a real change into a touch
+    @VisibleForTesting
+    static final class PersistedSessionState {
+
+        private final DateTime startTimestamp;
+        private final long timeout;
+        private final String host;
+        private final byte[] sessionData;
+
+        PersistedSessionState(final SessionModelDao sessionModelDao) {
+            this.startTimestamp = sessionModelDao.getStartTimestamp();
+            this.timeout = sessionModelDao.getTimeout();
+            this.host = sessionModelDao.getHost();
+            this.sessionData = sessionModelDao.getSessionData();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final PersistedSessionState that = (PersistedSessionState) o;
+            return timeout == that.timeout &&
+                   Objects.equals(startTimestamp, that.startTimestamp) &&
+                   Objects.equals(host, that.host) &&
+                   Arrays.equals(sessionData, that.sessionData);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Objects.hash(startTimestamp, timeout, host);
+            result = 31 * result + Arrays.hashCode(sessionData);
+            return result;
+        }
+    }
+
     private Session toSession(final SessionModelDao sessionModelDao) {
         try {
             return sessionModelDao.toSimpleSession();
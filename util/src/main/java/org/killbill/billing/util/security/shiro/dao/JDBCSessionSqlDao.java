@@ -23,8 +23,10 @@ import java.util.List;
 import org.killbill.commons.jdbi.binder.SmartBindBean;
 import org.killbill.commons.jdbi.template.KillBillSqlDaoStringTemplate;
 import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.customizers.BatchChunkSize;
 import org.skife.jdbi.v2.sqlobject.mixins.Transactional;
 
 @KillBillSqlDaoStringTemplate
@@ -39,6 +41,10 @@ public interface JDBCSessionSqlDao extends Transactional<JDBCSessionSqlDao> {
     @SqlUpdate
     public void update(@SmartBindBean final SessionModelDao sessionModelDao);
 
+    @SqlBatch
+    @BatchChunkSize(1000) // Arbitrary value, just a safety mechanism in case of very large datasets
+    public void updateLastAccessTime(@SmartBindBean final Iterable<SessionModelDao> sessionModelDaos);
+
     @SqlUpdate
     public void delete(@SmartBindBean final SessionModelDao sessionModelDao);
 
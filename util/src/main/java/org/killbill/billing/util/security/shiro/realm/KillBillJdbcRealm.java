@@ -17,15 +17,21 @@
 
 package org.killbill.billing.util.security.shiro.realm;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.sql.DataSource;
 
+import org.apache.shiro.cache.Cache;
 import org.apache.shiro.realm.jdbc.JdbcRealm;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
 import org.killbill.billing.platform.glue.KillBillPlatformModuleBase;
 import org.killbill.billing.util.config.definition.SecurityConfig;
+import org.killbill.billing.util.security.shiro.CachingHashedCredentialsMatcher;
 import org.killbill.billing.util.security.shiro.KillbillCredentialsMatcher;
+import org.killbill.commons.metrics.api.Gauge;
+import org.killbill.commons.metrics.api.MetricRegistry;
 
 public class KillBillJdbcRealm extends JdbcRealm {
 
@@ -35,16 +41,23 @@ public class KillBillJdbcRealm extends JdbcRealm {
 
     private final DataSource dataSource;
     private final SecurityConfig securityConfig;
+    // Null when the authentication cache is disabled
+    private final CachingHashedCredentialsMatcher cachingCredentialsMatcher;
+
+    public KillBillJdbcRealm(final DataSource dataSource, final SecurityConfig securityConfig) {
+        this(dataSource, securityConfig, null);
+    }
 
     @Inject
-    public KillBillJdbcRealm(@Named(KillBillPlatformModuleBase.SHIRO_DATA_SOURCE_ID) final DataSource dataSource, final SecurityConfig securityConfig) {
+    public KillBillJdbcRealm(@Named(KillBillPlatformModuleBase.SHIRO_DATA_SOURCE_ID) final DataSource dataSource, final SecurityConfig securityConfig, @Nullable final MetricRegistry metricRegistry) {
         super();
         this.dataSource = dataSource;
         this.securityConfig = securityConfig;
+        this.cachingCredentialsMatcher = securityConfig.isShiroAuthenticationCacheEnabled() ? KillbillCredentialsMatcher.getCachingCredentialsMatcher(securityConfig) : null;
 
-        // TODO Enable when we add support for cache invalidation
         // See JavaDoc warning: https://shiro.apache.org/static/1.2.3/apidocs/org/apache/shiro/realm/AuthenticatingRealm.html
-        //setAuthenticationCachingEnabled(true);
+        // Cache entries are invalidated on user and role changes (see DefaultUserDao and UserCacheInvalidationListener)
+        setAuthenticationCachingEnabled(cachingCredentialsMatcher != null);
 
         // See https://issues.apache.org/jira/browse/SHIRO-552 and https://github.com/apache/shiro/pull/138
         setSaltIsBase64Encoded(false);
@@ -57,6 +70,10 @@ public class KillBillJdbcRealm extends JdbcRealm {
 
         configureSecurity();
         configureDataSource();
+
+        if (cachingCredentialsMatcher != null && metricRegistry != null) {
+            registerMetrics(metricRegistry);
+        }
     }
 
     @Override
@@ -64,9 +81,66 @@ public class KillBillJdbcRealm extends JdbcRealm {
         super.clearCachedAuthorizationInfo(principals);
     }
 
+    public void invalidateUser(final String username) {
+        final PrincipalCollection principals = new SimplePrincipalCollection(username, getName());
+        clearCache(principals);
+        if (cachingCredentialsMatcher != null) {
+            cachingCredentialsMatcher.invalidate(username);
+        }
+    }
+
+    // Role definition changes impact all users having that role
+    public void invalidateAllUsers() {
+        final Cache<Object, ?> authenticationCache = getAuthenticationCache();
+        if (authenticationCache != null) {
+            authenticationCache.clear();
+        }
+        final Cache<Object, ?> authorizationCache = getAuthorizationCache();
+        if (authorizationCache != null) {
+            authorizationCache.clear();
+        }
+        if (cachingCredentialsMatcher != null) {
+            cachingCredentialsMatcher.invalidateAll();
+        }
+    }
+
     private void configureSecurity() {
         setSaltStyle(SaltStyle.COLUMN);
-        setCredentialsMatcher(KillbillCredentialsMatcher.getCredentialsMatcher(securityConfig));
+        setCredentialsMatcher(cachingCredentialsMatcher != null ? cachingCredentialsMatcher : KillbillCredentialsMatcher.getCredentialsMatcher(securityConfig));
+    }
+
+    private void registerMetrics(final MetricRegistry metricRegistry) {
+        final String prefix = "kb.security.jdbcRealm.";
+        metricRegistry.gauge(prefix + "credentials-cache-hit-ratio", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return cachingCredentialsMatcher.getHitRatio();
+            }
+        });
+        metricRegistry.gauge(prefix + "credentials-cache-hits", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return cachingCredentialsMatcher.getNbHits();
+            }
+        });
+        metricRegistry.gauge(prefix + "credentials-cache-misses", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return cachingCredentialsMatcher.getNbMisses();
+            }
+        });
+        metricRegistry.gauge(prefix + "hashes", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return cachingCredentialsMatcher.getNbHashes();
+            }
+        });
+        metricRegistry.gauge(prefix + "hashing-time-total-ms", new Gauge<Object>() {
+            @Override
+            public Object getValue() {
+                return cachingCredentialsMatcher.getTotalHashMillis();
+            }
+        });
     }
 
     private void configureDataSource() {
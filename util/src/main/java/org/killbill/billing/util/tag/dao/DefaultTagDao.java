@@ -41,7 +41,9 @@ import org.killbill.billing.util.audit.ChangeType;
 import org.killbill.billing.util.audit.dao.AuditDao;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.definition.SearchConfig;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.dao.SearchTokens;
 import org.killbill.billing.util.dao.TableName;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationSqlDaoHelper.Ordering;
@@ -70,14 +72,17 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
     private final TagEventBuilder tagEventBuilder;
     private final BusOptimizer bus;
     private final AuditDao auditDao;
+    private final SearchConfig searchConfig;
 
     @Inject
     public DefaultTagDao(final IDBI dbi, @Named(MAIN_RO_IDBI_NAMED) final IDBI roDbi, final TagEventBuilder tagEventBuilder, final BusOptimizer bus, final Clock clock,
-                         final CacheControllerDispatcher controllerDispatcher, final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final AuditDao auditDao) {
-        super(nonEntityDao, controllerDispatcher, new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, controllerDispatcher, nonEntityDao, internalCallContextFactory), TagSqlDao.class);
+                         final CacheControllerDispatcher controllerDispatcher, final NonEntityDao nonEntityDao, final InternalCallContextFactory internalCallContextFactory, final AuditDao auditDao,
+                         final SearchConfig searchConfig) {
+        super(nonEntityDao, controllerDispatcher, new EntitySqlDaoTransactionalJdbiWrapper(dbi, roDbi, clock, controllerDispatcher, nonEntityDao, internalCallContextFactory, searchConfig), TagSqlDao.class);
         this.tagEventBuilder = tagEventBuilder;
         this.bus = bus;
         this.auditDao = auditDao;
+        this.searchConfig = searchConfig;
     }
 
     @Override
@@ -248,16 +253,18 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
 
     @Override
     public Pagination<TagModelDao> searchTags(final String searchKey, final Long offset, final Long limit, final InternalTenantContext context) {
+        final String likeSearchKey = String.format("%%%s%%", searchKey);
+        final String tokenSearchKey = SearchTokens.toTokenSearchKey(searchConfig, searchKey);
         return paginationHelper.getPagination(TagSqlDao.class,
                                               new PaginationIteratorBuilder<TagModelDao, Tag, TagSqlDao>() {
                                                   @Override
                                                   public Long getCount(final TagSqlDao tagSqlDao, final InternalTenantContext context) {
-                                                      return tagSqlDao.getSearchCount(searchKey, String.format("%%%s%%", searchKey), context);
+                                                      return tokenSearchKey == null ? tagSqlDao.getSearchCount(searchKey, likeSearchKey, context) : tagSqlDao.getIndexedSearchCount(searchKey, likeSearchKey, tokenSearchKey, context);
                                                   }
 
                                                   @Override
                                                   public Iterator<TagModelDao> build(final TagSqlDao tagSqlDao, final Long offset, final Long limit, final Ordering ordering, final InternalTenantContext context) {
-                                                      return tagSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, ordering.toString(), context);
+                                                      return tokenSearchKey == null ? tagSqlDao.search(searchKey, likeSearchKey, offset, limit, ordering.toString(), context) : tagSqlDao.indexedSearch(searchKey, likeSearchKey, tokenSearchKey, offset, limit, ordering.toString(), context);
                                                   }
                                               },
                                               offset,
@@ -107,6 +107,7 @@ CREATE TABLE tags (
 CREATE UNIQUE INDEX tags_id ON tags(id);
 CREATE INDEX tags_by_object ON tags(object_id);
 CREATE INDEX tags_tenant_account_record_id ON tags(tenant_record_id, account_record_id);
+CREATE INDEX tags_tag_definition_id ON tags(tag_definition_id);
 
 DROP TABLE IF EXISTS tag_history;
 CREATE TABLE tag_history (
@@ -321,3 +322,16 @@ CREATE TABLE service_broadcasts (
     created_by varchar(50) NOT NULL,
     PRIMARY KEY(record_id)
 ) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+
+
+DROP TABLE IF EXISTS search_tokens;
+CREATE TABLE search_tokens (
+    record_id serial unique,
+    table_name varchar(50) NOT NULL,
+    target_record_id bigint /*! unsigned */ not null,
+    token varchar(64) NOT NULL,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE INDEX search_tokens_token ON search_tokens(tenant_record_id, table_name, token, target_record_id);
+CREATE INDEX search_tokens_target_record_id ON search_tokens(table_name, target_record_id);
@@ -0,0 +1,11 @@
+create table search_tokens (
+    record_id serial unique,
+    table_name varchar(50) NOT NULL,
+    target_record_id bigint /*! unsigned */ not null,
+    token varchar(64) NOT NULL,
+    tenant_record_id bigint /*! unsigned */ not null default 0,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+create index search_tokens_token on search_tokens(tenant_record_id, table_name, token, target_record_id);
+create index search_tokens_target_record_id on search_tokens(table_name, target_record_id);
+alter table tags add index tags_tag_definition_id(tag_definition_id);
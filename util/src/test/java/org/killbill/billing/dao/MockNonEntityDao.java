@@ -27,6 +27,7 @@ import javax.annotation.Nullable;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.cache.CacheController;
+import org.killbill.billing.util.dao.AccountContextMappings;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.billing.util.dao.NonEntitySqlDao;
 import org.killbill.billing.util.dao.TableName;
@@ -82,6 +83,13 @@ public class MockNonEntityDao implements NonEntityDao {
         return null;
     }
 
+    @Override
+    public AccountContextMappings retrieveAccountContextFromObject(final UUID objectId, final ObjectType objectType) {
+        final Long tenantRecordId = tenantRecordIdMappings.get(objectId);
+        // No time zone nor reference time: these are retrieved through the account API
+        return tenantRecordId == null ? null : new AccountContextMappings(accountRecordIdMappings.get(objectId), tenantRecordId, null, null);
+    }
+
     @Override
     public UUID retrieveIdFromObject(final Long recordId, final ObjectType objectType, @Nullable final CacheController<String, UUID> cache) {
         if (objectType == ACCOUNT) {
@@ -20,8 +20,10 @@ package org.killbill.billing.mock.glue;
 
 import org.killbill.billing.dao.MockNonEntityDao;
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.util.config.definition.SearchConfig;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.billing.util.glue.KillBillModule;
+import org.skife.config.ConfigurationObjectFactory;
 
 public class MockNonEntityDaoModule extends KillBillModule {
 
@@ -31,6 +33,9 @@ public class MockNonEntityDaoModule extends KillBillModule {
 
     @Override
     protected void configure() {
+        final SearchConfig searchConfig = new ConfigurationObjectFactory(skifeConfigSource).build(SearchConfig.class);
+        bind(SearchConfig.class).toInstance(searchConfig);
+
         bind(NonEntityDao.class).to(MockNonEntityDao.class).asEagerSingleton();
         bind(MockNonEntityDao.class).asEagerSingleton();
     }
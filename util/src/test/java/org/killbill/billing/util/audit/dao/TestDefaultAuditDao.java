@@ -16,6 +16,7 @@
 
 package org.killbill.billing.util.audit.dao;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -91,6 +92,56 @@ public class TestDefaultAuditDao extends UtilTestSuiteWithEmbeddedDB {
         Assert.assertEquals(secondAuditLogs.get(1).getChangeType(), ChangeType.DELETE);
     }
 
+    @Test(groups = "slow", description = "Audited entity ids are resolved in chunks")
+    public void testAuditLogsForAccountWithChunkedIdResolution() throws Exception {
+        final int chunkSize = 3;
+        final DefaultAuditDao chunkedAuditDao = new DefaultAuditDao(dbi, roDbi, clock, cacheControllerDispatcher, nonEntityDao, internalCallContextFactory, chunkSize);
+
+        // No audit log
+        verifyTagAuditLogs(chunkedAuditDao, List.of());
+
+        // Exactly one chunk
+        final List<TagModelDao> tags = addTags(chunkSize);
+        verifyTagAuditLogs(chunkedAuditDao, tags);
+
+        // More than one chunk, the last one being partial
+        tags.addAll(addTags(chunkSize + 1));
+        verifyTagAuditLogs(chunkedAuditDao, tags);
+    }
+
+    private void verifyTagAuditLogs(final AuditDao auditDao, final List<TagModelDao> tags) {
+        final AccountAuditLogsForObjectType accountAuditLogsForObjectType = auditDao.getAuditLogsForAccountRecordId(TableName.TAG, AuditLevel.FULL, internalCallContext);
+        for (final TagModelDao curTag : tags) {
+            final List<AuditLog> auditLogsForTag = accountAuditLogsForObjectType.getAuditLogs(curTag.getId());
+            Assert.assertEquals(auditLogsForTag.size(), 1);
+            Assert.assertEquals(auditLogsForTag.get(0).getAuditedEntityId(), curTag.getId());
+            Assert.assertEquals(auditLogsForTag.get(0).getAuditedObjectType(), ObjectType.TAG);
+            Assert.assertEquals(auditLogsForTag.get(0).getChangeType(), ChangeType.INSERT);
+        }
+
+        // Audit logs whose entity id couldn't be resolved would be grouped under null
+        Assert.assertEquals(accountAuditLogsForObjectType.getAuditLogs(null).size(), 0);
+    }
+
+    private List<TagModelDao> addTags(final int nbTags) throws TagDefinitionApiException, TagApiException {
+        eventsListener.pushExpectedEvent(NextEvent.TAG_DEFINITION);
+        final TagDefinitionModelDao tagDefinition = tagDefinitionDao.create(UUID.randomUUID().toString().substring(0, 5),
+                                                                            UUID.randomUUID().toString().substring(0, 5),
+                                                                            ObjectType.ACCOUNT.name(),
+                                                                            internalCallContext);
+        assertListenerStatus();
+
+        final List<TagModelDao> tags = new ArrayList<TagModelDao>();
+        for (int i = 0; i < nbTags; i++) {
+            final UUID objectId = UUID.randomUUID();
+            eventsListener.pushExpectedEvent(NextEvent.TAG);
+            tagDao.create(new TagModelDao(new DescriptiveTag(tagDefinition.getId(), ObjectType.ACCOUNT, objectId, clock.getUTCNow())), internalCallContext);
+            assertListenerStatus();
+            tags.addAll(tagDao.getTagsForObject(objectId, ObjectType.ACCOUNT, false, internalCallContext));
+        }
+        return tags;
+    }
+
     private void addTag() throws TagDefinitionApiException, TagApiException {
         // Create a tag definition
         eventsListener.pushExpectedEvent(NextEvent.TAG_DEFINITION);
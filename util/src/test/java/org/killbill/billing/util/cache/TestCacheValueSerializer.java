@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.config.tenant.PerTenantConfig;
+import org.killbill.billing.util.glue.CompactCacheCodec;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.netty.buffer.ByteBuf;
+
+public class TestCacheValueSerializer extends UtilTestSuiteNoDB {
+
+    private final CacheValueSerializer serializer = new CacheValueSerializer(TestCacheValueSerializer.class.getClassLoader(), 1024);
+
+    @Test(groups = "fast")
+    public void testSimpleTypes() throws IOException {
+        checkRoundTrip(12345678L);
+        checkRoundTrip(28);
+        checkRoundTrip(UUID.randomUUID());
+        checkRoundTrip(Boolean.TRUE);
+        checkRoundTrip("");
+        checkRoundTrip("\u00dcnic\u00f6de \u20ac");
+        checkRoundTrip(BaseCacheLoader.EMPTY_VALUE_PLACEHOLDER);
+
+        // Header byte only for the type
+        Assert.assertEquals(serializer.serialize(12345678L).length, 1 + 8);
+        Assert.assertEquals(serializer.serialize(UUID.randomUUID()).length, 1 + 16);
+        Assert.assertTrue(serializer.serialize(12345678L).length < javaSerialize(12345678L).length);
+        Assert.assertTrue(serializer.serialize(UUID.randomUUID()).length < javaSerialize(UUID.randomUUID()).length);
+    }
+
+    @Test(groups = "fast")
+    public void testLargeString() throws IOException {
+        // Larger than what DataOutput#writeUTF supports
+        final StringBuilder catalogXml = new StringBuilder();
+        while (catalogXml.length() < 200_000) {
+            catalogXml.append("<plan name=\"standard-monthly\"><product>Standard</product></plan>\n");
+        }
+
+        final long nbCompressions = serializer.getNbCompressions();
+        final byte[] bytes = checkRoundTrip(catalogXml.toString());
+        Assert.assertEquals(serializer.getNbCompressions(), nbCompressions + 1);
+        Assert.assertTrue(bytes.length < catalogXml.length() / 10);
+    }
+
+    @Test(groups = "fast")
+    public void testExternalizable() throws IOException {
+        final PerTenantConfig perTenantConfig = new PerTenantConfig();
+        perTenantConfig.put("org.killbill.payment.retry.days", "8,8,8");
+        perTenantConfig.put("org.killbill.invoice.dryRunNotificationSchedule", "0s");
+        checkRoundTrip(perTenantConfig);
+
+        // No class descriptor for the value itself
+        Assert.assertTrue(serializer.serialize(perTenantConfig).length < javaSerialize(perTenantConfig).length);
+    }
+
+    @Test(groups = "fast")
+    public void testJavaSerializationFallback() throws IOException {
+        final Map<String, DateTime> map = new HashMap<String, DateTime>();
+        map.put("now", new DateTime(2023, 4, 1, 12, 0, 0, DateTimeZone.UTC));
+        checkRoundTrip(map);
+        checkRoundTrip(null);
+    }
+
+    @Test(groups = "fast")
+    public void testCompressionDisabled() throws IOException {
+        final CacheValueSerializer noCompressionSerializer = new CacheValueSerializer(TestCacheValueSerializer.class.getClassLoader(), -1);
+        final String value = new String(new char[10_000]).replace('\0', 'a');
+
+        final byte[] bytes = noCompressionSerializer.serialize(value);
+        Assert.assertEquals(bytes.length, 1 + 4 + 10_000);
+        Assert.assertEquals(noCompressionSerializer.deserialize(bytes), value);
+        Assert.assertEquals(noCompressionSerializer.getNbCompressions(), 0);
+        Assert.assertEquals(noCompressionSerializer.getUncompressedBytes(), noCompressionSerializer.getSerializedBytes());
+    }
+
+    @Test(groups = "fast")
+    public void testRedissonCodec() throws IOException {
+        final CompactCacheCodec codec = new CompactCacheCodec(serializer);
+        final CompactCacheCodec copy = new CompactCacheCodec(Thread.currentThread().getContextClassLoader(), codec);
+
+        final long nbDeserializations = codec.getSerializer().getNbDeserializations();
+        final UUID value = UUID.randomUUID();
+        final ByteBuf buf = codec.getValueEncoder().encode(value);
+        try {
+            Assert.assertEquals(copy.getValueDecoder().decode(buf, null), value);
+        } finally {
+            buf.release();
+        }
+
+        // Statistics are shared
+        Assert.assertEquals(codec.getSerializer().getNbDeserializations(), nbDeserializations + 1);
+    }
+
+    private byte[] checkRoundTrip(final Object value) throws IOException {
+        final long nbSerializations = serializer.getNbSerializations();
+        final long nbDeserializations = serializer.getNbDeserializations();
+
+        final byte[] bytes = serializer.serialize(value);
+        Assert.assertEquals(serializer.deserialize(bytes), value);
+
+        Assert.assertEquals(serializer.getNbSerializations(), nbSerializations + 1);
+        Assert.assertEquals(serializer.getNbDeserializations(), nbDeserializations + 1);
+        return bytes;
+    }
+
+    private static byte[] javaSerialize(final Object value) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(value);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestNearCacheController extends UtilTestSuiteNoDB {
+
+    private static final String CACHE_NAME = "near-cache-test";
+
+    private final AtomicInteger nbComputations = new AtomicInteger();
+
+    private CacheManager ehcacheManager;
+    private Cache<String, Long> ehcache;
+    private KillBillCacheController<String, Long> l2CacheController;
+
+    @BeforeMethod(groups = "fast")
+    public void setUp() {
+        if (hasFailed()) {
+            return;
+        }
+
+        nbComputations.set(0);
+        ehcacheManager = Caching.getCachingProvider("org.ehcache.jsr107.EhcacheCachingProvider").getCacheManager();
+        ehcacheManager.destroyCache(CACHE_NAME);
+        ehcache = ehcacheManager.createCache(CACHE_NAME, new MutableConfiguration<String, Long>().setTypes(String.class, Long.class));
+
+        final BaseCacheLoader<String, Long> baseCacheLoader = new BaseCacheLoader<String, Long>() {
+            @Override
+            public CacheType getCacheType() {
+                return CacheType.RECORD_ID;
+            }
+
+            @Override
+            public Long compute(final String key, final CacheLoaderArgument cacheLoaderArgument) {
+                nbComputations.incrementAndGet();
+                return Long.valueOf(key);
+            }
+        };
+        l2CacheController = new KillBillCacheController<String, Long>(ehcache, baseCacheLoader);
+    }
+
+    @AfterMethod(groups = "fast")
+    public void tearDown() {
+        if (hasFailed()) {
+            return;
+        }
+
+        ehcacheManager.destroyCache(CACHE_NAME);
+    }
+
+    @Test(groups = "fast")
+    public void testImmutableEntries() {
+        final NearCacheController<String, Long> nearCacheController = new NearCacheController<String, Long>(l2CacheController, 2, 0, clock);
+
+        Assert.assertEquals(nearCacheController.get("1", null), (Long) 1L);
+        Assert.assertEquals(nearCacheController.getNbMisses(), 1);
+        Assert.assertEquals(nbComputations.get(), 1);
+
+        // Served by the near cache, even if the L2 entry is gone (e.g. evicted)
+        ehcache.clear();
+        clock.addDays(1);
+        Assert.assertEquals(nearCacheController.get("1", null), (Long) 1L);
+        Assert.assertEquals(nearCacheController.getNbHits(), 1);
+        Assert.assertEquals(nbComputations.get(), 1);
+
+        // Size bounded: "1" is evicted
+        nearCacheController.get("2", null);
+        nearCacheController.get("3", null);
+        Assert.assertEquals(nearCacheController.getNearCacheSize(), 2);
+        Assert.assertEquals(nearCacheController.get("1", null), (Long) 1L);
+        Assert.assertEquals(nearCacheController.getNbMisses(), 4);
+        Assert.assertEquals(nbComputations.get(), 4);
+
+        // Removals are applied to both tiers
+        Assert.assertTrue(nearCacheController.remove("1"));
+        Assert.assertFalse(ehcache.containsKey("1"));
+        Assert.assertEquals(nearCacheController.get("1", null), (Long) 1L);
+        Assert.assertEquals(nbComputations.get(), 5);
+
+        nearCacheController.removeAll();
+        Assert.assertEquals(nearCacheController.getNearCacheSize(), 0);
+        Assert.assertEquals(nearCacheController.size(), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testMutableEntries() {
+        final NearCacheController<String, Long> nearCacheController = new NearCacheController<String, Long>(l2CacheController, 10, 1000, clock);
+
+        Assert.assertEquals(nearCacheController.get("1", null), (Long) 1L);
+        Assert.assertEquals(nearCacheController.get("1", null), (Long) 1L);
+        Assert.assertEquals(nearCacheController.getNbHits(), 1);
+        Assert.assertEquals(nearCacheController.getNbMisses(), 1);
+
+        // The entry expired in the near cache: served by the L2 cache
+        clock.addDeltaFromReality(2000);
+        Assert.assertEquals(nearCacheController.get("1", null), (Long) 1L);
+        Assert.assertEquals(nearCacheController.getNbHits(), 1);
+        Assert.assertEquals(nearCacheController.getNbMisses(), 2);
+        Assert.assertEquals(nbComputations.get(), 1);
+    }
+}
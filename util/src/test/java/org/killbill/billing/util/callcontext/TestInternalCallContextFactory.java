@@ -21,6 +21,7 @@ package org.killbill.billing.util.callcontext;
 import java.util.Date;
 import java.util.UUID;
 
+import org.joda.time.DateTimeZone;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.ImmutableAccountData;
 import org.killbill.billing.callcontext.InternalCallContext;
@@ -89,6 +90,25 @@ public class TestInternalCallContextFactory extends UtilTestSuiteWithEmbeddedDB
         // The account record id should have been looked up in the accounts table
         Assert.assertEquals(context.getAccountRecordId(), accountRecordId);
         verifyInternalCallContext(context);
+
+        // Time zone and reference time retrieved in the same query
+        Assert.assertEquals(context.getFixedOffsetTimeZone(), DateTimeZone.UTC);
+        Assert.assertNotNull(context.getReferenceLocalTime());
+        Mockito.verify(immutableAccountInternalApi, Mockito.never()).getImmutableAccountDataByRecordId(Mockito.<Long>eq(accountRecordId), Mockito.<InternalTenantContext>any());
+
+        // Subsequent contexts reuse the cached record ids, but the time zone and reference time go through the account API
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                handle.execute("delete from accounts where id = ?", accountId.toString());
+                return null;
+            }
+        });
+        Mockito.when(immutableAccountData.getFixedOffsetTimeZone()).thenReturn(DateTimeZone.forOffsetHours(-8));
+        final InternalTenantContext tenantContext = internalCallContextFactory.createInternalTenantContext(accountId, callContext);
+        Assert.assertEquals(tenantContext.getAccountRecordId(), accountRecordId);
+        Assert.assertEquals(tenantContext.getFixedOffsetTimeZone(), DateTimeZone.forOffsetHours(-8));
+        Mockito.verify(immutableAccountInternalApi).getImmutableAccountDataByRecordId(Mockito.<Long>eq(accountRecordId), Mockito.<InternalTenantContext>any());
     }
 
     private void verifyInternalCallContext(final InternalCallContext context) {
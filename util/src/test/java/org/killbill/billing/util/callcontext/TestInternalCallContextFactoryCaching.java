@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.callcontext;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.account.api.ImmutableAccountData;
+import org.killbill.billing.account.api.ImmutableAccountInternalApi;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
+import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.billing.util.cache.CacheLoaderArgument;
+import org.killbill.billing.util.dao.AccountContextMappings;
+import org.killbill.billing.util.dao.NonEntityDao;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestInternalCallContextFactoryCaching extends UtilTestSuiteNoDB {
+
+    private static final Long TENANT_RECORD_ID = 11L;
+    private static final Long ACCOUNT_RECORD_ID = 12L;
+
+    private ImmutableAccountInternalApi accountApi;
+    private NonEntityDao mockNonEntityDao;
+    private CacheController<String, Long> accountRecordIdCacheController;
+    private CacheController<String, Long> tenantRecordIdCacheController;
+    private InternalCallContextFactory factory;
+
+    @SuppressWarnings("unchecked")
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        if (hasFailed()) {
+            return;
+        }
+        super.beforeMethod();
+
+        accountApi = Mockito.mock(ImmutableAccountInternalApi.class);
+        final DateTime referenceTime = clock.getUTCNow();
+        final ImmutableAccountData immutableAccountData = Mockito.mock(ImmutableAccountData.class);
+        Mockito.when(immutableAccountData.getFixedOffsetTimeZone()).thenReturn(DateTimeZone.UTC);
+        Mockito.when(immutableAccountData.getReferenceTime()).thenReturn(referenceTime);
+        Mockito.when(accountApi.getImmutableAccountDataByRecordId(Mockito.<Long>eq(ACCOUNT_RECORD_ID), Mockito.<InternalTenantContext>any())).thenReturn(immutableAccountData);
+
+        mockNonEntityDao = Mockito.mock(NonEntityDao.class);
+        accountRecordIdCacheController = Mockito.mock(CacheController.class);
+        tenantRecordIdCacheController = Mockito.mock(CacheController.class);
+
+        final CacheControllerDispatcher dispatcher = Mockito.mock(CacheControllerDispatcher.class);
+        Mockito.when(dispatcher.getCacheController(CacheType.ACCOUNT_RECORD_ID)).thenReturn((CacheController) accountRecordIdCacheController);
+        Mockito.when(dispatcher.getCacheController(CacheType.TENANT_RECORD_ID)).thenReturn((CacheController) tenantRecordIdCacheController);
+
+        factory = new InternalCallContextFactory(accountApi, clock, mockNonEntityDao, dispatcher);
+    }
+
+    @Test(groups = "fast")
+    public void testCachedRecordIdsAreLookedUpOnce() throws Exception {
+        final UUID accountId = UUID.randomUUID();
+        Mockito.when(accountRecordIdCacheController.getIfPresent(accountId.toString())).thenReturn(ACCOUNT_RECORD_ID);
+        Mockito.when(tenantRecordIdCacheController.getIfPresent(accountId.toString())).thenReturn(TENANT_RECORD_ID);
+
+        final InternalTenantContext context = factory.createInternalTenantContext(accountId, new InternalTenantContext(TENANT_RECORD_ID));
+        Assert.assertEquals(context.getAccountRecordId(), ACCOUNT_RECORD_ID);
+        Assert.assertEquals(context.getTenantRecordId(), TENANT_RECORD_ID);
+        Assert.assertEquals(context.getFixedOffsetTimeZone(), DateTimeZone.UTC);
+
+        // One cache call per record id, no database round trip
+        Mockito.verify(accountRecordIdCacheController, Mockito.times(1)).getIfPresent(accountId.toString());
+        Mockito.verify(tenantRecordIdCacheController, Mockito.times(1)).getIfPresent(accountId.toString());
+        Mockito.verifyNoMoreInteractions(accountRecordIdCacheController, tenantRecordIdCacheController);
+        Mockito.verifyNoInteractions(mockNonEntityDao);
+        Mockito.verify(accountApi, Mockito.times(1)).getImmutableAccountDataByRecordId(Mockito.<Long>eq(ACCOUNT_RECORD_ID), Mockito.<InternalTenantContext>any());
+    }
+
+    @Test(groups = "fast")
+    public void testCacheMissFallsBackToSingleRoundTrip() throws Exception {
+        final UUID accountId = UUID.randomUUID();
+        final AccountContextMappings accountContextMappings = new AccountContextMappings(ACCOUNT_RECORD_ID, TENANT_RECORD_ID, DateTimeZone.UTC, clock.getUTCNow());
+        Mockito.when(mockNonEntityDao.retrieveAccountContextFromObject(accountId, ObjectType.ACCOUNT)).thenReturn(accountContextMappings);
+
+        final InternalTenantContext context = factory.createInternalTenantContext(accountId, new InternalTenantContext(TENANT_RECORD_ID));
+        Assert.assertEquals(context.getAccountRecordId(), ACCOUNT_RECORD_ID);
+        Assert.assertEquals(context.getTenantRecordId(), TENANT_RECORD_ID);
+
+        // The tenant record id cache isn't consulted when the account record id is missing
+        Mockito.verify(accountRecordIdCacheController, Mockito.times(1)).getIfPresent(accountId.toString());
+        Mockito.verify(tenantRecordIdCacheController, Mockito.never()).getIfPresent(Mockito.<String>any());
+        Mockito.verify(accountRecordIdCacheController, Mockito.never()).get(Mockito.<String>any(), Mockito.<CacheLoaderArgument>any());
+        Mockito.verify(tenantRecordIdCacheController, Mockito.never()).get(Mockito.<String>any(), Mockito.<CacheLoaderArgument>any());
+        Mockito.verify(mockNonEntityDao, Mockito.times(1)).retrieveAccountContextFromObject(accountId, ObjectType.ACCOUNT);
+        Mockito.verify(accountRecordIdCacheController).putIfAbsent(accountId.toString(), ACCOUNT_RECORD_ID);
+        Mockito.verify(tenantRecordIdCacheController).putIfAbsent(accountId.toString(), TENANT_RECORD_ID);
+        Mockito.verifyNoInteractions(accountApi);
+    }
+}
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.Date;
 import java.util.UUID;
 
+import org.joda.time.DateTimeZone;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
 import org.skife.jdbi.v2.Handle;
@@ -102,6 +103,41 @@ public class TestNonEntityDao extends UtilTestSuiteWithEmbeddedDB {
         Assert.assertEquals(resultTenantRecordId, tenantRecordId);
     }
 
+    @Test(groups = "slow")
+    public void testRetrieveAccountContextFromAccountObject() throws IOException {
+        accountRecordId = generateAccountRecordId(accountId);
+
+        final AccountContextMappings accountContextMappings = nonEntityDao.retrieveAccountContextFromObject(accountId, ObjectType.ACCOUNT);
+        Assert.assertEquals(accountContextMappings.getAccountRecordId(), accountRecordId);
+        Assert.assertEquals(accountContextMappings.getTenantRecordId(), tenantRecordId);
+        Assert.assertEquals(accountContextMappings.getTimeZone(), DateTimeZone.UTC);
+        Assert.assertNotNull(accountContextMappings.getReferenceTime());
+    }
+
+    @Test(groups = "slow")
+    public void testRetrieveAccountContextFromOtherObject() throws IOException {
+        accountRecordId = generateAccountRecordId(accountId);
+        insertTag();
+
+        final AccountContextMappings accountContextMappings = nonEntityDao.retrieveAccountContextFromObject(tagId, ObjectType.TAG);
+        Assert.assertEquals(accountContextMappings.getAccountRecordId(), accountRecordId);
+        Assert.assertEquals(accountContextMappings.getTenantRecordId(), (Long) 0L);
+        Assert.assertEquals(accountContextMappings.getTimeZone(), DateTimeZone.UTC);
+        Assert.assertNotNull(accountContextMappings.getReferenceTime());
+    }
+
+    @Test(groups = "slow")
+    public void testRetrieveAccountContextFromTagDefinitionObject() throws IOException {
+        insertTagDefinition();
+
+        final AccountContextMappings accountContextMappings = nonEntityDao.retrieveAccountContextFromObject(tagDefinitionId, ObjectType.TAG_DEFINITION);
+        Assert.assertNull(accountContextMappings.getAccountRecordId());
+        Assert.assertEquals(accountContextMappings.getTenantRecordId(), (Long) 0L);
+        Assert.assertNull(accountContextMappings.getTimeZone());
+
+        Assert.assertNull(nonEntityDao.retrieveAccountContextFromObject(UUID.randomUUID(), ObjectType.TAG_DEFINITION));
+    }
+
     private void insertTagDefinition() throws IOException {
         dbi.withHandle(new HandleCallback<Long>() {
             @Override
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.dao;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.Update;
+import org.skife.jdbi.v2.tweak.HandleCallback;
+import org.skife.jdbi.v2.util.LongMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestSearchTokenSqlDao extends UtilTestSuiteWithEmbeddedDB {
+
+    @Test(groups = "slow")
+    public void testRefreshOnlyRewritesChangedRecords() throws Exception {
+        final UUID accountId = UUID.randomUUID();
+        final Long accountRecordId = dbi.withHandle(new HandleCallback<Long>() {
+            @Override
+            public Long withHandle(final Handle handle) throws Exception {
+                final Update stmt = handle.createStatement("insert into accounts (id, external_key, email, name, first_name_length, reference_time, time_zone, created_date, created_by, updated_date, updated_by, tenant_record_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                final Object[] args = {accountId.toString(), "ext-key", "jd@example.com", "John Doe", 4, new Date(), "UTC", new Date(), "i", new Date(), "j", internalCallContext.getTenantRecordId()};
+                for (int i = 0; i < args.length; i++) {
+                    stmt.bind(i, args[i]);
+                }
+                return stmt.executeAndReturnGeneratedKeys(new LongMapper(), "record_id").first();
+            }
+        });
+
+        Assert.assertEquals(refresh(accountRecordId, true), 1);
+        final Map<String, Long> createdTokens = getTokens(accountRecordId);
+        Assert.assertEquals(createdTokens.keySet(), SearchTokens.tokenize(List.of("John Doe", "jd@example.com", "ext-key")));
+
+        // Non searchable column: the tokens aren't re-written
+        execute("update accounts set phone = '555-1234' where record_id = " + accountRecordId);
+        Assert.assertEquals(refresh(accountRecordId, false), 0);
+        Assert.assertEquals(getTokens(accountRecordId), createdTokens);
+
+        // Searchable column
+        execute("update accounts set name = 'Jane Doe' where record_id = " + accountRecordId);
+        Assert.assertEquals(refresh(accountRecordId, false), 1);
+        final Map<String, Long> updatedTokens = getTokens(accountRecordId);
+        Assert.assertEquals(updatedTokens.keySet(), SearchTokens.tokenize(List.of("Jane Doe", "jd@example.com", "ext-key")));
+        Assert.assertTrue(updatedTokens.containsKey("jan"));
+        Assert.assertFalse(updatedTokens.containsKey("joh"));
+    }
+
+    private int refresh(final Long accountRecordId, final boolean newRecords) {
+        return dbi.withHandle(new HandleCallback<Integer>() {
+            @Override
+            public Integer withHandle(final Handle handle) throws Exception {
+                return SearchTokens.refresh(handle.attach(SearchTokenSqlDao.class), TableName.ACCOUNT, List.of(accountRecordId), newRecords, internalCallContext);
+            }
+        });
+    }
+
+    // Token -> search_tokens record_id
+    private Map<String, Long> getTokens(final Long accountRecordId) {
+        return dbi.withHandle(new HandleCallback<Map<String, Long>>() {
+            @Override
+            public Map<String, Long> withHandle(final Handle handle) throws Exception {
+                final Map<String, Long> tokens = new HashMap<String, Long>();
+                for (final Map<String, Object> row : handle.createQuery("select record_id, token from search_tokens where table_name = 'accounts' and target_record_id = :targetRecordId")
+                                                           .bind("targetRecordId", accountRecordId)
+                                                           .list()) {
+                    tokens.put((String) row.get("token"), ((Number) row.get("record_id")).longValue());
+                }
+                return tokens;
+            }
+        });
+    }
+
+    private void execute(final String sql) {
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                handle.execute(sql);
+                return null;
+            }
+        });
+    }
+}
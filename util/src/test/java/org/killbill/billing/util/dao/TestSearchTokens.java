@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.dao;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestSearchTokens extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testTokenize() {
+        final Set<String> tokens = SearchTokens.tokenize(Arrays.asList("John Doe", null, "JD@example.com", "Moe", "ab"));
+        Assert.assertTrue(tokens.contains("joh"));
+        Assert.assertTrue(tokens.contains("doe"));
+        Assert.assertTrue(tokens.contains("jd@"));
+        Assert.assertTrue(tokens.contains("com"));
+        Assert.assertTrue(tokens.contains("moe"));
+        for (final String token : tokens) {
+            Assert.assertEquals(token.length(), SearchTokens.TOKEN_LENGTH);
+        }
+        // 'ab' is too short to have any trigram
+        Assert.assertEquals(tokens.size(), ("john doe".length() - 2) + ("jd@example.com".length() - 2) + 1);
+    }
+
+    @Test(groups = "fast")
+    public void testTokenizeIsCapped() {
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            value.append(Integer.toHexString(i));
+        }
+
+        // Too many distinct trigrams: the row is only indexed with the overflow token
+        Assert.assertEquals(SearchTokens.tokenize(Arrays.asList(value.toString())), Set.of(SearchTokens.OVERFLOW_TOKEN));
+
+        // Long values with few distinct trigrams are still indexed
+        final Set<String> tokens = SearchTokens.tokenize(Arrays.asList("abc".repeat(1000)));
+        Assert.assertEquals(tokens, Set.of("abc", "bca", "cab"));
+    }
+
+    @Test(groups = "fast")
+    public void testTokenSearchKeyMatchesAllSubstrings() {
+        final String value = "Killbill Payment Key-123";
+        final Set<String> tokens = SearchTokens.tokenize(Arrays.asList(value));
+
+        // Every substring of the value (i.e. a like '%searchKey%' match) has its token indexed
+        for (int start = 0; start < value.length(); start++) {
+            for (int end = start + SearchTokens.MIN_SEARCH_KEY_LENGTH; end <= value.length(); end++) {
+                final String tokenSearchKey = SearchTokens.buildTokenSearchKey(value.substring(start, end));
+                Assert.assertNotNull(tokenSearchKey);
+                Assert.assertTrue(tokens.contains(tokenSearchKey), tokenSearchKey);
+            }
+        }
+        Assert.assertEquals(SearchTokens.buildTokenSearchKey("KEY-1"), "key");
+    }
+
+    @Test(groups = "fast")
+    public void testTokenSearchKeyFallbacks() {
+        // Too short, the index isn't used
+        Assert.assertNull(SearchTokens.buildTokenSearchKey(null));
+        Assert.assertNull(SearchTokens.buildTokenSearchKey("ab"));
+        // Wildcard matches could be spread across the value
+        Assert.assertNull(SearchTokens.buildTokenSearchKey("foo%bar"));
+
+        // Characters interpreted by the like clause are skipped
+        Assert.assertEquals(SearchTokens.buildTokenSearchKey("A_BC\\_DEF"), "def");
+        Assert.assertNull(SearchTokens.buildTokenSearchKey("ab_cd_ef"));
+    }
+}
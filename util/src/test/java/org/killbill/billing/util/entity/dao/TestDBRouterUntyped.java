@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.entity.dao;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.entity.dao.DBRouterUntyped.THREAD_STATE;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestDBRouterUntyped extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testThreadStatePropagatedToExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Callable<THREAD_STATE> getState = new Callable<THREAD_STATE>() {
+                @Override
+                public THREAD_STATE call() {
+                    return DBRouterUntyped.getCurrentState();
+                }
+            };
+
+            // Default state of the executor thread
+            Assert.assertEquals(executor.submit(getState).get(), THREAD_STATE.RW_ONLY);
+
+            final Callable<THREAD_STATE> propagated = DBRouterUntyped.withThreadState(THREAD_STATE.RO_ALLOWED, new Callable<Callable<THREAD_STATE>>() {
+                @Override
+                public Callable<THREAD_STATE> call() {
+                    return DBRouterUntyped.withCurrentThreadState(getState);
+                }
+            });
+            Assert.assertEquals(DBRouterUntyped.getCurrentState(), THREAD_STATE.RW_ONLY);
+            Assert.assertEquals(executor.submit(propagated).get(), THREAD_STATE.RO_ALLOWED);
+
+            // The executor thread is restored afterwards
+            Assert.assertEquals(executor.submit(getState).get(), THREAD_STATE.RW_ONLY);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020-2021 Equinix, Inc
+ * Copyright 2014-2021 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.optimizer;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.events.BusInternalEvent.BusInternalEventType;
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.config.definition.EventConfig;
+import org.killbill.billing.util.config.tenant.CacheConfig;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBusDispatcherOptimizerOn extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    @SuppressWarnings("unchecked")
+    public void testSnapshotIsReusedUntilInvalidation() {
+        final EventConfig eventConfig = Mockito.mock(EventConfig.class);
+        Mockito.when(eventConfig.getSkipDispatchBusEventTypeList(Mockito.any(InternalTenantContext.class)))
+               .thenReturn(List.of(BusInternalEventType.ACCOUNT_CHANGE))
+               .thenReturn(List.of());
+        final CacheConfig cacheConfig = Mockito.mock(CacheConfig.class);
+
+        final BusDispatcherOptimizerOn optimizer = new BusDispatcherOptimizerOn(eventConfig, cacheConfig);
+
+        final ArgumentCaptor<Consumer<Long>> listenerCaptor = ArgumentCaptor.forClass(Consumer.class);
+        Mockito.verify(cacheConfig).addPerTenantConfigInvalidationListener(listenerCaptor.capture());
+
+        Assert.assertFalse(optimizer.shouldDispatch(BusInternalEventType.ACCOUNT_CHANGE, 12L));
+        Assert.assertTrue(optimizer.shouldDispatch(BusInternalEventType.ACCOUNT_CREATE, 12L));
+        Assert.assertFalse(optimizer.shouldDispatch(BusInternalEventType.ACCOUNT_CHANGE, 12L));
+        Mockito.verify(eventConfig, Mockito.times(1)).getSkipDispatchBusEventTypeList(Mockito.any(InternalTenantContext.class));
+
+        // Per-tenant config update
+        listenerCaptor.getValue().accept(12L);
+
+        Assert.assertTrue(optimizer.shouldDispatch(BusInternalEventType.ACCOUNT_CHANGE, 12L));
+        Mockito.verify(eventConfig, Mockito.times(2)).getSkipDispatchBusEventTypeList(Mockito.any(InternalTenantContext.class));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020-2023 Equinix, Inc
+ * Copyright 2014-2023 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.security.shiro;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.shiro.authc.SimpleAuthenticationInfo;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.crypto.SecureRandomNumberGenerator;
+import org.apache.shiro.crypto.hash.SimpleHash;
+import org.apache.shiro.util.ByteSource;
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestCachingHashedCredentialsMatcher extends UtilTestSuiteNoDB {
+
+    private static final int NB_HASH_ITERATIONS = 10;
+
+    @Test(groups = "fast")
+    public void testCachedVerification() {
+        final CachingHashedCredentialsMatcher matcher = createMatcher(TimeUnit.MINUTES.toMillis(10));
+        final SimpleAuthenticationInfo info = createAuthenticationInfo("bob", "secret");
+
+        Assert.assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "secret"), info));
+        Assert.assertEquals(matcher.getNbHashes(), 1);
+        Assert.assertEquals(matcher.getNbMisses(), 1);
+
+        // No hashing the second time around
+        Assert.assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "secret"), info));
+        Assert.assertEquals(matcher.getNbHashes(), 1);
+        Assert.assertEquals(matcher.getNbHits(), 1);
+
+        // Wrong password is never served from the cache
+        Assert.assertFalse(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "wrong"), info));
+        Assert.assertEquals(matcher.getNbHashes(), 2);
+
+        // Failed attempt evicted the entry
+        Assert.assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "secret"), info));
+        Assert.assertEquals(matcher.getNbHashes(), 3);
+    }
+
+    @Test(groups = "fast")
+    public void testInvalidation() {
+        final CachingHashedCredentialsMatcher matcher = createMatcher(TimeUnit.MINUTES.toMillis(10));
+        final SimpleAuthenticationInfo info = createAuthenticationInfo("bob", "secret");
+
+        Assert.assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "secret"), info));
+        Assert.assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "secret"), info));
+        Assert.assertEquals(matcher.getNbHashes(), 1);
+
+        matcher.invalidate("bob");
+        Assert.assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "secret"), info));
+        Assert.assertEquals(matcher.getNbHashes(), 2);
+
+        matcher.invalidateAll();
+        Assert.assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "secret"), info));
+        Assert.assertEquals(matcher.getNbHashes(), 3);
+    }
+
+    @Test(groups = "fast")
+    public void testPasswordChange() {
+        final CachingHashedCredentialsMatcher matcher = createMatcher(TimeUnit.MINUTES.toMillis(10));
+
+        Assert.assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "secret"), createAuthenticationInfo("bob", "secret")));
+
+        // Stored credentials changed (e.g. updated on another node): the old password must not be accepted anymore
+        final SimpleAuthenticationInfo updatedInfo = createAuthenticationInfo("bob", "newSecret");
+        Assert.assertFalse(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "secret"), updatedInfo));
+        Assert.assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "newSecret"), updatedInfo));
+        Assert.assertEquals(matcher.getNbHashes(), 3);
+    }
+
+    @Test(groups = "fast")
+    public void testExpiration() {
+        final CachingHashedCredentialsMatcher matcher = createMatcher(0);
+        final SimpleAuthenticationInfo info = createAuthenticationInfo("bob", "secret");
+
+        Assert.assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "secret"), info));
+        Assert.assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("bob", "secret"), info));
+        Assert.assertEquals(matcher.getNbHashes(), 2);
+        Assert.assertEquals(matcher.getNbHits(), 0);
+    }
+
+    private CachingHashedCredentialsMatcher createMatcher(final long ttlMillis) {
+        final CachingHashedCredentialsMatcher matcher = new CachingHashedCredentialsMatcher(KillbillCredentialsMatcher.HASH_ALGORITHM_NAME, 100, ttlMillis, TimeUnit.MILLISECONDS);
+        matcher.setStoredCredentialsHexEncoded(false);
+        matcher.setHashIterations(NB_HASH_ITERATIONS);
+        return matcher;
+    }
+
+    private SimpleAuthenticationInfo createAuthenticationInfo(final String username, final String password) {
+        final ByteSource salt = new SecureRandomNumberGenerator().nextBytes();
+        final String hashedPasswordBase64 = new SimpleHash(KillbillCredentialsMatcher.HASH_ALGORITHM_NAME, password, salt.toBase64(), NB_HASH_ITERATIONS).toBase64();
+        return new SimpleAuthenticationInfo(username, hashedPasswordBase64.toCharArray(), ByteSource.Util.bytes(salt.toBase64()), "test");
+    }
+}
@@ -19,10 +19,17 @@ package org.killbill.billing.util.security.shiro.dao;
 
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 
 import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.SimpleSession;
 import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.config.definition.RbacConfig;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
 import org.skife.jdbi.v2.IDBI;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -57,4 +64,61 @@ public class TestJDBCSessionDaoUnit extends UtilTestSuiteNoDB {
         Assert.assertTrue(jdbcSessionDao.shouldUpdateSession(b));
         Assert.assertFalse(jdbcSessionDao.shouldUpdateSession(c));
     }
+
+    @SuppressWarnings("unchecked")
+    @Test(groups = "fast")
+    public void testWriteBehindCoalescesTouches() {
+        final IDBI idbi = Mockito.mock(IDBI.class);
+        final JDBCSessionSqlDao sqlDao = Mockito.mock(JDBCSessionSqlDao.class);
+        Mockito.when(idbi.onDemand(JDBCSessionSqlDao.class)).thenReturn(sqlDao);
+
+        final RbacConfig rbacConfig = Mockito.mock(RbacConfig.class);
+        Mockito.when(rbacConfig.isSessionWriteBehindEnabled()).thenReturn(true);
+        // Flushes are triggered manually
+        Mockito.when(rbacConfig.getSessionWriteBehindFlushInterval()).thenReturn(new TimeSpan("1h"));
+        Mockito.when(rbacConfig.getSessionWriteBehindMaxPending()).thenReturn(100);
+
+        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao(idbi, idbi, rbacConfig, null);
+        try {
+            final SimpleSession session = new SimpleSession("127.0.0.1");
+            jdbcSessionDao.doCreate(session);
+            Mockito.verify(sqlDao, Mockito.times(1)).create(Mockito.any(SessionModelDao.class));
+
+            // Touches are coalesced
+            for (int i = 1; i <= 3; i++) {
+                session.setLastAccessTime(new Date(session.getStartTimestamp().getTime() + i * 1000L));
+                jdbcSessionDao.doUpdate(session);
+            }
+            Mockito.verify(sqlDao, Mockito.never()).update(Mockito.any(SessionModelDao.class));
+            Assert.assertEquals(jdbcSessionDao.pendingTouches.size(), 1);
+
+            // The pending touch is more recent than the database
+            Assert.assertEquals(jdbcSessionDao.doReadSession(session.getId()).getLastAccessTime(), session.getLastAccessTime());
+
+            jdbcSessionDao.flushPendingTouches();
+            final ArgumentCaptor<Iterable<SessionModelDao>> flushed = ArgumentCaptor.forClass(Iterable.class);
+            Mockito.verify(sqlDao, Mockito.times(1)).updateLastAccessTime(flushed.capture());
+            final List<SessionModelDao> flushedSessions = new ArrayList<SessionModelDao>();
+            flushed.getValue().forEach(flushedSessions::add);
+            Assert.assertEquals(flushedSessions.size(), 1);
+            Assert.assertEquals(flushedSessions.get(0).getLastAccessTime().toDate(), session.getLastAccessTime());
+            Assert.assertTrue(jdbcSessionDao.pendingTouches.isEmpty());
+
+            // Attributes changes are written through
+            session.setAttribute("foo", "bar");
+            jdbcSessionDao.doUpdate(session);
+            Mockito.verify(sqlDao, Mockito.times(1)).update(Mockito.any(SessionModelDao.class));
+            Assert.assertTrue(jdbcSessionDao.pendingTouches.isEmpty());
+
+            // Pending touches are dropped on delete
+            session.setLastAccessTime(new Date(session.getLastAccessTime().getTime() + 1000L));
+            jdbcSessionDao.doUpdate(session);
+            Assert.assertEquals(jdbcSessionDao.pendingTouches.size(), 1);
+            jdbcSessionDao.doDelete(session);
+            Assert.assertTrue(jdbcSessionDao.pendingTouches.isEmpty());
+        } finally {
+            jdbcSessionDao.shutdown();
+        }
+        Mockito.verify(sqlDao, Mockito.times(1)).updateLastAccessTime(Mockito.any());
+    }
 }